@@ -0,0 +1,147 @@
+package com.scorppultd.blackeyevalkyriesystem.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.scorppultd.blackeyevalkyriesystem.dto.DeviceVitalsReadingDTO;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsIngestionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * REST Controller for vital signs readings sent by bedside monitors and other devices.
+ * Readings are accepted in batches, either as a JSON array or as newline-delimited JSON,
+ * and written to the vitals history shortly after the request returns. Bodies are read one
+ * reading at a time, so a batch over the size limit is refused with 413 without being read whole.
+ * When the ingestion buffer is full the request is refused with 429 and the device should
+ * resend the batch after the Retry-After delay.
+ * <p>
+ * Access is restricted to users with ADMIN or NURSE roles.
+ */
+@RestController
+@RequestMapping("/api/devices")
+@PreAuthorize("hasAnyRole('ADMIN', 'NURSE')")
+public class DeviceVitalsApiController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final VitalsIngestionService vitalsIngestionService;
+    private final ObjectReader readingReader;
+
+    /**
+     * Constructs a DeviceVitalsApiController with the required service.
+     *
+     * @param vitalsIngestionService Service buffering and writing the readings
+     * @param objectMapper Mapper used to read the readings from the request body
+     */
+    @Autowired
+    public DeviceVitalsApiController(VitalsIngestionService vitalsIngestionService, ObjectMapper objectMapper) {
+        this.vitalsIngestionService = vitalsIngestionService;
+        this.readingReader = objectMapper.readerFor(DeviceVitalsReadingDTO.class);
+    }
+
+    /**
+     * Accepts a batch of readings sent as a JSON array. The array is read one reading at a time,
+     * and reading stops as soon as the batch exceeds the size limit.
+     *
+     * @param request The HTTP request whose body holds the readings
+     * @return ResponseEntity with 202 and the number of accepted readings, 400 for invalid readings,
+     *         413 if the batch is too large, or 429 if the buffer is full
+     */
+    @PostMapping(value = "/vitals", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> ingestVitals(HttpServletRequest request) {
+        int maxReadings = vitalsIngestionService.getMaxReadingsPerRequest();
+        List<DeviceVitalsReadingDTO> readings = new ArrayList<>();
+        try (JsonParser parser = readingReader.createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return badRequest("Readings must be sent as a JSON array");
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    return badRequest("Readings array is not closed after reading " + readings.size());
+                }
+                if (readings.size() == maxReadings) {
+                    return tooManyReadings(maxReadings);
+                }
+                readings.add(readingReader.readValue(parser));
+            }
+        } catch (IOException e) {
+            return badRequest("Malformed reading after reading " + readings.size() + ": " + e.getMessage());
+        }
+        return submit(readings);
+    }
+
+    /**
+     * Accepts a batch of readings sent as newline-delimited JSON, one reading per line.
+     * Reading stops as soon as the batch exceeds the size limit.
+     *
+     * @param request The HTTP request whose body holds the readings
+     * @return ResponseEntity with 202 and the number of accepted readings, 400 for invalid readings,
+     *         413 if the batch is too large, or 429 if the buffer is full
+     */
+    @PostMapping(value = "/vitals", consumes = NDJSON)
+    public ResponseEntity<?> ingestVitalsStream(HttpServletRequest request) {
+        int maxReadings = vitalsIngestionService.getMaxReadingsPerRequest();
+        List<DeviceVitalsReadingDTO> readings = new ArrayList<>();
+        try (MappingIterator<DeviceVitalsReadingDTO> lines = readingReader.readValues(request.getInputStream())) {
+            while (lines.hasNextValue()) {
+                if (readings.size() == maxReadings) {
+                    return tooManyReadings(maxReadings);
+                }
+                readings.add(lines.nextValue());
+            }
+        } catch (IOException e) {
+            return badRequest("Malformed reading after line " + readings.size() + ": " + e.getMessage());
+        }
+        return submit(readings);
+    }
+
+    private ResponseEntity<?> tooManyReadings(int maxReadings) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of(
+            "success", false,
+            "message", "At most " + maxReadings + " readings can be sent at once"
+        ));
+    }
+
+    private ResponseEntity<?> badRequest(String message) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "success", false,
+            "message", message
+        ));
+    }
+
+    private ResponseEntity<?> submit(List<DeviceVitalsReadingDTO> readings) {
+        try {
+            if (!vitalsIngestionService.submit(readings)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                        .body(Map.of(
+                            "success", false,
+                            "message", "Vitals ingestion is busy. Please resend the readings later."
+                        ));
+            }
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+            "success", true,
+            "accepted", readings != null ? readings.size() : 0
+        ));
+    }
+}
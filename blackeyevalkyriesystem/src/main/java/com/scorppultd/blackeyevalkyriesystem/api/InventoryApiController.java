@@ -0,0 +1,107 @@
+package com.scorppultd.blackeyevalkyriesystem.api;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.StockLevelDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.StockMovement;
+import com.scorppultd.blackeyevalkyriesystem.service.InventoryService;
+
+/**
+ * REST Controller for dispensary inventory.
+ * Provides endpoints to record received stock, read stock levels and the movement ledger,
+ * and list drugs that are running low.
+ * <p>
+ * Access is restricted to users with ADMIN, PHARMACIST, or NURSE roles.
+ */
+@RestController
+@RequestMapping("/api/inventory")
+@PreAuthorize("hasAnyRole('ADMIN', 'PHARMACIST', 'NURSE')")
+public class InventoryApiController {
+
+    private final InventoryService inventoryService;
+
+    /**
+     * Constructs an InventoryApiController with the required service.
+     *
+     * @param inventoryService Service for dispensary stock operations
+     */
+    @Autowired
+    public InventoryApiController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Gets the current stock level of a drug.
+     *
+     * @param drugId The ID of the drug
+     * @return ResponseEntity containing the stock level
+     */
+    @GetMapping("/{drugId}")
+    public ResponseEntity<StockLevelDTO> getStockLevel(@PathVariable String drugId) {
+        return ResponseEntity.ok(inventoryService.getStockLevel(drugId));
+    }
+
+    /**
+     * Records a receipt of stock for a drug.
+     *
+     * @param drugId The ID of the drug
+     * @param request JSON object containing the received quantity
+     * @param principal The user recording the receipt
+     * @return ResponseEntity containing the stock level after the receipt, or an error message
+     */
+    @PostMapping("/{drugId}/receive")
+    public ResponseEntity<?> receiveStock(@PathVariable String drugId,
+                                          @RequestBody Map<String, Integer> request,
+                                          Principal principal) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "No quantity provided"
+            ));
+        }
+
+        try {
+            String performedBy = principal != null ? principal.getName() : null;
+            return ResponseEntity.ok(inventoryService.receiveStock(drugId, quantity, performedBy));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Gets the most recent ledger entries of a drug.
+     *
+     * @param drugId The ID of the drug
+     * @param limit The maximum number of entries to return (default 50)
+     * @return ResponseEntity containing the movements, newest first
+     */
+    @GetMapping("/{drugId}/movements")
+    public ResponseEntity<List<StockMovement>> getMovements(@PathVariable String drugId,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(inventoryService.getMovements(drugId, limit));
+    }
+
+    /**
+     * Lists drugs whose available stock is at or below a threshold.
+     *
+     * @param threshold The available-units threshold; the configured default is used when omitted
+     * @return ResponseEntity containing the stock levels, lowest first
+     */
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<StockLevelDTO>> getLowStock(@RequestParam(required = false) Integer threshold) {
+        return ResponseEntity.ok(threshold != null
+                ? inventoryService.getLowStock(threshold)
+                : inventoryService.getLowStock());
+    }
+}
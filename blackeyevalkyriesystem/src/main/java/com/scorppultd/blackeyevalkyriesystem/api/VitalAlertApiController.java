@@ -0,0 +1,74 @@
+package com.scorppultd.blackeyevalkyriesystem.api;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalAlertService;
+
+/**
+ * REST Controller for abnormal-vitals alerts.
+ * Lets ward screens poll the open alerts and acknowledge them.
+ * <p>
+ * Access is restricted to users with ADMIN, DOCTOR, or NURSE roles.
+ */
+@RestController
+@RequestMapping("/api/vital-alerts")
+@PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'NURSE')")
+public class VitalAlertApiController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final VitalAlertService vitalAlertService;
+
+    /**
+     * Constructs a VitalAlertApiController with the required service.
+     *
+     * @param vitalAlertService Service for the vitals alerts
+     */
+    @Autowired
+    public VitalAlertApiController(VitalAlertService vitalAlertService) {
+        this.vitalAlertService = vitalAlertService;
+    }
+
+    /**
+     * Gets the open alerts, newest first, or the recent alerts of one patient.
+     *
+     * @param patientId The ID of the patient (optional); if given, acknowledged alerts are included
+     * @param limit The maximum number of alerts to return (default 50)
+     * @return ResponseEntity containing the alerts
+     */
+    @GetMapping
+    public ResponseEntity<List<VitalAlert>> getAlerts(@RequestParam(required = false) String patientId,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        int boundedLimit = Math.min(limit, MAX_LIMIT);
+        if (patientId != null) {
+            return ResponseEntity.ok(vitalAlertService.getPatientAlerts(patientId, boundedLimit));
+        }
+        return ResponseEntity.ok(vitalAlertService.getOpenAlerts(boundedLimit));
+    }
+
+    /**
+     * Acknowledges an alert.
+     *
+     * @param id The ID of the alert
+     * @param principal The user acknowledging the alert
+     * @return ResponseEntity containing the acknowledged alert, or 404 if not found
+     */
+    @PostMapping("/{id}/acknowledge")
+    public ResponseEntity<?> acknowledge(@PathVariable String id, Principal principal) {
+        return vitalAlertService.acknowledge(id, principal.getName())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "message", "Alert not found with id: " + id
+                )));
+    }
+}
@@ -0,0 +1,66 @@
+package com.scorppultd.blackeyevalkyriesystem.api;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsService;
+
+/**
+ * REST Controller for the vital sign history of patients.
+ * Serves the history charts of the consultation page.
+ * <p>
+ * Access is restricted to users with ADMIN, DOCTOR, or NURSE roles.
+ */
+@RestController
+@RequestMapping("/api/patient")
+@PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'NURSE')")
+public class VitalsApiController {
+
+    private static final int MAX_POINTS_LIMIT = 1000;
+
+    private final VitalsService vitalsService;
+
+    /**
+     * Constructs a VitalsApiController with the required service.
+     *
+     * @param vitalsService Service for the vitals history
+     */
+    @Autowired
+    public VitalsApiController(VitalsService vitalsService) {
+        this.vitalsService = vitalsService;
+    }
+
+    /**
+     * Gets the history of one vital sign of a patient, oldest first.
+     * Long ranges are summarised per time bucket (min, max and average) on the server.
+     *
+     * @param patientId The ID of the patient
+     * @param type The vital sign, e.g. height, weight, systolic or heartRate
+     * @param from The first day of the range (optional)
+     * @param to The last day of the range (optional)
+     * @param maxPoints The maximum number of points to return (default 200)
+     * @return ResponseEntity containing the history points, or an error message for an unknown type
+     */
+    @GetMapping("/{patientId}/vitals-history")
+    public ResponseEntity<?> getVitalsHistory(@PathVariable String patientId,
+                                              @RequestParam String type,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                              @RequestParam(defaultValue = "200") int maxPoints) {
+        try {
+            return ResponseEntity.ok(vitalsService.getHistory(patientId, type, from, to,
+                    Math.min(maxPoints, MAX_POINTS_LIMIT)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-client token bucket limiter for public endpoints.
+ * Each client starts with a full bucket of {@code capacity} tokens, every request takes one token,
+ * and tokens are refilled continuously at {@code refillPerMinute}. A request finding the bucket
+ * empty is rejected. Buckets of clients that have been idle long enough to refill completely
+ * carry no state worth keeping and are dropped periodically.
+ */
+@Component
+public class ClientRateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final double capacity;
+    private final double refillPerMilli;
+    private final Counter rejected;
+
+    /**
+     * Constructs a ClientRateLimiter with the configured bucket size and refill rate.
+     *
+     * @param capacity Maximum number of requests a client can burst
+     * @param refillPerMinute Number of tokens a client regains per minute
+     * @param meterRegistry Registry for the rejected-request counter
+     */
+    public ClientRateLimiter(@Value("${rate-limit.public.capacity:20}") int capacity,
+                             @Value("${rate-limit.public.refill-per-minute:30}") int refillPerMinute,
+                             MeterRegistry meterRegistry) {
+        this.capacity = Math.max(1, capacity);
+        this.refillPerMilli = Math.max(1, refillPerMinute) / 60_000.0;
+        this.rejected = meterRegistry.counter("rate_limit.rejected");
+    }
+
+    /**
+     * Takes one token from the client's bucket.
+     *
+     * @param clientId Identifier of the client, e.g. its remote address
+     * @return true if the request may proceed, false if the client has exhausted its bucket
+     */
+    public boolean tryAcquire(String clientId) {
+        long now = System.currentTimeMillis();
+        boolean allowed = buckets.computeIfAbsent(clientId, id -> new Bucket(capacity, now))
+                .tryTake(capacity, refillPerMilli, now);
+        if (!allowed) {
+            rejected.increment();
+        }
+        return allowed;
+    }
+
+    /**
+     * Drops the buckets of clients that would be full again by now.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(bucket -> bucket.isFull(capacity, refillPerMilli, now));
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillMillis;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefillMillis = now;
+        }
+
+        private synchronized boolean tryTake(double capacity, double refillPerMilli, long now) {
+            refill(capacity, refillPerMilli, now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized boolean isFull(double capacity, double refillPerMilli, long now) {
+            refill(capacity, refillPerMilli, now);
+            return tokens >= capacity;
+        }
+
+        private void refill(double capacity, double refillPerMilli, long now) {
+            if (now > lastRefillMillis) {
+                tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * refillPerMilli);
+                lastRefillMillis = now;
+            }
+        }
+    }
+}
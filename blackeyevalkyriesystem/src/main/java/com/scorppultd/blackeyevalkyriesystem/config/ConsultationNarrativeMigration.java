@@ -0,0 +1,131 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+/**
+ * Moves the clinical narrative still stored in consultation documents into the narrative collection.
+ * Each batch of consultations is copied with one bulk upsert and the fields are then removed from
+ * the consultations with one bulk update. A narrative saved since the split is newer than the copy
+ * in the consultation, so only the fields it lacks are copied into it.
+ * Runs once the application has started, on the one node that acquires the job lease.
+ */
+@Component
+public class ConsultationNarrativeMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationNarrativeMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int batchSize;
+
+    /**
+     * Constructs a ConsultationNarrativeMigration.
+     *
+     * @param mongoTemplate Template used to read the consultations and write the narratives
+     * @param scheduledJobLock Lock that runs the migration on a single node
+     * @param batchSize Number of consultations read per batch
+     */
+    public ConsultationNarrativeMigration(MongoTemplate mongoTemplate,
+                                          ScheduledJobLock scheduledJobLock,
+                                          @Value("${consultations.narrative-migration.batch-size:200}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.scheduledJobLock = scheduledJobLock;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Migrates the narratives of all consultations that still hold one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateEmbeddedNarratives() {
+        try {
+            scheduledJobLock.runExclusively("consultation-narrative-migration", this::migrate);
+        } catch (RuntimeException e) {
+            logger.error("Failed to migrate consultation narratives: {}", e.getMessage());
+        }
+    }
+
+    private void migrate() {
+        String consultations = mongoTemplate.getCollectionName(Consultation.class);
+        String narratives = mongoTemplate.getCollectionName(ConsultationNarrative.class);
+        String[] fields = ConsultationNarrative.FIELDS.toArray(new String[0]);
+        List<Criteria> anyField = new ArrayList<>();
+        for (String field : fields) {
+            anyField.add(Criteria.where(field).exists(true));
+        }
+        long migrated = 0;
+
+        while (true) {
+            Query query = new Query(new Criteria().orOperator(anyField)).limit(batchSize);
+            query.fields().include(fields);
+            List<Document> batch = mongoTemplate.find(query, Document.class, consultations);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+            Query existingQuery = Query.query(Criteria.where("_id").in(ids));
+            existingQuery.fields().include(fields);
+            Map<Object, Document> existing = new HashMap<>();
+            for (Document narrative : mongoTemplate.find(existingQuery, Document.class, narratives)) {
+                existing.put(narrative.get("_id"), narrative);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            BulkOperations copy = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, narratives);
+            BulkOperations strip = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, consultations);
+            boolean anyCopied = false;
+            for (Document consultation : batch) {
+                Object id = consultation.get("_id");
+                Document current = existing.getOrDefault(id, new Document());
+                Update update = new Update().setOnInsert("updatedAt", now);
+                boolean copied = false;
+                Update unset = new Update();
+                for (String field : fields) {
+                    unset.unset(field);
+                    if (consultation.containsKey(field) && !current.containsKey(field)) {
+                        update.set(field, consultation.get(field));
+                        copied = true;
+                    }
+                }
+                if (copied) {
+                    copy.upsert(Query.query(Criteria.where("_id").is(id)), update);
+                    anyCopied = true;
+                }
+                strip.updateOne(Query.query(Criteria.where("_id").is(id)), unset);
+            }
+
+            // Copy before removing, so an interrupted batch is simply picked up again
+            if (anyCopied) {
+                copy.execute();
+            }
+            strip.execute();
+            migrated += batch.size();
+        }
+
+        if (migrated > 0) {
+            logger.info("Moved the clinical narratives of {} consultations to the {} collection", migrated, narratives);
+        }
+    }
+}
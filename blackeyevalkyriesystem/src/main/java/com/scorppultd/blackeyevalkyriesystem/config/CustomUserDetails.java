@@ -44,4 +44,16 @@ public class CustomUserDetails extends User {
     public String getFullName() {
         return fullName;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Returns an independent copy of these user details.
+     * Spring Security erases the password of the authenticated principal, so cached details are
+     * handed out as copies to keep the cached password intact.
+     *
+     * @return a copy with the same username, password, flags, authorities and full name
+     */
+    public CustomUserDetails copy() {
+        return new CustomUserDetails(getUsername(), getPassword(), isEnabled(), isAccountNonExpired(),
+                isCredentialsNonExpired(), isAccountNonLocked(), getAuthorities(), fullName);
+    }
+}
@@ -0,0 +1,67 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared with {@code @Indexed} and {@code @CompoundIndex} on the documents.
+ * Automatic index creation is switched off, since it runs while the MongoTemplate is built and
+ * stops the application from starting when MongoDB is not reachable. The indexes are instead
+ * created here once the application has started; creating an index that already exists does nothing.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a MongoIndexInitializer.
+     *
+     * @param mongoTemplate Template whose mapping context lists the documents and their indexes
+     */
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Creates the declared indexes of every document.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+                for (IndexDefinition index : resolver.resolveIndexFor(entity.getType())) {
+                    indexOps.ensureIndex(index);
+                }
+            } catch (DataAccessResourceFailureException e) {
+                // MongoDB cannot be reached, so the other documents would fail the same way
+                logger.error("Failed to create indexes, MongoDB is not reachable: {}", e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to create the indexes of {}: {}", entity.getCollection(), e.getMessage());
+            }
+        }
+    }
+}
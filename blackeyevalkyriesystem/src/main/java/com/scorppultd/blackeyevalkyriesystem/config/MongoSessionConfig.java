@@ -0,0 +1,80 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.data.mongo.AbstractMongoSessionConverter;
+import org.springframework.session.data.mongo.JdkMongoSessionConverter;
+import org.springframework.session.data.mongo.MongoIndexedSessionRepository;
+import org.springframework.session.data.mongo.config.annotation.web.http.EnableMongoHttpSession;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stores HTTP sessions in the shared MongoDB database instead of the memory of a single node,
+ * so that any node behind a load balancer can serve a logged-in user.
+ * <p>
+ * Enabled with {@code app.session.store=mongodb}; otherwise the servlet container keeps
+ * sessions in memory as before. The session repository creates a TTL index on the
+ * {@code expireAt} field of the session collection, so MongoDB removes expired sessions itself.
+ * Session attributes are written through {@link SessionAttributeSerializer}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.session.store", havingValue = "mongodb")
+@EnableMongoHttpSession
+public class MongoSessionConfig {
+
+    /**
+     * Applies the configured collection name and session timeout to the session repository.
+     *
+     * @param collectionName The collection the sessions are stored in
+     * @param timeoutSeconds The number of seconds a session may stay inactive before it expires
+     * @return The repository customizer
+     */
+    @Bean
+    public SessionRepositoryCustomizer<MongoIndexedSessionRepository> mongoSessionRepositoryCustomizer(
+            @Value("${app.session.collection:http_sessions}") String collectionName,
+            @Value("${app.session.timeout-seconds:1800}") long timeoutSeconds) {
+        return repository -> {
+            repository.setCollectionName(collectionName);
+            repository.setDefaultMaxInactiveInterval(Duration.ofSeconds(timeoutSeconds));
+        };
+    }
+
+    /**
+     * Creates the serializer for session attributes.
+     *
+     * @param maxAttributeBytes The largest serialized size of a single attribute that is stored
+     * @param excludedPackages Packages whose objects are never stored in the session
+     * @param meterRegistry Registry for the dropped-attribute counter
+     * @return The session attribute serializer
+     */
+    @Bean
+    public SessionAttributeSerializer sessionAttributeSerializer(
+            @Value("${app.session.max-attribute-bytes:16384}") int maxAttributeBytes,
+            @Value("${app.session.excluded-packages:com.scorppultd.blackeyevalkyriesystem.model}") List<String> excludedPackages,
+            MeterRegistry meterRegistry) {
+        return new SessionAttributeSerializer(getClass().getClassLoader(), maxAttributeBytes,
+                excludedPackages, meterRegistry);
+    }
+
+    /**
+     * Creates the converter between sessions and MongoDB documents, using the session attribute serializer.
+     *
+     * @param attributeSerializer The session attribute serializer
+     * @param timeoutSeconds The number of seconds a session may stay inactive before it expires
+     * @return The session converter
+     */
+    @Bean
+    public AbstractMongoSessionConverter mongoSessionConverter(
+            SessionAttributeSerializer attributeSerializer,
+            @Value("${app.session.timeout-seconds:1800}") long timeoutSeconds) {
+        return new JdkMongoSessionConverter(attributeSerializer.serializer(), attributeSerializer.deserializer(),
+                Duration.ofSeconds(timeoutSeconds));
+    }
+}
@@ -0,0 +1,57 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+/**
+ * Initialises the optimistic-locking version field on documents created before their
+ * entity was versioned. Spring Data treats a versioned entity with a null version as new,
+ * so saving such a document would attempt an insert and fail on the duplicate ID.
+ * Runs once the application has started, on the one node that acquires the job lease.
+ */
+@Component
+public class MongoVersionInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoVersionInitializer.class);
+
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final ScheduledJobLock scheduledJobLock;
+
+    /**
+     * Constructs a MongoVersionInitializer.
+     *
+     * @param partialUpdateRepository Repository for field-level updates
+     * @param scheduledJobLock Lock that runs the initialisation on a single node
+     */
+    public MongoVersionInitializer(PartialUpdateRepository partialUpdateRepository,
+                                   ScheduledJobLock scheduledJobLock) {
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.scheduledJobLock = scheduledJobLock;
+    }
+
+    /**
+     * Sets version 0 on every versioned document that does not have a version yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeVersions() {
+        try {
+            scheduledJobLock.runExclusively("version-initialization", this::initialize);
+        } catch (RuntimeException e) {
+            logger.error("Failed to initialise document versions: {}", e.getMessage());
+        }
+    }
+
+    private void initialize() {
+        long consultations = partialUpdateRepository.initializeMissingVersions(Consultation.class);
+        if (consultations > 0) {
+            logger.info("Initialised version field on {} existing consultations", consultations);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientSearchKeys;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+/**
+ * Keeps the search keys of patient documents up to date.
+ * Every patient document written through the mapping layer gets its keys computed from its
+ * names, contact number and email just before it is saved. The keys are not part of the
+ * Patient model, so they are never read back into it. Patients written before the keys
+ * existed, or with keys of an older scheme version, are re-indexed once the application has
+ * started, in batches, on the one node that acquires the job lease.
+ * <p>
+ * Field-level updates of names, contact number or email bypass the keys; all such writes go
+ * through a full save of the patient.
+ */
+@Component
+public class PatientSearchIndexer extends AbstractMongoEventListener<Patient> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSearchIndexer.class);
+
+    public static final String KEYS_FIELD = "searchKeys";
+    public static final String VERSION_FIELD = "searchKeysVersion";
+
+    private static final String[] SOURCE_FIELDS = { "firstName", "lastName", "relativeName", "contactNumber", "email" };
+
+    private final MongoTemplate mongoTemplate;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int batchSize;
+
+    /**
+     * Constructs a PatientSearchIndexer.
+     *
+     * @param mongoTemplate Template used to create the index and re-index patients
+     * @param scheduledJobLock Lock that runs the re-indexing on a single node
+     * @param batchSize Number of patients re-indexed per batch
+     */
+    public PatientSearchIndexer(MongoTemplate mongoTemplate,
+                                ScheduledJobLock scheduledJobLock,
+                                @Value("${patients.search.reindex-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.scheduledJobLock = scheduledJobLock;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Patient> event) {
+        Document document = event.getDocument();
+        if (document == null) {
+            return;
+        }
+        Patient patient = event.getSource();
+        document.put(KEYS_FIELD, PatientSearchKeys.forPatient(patient.getFirstName(), patient.getLastName(),
+                patient.getRelativeName(), patient.getContactNumber(), patient.getEmail()));
+        document.put(VERSION_FIELD, PatientSearchKeys.VERSION);
+    }
+
+    /**
+     * Creates the search key index and re-indexes the patients whose keys are missing or outdated.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexPatients() {
+        try {
+            mongoTemplate.indexOps(Patient.class).ensureIndex(new Index()
+                    .on(KEYS_FIELD, Sort.Direction.ASC)
+                    .named("search_keys_idx"));
+        } catch (DataAccessException e) {
+            logger.warn("Could not create the patient search index: {}", e.getMessage());
+        }
+        try {
+            scheduledJobLock.runExclusively("patient-search-reindex", this::reindex);
+        } catch (RuntimeException e) {
+            logger.error("Failed to re-index patient search keys: {}", e.getMessage());
+        }
+    }
+
+    private void reindex() {
+        long reindexed = 0;
+        Object lastId = null;
+
+        // One pass in _id order; each batch only reads patients whose keys are outdated
+        while (true) {
+            Criteria criteria = Criteria.where(VERSION_FIELD).ne(PatientSearchKeys.VERSION);
+            if (lastId != null) {
+                criteria.and("_id").gt(lastId);
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(batchSize);
+            query.fields().include(SOURCE_FIELDS);
+            List<Document> batch = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Patient.class));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class);
+            for (Document patient : batch) {
+                List<String> keys = PatientSearchKeys.forPatient(patient.getString("firstName"), patient.getString("lastName"),
+                        patient.getString("relativeName"), patient.getString("contactNumber"), patient.getString("email"));
+                bulk.updateOne(Query.query(Criteria.where("_id").is(patient.get("_id"))), new Update()
+                        .set(KEYS_FIELD, keys)
+                        .set(VERSION_FIELD, PatientSearchKeys.VERSION));
+            }
+            bulk.execute();
+            reindexed += batch.size();
+            lastId = batch.get(batch.size() - 1).get("_id");
+        }
+
+        if (reindexed > 0) {
+            logger.info("Built search keys for {} patients", reindexed);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+/**
+ * Gives every prescription item created before items had an ID its own item ID, so that its
+ * refills can be dispensed. Each item gets a distinct random ID, which an array filter cannot
+ * generate, so the items of a batch are read and set one position at a time with one bulk update.
+ * Every update still requires the item at that position to lack an ID, so an item edited in the
+ * meantime keeps the ID it was given and an interrupted run is simply picked up again.
+ * Runs once the application has started, on the one node that acquires the job lease.
+ */
+@Component
+public class PrescriptionItemIdMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrescriptionItemIdMigration.class);
+
+    private static final String ITEMS = "prescriptionItems";
+
+    private final MongoTemplate mongoTemplate;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int batchSize;
+
+    /**
+     * Constructs a PrescriptionItemIdMigration.
+     *
+     * @param mongoTemplate Template used to read and update the prescriptions
+     * @param scheduledJobLock Lock that runs the migration on a single node
+     * @param batchSize Number of prescriptions read per batch
+     */
+    public PrescriptionItemIdMigration(MongoTemplate mongoTemplate,
+                                       ScheduledJobLock scheduledJobLock,
+                                       @Value("${prescription.item-id-migration.batch-size:200}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.scheduledJobLock = scheduledJobLock;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Assigns item IDs to all prescription items that still lack one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void assignMissingItemIds() {
+        try {
+            scheduledJobLock.runExclusively("prescription-item-id-migration", this::migrate);
+        } catch (RuntimeException e) {
+            logger.error("Failed to assign prescription item IDs: {}", e.getMessage());
+        }
+    }
+
+    private void migrate() {
+        String prescriptions = mongoTemplate.getCollectionName(Prescription.class);
+        Object lastId = null;
+        long assigned = 0;
+
+        while (true) {
+            // Matches items whose itemId is missing as well as null
+            Criteria criteria = Criteria.where(ITEMS).elemMatch(Criteria.where("itemId").is(null));
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(batchSize);
+            query.fields().include(ITEMS + ".itemId");
+            List<Document> batch = mongoTemplate.find(query, Document.class, prescriptions);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, prescriptions);
+            for (Document prescription : batch) {
+                Object id = prescription.get("_id");
+                List<Document> items = prescription.getList(ITEMS, Document.class, List.of());
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i).get("itemId") != null) {
+                        continue;
+                    }
+                    String itemPath = ITEMS + "." + i + ".itemId";
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(id).and(itemPath).is(null)),
+                            new Update().set(itemPath, UUID.randomUUID().toString()));
+                    assigned++;
+                }
+                lastId = id;
+            }
+            bulk.execute();
+        }
+
+        if (assigned > 0) {
+            logger.info("Assigned item IDs to {} prescription items", assigned);
+        }
+    }
+}
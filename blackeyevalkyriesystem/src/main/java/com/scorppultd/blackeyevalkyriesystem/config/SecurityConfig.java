@@ -4,6 +4,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -22,8 +24,12 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 import com.scorppultd.blackeyevalkyriesystem.service.UserService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Security configuration for the Black Eye Valkyrie System.
@@ -90,11 +96,13 @@ public class SecurityConfig {
      * Creates a UserDetailsService that retrieves user authentication information.
      * First attempts to find the user in the database using the UserService.
      * If database lookup fails and the username is "admin", creates a default admin user.
+     * The default admin password is hashed once when the service is created, not on every login.
      * 
      * @return A custom UserDetailsService
      */
     @Bean
     public UserDetailsService userDetailsService() {
+        String adminPasswordHash = passwordEncoder().encode("admin");
         return username -> {
             // First try to find the user in the database
             try {
@@ -123,7 +131,7 @@ public class SecurityConfig {
                 if ("admin".equals(username)) {
                     return new CustomUserDetails(
                         "admin",
-                        passwordEncoder().encode("admin"),
+                        adminPasswordHash,
                         true,
                         true,
                         true,
@@ -139,16 +147,35 @@ public class SecurityConfig {
     
     /**
      * Creates an AuthenticationManager that validates user credentials.
-     * Uses DaoAuthenticationProvider with the custom UserDetailsService and BCrypt password encoder.
+     * Uses DaoAuthenticationProvider with the custom UserDetailsService and BCrypt password encoder,
+     * backed by a short-lived user details cache. Every authentication attempt is timed in the
+     * {@code security.login} timer, tagged with its outcome.
      * 
+     * @param userDetailsCache Cache of recently loaded user details
+     * @param meterRegistry Registry for login latency metrics
      * @return The configured AuthenticationManager
      */
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(UserDetailsCache userDetailsCache, MeterRegistry meterRegistry) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
-        return new ProviderManager(authProvider);
+        authProvider.setUserCache(userDetailsCache);
+        ProviderManager providerManager = new ProviderManager(authProvider);
+        
+        Timer successTimer = Timer.builder("security.login").tag("outcome", "success").register(meterRegistry);
+        Timer failureTimer = Timer.builder("security.login").tag("outcome", "failure").register(meterRegistry);
+        return authentication -> {
+            long start = System.nanoTime();
+            try {
+                Authentication result = providerManager.authenticate(authentication);
+                successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (AuthenticationException e) {
+                failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        };
     }
     
     /**
@@ -0,0 +1,155 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Serializes the attributes of a shared HTTP session and reads them back.
+ * Each attribute is serialized on its own, so one attribute that cannot be stored does not
+ * prevent the rest of the session from being stored. An attribute is left out of the stored
+ * session when it is
+ * <ul>
+ *   <li>an object (or a collection of objects) from one of the excluded packages, typically the
+ *       domain model, which should be reloaded from the database rather than copied into every session,</li>
+ *   <li>not {@link Serializable}, or</li>
+ *   <li>larger than the configured maximum once serialized.</li>
+ * </ul>
+ * Attributes that can no longer be read back (e.g. after a class changed between deployments)
+ * are dropped instead of invalidating the whole session.
+ */
+public class SessionAttributeSerializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionAttributeSerializer.class);
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer;
+    private final int maxAttributeBytes;
+    private final List<String> excludedPackages;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a SessionAttributeSerializer.
+     *
+     * @param classLoader Class loader used to resolve attribute classes on deserialization
+     * @param maxAttributeBytes The largest serialized size of a single attribute that is stored
+     * @param excludedPackages Packages whose objects are never stored in the session
+     * @param meterRegistry Registry for the dropped-attribute counter
+     */
+    public SessionAttributeSerializer(ClassLoader classLoader, int maxAttributeBytes,
+                                      List<String> excludedPackages, MeterRegistry meterRegistry) {
+        this.deserializer = new DeserializingConverter(classLoader);
+        this.maxAttributeBytes = maxAttributeBytes;
+        this.excludedPackages = excludedPackages.stream()
+                .map(String::trim)
+                .filter(pkg -> !pkg.isEmpty())
+                .map(pkg -> pkg + ".")
+                .toList();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the converter used when a session is written.
+     *
+     * @return Converter from the session attribute map to bytes
+     */
+    public Converter<Object, byte[]> serializer() {
+        return this::serialize;
+    }
+
+    /**
+     * Returns the converter used when a session is read.
+     *
+     * @return Converter from bytes to the session attribute map
+     */
+    public Converter<byte[], Object> deserializer() {
+        return this::deserialize;
+    }
+
+    private byte[] serialize(Object source) {
+        if (!(source instanceof Map<?, ?> attributes)) {
+            return serializer.convert(source);
+        }
+
+        HashMap<String, byte[]> stored = new HashMap<>();
+        for (Map.Entry<?, ?> entry : attributes.entrySet()) {
+            String name = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (isExcluded(value)) {
+                drop(name, "excluded");
+                continue;
+            }
+            if (!(value instanceof Serializable)) {
+                drop(name, "not_serializable");
+                continue;
+            }
+            byte[] bytes;
+            try {
+                bytes = serializer.convert(value);
+            } catch (SerializationFailedException e) {
+                drop(name, "not_serializable");
+                continue;
+            }
+            if (bytes.length > maxAttributeBytes) {
+                drop(name, "too_large");
+                continue;
+            }
+            stored.put(name, bytes);
+        }
+        return serializer.convert(stored);
+    }
+
+    private Object deserialize(byte[] source) {
+        Object value = deserializer.convert(source);
+        if (!(value instanceof Map<?, ?> stored)) {
+            return value;
+        }
+
+        Map<String, Object> attributes = new HashMap<>();
+        for (Map.Entry<?, ?> entry : stored.entrySet()) {
+            String name = String.valueOf(entry.getKey());
+            if (!(entry.getValue() instanceof byte[] bytes)) {
+                attributes.put(name, entry.getValue());
+                continue;
+            }
+            try {
+                attributes.put(name, deserializer.convert(bytes));
+            } catch (SerializationFailedException e) {
+                logger.warn("Dropping session attribute {} that can no longer be read: {}", name, e.getMessage());
+                meterRegistry.counter("session.attributes.dropped", "reason", "unreadable").increment();
+            }
+        }
+        return attributes;
+    }
+
+    private boolean isExcluded(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(element -> element != null && isExcludedType(element));
+        }
+        return isExcludedType(value);
+    }
+
+    private boolean isExcludedType(Object value) {
+        String className = value.getClass().getName();
+        return excludedPackages.stream().anyMatch(className::startsWith);
+    }
+
+    private void drop(String name, String reason) {
+        logger.debug("Not storing session attribute {} in the shared session ({})", name, reason);
+        meterRegistry.counter("session.attributes.dropped", "reason", reason).increment();
+    }
+}
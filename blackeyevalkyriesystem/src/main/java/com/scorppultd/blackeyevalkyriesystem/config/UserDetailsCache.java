@@ -0,0 +1,114 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.User;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationBus;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Short-lived, bounded cache of user details for the authentication provider.
+ * Logins within the TTL skip the database lookup; a cached entry whose password no longer matches
+ * is reloaded by the provider. Entries are evicted as soon as the user is saved (which covers
+ * profile, role, password and active-status changes made through {@code UserService}), and the
+ * whole cache is cleared when a user is deleted. Users saved or deleted on other nodes are evicted
+ * the same way through the {@link CacheInvalidationBus}. The TTL is kept to seconds because the
+ * bus can lag behind, for example while it polls the invalidation log, and a missed eviction on
+ * another node is then only served until the entry expires.
+ */
+@Component
+public class UserDetailsCache extends AbstractMongoEventListener<User> implements UserCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Constructs a UserDetailsCache with the configured TTL and size bound.
+     *
+     * @param ttlSeconds How long user details are kept
+     * @param maxEntries Maximum number of cached users
+     * @param meterRegistry Registry for cache hit/miss counters
+     * @param invalidationBus Bus delivering user changes made on other nodes
+     */
+    public UserDetailsCache(@Value("${security.user-details-cache.ttl-seconds:10}") long ttlSeconds,
+                            @Value("${security.user-details-cache.max-entries:5000}") int maxEntries,
+                            MeterRegistry meterRegistry,
+                            CacheInvalidationBus invalidationBus) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.hits = meterRegistry.counter("security.user_details.cache", "result", "hit");
+        this.misses = meterRegistry.counter("security.user_details.cache", "result", "miss");
+        invalidationBus.register(CacheInvalidationEvent.Source.USERS, event -> {
+            if (event.hasKey()) {
+                removeUserFromCache(event.getKey());
+            } else {
+                entries.clear();
+            }
+        });
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null || entry.expiresAtMillis <= System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(username, entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.userDetails.copy();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!(user instanceof CustomUserDetails details) || details.getPassword() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(details.getUsername(), new Entry(details.copy(), now + ttlMillis));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        removeUserFromCache(event.getSource().getUsername());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        // Delete events only carry the ID, not the username
+        entries.clear();
+    }
+
+    private record Entry(CustomUserDetails userDetails, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.scorppultd.blackeyevalkyriesystem.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.Visit;
+import com.scorppultd.blackeyevalkyriesystem.model.VisitBucket;
+import com.scorppultd.blackeyevalkyriesystem.repository.VisitBucketRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+/**
+ * Moves visits that are still embedded in patient documents into the visits collection.
+ * Patients used to carry their whole visit history in a visits array; each patient with such an
+ * array gets its visits appended to its visit buckets, its lastVisitDate set and the array removed.
+ * Embedded visits have no ID, so each is given one derived from the patient, its position in the
+ * array and its fields. A visit whose ID is already in the patient's buckets is skipped, so a
+ * patient whose array was removed late or saved back from a stale copy is not moved twice.
+ * Runs once the application has started, in batches, on the one node that acquires the job lease.
+ */
+@Component
+public class VisitMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final VisitBucketRepository visitBucketRepository;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int batchSize;
+
+    /**
+     * Constructs a VisitMigration.
+     *
+     * @param mongoTemplate Template used to read the embedded visits and update the patients
+     * @param visitBucketRepository Repository the visits are moved into
+     * @param scheduledJobLock Lock that runs the migration on a single node
+     * @param batchSize Number of patients read per batch
+     */
+    public VisitMigration(MongoTemplate mongoTemplate,
+                          VisitBucketRepository visitBucketRepository,
+                          ScheduledJobLock scheduledJobLock,
+                          @Value("${visits.migration.batch-size:200}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.visitBucketRepository = visitBucketRepository;
+        this.scheduledJobLock = scheduledJobLock;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Migrates the embedded visits of all patients.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateEmbeddedVisits() {
+        try {
+            scheduledJobLock.runExclusively("visit-migration", this::migrate);
+        } catch (RuntimeException e) {
+            logger.error("Failed to migrate embedded patient visits: {}", e.getMessage());
+        }
+    }
+
+    private void migrate() {
+        String patients = mongoTemplate.getCollectionName(Patient.class);
+        long migratedPatients = 0;
+        long migratedVisits = 0;
+
+        while (true) {
+            Query query = Query.query(Criteria.where("visits").exists(true)).limit(batchSize);
+            query.fields().include("visits");
+            List<Document> batch = mongoTemplate.find(query, Document.class, patients);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            for (Document patient : batch) {
+                Object id = patient.get("_id");
+                LocalDate lastVisitDate = null;
+                List<Document> embeddedVisits = patient.getList("visits", Document.class, List.of());
+                for (int i = 0; i < embeddedVisits.size(); i++) {
+                    Visit visit = mongoTemplate.getConverter().read(Visit.class, embeddedVisits.get(i));
+                    if (visit.getVisitDate() == null) {
+                        continue;
+                    }
+                    visit.setPatientId(id.toString());
+                    if (visit.getId() == null) {
+                        visit.setId(migratedVisitId(visit, i));
+                    }
+                    if (lastVisitDate == null || visit.getVisitDate().isAfter(lastVisitDate)) {
+                        lastVisitDate = visit.getVisitDate();
+                    }
+                    if (mongoTemplate.exists(Query.query(Criteria.where("patientId").is(visit.getPatientId())
+                            .and("visits.id").is(visit.getId())), VisitBucket.class)) {
+                        continue;
+                    }
+                    visitBucketRepository.addVisit(visit);
+                    migratedVisits++;
+                }
+
+                Update update = new Update().unset("visits");
+                if (lastVisitDate != null) {
+                    update.max("lastVisitDate", lastVisitDate);
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)), update, patients);
+                migratedPatients++;
+            }
+        }
+
+        if (migratedPatients > 0) {
+            logger.info("Moved {} embedded visits of {} patients to the visits collection", migratedVisits, migratedPatients);
+        }
+    }
+
+    /**
+     * Derives the same ID for an embedded visit on every run, from the patient, the position of the
+     * visit in the array (which was only ever appended to) and the visit's fields.
+     */
+    private static String migratedVisitId(Visit visit, int position) {
+        String identity = String.join("|", visit.getPatientId(), String.valueOf(position),
+                String.valueOf(visit.getVisitDate()), String.valueOf(visit.getDoctorId()),
+                String.valueOf(visit.getDiagnosis()), String.valueOf(visit.getPrescriptionId()));
+        return UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
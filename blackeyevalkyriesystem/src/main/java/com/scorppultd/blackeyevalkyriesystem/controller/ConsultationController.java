@@ -3,16 +3,21 @@ package com.scorppultd.blackeyevalkyriesystem.controller;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationDraftDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 import com.scorppultd.blackeyevalkyriesystem.service.ConsultationService;
@@ -89,7 +94,8 @@ public class ConsultationController {
      * 
      * @param id The ID of the consultation to update
      * @param consultation The updated consultation object
-     * @return ResponseEntity containing the updated consultation, or BAD_REQUEST if IDs don't match
+     * @return ResponseEntity containing the updated consultation, BAD_REQUEST if IDs don't match or the
+     *         body has no version, or CONFLICT if the consultation was changed since that version
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
@@ -100,8 +106,53 @@ public class ConsultationController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         
-        Consultation updatedConsultation = consultationService.updateConsultation(consultation);
-        return new ResponseEntity<>(updatedConsultation, HttpStatus.OK);
+        try {
+            Consultation updatedConsultation = consultationService.updateConsultation(consultation);
+            return new ResponseEntity<>(updatedConsultation, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Autosaves changed text fields of a consultation while it is being edited.
+     * Only the fields in the draft are written, and only if the consultation still has the draft's revision.
+     * Access restricted to DOCTOR and ADMIN roles.
+     * 
+     * @param id The ID of the consultation
+     * @param draft The revision the fields were edited against and the changed fields
+     * @return ResponseEntity with the new revision; CONFLICT with the current revision and stored values of
+     *         the draft's fields if the consultation changed in the meantime; BAD_REQUEST if the draft has no
+     *         revision, no fields or the consultation is completed; NOT_FOUND if there is no such consultation
+     */
+    @PatchMapping("/{id}/draft")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> saveDraft(@PathVariable String id,
+                                                       @RequestBody ConsultationDraftDTO draft) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long revision = consultationService.saveDraft(id, draft);
+            response.put("success", true);
+            response.put("revision", revision);
+            return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            ConsultationDraftDTO current = consultationService.getDraft(id, draft.getFields().keySet());
+            response.put("success", false);
+            response.put("message", "The consultation was changed since revision " + draft.getRevision());
+            response.put("revision", current.getRevision());
+            response.put("fields", current.getFields());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (ResourceNotFoundException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
     }
 
     /**
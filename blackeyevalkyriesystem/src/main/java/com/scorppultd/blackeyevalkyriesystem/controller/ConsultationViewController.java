@@ -23,24 +23,27 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationCompletionDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
 import com.scorppultd.blackeyevalkyriesystem.model.Doctor;
 import com.scorppultd.blackeyevalkyriesystem.model.Drug;
 import com.scorppultd.blackeyevalkyriesystem.model.Patient;
-import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation.VitalSigns;
+import com.scorppultd.blackeyevalkyriesystem.service.ConsultationCompletionService;
 import com.scorppultd.blackeyevalkyriesystem.service.ConsultationService;
 import com.scorppultd.blackeyevalkyriesystem.service.DoctorService;
 import com.scorppultd.blackeyevalkyriesystem.service.DrugService;
 import com.scorppultd.blackeyevalkyriesystem.service.PatientService;
-import com.scorppultd.blackeyevalkyriesystem.service.PrescriptionService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalAlertService;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
 import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
 import com.scorppultd.blackeyevalkyriesystem.service.AppointmentService;
 
 /**
  * Controller for managing consultation views in the system.
  * Provides web pages for viewing consultation queue, creating consultations, 
- * and saving consultation data with prescriptions.
+ * and saving consultation data with prescriptions. The queue also lists open abnormal-vitals alerts.
  * Access is restricted to users with DOCTOR or ADMIN roles.
  */
 @Controller
@@ -51,9 +54,13 @@ public class ConsultationViewController {
     private final ConsultationService consultationService;
     private final PatientService patientService;
     private final DoctorService doctorService;
-    private final PrescriptionService prescriptionService;
     private final DrugService drugService;
     private final AppointmentService appointmentService;
+    private final ConsultationCompletionService consultationCompletionService;
+    private final VitalAlertService vitalAlertService;
+
+    private static final int QUEUE_ALERT_LIMIT = 50;
+    private static final int PAST_CONSULTATION_LIMIT = 5;
 
     /**
      * Constructor for ConsultationViewController.
@@ -61,38 +68,37 @@ public class ConsultationViewController {
      * @param consultationService The service that handles consultation business logic
      * @param patientService The service that handles patient business logic
      * @param doctorService The service that handles doctor business logic
-     * @param prescriptionService The service that handles prescription business logic
      * @param drugService The service that handles drug business logic
      * @param appointmentService The service that handles appointment business logic
+     * @param consultationCompletionService The service that completes consultations
+     * @param vitalAlertService The service that keeps the abnormal-vitals alerts
      */
     @Autowired
     public ConsultationViewController(
             ConsultationService consultationService,
             PatientService patientService, 
             DoctorService doctorService,
-            PrescriptionService prescriptionService,
             DrugService drugService,
-            AppointmentService appointmentService) {
+            AppointmentService appointmentService,
+            ConsultationCompletionService consultationCompletionService,
+            VitalAlertService vitalAlertService) {
         this.consultationService = consultationService;
         this.patientService = patientService;
         this.doctorService = doctorService;
-        this.prescriptionService = prescriptionService;
         this.drugService = drugService;
         this.appointmentService = appointmentService;
+        this.consultationCompletionService = consultationCompletionService;
+        this.vitalAlertService = vitalAlertService;
     }
 
     /**
-     * Helper method to get the last visit date from a patient's visits list.
+     * Helper method to get the last visit date of a patient.
      * 
      * @param patient The patient whose last visit date is being retrieved
      * @return The date of the patient's most recent visit, or null if no visits exist
      */
     public LocalDate getLastVisitDate(Patient patient) {
-        if (patient.getVisits() != null && !patient.getVisits().isEmpty()) {
-            // Assuming visits are already sorted by date in descending order
-            return patient.getVisits().get(0).getVisitDate();
-        }
-        return null;
+        return patient != null ? patient.getLastVisitDate() : null;
     }
 
     /**
@@ -266,6 +272,26 @@ public class ConsultationViewController {
         model.addAttribute("overdueAppointments", overdueAppointments);
         model.addAttribute("upcomingAppointments", upcomingAppointments);
 
+        // Open vitals alerts; doctors only see those of patients in their own queue
+        List<VitalAlert> vitalAlerts;
+        if (isAdmin) {
+            vitalAlerts = vitalAlertService.getOpenAlerts(QUEUE_ALERT_LIMIT);
+        } else {
+            Set<String> queuedPatientIds = new HashSet<>();
+            for (Appointment appointment : overdueAppointments) {
+                if (appointment.getPatient() != null) {
+                    queuedPatientIds.add(appointment.getPatient().getId());
+                }
+            }
+            for (Appointment appointment : upcomingAppointments) {
+                if (appointment.getPatient() != null) {
+                    queuedPatientIds.add(appointment.getPatient().getId());
+                }
+            }
+            vitalAlerts = vitalAlertService.getOpenAlerts(queuedPatientIds, QUEUE_ALERT_LIMIT);
+        }
+        model.addAttribute("vitalAlerts", vitalAlerts);
+
         // For backward compatibility, keep some of the existing variables
         // but they may not be used in the updated view
         Patient nextPatient = null;
@@ -285,6 +311,21 @@ public class ConsultationViewController {
         return "consultation-queue";
     }
 
+    /**
+     * Acknowledges an abnormal-vitals alert shown in the consultation queue.
+     * 
+     * @param id The ID of the alert
+     * @return Redirect back to the consultation queue
+     */
+    @PostMapping("/alerts/{id}/acknowledge")
+    public String acknowledgeVitalAlert(@PathVariable String id) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (vitalAlertService.acknowledge(id, username).isEmpty()) {
+            return "redirect:/consultation?error=alertNotFound";
+        }
+        return "redirect:/consultation";
+    }
+
     /**
      * Displays the consultation creation page for a specific patient.
      * If appointmentId is provided, tries to find an existing consultation for that appointment.
@@ -327,8 +368,8 @@ public class ConsultationViewController {
                     patientId, "In-Progress");
             
             if (!inProgressConsultations.isEmpty()) {
-                // Use the existing in-progress consultation
-                consultationToUse = inProgressConsultations.get(0);
+                // Use the existing in-progress consultation, with the notes the form edits
+                consultationToUse = consultationService.loadNarrative(inProgressConsultations.get(0));
                 System.out.println("Using existing in-progress consultation");
                 
                 // If appointmentId is provided and the consultation doesn't have it, update it
@@ -357,22 +398,9 @@ public class ConsultationViewController {
             }
         }
         
-        // Get patient's past consultations and add to model
-        List<Consultation> pastConsultations = consultationService.getConsultationsByPatient(patientId);
-        
-        // Sort them by date, most recent first
-        pastConsultations.sort(Comparator.comparing(Consultation::getConsultationDateTime).reversed());
-        
-        // Filter out the current consultation and any in-progress ones
-        final Consultation finalConsultation = consultationToUse;
-        pastConsultations = pastConsultations.stream()
-            .filter(c -> !c.getId().equals(finalConsultation.getId()) && "Completed".equals(c.getStatus()))
-            .collect(Collectors.toList());
-        
-        // Limit to most recent 5 consultations to keep the UI clean
-        if (pastConsultations.size() > 5) {
-            pastConsultations = pastConsultations.subList(0, 5);
-        }
+        // Get the patient's 5 most recent completed consultations, other than the current one
+        List<Consultation> pastConsultations = consultationService.getRecentCompletedConsultations(
+                patientId, consultationToUse.getId(), PAST_CONSULTATION_LIMIT);
         
         model.addAttribute("pastConsultations", pastConsultations);
         model.addAttribute("consultation", consultationToUse);
@@ -458,6 +486,7 @@ public class ConsultationViewController {
      * Handles the submission of a consultation form, saving the consultation and any associated prescriptions.
      * Updates the consultation's clinical notes, diagnosis, and vital signs.
      * If prescription data is provided, creates a new prescription and links it to the consultation.
+     * The consultation is completed by the ConsultationCompletionService in a fixed number of writes.
      * 
      * @param consultation The consultation object from the form submission
      * @param drugIds Array of drug IDs for the prescription
@@ -479,186 +508,43 @@ public class ConsultationViewController {
             System.out.println("Saving consultation: " + consultation.getId());
             System.out.println("Drug IDs: " + (drugIds != null ? drugIds.length : "null"));
             
-            // Find the existing consultation
-            Optional<Consultation> existingConsultationOpt = consultationService.getConsultationById(consultation.getId());
+            ConsultationCompletionDTO completion = new ConsultationCompletionDTO();
+            completion.setConsultationId(consultation.getId());
+            completion.setAppointmentId(consultation.getAppointmentId());
+            completion.setClinicalNotes(consultation.getClinicalNotes());
+            completion.setDiagnosis(consultation.getDiagnosis());
+            completion.setVitalSigns(consultation.getVitalSigns());
             
-            if (existingConsultationOpt.isEmpty()) {
-                System.out.println("Error: Consultation not found with ID: " + consultation.getId());
-                return "redirect:/consultation?error=consultation-not-found";
-            }
-            
-            Consultation existingConsultation = existingConsultationOpt.get();
-            
-            // Update the consultation with the form values
-            existingConsultation.setClinicalNotes(consultation.getClinicalNotes());
-            
-            // Update diagnosis with the new simplified field
-            if (consultation.getDiagnosis() != null) {
-                existingConsultation.setDiagnosis(consultation.getDiagnosis());
-                System.out.println("Updated diagnosis: " + consultation.getDiagnosis());
-            }
-            
-            // Update vital signs from the form
-            if (consultation.getVitalSigns() != null) {
-                System.out.println("Updating vital signs from form submission");
-                System.out.println("Form vital signs - Height: " + consultation.getVitalSigns().getHeight());
-                System.out.println("Form vital signs - Weight: " + consultation.getVitalSigns().getWeight());
-                System.out.println("Form vital signs - Temperature: " + consultation.getVitalSigns().getTemperature());
-                System.out.println("Form vital signs - Blood Pressure: " + consultation.getVitalSigns().getBloodPressure());
-                
-                // Get the existing vital signs or create new ones if not present
-                Consultation.VitalSigns existingVitals = existingConsultation.getVitalSigns();
-                if (existingVitals == null) {
-                    existingVitals = new Consultation.VitalSigns();
-                    existingConsultation.setVitalSigns(existingVitals);
-                }
-                
-                // Copy values from form
-                existingVitals.setHeight(consultation.getVitalSigns().getHeight());
-                existingVitals.setWeight(consultation.getVitalSigns().getWeight());
-                existingVitals.setTemperature(consultation.getVitalSigns().getTemperature());
-                existingVitals.setBloodPressure(consultation.getVitalSigns().getBloodPressure());
-                existingVitals.setHeartRate(consultation.getVitalSigns().getHeartRate());
-                existingVitals.setRespiratoryRate(consultation.getVitalSigns().getRespiratoryRate());
-                existingVitals.setOxygenSaturation(consultation.getVitalSigns().getOxygenSaturation());
-                
-                // Calculate BMI if height and weight are available
-                if (existingVitals.getHeight() != null && existingVitals.getWeight() != null && 
-                    existingVitals.getHeight() > 0) {
-                    double heightInMeters = existingVitals.getHeight() / 100.0; // Convert cm to meters
-                    double bmi = existingVitals.getWeight() / (heightInMeters * heightInMeters);
-                    // Round to 1 decimal place
-                    bmi = Math.round(bmi * 10.0) / 10.0;
-                    existingVitals.setBmi(bmi);
-                    System.out.println("Calculated BMI: " + bmi);
-                }
-            } else {
-                System.out.println("Warning: No vital signs data in form submission");
-            }
-            
-            // Ensure we preserve the appointmentId if it exists
-            if (consultation.getAppointmentId() != null) {
-                existingConsultation.setAppointmentId(consultation.getAppointmentId());
-            }
-            
-            // Handle drugs if any were added to the cart
-            if (drugIds != null && drugIds.length > 0) {
-                System.out.println("Processing " + drugIds.length + " drug items");
-                
-                // Create a new prescription
-                Prescription prescription = new Prescription();
-                
-                // Set patient using existing consultation's patient
-                if (existingConsultation.getPatient() != null) {
-                    prescription.setPatient(existingConsultation.getPatient());
-                } else {
-                    System.out.println("Warning: Patient is null in the consultation");
-                }
-                
-                // Set doctor information safely
-                if (existingConsultation.getDoctor() != null) {
-                    String doctorFullName = existingConsultation.getDoctor().getFirstName() + 
-                                           " " + existingConsultation.getDoctor().getLastName();
-                    prescription.setDoctorName(doctorFullName);
-                    prescription.setDoctorId(existingConsultation.getDoctor().getId());
-                } else {
-                    System.out.println("Warning: Doctor is null in the consultation, fetching current doctor");
-                    // Get the currently logged-in doctor
-                    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                    String username = authentication.getName();
-                    
-                    Optional<Doctor> currentDoctorOpt = doctorService.getDoctorByUsername(username);
-                    if (currentDoctorOpt.isPresent()) {
-                        Doctor currentDoctor = currentDoctorOpt.get();
-                        String doctorFullName = currentDoctor.getFirstName() + " " + currentDoctor.getLastName();
-                        prescription.setDoctorName(doctorFullName);
-                        prescription.setDoctorId(currentDoctor.getId());
-                        
-                        // Also update the consultation with this doctor
-                        existingConsultation.setDoctor(currentDoctor);
-                        System.out.println("Updated consultation with current doctor: " + doctorFullName);
-                    } else {
-                        System.out.println("Warning: Could not find current doctor, using default");
-                        prescription.setDoctorName("Unknown Doctor");
-                    }
-                }
-                
-                // Set dates
-                prescription.setPrescriptionDate(LocalDate.now());
-                // Set validity to 30 days from now
-                prescription.setValidUntil(LocalDate.now().plusDays(30));
-                
-                // Set status
-                prescription.setStatus("active");
-                
-                // Create prescription items from form data
-                List<Prescription.PrescriptionItem> prescriptionItems = new ArrayList<>();
-                
+            // Collect the drugs added to the cart; an item is only taken if all its data was submitted
+            List<ConsultationCompletionDTO.PrescriptionLineDTO> prescriptionLines = new ArrayList<>();
+            if (drugIds != null && drugDosages != null && drugDurations != null && drugQuantities != null) {
                 for (int i = 0; i < drugIds.length; i++) {
-                    try {
-                        // Only process if we have all the data for this item
-                        if (drugDosages != null && drugDurations != null && drugQuantities != null &&
-                            i < drugDosages.length && i < drugDurations.length && i < drugQuantities.length) {
-                            
-                            String drugId = drugIds[i];
-                            System.out.println("Processing drug item: " + drugId);
-                            
-                            // Find the drug by ID
-                            Optional<Drug> drugOpt = drugService.getDrugById(drugId);
-                            if (drugOpt.isPresent()) {
-                                Prescription.PrescriptionItem item = new Prescription.PrescriptionItem();
-                                item.setDrug(drugOpt.get());
-                                item.setDosage(drugDosages[i]);
-                                item.setDuration(drugDurations[i]);
-                                try {
-                                    item.setQuantity(Integer.parseInt(drugQuantities[i]));
-                                } catch (NumberFormatException e) {
-                                    System.out.println("Warning: Invalid quantity format: " + drugQuantities[i]);
-                                    item.setQuantity(1); // Default to 1 if parsing fails
-                                }
-                                
-                                // Add default values for other fields
-                                item.setFrequency("As directed");
-                                item.setRefillable(false);
-                                item.setRefillsRemaining(0);
-                                
-                                prescriptionItems.add(item);
-                            } else {
-                                System.out.println("Warning: Drug not found with ID: " + drugId);
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Error processing prescription item " + i + ": " + e.getMessage());
+                    if (i >= drugDosages.length || i >= drugDurations.length || i >= drugQuantities.length) {
+                        break;
                     }
-                }
-                
-                // Only save prescription if we have items
-                if (!prescriptionItems.isEmpty()) {
-                    prescription.setPrescriptionItems(prescriptionItems);
-                    
+                    Integer quantity;
                     try {
-                        // Save prescription and link to consultation
-                        Prescription savedPrescription = prescriptionService.createPrescription(prescription);
-                        existingConsultation.setPrescription(savedPrescription);
-                        System.out.println("Created prescription with " + prescriptionItems.size() + " items");
-                    } catch (Exception e) {
-                        System.out.println("Error saving prescription: " + e.getMessage());
-                        e.printStackTrace();
+                        quantity = Integer.parseInt(drugQuantities[i]);
+                    } catch (NumberFormatException e) {
+                        System.out.println("Warning: Invalid quantity format: " + drugQuantities[i]);
+                        quantity = 1; // Default to 1 if parsing fails
                     }
-                } else {
-                    System.out.println("No valid prescription items to save");
+                    prescriptionLines.add(new ConsultationCompletionDTO.PrescriptionLineDTO(
+                            drugIds[i], drugDosages[i], drugDurations[i], quantity));
                 }
-            } else {
-                System.out.println("No drug items submitted");
             }
+            completion.setPrescriptionLines(prescriptionLines);
             
-            // Mark consultation as completed
-            existingConsultation.setStatus("Completed");
-            consultationService.updateConsultation(existingConsultation);
+            // The logged-in doctor becomes the consultation's doctor if it has none
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            consultationCompletionService.completeConsultation(completion, authentication.getName());
             
             return "redirect:/consultation?success=consultation-completed";
             
-        } catch (Exception e) {
+        } catch (ResourceNotFoundException e) {
+            System.out.println("Error: " + e.getMessage());
+            return "redirect:/consultation?error=consultation-not-found";
+        } catch (RuntimeException e) {
             System.out.println("Error saving consultation: " + e.getMessage());
             e.printStackTrace();
             return "redirect:/consultation?error=save-failed&message=" + e.getClass().getSimpleName();
@@ -3,12 +3,15 @@ package com.scorppultd.blackeyevalkyriesystem.controller;
 import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
 import com.scorppultd.blackeyevalkyriesystem.service.LicenseKeyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -214,6 +217,42 @@ public class LicenseKeyController {
         ));
     }
 
+    /**
+     * Issues a batch of new license keys in one call.
+     * Returns the keys as JSON, or as a CSV file when {@code format=csv}.
+     * 
+     * @param request JSON object containing the number of keys (count), the role and an optional expiry date (expiresOn, YYYY-MM-DD)
+     * @param format The response format: json (default) or csv
+     * @return Response entity with the issued license keys, or bad request if the request is invalid
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<?> issueLicenseKeys(@RequestBody Map<String, Object> request,
+                                              @RequestParam(defaultValue = "json") String format) {
+        List<LicenseKey> issued;
+        try {
+            int count = request.get("count") instanceof Number number ? number.intValue() : 0;
+            Object expiresOnValue = request.get("expiresOn");
+            LocalDate expiresOn = expiresOnValue != null && !expiresOnValue.toString().isEmpty()
+                    ? LocalDate.parse(expiresOnValue.toString())
+                    : null;
+            issued = licenseKeyService.issueLicenseKeys(count, (String) request.get("role"), expiresOn);
+        } catch (IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+        
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=license_keys.csv")
+                    .header(HttpHeaders.CONTENT_TYPE, "text/csv")
+                    .body(licenseKeyService.exportLicenseKeysCsv(issued));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(issued);
+    }
+
     /**
      * Deactivates a license key in the system.
      * 
@@ -6,6 +6,7 @@ import com.scorppultd.blackeyevalkyriesystem.service.LicenseKeyService;
 import com.scorppultd.blackeyevalkyriesystem.service.UserService;
 import com.scorppultd.blackeyevalkyriesystem.repository.LicenseKeyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,12 +21,9 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -64,9 +62,9 @@ public class LicenseKeyViewController {
     /**
      * Displays the license keys management page with sorting, filtering, and pagination.
      *
-     * This method first checks for and deactivates expired license keys, then retrieves
-     * all license keys applying any filters and sorting as specified. It also handles pagination
-     * and retrieves user information for assigned license keys.
+     * Retrieves one page of license keys, with filtering, sorting and pagination done by the
+     * database, and resolves the names of the users on that page in a single lookup. Expired
+     * keys are marked by the scheduled expiry check, not on page load.
      * 
      * @param model The Spring MVC model to add attributes to
      * @param sortOrder The sort order for the license keys (asc or desc) by expiration date
@@ -88,84 +86,14 @@ public class LicenseKeyViewController {
             @RequestParam(name = "rowsPerPage", defaultValue = "10") int rowsPerPage) {
         
         try {
-            // Check for expired license keys first - wrap in try-catch to prevent errors
-            try {
-                licenseKeyService.checkAndDeactivateExpiredLicenses();
-            } catch (Exception e) {
-                // Log the error but continue with the page load
-                e.printStackTrace();
-            }
-            
-            // Get license keys with better error handling
-            List<LicenseKey> allLicenseKeys = new ArrayList<>();
-            try {
-                allLicenseKeys = licenseKeyService.getAllLicenseKeys();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-            // Apply status filter if provided
-            if (statusFilter != null && !statusFilter.isEmpty()) {
-                try {
-                    allLicenseKeys = allLicenseKeys.stream()
-                            .filter(key -> statusFilter.equals(key.getStatus()))
-                            .collect(Collectors.toList());
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-            
-            // Apply role filter if provided
-            if (roleFilter != null && !roleFilter.isEmpty()) {
-                String roleFilterLower = roleFilter.toLowerCase();
-                allLicenseKeys = allLicenseKeys.stream()
-                    .filter(key -> roleFilterLower.equalsIgnoreCase(key.getRole()))
-                    .collect(Collectors.toList());
-            }
-            
-            // Sort by expiration date with better error handling
-            try {
-                Comparator<LicenseKey> comparator = Comparator.comparing(
-                        key -> key.getExpiresOn() != null ? key.getExpiresOn() : LocalDate.MAX,
-                        Comparator.nullsLast(Comparator.naturalOrder())
-                );
-                
-                // Apply sort order
-                if ("desc".equalsIgnoreCase(sortOrder)) {
-                    comparator = comparator.reversed();
-                }
-                
-                allLicenseKeys.sort(comparator);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-            // Calculate total items
-            int totalLicenseKeys = allLicenseKeys.size();
-            
-            // Calculate pagination
-            int offset = (currentPage - 1) * rowsPerPage;
-            int toIndex = Math.min(offset + rowsPerPage, allLicenseKeys.size());
-            
-            // Apply pagination
-            List<LicenseKey> licenseKeys = offset < toIndex 
-                ? allLicenseKeys.subList(offset, toIndex) 
-                : new ArrayList<>();
-            
-            // Create a map to store user names for display with better error handling
-            Map<String, String> userNames = new HashMap<>();
+            // Filter, sort and page in the database
+            Page<LicenseKey> licenseKeyPage = licenseKeyService.findLicenseKeys(
+                    statusFilter, roleFilter, sortOrder, currentPage, rowsPerPage);
+            List<LicenseKey> licenseKeys = licenseKeyPage.getContent();
+            long totalLicenseKeys = licenseKeyPage.getTotalElements();
             
-            // Get user names for all license keys that have a user
-            for (LicenseKey licenseKey : licenseKeys) {
-                if (licenseKey.getUser() != null) {
-                    try {
-                        Optional<User> userOpt = userService.findUserById(licenseKey.getUser());
-                        userOpt.ifPresent(user -> userNames.put(licenseKey.getUser(), user.getFullName()));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+            // Resolve the names of the users on this page in one lookup
+            Map<String, String> userNames = licenseKeyService.getUserNames(licenseKeys);
             
             // Add all available statuses and roles for filtering
             List<String> allStatuses = new ArrayList<>();
@@ -306,6 +234,7 @@ public class LicenseKeyViewController {
             
             // Save the updated license key directly using repository
             licenseKeyRepository.save(licenseKey);
+            licenseKeyService.invalidateCachedValidation(licenseKey.getKey());
             
             // Add success message
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -436,6 +365,28 @@ public class LicenseKeyViewController {
         return "redirect:/licenses";
     }
 
+    /**
+     * Runs the license key expiry check on demand.
+     *
+     * Marks every active license key whose expiration date has been reached as expired,
+     * the same way the scheduled daily check does.
+     * 
+     * @param redirectAttributes For passing flash messages on redirect
+     * @return Redirect to the licenses list
+     */
+    @PostMapping("/expire")
+    public String expireLicenseKeys(RedirectAttributes redirectAttributes) {
+        try {
+            int expiredCount = licenseKeyService.checkAllLicenseKeysForExpiration();
+            redirectAttributes.addFlashAttribute("successMessage", 
+                    expiredCount + " expired license key(s) updated");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error checking license key expiration: " + e.getMessage());
+        }
+        
+        return "redirect:/licenses";
+    }
+
     /**
      * Processes a request to delete a license key.
      *
@@ -4,11 +4,19 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientMergeCandidateDTO;
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientProfileDTO;
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientSearchResultDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
 import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientDeduplicationService;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientSearchService;
 import com.scorppultd.blackeyevalkyriesystem.service.PatientService;
 
 /**
@@ -22,6 +30,15 @@ public class PatientController {
     @Autowired
     private PatientService patientService;
     
+    @Autowired
+    private PatientSearchService patientSearchService;
+    
+    @Autowired
+    private PatientDeduplicationService patientDeduplicationService;
+    
+    @Value("${patients.dedup.min-score:0.85}")
+    private double defaultMinScore;
+    
     /**
      * Retrieves all patients with optional sorting.
      * 
@@ -44,6 +61,38 @@ public class PatientController {
         return new ResponseEntity<>(patients, HttpStatus.OK);
     }
     
+    /**
+     * Searches patients by name, relative's name, contact number or email, tolerating misspelled names.
+     * 
+     * @param query The search text
+     * @param page The page to return, starting at 0 (defaults to 0)
+     * @param size The number of results per page (defaults to 10, at most 50)
+     * @return ResponseEntity containing the matching patients, best matches first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<PatientSearchResultDTO>> searchPatients(
+            @RequestParam String query,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "10") int size) {
+        return new ResponseEntity<>(patientSearchService.search(query, page, size), HttpStatus.OK);
+    }
+    
+    /**
+     * Lists pairs of patient records that probably describe the same person, for review before merging.
+     * 
+     * @param minScore The lowest score a pair must reach, from 0 to 1 (defaults to patients.dedup.min-score)
+     * @param limit The maximum number of pairs to return (defaults to 100, at most 1000)
+     * @return ResponseEntity containing the pairs, most likely duplicates first
+     */
+    @GetMapping("/duplicates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<PatientMergeCandidateDTO>> getMergeCandidates(
+            @RequestParam(required = false) Double minScore,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
+        double threshold = minScore != null ? minScore : defaultMinScore;
+        return new ResponseEntity<>(patientDeduplicationService.findMergeCandidates(threshold, Math.min(limit, 1000)), HttpStatus.OK);
+    }
+    
     /**
      * Retrieves a specific patient by ID.
      * 
@@ -57,6 +106,20 @@ public class PatientController {
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
+    /**
+     * Retrieves the profile of a patient: the patient, allergy drug names and recent completed
+     * consultations, read with a single aggregation.
+     * 
+     * @param id The unique identifier of the patient
+     * @return ResponseEntity containing the profile if found, or NOT_FOUND status
+     */
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<PatientProfileDTO> getPatientProfile(@PathVariable String id) {
+        return patientService.getPatientProfile(id)
+                .map(profile -> new ResponseEntity<>(profile, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
     /**
      * Creates a new patient.
      * Validates required fields (firstName, lastName, dateOfBirth) before saving.
@@ -134,6 +197,30 @@ public class PatientController {
         }
     }
     
+    /**
+     * Merges a duplicate patient record into the patient with the given ID.
+     * The duplicate's appointments, consultations, prescriptions, vitals and visits are moved
+     * over and the duplicate is deleted.
+     * 
+     * @param id The unique identifier of the patient to keep
+     * @param duplicateId The unique identifier of the duplicate record
+     * @return ResponseEntity containing the kept patient, BAD_REQUEST if both IDs are the same,
+     *         NOT_FOUND if either patient does not exist, or CONFLICT if either is already being merged
+     */
+    @PostMapping("/{id}/merge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Patient> mergePatient(@PathVariable String id, @RequestParam String duplicateId) {
+        try {
+            return new ResponseEntity<>(patientDeduplicationService.mergePatients(id, duplicateId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (ResourceNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+    
     /**
      * Deletes a patient by ID.
      * 
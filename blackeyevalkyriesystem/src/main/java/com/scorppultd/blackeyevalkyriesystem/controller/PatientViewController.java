@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.Comparator;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -16,16 +15,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import com.scorppultd.blackeyevalkyriesystem.model.Drug;
 import com.scorppultd.blackeyevalkyriesystem.model.Patient;
-import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
 import com.scorppultd.blackeyevalkyriesystem.service.DrugService;
 import com.scorppultd.blackeyevalkyriesystem.service.PatientService;
-import com.scorppultd.blackeyevalkyriesystem.service.ConsultationService;
 
 /**
  * Controller for handling patient-related views and operations in the web interface.
  * This controller manages the UI for creating, viewing, editing, and deleting patients,
  * as well as displaying patient lists with sorting and pagination capabilities.
- * It interacts with PatientService, DrugService, and ConsultationService to retrieve
+ * It interacts with PatientService and DrugService to retrieve
  * and manipulate the necessary data.
  */
 @Controller
@@ -34,13 +31,11 @@ public class PatientViewController {
 
     private final PatientService patientService;
     private final DrugService drugService;
-    private final ConsultationService consultationService;
 
     @Autowired
-    public PatientViewController(PatientService patientService, DrugService drugService, ConsultationService consultationService) {
+    public PatientViewController(PatientService patientService, DrugService drugService) {
         this.patientService = patientService;
         this.drugService = drugService;
-        this.consultationService = consultationService;
     }
 
     /**
@@ -171,8 +166,9 @@ public class PatientViewController {
 
     /**
      * Displays detailed patient information including past consultations.
-     * Fetches the patient by ID, prepares drug data for allergies display,
-     * and retrieves the 10 most recent completed consultations sorted by date.
+     * Only the patient is loaded here; the page loads the profile (allergy drug names and the
+     * 10 most recent completed consultations) from /api/patients/{id}/profile, which reads it
+     * with a single aggregation.
      * 
      * @param id The unique identifier of the patient to view
      * @param model The Spring MVC model to add attributes to
@@ -183,37 +179,7 @@ public class PatientViewController {
         try {
             Optional<Patient> patientOpt = patientService.getPatientById(id);
             if (patientOpt.isPresent()) {
-                Patient patient = patientOpt.get();
-                List<Drug> allDrugs = drugService.getAllDrugs();
-                
-                // Create a map of drug IDs to drug names for displaying allergies
-                Map<String, String> drugNamesMap = allDrugs.stream()
-                    .collect(Collectors.toMap(
-                        Drug::getId,
-                        Drug::getName,
-                        (existing, replacement) -> existing
-                    ));
-                
-                // Get patient's past consultations
-                List<Consultation> pastConsultations = consultationService.getConsultationsByPatient(id);
-                
-                // Sort consultations by date, most recent first
-                pastConsultations.sort(Comparator.comparing(Consultation::getConsultationDateTime).reversed());
-                
-                // Filter completed consultations only
-                pastConsultations = pastConsultations.stream()
-                    .filter(c -> "Completed".equals(c.getStatus()))
-                    .collect(Collectors.toList());
-                
-                // Limit to most recent 10 consultations
-                if (pastConsultations.size() > 10) {
-                    pastConsultations = pastConsultations.subList(0, 10);
-                }
-                
-                model.addAttribute("patient", patient);
-                model.addAttribute("allDrugs", allDrugs);
-                model.addAttribute("drugNamesMap", drugNamesMap);
-                model.addAttribute("pastConsultations", pastConsultations);
+                model.addAttribute("patient", patientOpt.get());
                 return "patient-profile";
             }
         } catch (Exception e) {
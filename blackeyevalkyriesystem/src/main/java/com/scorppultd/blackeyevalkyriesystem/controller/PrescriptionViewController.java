@@ -1,16 +1,22 @@
 package com.scorppultd.blackeyevalkyriesystem.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.DispensaryWorklistDTO;
+import com.scorppultd.blackeyevalkyriesystem.dto.RefillOutcomeDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 import com.scorppultd.blackeyevalkyriesystem.service.PrescriptionService;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +33,8 @@ import org.slf4j.LoggerFactory;
 @PreAuthorize("hasAnyRole('ADMIN', 'PHARMACIST', 'DOCTOR', 'NURSE')")
 public class PrescriptionViewController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final PrescriptionService prescriptionService;
     private static final Logger logger = LoggerFactory.getLogger(PrescriptionViewController.class);
     
@@ -41,15 +49,46 @@ public class PrescriptionViewController {
     }
     
     /**
-     * Displays the dispensary main page showing all active prescriptions.
+     * Displays the dispensary worklist, one page at a time, newest prescriptions first.
      * 
+     * @param status The prescription status to list (default "active").
+     * @param from The earliest prescription date to include, if any.
+     * @param to The latest prescription date to include, if any.
+     * @param patient Text matched against patient names, if any.
+     * @param cursor The cursor of the page to show; the first page is shown when omitted.
+     * @param size The number of prescriptions per page (default 25, at most 100).
      * @param model The Spring MVC model for passing data to the view.
      * @return The view name for the prescription dispensary page.
      */
     @GetMapping
-    public String showDispensaryPage(Model model) {
-        List<Prescription> activePrescriptions = prescriptionService.getPrescriptionsByStatus("active");
-        model.addAttribute("prescriptions", activePrescriptions);
+    public String showDispensaryPage(
+            @RequestParam(defaultValue = "active") String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String patient,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "25") int size,
+            Model model) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        DispensaryWorklistDTO worklist;
+        try {
+            worklist = prescriptionService.getDispensaryWorklist(status, from, to, patient, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            // A name filter that is too broad is dropped rather than scanning patients
+            model.addAttribute("error", e.getMessage());
+            patient = null;
+            worklist = prescriptionService.getDispensaryWorklist(status, from, to, null, cursor, pageSize);
+        }
+        
+        model.addAttribute("prescriptions", worklist.getPrescriptions());
+        model.addAttribute("nextCursor", worklist.getNextCursor());
+        model.addAttribute("hasMore", worklist.isHasMore());
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
+        model.addAttribute("status", status);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("patient", patient);
+        model.addAttribute("size", pageSize);
         return "prescription-dispensary";
     }
     
@@ -86,6 +125,49 @@ public class PrescriptionViewController {
         return "redirect:/dispensary";
     }
     
+    /**
+     * Dispenses one refill of each selected prescription item, all in one write.
+     * 
+     * @param id The unique identifier of the prescription.
+     * @param itemIds The identifiers of the prescription items to refill.
+     * @param redirectAttributes Spring MVC redirect attributes for flash messages.
+     * @return A redirect to the prescription details page.
+     */
+    @PostMapping("/refill/{id}")
+    public String dispenseRefills(
+            @PathVariable String id,
+            @RequestParam("itemId") List<String> itemIds,
+            RedirectAttributes redirectAttributes) {
+        
+        try {
+            List<RefillOutcomeDTO> outcomes = prescriptionService.dispenseRefills(Map.of(id, itemIds));
+            List<String> dispensed = new ArrayList<>();
+            int unavailable = 0;
+            for (RefillOutcomeDTO outcome : outcomes) {
+                if (outcome.isDispensed()) {
+                    dispensed.add(outcome.getRefillsRemaining() + " remaining");
+                } else {
+                    unavailable++;
+                }
+            }
+            if (!dispensed.isEmpty()) {
+                redirectAttributes.addFlashAttribute("success", 
+                        (dispensed.size() == 1 ? "Refill dispensed, " : dispensed.size() + " refills dispensed, ")
+                                + String.join(", ", dispensed));
+            }
+            if (unavailable > 0) {
+                redirectAttributes.addFlashAttribute("error", unavailable == 1
+                        ? "No refills remaining for one item" : "No refills remaining for " + unavailable + " items");
+            }
+        } catch (Exception e) {
+            logger.error("Error dispensing refills: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", 
+                    "Error dispensing refills: " + e.getMessage());
+        }
+        
+        return "redirect:/dispensary/view/" + id;
+    }
+    
     /**
      * Displays the details of a specific prescription.
      * 
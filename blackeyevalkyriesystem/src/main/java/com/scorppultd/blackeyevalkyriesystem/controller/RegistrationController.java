@@ -1,14 +1,18 @@
 package com.scorppultd.blackeyevalkyriesystem.controller;
 
+import com.scorppultd.blackeyevalkyriesystem.config.ClientRateLimiter;
+import com.scorppultd.blackeyevalkyriesystem.dto.LicenseKeyVerificationDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
 import com.scorppultd.blackeyevalkyriesystem.model.User;
 import com.scorppultd.blackeyevalkyriesystem.service.LicenseKeyService;
 import com.scorppultd.blackeyevalkyriesystem.repository.LicenseKeyRepository;
 import com.scorppultd.blackeyevalkyriesystem.service.UserService;
+import com.scorppultd.blackeyevalkyriesystem.service.UsernameBloomFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -44,6 +48,12 @@ public class RegistrationController {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+    
+    @Autowired
+    private UsernameBloomFilter usernameBloomFilter;
 
     /**
      * Displays the forgot password page.
@@ -181,6 +191,7 @@ public class RegistrationController {
             validLicense.setUser(savedUser.getId());
             validLicense.setStatus(LicenseKey.Status.USED);
             licenseKeyRepository.save(validLicense);
+            licenseKeyService.invalidateCachedValidation(licenseKey);
 
             redirectAttributes.addFlashAttribute("successMessage", "Registration successful. You can now log in.");
             return "redirect:/login?registered=true";
@@ -195,52 +206,37 @@ public class RegistrationController {
      * REST API endpoint for verifying a license key.
      *
      * Checks if the license key exists, is active, unused, and not expired.
+     * Outcomes are served from the license key validation cache where possible, and each
+     * client is rate limited since the endpoint is public.
      *
      * @param request Map containing the license key to verify
+     * @param httpRequest The HTTP request, used to identify the client for rate limiting
      * @return ResponseEntity with verification result as JSON
      */
     @PostMapping("/api/verify-license-key")
     @ResponseBody
-    public ResponseEntity<?> verifyLicenseKey(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> verifyLicenseKey(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!clientRateLimiter.tryAcquire(httpRequest.getRemoteAddr())) {
+            logger.warn("License key verification rate limit exceeded for {}", httpRequest.getRemoteAddr());
+            response.put("valid", false);
+            response.put("message", "Too many verification attempts. Please try again later.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+
         String licenseKey = request.get("licenseKey");
         logger.info("License key verification request: {}", licenseKey);
 
-        Map<String, Object> response = new HashMap<>();
-
         try {
-            Optional<LicenseKey> licenseKeyOpt = licenseKeyService.findByKey(licenseKey);
-            
-            if (licenseKeyOpt.isEmpty()) {
-                response.put("valid", false);
-                response.put("message", "License key not found");
-                logger.warn("License key not found: {}", licenseKey);
-                return ResponseEntity.ok(response);
-            }
-            
-            LicenseKey license = licenseKeyOpt.get();
-            
-            // Check if the license is expired
-            if (licenseKeyService.isLicenseExpired(license)) {
-                response.put("valid", false);
-                response.put("message", "License key has expired");
-                logger.warn("License key is expired: {}", licenseKey);
-                return ResponseEntity.ok(response);
-            }
-            
-            // Check if the license is active and unused
-            if (LicenseKey.Status.ACTIVE.equals(license.getStatus()) && license.getUser() == null) {
-                response.put("valid", true);
-                response.put("role", license.getRole());
-                logger.info("License key verified successfully: {} for role {}", licenseKey, license.getRole());
+            LicenseKeyVerificationDTO verification = licenseKeyService.verifyLicenseKey(licenseKey);
+            response.put("valid", verification.isValid());
+            if (verification.isValid()) {
+                response.put("role", verification.getRole());
+                logger.info("License key verified successfully: {} for role {}", licenseKey, verification.getRole());
             } else {
-                response.put("valid", false);
-                if (license.getUser() != null) {
-                    response.put("message", "License key has already been used");
-                    logger.warn("License key already used: {}", licenseKey);
-                } else {
-                    response.put("message", "License key is not active");
-                    logger.warn("License key not active: {} - Status: {}", licenseKey, license.getStatus());
-                }
+                response.put("message", verification.getMessage());
+                logger.warn("License key rejected: {} - {}", licenseKey, verification.getMessage());
             }
             
             return ResponseEntity.ok(response);
@@ -256,6 +252,7 @@ public class RegistrationController {
      * REST API endpoint for checking username availability.
      *
      * Checks if a username is already taken or is a reserved system username.
+     * Usernames ruled out by the username Bloom filter are reported available without a database read.
      *
      * @param username Username to check
      * @return ResponseEntity with availability result as JSON
@@ -277,7 +274,9 @@ public class RegistrationController {
                     .body(response);
             }
             
-            boolean isAvailable = !userService.findUserByUsername(username).isPresent();
+            // A username the filter has never seen is definitely available; only possible matches are confirmed in the database
+            boolean isAvailable = !usernameBloomFilter.mightContain(username)
+                    || !userService.findUserByUsername(username).isPresent();
             response.put("available", isAvailable);
             
             if (isAvailable) {
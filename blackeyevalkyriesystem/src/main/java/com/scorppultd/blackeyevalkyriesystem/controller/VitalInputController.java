@@ -6,6 +6,8 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
 import com.scorppultd.blackeyevalkyriesystem.model.Appointment.VitalSigns;
 import com.scorppultd.blackeyevalkyriesystem.service.AppointmentService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsService;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -30,16 +33,21 @@ import jakarta.servlet.http.HttpServletRequest;
 @PreAuthorize("hasAnyRole('ROLE_NURSE', 'ROLE_ADMIN')")
 public class VitalInputController {
     
+    private static final Logger logger = LoggerFactory.getLogger(VitalInputController.class);
+    
     private final AppointmentService appointmentService;
+    private final VitalsService vitalsService;
     
     /**
-     * Constructs a VitalInputController with the required service.
+     * Constructs a VitalInputController with the required services.
      * 
      * @param appointmentService Service for managing appointment data
+     * @param vitalsService Service for the patients' vitals history
      */
     @Autowired
-    public VitalInputController(AppointmentService appointmentService) {
+    public VitalInputController(AppointmentService appointmentService, VitalsService vitalsService) {
         this.appointmentService = appointmentService;
+        this.vitalsService = vitalsService;
     }
     
     /**
@@ -107,6 +115,7 @@ public class VitalInputController {
      * Processes the submitted vital signs form data and updates the appointment.
      * Calculates BMI if height and weight are provided.
      * Updates appointment status to 'vitalChecked' if all vital signs are filled.
+     * Only the vital signs and status are written back to the appointment.
      * 
      * @param id The appointment ID
      * @param temperature Patient's body temperature
@@ -133,22 +142,8 @@ public class VitalInputController {
             @RequestParam(required = false) Double height,
             HttpServletRequest request) {
         
-        // Get the appointment
-        Optional<Appointment> appointmentOpt = appointmentService.getAppointmentById(id);
-        if (appointmentOpt.isEmpty()) {
-            return "redirect:/vital/list?error=appointmentNotFound";
-        }
-        
-        Appointment appointment = appointmentOpt.get();
-        
-        // Create vital signs if not exists
-        VitalSigns vitalSigns = appointment.getVitalSigns();
-        if (vitalSigns == null) {
-            vitalSigns = new VitalSigns();
-            appointment.setVitalSigns(vitalSigns);
-        }
-        
         // Set vital signs
+        VitalSigns vitalSigns = new VitalSigns();
         vitalSigns.setTemperature(temperature);
         vitalSigns.setLowBloodPressure(lowBloodPressure);
         vitalSigns.setHighBloodPressure(highBloodPressure);
@@ -164,12 +159,20 @@ public class VitalInputController {
         }
         
         // Update appointment status to vitalChecked if all vital signs are filled
-        if (isAllVitalSigned(vitalSigns)) {
-            appointment.setStatus("vitalChecked");
+        String status = isAllVitalSigned(vitalSigns) ? "vitalChecked" : null;
+        
+        // Save only the vital signs and status
+        Optional<Appointment> updated = appointmentService.updateVitalSigns(id, vitalSigns, status);
+        if (updated.isEmpty()) {
+            return "redirect:/vital/list?error=appointmentNotFound";
         }
         
-        // Save the appointment
-        appointmentService.updateAppointment(appointment);
+        // Append the measurement to the patient's vitals history
+        try {
+            vitalsService.recordAppointmentVitals(updated.get());
+        } catch (Exception e) {
+            logger.error("Failed to record vitals history for appointment {}: {}", id, e.getMessage());
+        }
         
         return "redirect:/vital/list?success=vitalSaved";
     }
@@ -230,30 +233,27 @@ public class VitalInputController {
             @PathVariable String id,
             @RequestBody VitalSigns vitalSigns) {
         
-        // Get the appointment
-        Optional<Appointment> appointmentOpt = appointmentService.getAppointmentById(id);
-        if (appointmentOpt.isEmpty()) {
-            return new ResponseEntity<>("Appointment not found", HttpStatus.NOT_FOUND);
-        }
-        
-        Appointment appointment = appointmentOpt.get();
-        
-        // Set vital signs
-        appointment.setVitalSigns(vitalSigns);
-        
         // Calculate BMI if height and weight are provided
         if (vitalSigns.getHeight() != null && vitalSigns.getWeight() != null) {
             vitalSigns.calculateBmi();
         }
         
         // Update appointment status to vitalChecked if all vital signs are filled
-        if (isAllVitalSigned(vitalSigns)) {
-            appointment.setStatus("vitalChecked");
+        String status = isAllVitalSigned(vitalSigns) ? "vitalChecked" : null;
+        
+        // Save only the vital signs and status
+        Optional<Appointment> updated = appointmentService.updateVitalSigns(id, vitalSigns, status);
+        if (updated.isEmpty()) {
+            return new ResponseEntity<>("Appointment not found", HttpStatus.NOT_FOUND);
         }
         
-        // Save the appointment
-        appointmentService.updateAppointment(appointment);
+        // Append the measurement to the patient's vitals history
+        try {
+            vitalsService.recordAppointmentVitals(updated.get());
+        } catch (Exception e) {
+            logger.error("Failed to record vitals history for appointment {}: {}", id, e.getMessage());
+        }
         
-        return new ResponseEntity<>(appointment, HttpStatus.OK);
+        return new ResponseEntity<>(updated.get(), HttpStatus.OK);
     }
 } 
\ No newline at end of file
@@ -476,14 +476,9 @@ public class WebController {
                 patientData.put("age", patient.getAge());
                 patientData.put("sex", patient.getSex());
                 
-                if (patient.getVisits() != null && !patient.getVisits().isEmpty() && patient.getVisits().get(0) != null) {
-                    Visit lastVisit = patient.getVisits().get(0);
-                    if (lastVisit.getVisitDate() != null) {
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                        patientData.put("lastVisitDate", lastVisit.getVisitDate().format(formatter));
-                    } else {
-                        patientData.put("lastVisitDate", "No date");
-                    }
+                if (patient.getLastVisitDate() != null) {
+                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+                    patientData.put("lastVisitDate", patient.getLastVisitDate().format(formatter));
                 } else {
                     patientData.put("lastVisitDate", "No visits");
                 }
@@ -713,13 +708,7 @@ public class WebController {
                 
                 visit.setVisitDate(appointment.getScheduledTime().toLocalDate());
                 
-                if (patient.getVisits() == null) {
-                    patient.setVisits(new ArrayList<>());
-                }
-                
-                patient.getVisits().add(visit);
-                
-                patientService.savePatient(patient);
+                patientService.recordVisit(visit);
                 System.out.println("Added visit record to patient: " + patient.getId());
             }
         } catch (Exception e) {
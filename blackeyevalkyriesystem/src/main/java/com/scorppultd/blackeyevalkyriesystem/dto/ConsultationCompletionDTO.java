@@ -0,0 +1,130 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+
+/**
+ * What the doctor submits when closing a consultation: the final notes, diagnosis and vital
+ * signs, and the drugs to prescribe.
+ */
+public class ConsultationCompletionDTO {
+    private String consultationId;
+    private String appointmentId;
+    private String clinicalNotes;
+    private String diagnosis;
+    private Consultation.VitalSigns vitalSigns;
+    private List<PrescriptionLineDTO> prescriptionLines;
+    
+    public ConsultationCompletionDTO() {
+    }
+    
+    public String getConsultationId() {
+        return consultationId;
+    }
+    
+    public void setConsultationId(String consultationId) {
+        this.consultationId = consultationId;
+    }
+    
+    /**
+     * @return The appointment the consultation belongs to, or null to keep the one it has
+     */
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+    
+    public void setAppointmentId(String appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+    
+    public String getClinicalNotes() {
+        return clinicalNotes;
+    }
+    
+    public void setClinicalNotes(String clinicalNotes) {
+        this.clinicalNotes = clinicalNotes;
+    }
+    
+    /**
+     * @return The final diagnosis, or null to keep the current one
+     */
+    public String getDiagnosis() {
+        return diagnosis;
+    }
+    
+    public void setDiagnosis(String diagnosis) {
+        this.diagnosis = diagnosis;
+    }
+    
+    /**
+     * @return The vital signs from the form, or null to keep the current ones
+     */
+    public Consultation.VitalSigns getVitalSigns() {
+        return vitalSigns;
+    }
+    
+    public void setVitalSigns(Consultation.VitalSigns vitalSigns) {
+        this.vitalSigns = vitalSigns;
+    }
+    
+    /**
+     * @return The drugs to prescribe; no prescription is created if empty
+     */
+    public List<PrescriptionLineDTO> getPrescriptionLines() {
+        return prescriptionLines;
+    }
+    
+    public void setPrescriptionLines(List<PrescriptionLineDTO> prescriptionLines) {
+        this.prescriptionLines = prescriptionLines;
+    }
+    
+    public static class PrescriptionLineDTO {
+        private String drugId;
+        private String dosage;
+        private String duration;
+        private Integer quantity;
+        
+        public PrescriptionLineDTO() {
+        }
+        
+        public PrescriptionLineDTO(String drugId, String dosage, String duration, Integer quantity) {
+            this.drugId = drugId;
+            this.dosage = dosage;
+            this.duration = duration;
+            this.quantity = quantity;
+        }
+        
+        public String getDrugId() {
+            return drugId;
+        }
+        
+        public void setDrugId(String drugId) {
+            this.drugId = drugId;
+        }
+        
+        public String getDosage() {
+            return dosage;
+        }
+        
+        public void setDosage(String dosage) {
+            this.dosage = dosage;
+        }
+        
+        public String getDuration() {
+            return duration;
+        }
+        
+        public void setDuration(String duration) {
+            this.duration = duration;
+        }
+        
+        public Integer getQuantity() {
+            return quantity;
+        }
+        
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
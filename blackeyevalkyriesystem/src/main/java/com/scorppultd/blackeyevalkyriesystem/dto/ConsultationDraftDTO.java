@@ -0,0 +1,43 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.util.Map;
+
+/**
+ * A set of changed consultation fields, sent by the consultation form while the doctor types.
+ * The revision is the consultation version the form last saw; the draft is only applied while
+ * the consultation still has that version, and the new version is returned as the next revision.
+ */
+public class ConsultationDraftDTO {
+    private Long revision;
+    private Map<String, String> fields;
+    
+    public ConsultationDraftDTO() {
+    }
+    
+    public ConsultationDraftDTO(Long revision, Map<String, String> fields) {
+        this.revision = revision;
+        this.fields = fields;
+    }
+    
+    /**
+     * @return The consultation version the fields were edited against
+     */
+    public Long getRevision() {
+        return revision;
+    }
+    
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+    
+    /**
+     * @return The changed fields by name, e.g. "clinicalNotes" or "diagnosis"
+     */
+    public Map<String, String> getFields() {
+        return fields;
+    }
+    
+    public void setFields(Map<String, String> fields) {
+        this.fields = fields;
+    }
+}
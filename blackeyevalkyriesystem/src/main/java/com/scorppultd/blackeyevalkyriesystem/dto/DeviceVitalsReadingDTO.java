@@ -0,0 +1,123 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.time.Instant;
+
+/**
+ * One vital signs reading sent by a bedside monitor or other device.
+ * Only the patient ID is required; values the device does not measure are left out.
+ */
+public class DeviceVitalsReadingDTO {
+    private String patientId;
+    private String appointmentId;
+    private String deviceId;
+    private Instant measuredAt;
+    private Double temperature;
+    private Integer systolic;
+    private Integer diastolic;
+    private Integer heartRate;
+    private Integer respiratoryRate;
+    private Double oxygenSaturation;
+
+    public DeviceVitalsReadingDTO() {
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    /**
+     * Returns the appointment whose latest-vitals snapshot the reading updates.
+     *
+     * @return The appointment ID, or null if the reading is only added to the history
+     */
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(String appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Returns when the device took the reading.
+     *
+     * @return The measurement time, or null if the time of receipt is to be used
+     */
+    public Instant getMeasuredAt() {
+        return measuredAt;
+    }
+
+    public void setMeasuredAt(Instant measuredAt) {
+        this.measuredAt = measuredAt;
+    }
+
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(Double temperature) {
+        this.temperature = temperature;
+    }
+
+    public Integer getSystolic() {
+        return systolic;
+    }
+
+    public void setSystolic(Integer systolic) {
+        this.systolic = systolic;
+    }
+
+    public Integer getDiastolic() {
+        return diastolic;
+    }
+
+    public void setDiastolic(Integer diastolic) {
+        this.diastolic = diastolic;
+    }
+
+    public Integer getHeartRate() {
+        return heartRate;
+    }
+
+    public void setHeartRate(Integer heartRate) {
+        this.heartRate = heartRate;
+    }
+
+    public Integer getRespiratoryRate() {
+        return respiratoryRate;
+    }
+
+    public void setRespiratoryRate(Integer respiratoryRate) {
+        this.respiratoryRate = respiratoryRate;
+    }
+
+    public Double getOxygenSaturation() {
+        return oxygenSaturation;
+    }
+
+    public void setOxygenSaturation(Double oxygenSaturation) {
+        this.oxygenSaturation = oxygenSaturation;
+    }
+
+    /**
+     * Checks whether the reading holds at least one vital sign value.
+     *
+     * @return true if any value is present
+     */
+    public boolean hasAnyValue() {
+        return temperature != null || systolic != null || diastolic != null || heartRate != null
+                || respiratoryRate != null || oxygenSaturation != null;
+    }
+}
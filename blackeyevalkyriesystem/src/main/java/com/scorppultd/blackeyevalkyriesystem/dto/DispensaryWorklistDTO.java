@@ -0,0 +1,129 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of the dispensary worklist.
+ * Rows carry only the fields shown in the dispensary table; {@code nextCursor} is passed back
+ * to fetch the following page and is null on the last page.
+ */
+public class DispensaryWorklistDTO {
+    private List<PrescriptionRowDTO> prescriptions;
+    private String nextCursor;
+    
+    public DispensaryWorklistDTO() {
+    }
+    
+    public DispensaryWorklistDTO(List<PrescriptionRowDTO> prescriptions, String nextCursor) {
+        this.prescriptions = prescriptions;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<PrescriptionRowDTO> getPrescriptions() {
+        return prescriptions;
+    }
+    
+    public void setPrescriptions(List<PrescriptionRowDTO> prescriptions) {
+        this.prescriptions = prescriptions;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+    
+    public static class PrescriptionRowDTO {
+        private String id;
+        private String patientId;
+        private String patientName;
+        private String doctorName;
+        private LocalDate prescriptionDate;
+        private String status;
+        private int itemCount;
+        private List<String> drugIds;
+        private List<String> drugNames;
+        
+        public PrescriptionRowDTO() {
+        }
+        
+        public String getId() {
+            return id;
+        }
+        
+        public void setId(String id) {
+            this.id = id;
+        }
+        
+        public String getPatientId() {
+            return patientId;
+        }
+        
+        public void setPatientId(String patientId) {
+            this.patientId = patientId;
+        }
+        
+        public String getPatientName() {
+            return patientName;
+        }
+        
+        public void setPatientName(String patientName) {
+            this.patientName = patientName;
+        }
+        
+        public String getDoctorName() {
+            return doctorName;
+        }
+        
+        public void setDoctorName(String doctorName) {
+            this.doctorName = doctorName;
+        }
+        
+        public LocalDate getPrescriptionDate() {
+            return prescriptionDate;
+        }
+        
+        public void setPrescriptionDate(LocalDate prescriptionDate) {
+            this.prescriptionDate = prescriptionDate;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        
+        public List<String> getDrugIds() {
+            return drugIds;
+        }
+        
+        public void setDrugIds(List<String> drugIds) {
+            this.drugIds = drugIds;
+        }
+        
+        public List<String> getDrugNames() {
+            return drugNames;
+        }
+        
+        public void setDrugNames(List<String> drugNames) {
+            this.drugNames = drugNames;
+        }
+        
+        public int getItemCount() {
+            return itemCount;
+        }
+        
+        public void setItemCount(int itemCount) {
+            this.itemCount = itemCount;
+        }
+    }
+}
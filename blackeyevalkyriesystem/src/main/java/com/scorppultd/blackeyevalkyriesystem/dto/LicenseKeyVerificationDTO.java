@@ -0,0 +1,37 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+/**
+ * Outcome of verifying a license key before registration.
+ * A valid key carries the role it grants; an invalid one carries the reason shown to the user.
+ */
+public class LicenseKeyVerificationDTO {
+    private final boolean valid;
+    private final String role;
+    private final String message;
+    
+    private LicenseKeyVerificationDTO(boolean valid, String role, String message) {
+        this.valid = valid;
+        this.role = role;
+        this.message = message;
+    }
+    
+    public static LicenseKeyVerificationDTO valid(String role) {
+        return new LicenseKeyVerificationDTO(true, role, null);
+    }
+    
+    public static LicenseKeyVerificationDTO invalid(String message) {
+        return new LicenseKeyVerificationDTO(false, null, message);
+    }
+    
+    public boolean isValid() {
+        return valid;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,150 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A pair of patient records that probably describe the same person, for an administrator to
+ * review before merging them.
+ */
+public class PatientMergeCandidateDTO {
+    private PatientSummaryDTO first;
+    private PatientSummaryDTO second;
+    private double score;
+    private List<String> matchedOn;
+
+    public PatientMergeCandidateDTO() {
+    }
+
+    public PatientMergeCandidateDTO(PatientSummaryDTO first, PatientSummaryDTO second, double score, List<String> matchedOn) {
+        this.first = first;
+        this.second = second;
+        this.score = score;
+        this.matchedOn = matchedOn;
+    }
+
+    public PatientSummaryDTO getFirst() {
+        return first;
+    }
+
+    public void setFirst(PatientSummaryDTO first) {
+        this.first = first;
+    }
+
+    public PatientSummaryDTO getSecond() {
+        return second;
+    }
+
+    public void setSecond(PatientSummaryDTO second) {
+        this.second = second;
+    }
+
+    /**
+     * @return How likely the two records describe the same person, from 0 to 1
+     */
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * @return What brought the pair together: "name and birth year", "contact number" or "email"
+     */
+    public List<String> getMatchedOn() {
+        return matchedOn;
+    }
+
+    public void setMatchedOn(List<String> matchedOn) {
+        this.matchedOn = matchedOn;
+    }
+
+    public static class PatientSummaryDTO {
+        private String id;
+        private String firstName;
+        private String lastName;
+        private LocalDate dateOfBirth;
+        private Integer age;
+        private Boolean sex;
+        private String contactNumber;
+        private String email;
+        private LocalDate createDate;
+
+        public PatientSummaryDTO() {
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public LocalDate getDateOfBirth() {
+            return dateOfBirth;
+        }
+
+        public void setDateOfBirth(LocalDate dateOfBirth) {
+            this.dateOfBirth = dateOfBirth;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public Boolean getSex() {
+            return sex;
+        }
+
+        public void setSex(Boolean sex) {
+            this.sex = sex;
+        }
+
+        public String getContactNumber() {
+            return contactNumber;
+        }
+
+        public void setContactNumber(String contactNumber) {
+            this.contactNumber = contactNumber;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public LocalDate getCreateDate() {
+            return createDate;
+        }
+
+        public void setCreateDate(LocalDate createDate) {
+            this.createDate = createDate;
+        }
+    }
+}
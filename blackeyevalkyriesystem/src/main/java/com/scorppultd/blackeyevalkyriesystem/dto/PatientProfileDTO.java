@@ -0,0 +1,191 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+
+/**
+ * Everything the patient profile page shows, read with a single aggregation.
+ * Past consultations carry only the fields shown on the page, with the doctor's name and a
+ * summary of the prescription in place of the referenced documents.
+ */
+public class PatientProfileDTO {
+    private Patient patient;
+    private Map<String, String> drugNames;
+    private List<ConsultationSummaryDTO> pastConsultations;
+
+    public PatientProfileDTO() {
+    }
+
+    public PatientProfileDTO(Patient patient, Map<String, String> drugNames, List<ConsultationSummaryDTO> pastConsultations) {
+        this.patient = patient;
+        this.drugNames = drugNames;
+        this.pastConsultations = pastConsultations;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public void setPatient(Patient patient) {
+        this.patient = patient;
+    }
+
+    /**
+     * @return Names of the drugs the patient is allergic to, by drug ID
+     */
+    public Map<String, String> getDrugNames() {
+        return drugNames;
+    }
+
+    public void setDrugNames(Map<String, String> drugNames) {
+        this.drugNames = drugNames;
+    }
+
+    /**
+     * @return The most recent completed consultations, newest first
+     */
+    public List<ConsultationSummaryDTO> getPastConsultations() {
+        return pastConsultations;
+    }
+
+    public void setPastConsultations(List<ConsultationSummaryDTO> pastConsultations) {
+        this.pastConsultations = pastConsultations;
+    }
+
+    public static class ConsultationSummaryDTO {
+        private String id;
+        private LocalDateTime consultationDateTime;
+        private String consultationType;
+        private String status;
+        private String doctorName;
+        private String diagnosis;
+        private String clinicalNotes;
+        private Consultation.VitalSigns vitalSigns;
+        private PrescriptionSummaryDTO prescription;
+
+        public ConsultationSummaryDTO() {
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public LocalDateTime getConsultationDateTime() {
+            return consultationDateTime;
+        }
+
+        public void setConsultationDateTime(LocalDateTime consultationDateTime) {
+            this.consultationDateTime = consultationDateTime;
+        }
+
+        public String getConsultationType() {
+            return consultationType;
+        }
+
+        public void setConsultationType(String consultationType) {
+            this.consultationType = consultationType;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getDoctorName() {
+            return doctorName;
+        }
+
+        public void setDoctorName(String doctorName) {
+            this.doctorName = doctorName;
+        }
+
+        public String getDiagnosis() {
+            return diagnosis;
+        }
+
+        public void setDiagnosis(String diagnosis) {
+            this.diagnosis = diagnosis;
+        }
+
+        public String getClinicalNotes() {
+            return clinicalNotes;
+        }
+
+        public void setClinicalNotes(String clinicalNotes) {
+            this.clinicalNotes = clinicalNotes;
+        }
+
+        public Consultation.VitalSigns getVitalSigns() {
+            return vitalSigns;
+        }
+
+        public void setVitalSigns(Consultation.VitalSigns vitalSigns) {
+            this.vitalSigns = vitalSigns;
+        }
+
+        public PrescriptionSummaryDTO getPrescription() {
+            return prescription;
+        }
+
+        public void setPrescription(PrescriptionSummaryDTO prescription) {
+            this.prescription = prescription;
+        }
+    }
+
+    public static class PrescriptionSummaryDTO {
+        private String id;
+        private String status;
+        private LocalDate validUntil;
+        private List<String> medications;
+
+        public PrescriptionSummaryDTO() {
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public LocalDate getValidUntil() {
+            return validUntil;
+        }
+
+        public void setValidUntil(LocalDate validUntil) {
+            this.validUntil = validUntil;
+        }
+
+        /**
+         * @return One line per prescribed drug, e.g. "Amoxicillin 500mg, 3 times daily, 7 days"
+         */
+        public List<String> getMedications() {
+            return medications;
+        }
+
+        public void setMedications(List<String> medications) {
+            this.medications = medications;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One patient found by a search, with only the fields shown in search results.
+ * The score is the sum of the weights of the search keys the patient matched; higher is better.
+ */
+public class PatientSearchResultDTO {
+    private String id;
+    private String firstName;
+    private String lastName;
+    private LocalDate dateOfBirth;
+    private Integer age;
+    private Boolean sex;
+    private String contactNumber;
+    private String email;
+    private String relativeName;
+    private String status;
+    private int score;
+    
+    public PatientSearchResultDTO() {
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getFirstName() {
+        return firstName;
+    }
+    
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+    
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+    
+    public Integer getAge() {
+        return age;
+    }
+    
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+    
+    /**
+     * @return The patient's sex as stored on the patient (true for male)
+     */
+    public Boolean getSex() {
+        return sex;
+    }
+    
+    public void setSex(Boolean sex) {
+        this.sex = sex;
+    }
+    
+    public String getContactNumber() {
+        return contactNumber;
+    }
+    
+    public void setContactNumber(String contactNumber) {
+        this.contactNumber = contactNumber;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public String getRelativeName() {
+        return relativeName;
+    }
+    
+    public void setRelativeName(String relativeName) {
+        this.relativeName = relativeName;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public int getScore() {
+        return score;
+    }
+    
+    public void setScore(int score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,60 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+/**
+ * Outcome of one requested refill: whether a refill of the item was dispensed and,
+ * if so, how many refills the item has left.
+ */
+public class RefillOutcomeDTO {
+    private String prescriptionId;
+    private String itemId;
+    private boolean dispensed;
+    private Integer refillsRemaining;
+    
+    public RefillOutcomeDTO() {
+    }
+    
+    public RefillOutcomeDTO(String prescriptionId, String itemId, boolean dispensed, Integer refillsRemaining) {
+        this.prescriptionId = prescriptionId;
+        this.itemId = itemId;
+        this.dispensed = dispensed;
+        this.refillsRemaining = refillsRemaining;
+    }
+    
+    public String getPrescriptionId() {
+        return prescriptionId;
+    }
+    
+    public void setPrescriptionId(String prescriptionId) {
+        this.prescriptionId = prescriptionId;
+    }
+    
+    public String getItemId() {
+        return itemId;
+    }
+    
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+    
+    /**
+     * @return True if a refill was dispensed, false if the item had no refill available
+     */
+    public boolean isDispensed() {
+        return dispensed;
+    }
+    
+    public void setDispensed(boolean dispensed) {
+        this.dispensed = dispensed;
+    }
+    
+    /**
+     * @return The refills left after dispensing, or null if nothing was dispensed
+     */
+    public Integer getRefillsRemaining() {
+        return refillsRemaining;
+    }
+    
+    public void setRefillsRemaining(Integer refillsRemaining) {
+        this.refillsRemaining = refillsRemaining;
+    }
+}
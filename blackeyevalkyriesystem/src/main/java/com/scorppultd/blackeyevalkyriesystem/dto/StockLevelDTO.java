@@ -0,0 +1,62 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+/**
+ * Stock level of a drug, summed over all of its stock stripes.
+ */
+public class StockLevelDTO {
+    private String drugId;
+    private String drugName;
+    private int onHand;
+    private int reserved;
+    private int available;
+    
+    public StockLevelDTO() {
+    }
+    
+    public StockLevelDTO(String drugId, int onHand, int reserved, int available) {
+        this.drugId = drugId;
+        this.onHand = onHand;
+        this.reserved = reserved;
+        this.available = available;
+    }
+    
+    public String getDrugId() {
+        return drugId;
+    }
+    
+    public void setDrugId(String drugId) {
+        this.drugId = drugId;
+    }
+    
+    public String getDrugName() {
+        return drugName;
+    }
+    
+    public void setDrugName(String drugName) {
+        this.drugName = drugName;
+    }
+    
+    public int getOnHand() {
+        return onHand;
+    }
+    
+    public void setOnHand(int onHand) {
+        this.onHand = onHand;
+    }
+    
+    public int getReserved() {
+        return reserved;
+    }
+    
+    public void setReserved(int reserved) {
+        this.reserved = reserved;
+    }
+    
+    public int getAvailable() {
+        return available;
+    }
+    
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+}
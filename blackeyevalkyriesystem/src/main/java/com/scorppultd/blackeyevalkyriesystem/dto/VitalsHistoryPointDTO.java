@@ -0,0 +1,78 @@
+package com.scorppultd.blackeyevalkyriesystem.dto;
+
+/**
+ * One point of a patient's vital sign history.
+ * A point is either a single measurement (count 1, min = max = value) or, for long ranges,
+ * the summary of all measurements in one time bucket, with value holding the bucket average.
+ */
+public class VitalsHistoryPointDTO {
+    private String date;
+    private double value;
+    private double min;
+    private double max;
+    private long count;
+    private String doctor;
+    
+    public VitalsHistoryPointDTO() {
+    }
+    
+    public VitalsHistoryPointDTO(String date, double value, double min, double max, long count, String doctor) {
+        this.date = date;
+        this.value = value;
+        this.min = min;
+        this.max = max;
+        this.count = count;
+        this.doctor = doctor;
+    }
+    
+    /**
+     * @return The date of the measurement, or the start of the bucket (ISO-8601)
+     */
+    public String getDate() {
+        return date;
+    }
+    
+    public void setDate(String date) {
+        this.date = date;
+    }
+    
+    public double getValue() {
+        return value;
+    }
+    
+    public void setValue(double value) {
+        this.value = value;
+    }
+    
+    public double getMin() {
+        return min;
+    }
+    
+    public void setMin(double min) {
+        this.min = min;
+    }
+    
+    public double getMax() {
+        return max;
+    }
+    
+    public void setMax(double max) {
+        this.max = max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public String getDoctor() {
+        return doctor;
+    }
+    
+    public void setDoctor(String doctor) {
+        this.doctor = doctor;
+    }
+}
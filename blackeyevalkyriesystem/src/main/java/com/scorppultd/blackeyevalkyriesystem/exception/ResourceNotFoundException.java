@@ -0,0 +1,18 @@
+package com.scorppultd.blackeyevalkyriesystem.exception;
+
+/**
+ * Thrown when a record an operation works on does not exist, so that controllers can answer
+ * NOT_FOUND without mistaking other failures for it.
+ */
+public class ResourceNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a ResourceNotFoundException.
+     *
+     * @param resource The kind of record, e.g. "Consultation"
+     * @param id The ID that was looked up
+     */
+    public ResourceNotFoundException(String resource, String id) {
+        super(resource + " not found with id: " + id);
+    }
+}
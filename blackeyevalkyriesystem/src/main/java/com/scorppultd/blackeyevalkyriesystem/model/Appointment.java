@@ -3,6 +3,7 @@ package com.scorppultd.blackeyevalkyriesystem.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Document(collection = "appointments")
@@ -158,6 +159,8 @@ public class Appointment {
         private Double weight;
         private Double height;
         private Double bmi;
+        // time the values were measured, so that a device reading older than them does not replace them
+        private Instant measuredAt;
 
         public VitalSigns() {
             // Default constructor
@@ -235,6 +238,14 @@ public class Appointment {
             this.bmi = bmi;
         }
 
+        public Instant getMeasuredAt() {
+            return measuredAt;
+        }
+
+        public void setMeasuredAt(Instant measuredAt) {
+            this.measuredAt = measuredAt;
+        }
+
         // Calculate BMI from height and weight
         public void calculateBmi() {
             if (this.height != null && this.weight != null && this.height > 0) {
@@ -1,6 +1,9 @@
 package com.scorppultd.blackeyevalkyriesystem.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -18,6 +21,7 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Document(collection = "consultations")
+@CompoundIndex(name = "patient_status_date_idx", def = "{'patient.$id': 1, 'status': 1, 'consultationDateTime': -1}")
 public class Consultation {
     
     @Id
@@ -39,13 +43,21 @@ public class Consultation {
     
     // Clinical information
     private String chiefComplaint;
+    
+    // Diagnosis - simplified to a single string
+    private String diagnosis;
+    
+    // Clinical narrative - stored in consultation_narratives (see ConsultationNarrative) and
+    // only filled in when the consultation is loaded for a detail or edit view
+    @Transient
     private String historyOfPresentIllness;
+    @Transient
     private List<String> symptoms;
+    @Transient
     private String physicalExamination;
-    
-    // Diagnosis and treatment - simplified to a single string
-    private String diagnosis;
+    @Transient
     private String treatmentPlan;
+    @Transient
     private String clinicalNotes;
     
     // Prescription reference
@@ -59,6 +71,10 @@ public class Consultation {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Optimistic locking - incremented on every save and partial update
+    @Version
+    private Long version;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,90 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The free-text clinical narrative of one consultation.
+ * Kept apart from the consultation so that queue, status and list queries only read the small
+ * consultation header; the narrative shares the consultation's ID and is loaded by the views
+ * that show or edit a single consultation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "consultation_narratives")
+public class ConsultationNarrative {
+
+    /**
+     * ID of the consultation this narrative belongs to
+     */
+    @Id
+    private String id;
+
+    private String historyOfPresentIllness;
+    private List<String> symptoms;
+    private String physicalExamination;
+    private String treatmentPlan;
+    private String clinicalNotes;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * Version of the consultation this narrative was last written with, or null if it was written
+     * without one. A write carrying an older version than the stored one is skipped.
+     */
+    private Long revision;
+
+    /**
+     * Names of the narrative fields, as stored both here and in consultations written before the split
+     */
+    public static final List<String> FIELDS = List.of(
+            "historyOfPresentIllness", "symptoms", "physicalExamination", "treatmentPlan", "clinicalNotes");
+
+    /**
+     * Copies the narrative fields of a consultation.
+     *
+     * @param consultation The consultation to copy from; its ID becomes the narrative's ID
+     * @return The narrative
+     */
+    public static ConsultationNarrative of(Consultation consultation) {
+        return ConsultationNarrative.builder()
+                .id(consultation.getId())
+                .historyOfPresentIllness(consultation.getHistoryOfPresentIllness())
+                .symptoms(consultation.getSymptoms())
+                .physicalExamination(consultation.getPhysicalExamination())
+                .treatmentPlan(consultation.getTreatmentPlan())
+                .clinicalNotes(consultation.getClinicalNotes())
+                .build();
+    }
+
+    /**
+     * Copies the narrative fields onto a consultation.
+     *
+     * @param consultation The consultation to fill in
+     */
+    public void applyTo(Consultation consultation) {
+        consultation.setHistoryOfPresentIllness(historyOfPresentIllness);
+        consultation.setSymptoms(symptoms);
+        consultation.setPhysicalExamination(physicalExamination);
+        consultation.setTreatmentPlan(treatmentPlan);
+        consultation.setClinicalNotes(clinicalNotes);
+    }
+
+    /**
+     * @return true if none of the narrative fields is set
+     */
+    public boolean isEmpty() {
+        return historyOfPresentIllness == null && symptoms == null && physicalExamination == null
+                && treatmentPlan == null && clinicalNotes == null;
+    }
+}
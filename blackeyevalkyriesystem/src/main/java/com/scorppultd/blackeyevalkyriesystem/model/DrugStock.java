@@ -0,0 +1,54 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stripe of the dispensary stock of a drug.
+ * The stock of a drug is spread over several stripe documents so that concurrent
+ * reservations for the same drug update different documents instead of contending on one.
+ * The stock level of a drug is the sum over its stripes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "drug_stock")
+@CompoundIndex(name = "drug_stripe_idx", def = "{'drugId': 1, 'stripe': 1}", unique = true)
+public class DrugStock {
+
+    @Id
+    private String id;
+
+    private String drugId;
+
+    /**
+     * Index of this stripe, from 0 to the configured stripe count - 1
+     */
+    private int stripe;
+
+    /**
+     * Units physically in the dispensary, including reserved units
+     */
+    private int onHand;
+
+    /**
+     * Units reserved for prescriptions that have not been dispensed yet
+     */
+    private int reserved;
+
+    /**
+     * Units free for new reservations (onHand - reserved), kept as a field so it can be guarded in queries
+     */
+    private int available;
+
+    private LocalDateTime updatedAt;
+}
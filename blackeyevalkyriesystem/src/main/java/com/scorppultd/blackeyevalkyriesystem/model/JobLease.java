@@ -0,0 +1,42 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lease on a scheduled job, shared by all application nodes.
+ * The node named as holder runs the job until the lease expires; while the job runs the holder
+ * keeps pushing the expiry forward with heartbeats. A lease whose expiry has passed can be
+ * taken over by any node. Times are instants so that nodes in different time zones agree.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "job_leases")
+public class JobLease {
+
+    /**
+     * Name of the job the lease is for
+     */
+    @Id
+    private String id;
+
+    /**
+     * Identity of the node holding the lease (process, host and a per-start suffix)
+     */
+    private String holder;
+
+    private Instant acquiredAt;
+
+    private Instant heartbeatAt;
+
+    private Instant expiresAt;
+}
@@ -1,6 +1,8 @@
 package com.scorppultd.blackeyevalkyriesystem.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -20,6 +22,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Document(collection = "licenseKeys")
+@CompoundIndex(name = "status_expires_idx", def = "{'status': 1, 'expiresOn': 1}")
 public class LicenseKey {
     
     @Id
@@ -28,6 +31,7 @@ public class LicenseKey {
     /**
      * The license key string in the format AAAA-BBBB-CCCC-DDDD
      */
+    @Indexed(unique = true)
     private String key;
     
     /**
@@ -27,6 +27,17 @@ public class Patient {
     private String maritalStatus;
     private String bloodType;
     private List<String> drugAllergies;
+
+    /**
+     * Date of the most recent visit, kept in step with the patient's visit buckets
+     */
+    private LocalDate lastVisitDate;
+
+    /**
+     * Visits still embedded from before visits moved to their own collection. Only set on patients
+     * the visit migration has not reached yet, and kept in the model so that saving such a patient
+     * does not drop them; new visits are never added here.
+     */
     private List<Visit> visits;
 
     // Date fields
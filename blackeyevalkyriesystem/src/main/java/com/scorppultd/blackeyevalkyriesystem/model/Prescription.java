@@ -1,6 +1,8 @@
 package com.scorppultd.blackeyevalkyriesystem.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 
@@ -15,6 +17,11 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "prescriptions")
+@CompoundIndexes({
+    @CompoundIndex(name = "refillable_items_idx", def = "{'prescriptionItems.refillable': 1, 'prescriptionItems.refillsRemaining': 1}"),
+    @CompoundIndex(name = "status_id_idx", def = "{'status': 1, '_id': -1}"),
+    @CompoundIndex(name = "status_valid_until_idx", def = "{'status': 1, 'validUntil': 1}")
+})
 public class Prescription {
     
     @Id
@@ -37,6 +44,8 @@ public class Prescription {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class PrescriptionItem {
+        private String itemId; // stable identifier used to target the item in atomic updates
+        
         @DBRef
         private Drug drug;
         
@@ -47,5 +56,6 @@ public class Prescription {
         private Integer quantity;
         private Boolean refillable;
         private Integer refillsRemaining;
+        private List<String> recentRefillIds; // last few bulk refill writes that consumed a refill of this item
     }
 }
\ No newline at end of file
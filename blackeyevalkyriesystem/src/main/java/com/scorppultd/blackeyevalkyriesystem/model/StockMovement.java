@@ -0,0 +1,61 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entry of the append-only inventory ledger.
+ * Every change to dispensary stock (receipt, reservation, release, dispensing) is recorded
+ * as a movement; movements are only ever inserted, never updated or deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "stock_movements")
+@CompoundIndexes({
+    @CompoundIndex(name = "drug_time_idx", def = "{'drugId': 1, 'timestamp': -1}"),
+    @CompoundIndex(name = "prescription_idx", def = "{'prescriptionId': 1}")
+})
+public class StockMovement {
+
+    @Id
+    private String id;
+
+    private String drugId;
+    private int stripe;
+
+    /**
+     * Type of movement: Receive, Reserve, Release, Dispense
+     */
+    private String type;
+
+    /**
+     * Number of units moved (always positive; the type gives the direction)
+     */
+    private int quantity;
+
+    private String prescriptionId;
+    private String itemId;
+    private String performedBy;
+    private LocalDateTime timestamp;
+
+    /**
+     * Constants for movement types
+     */
+    public static class Type {
+        public static final String RECEIVE = "Receive";
+        public static final String RESERVE = "Reserve";
+        public static final String RELEASE = "Release";
+        public static final String DISPENSE = "Dispense";
+    }
+}
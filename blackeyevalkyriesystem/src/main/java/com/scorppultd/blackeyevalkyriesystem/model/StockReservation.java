@@ -0,0 +1,51 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units of a drug held on one stock stripe for a prescription item until it is dispensed or released.
+ * A prescription item whose quantity could not be taken from a single stripe is held by several reservations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "stock_reservations")
+@CompoundIndex(name = "prescription_status_idx", def = "{'prescriptionId': 1, 'status': 1}")
+public class StockReservation {
+
+    @Id
+    private String id;
+
+    private String prescriptionId;
+    private String itemId;
+    private String drugId;
+    private int stripe;
+    private int quantity;
+
+    /**
+     * Status of the reservation: Reserved, Committed, Released
+     */
+    private String status;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Constants for reservation status values
+     */
+    public static class Status {
+        public static final String RESERVED = "Reserved";
+        public static final String COMMITTED = "Committed";
+        public static final String RELEASED = "Released";
+    }
+}
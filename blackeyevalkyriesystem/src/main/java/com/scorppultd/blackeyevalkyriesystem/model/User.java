@@ -1,6 +1,7 @@
 package com.scorppultd.blackeyevalkyriesystem.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -23,6 +24,7 @@ public class User {
     private String firstName;
     private String lastName;
     private String email;
+    @Indexed(unique = true)
     private String username;
     private String password;
     private String phoneNumber;
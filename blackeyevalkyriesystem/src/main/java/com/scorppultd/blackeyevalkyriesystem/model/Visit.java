@@ -1,20 +1,18 @@
 package com.scorppultd.blackeyevalkyriesystem.model;
 
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
+/**
+ * A single patient visit, stored inside a {@link VisitBucket} of the patient.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "visits")
 public class Visit {
-    @Id
     private String id;
 
     private String patientId;
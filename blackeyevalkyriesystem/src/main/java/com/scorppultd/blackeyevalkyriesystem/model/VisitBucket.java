@@ -0,0 +1,49 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The visits of one patient in one calendar year.
+ * A bucket holds a bounded number of visits; once it is full, further visits of the same year
+ * go into a new bucket. Buckets keep the patient's visit history out of the patient document
+ * while still reading a year of visits as one document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "visits")
+@CompoundIndex(name = "patient_visit_date_idx", def = "{'patientId': 1, 'lastVisitDate': -1}")
+public class VisitBucket {
+
+    @Id
+    private String id;
+
+    private String patientId;
+
+    /**
+     * Calendar year of the visits in this bucket
+     */
+    private int period;
+
+    /**
+     * Number of visits in this bucket
+     */
+    private int count;
+
+    private LocalDate firstVisitDate;
+
+    private LocalDate lastVisitDate;
+
+    private List<Visit> visits;
+}
@@ -0,0 +1,90 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An abnormal vital sign found when a measurement was recorded, either a value outside the
+ * configured limits or a change too large within the trend window. Alerts stay open until a
+ * doctor, nurse or admin acknowledges them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "vital_alerts")
+@CompoundIndexes({
+    @CompoundIndex(name = "acknowledged_measured_at_idx", def = "{'acknowledged': 1, 'measuredAt': -1}"),
+    @CompoundIndex(name = "patient_measured_at_idx", def = "{'patientId': 1, 'measuredAt': -1}")
+})
+public class VitalAlert {
+
+    @Id
+    private String id;
+
+    private String patientId;
+    private String patientName;
+
+    /**
+     * Appointment the measurement was taken for, if known
+     */
+    private String appointmentId;
+
+    /**
+     * The vital sign, e.g. heartRate or oxygenSaturation
+     */
+    private String vitalType;
+
+    /**
+     * Rule that raised the alert: threshold or trend
+     */
+    private String rule;
+
+    /**
+     * Severity of the alert: warning or critical
+     */
+    private String severity;
+
+    private double value;
+
+    /**
+     * The limit that was crossed, or the baseline of the trend window
+     */
+    private double limit;
+
+    private String message;
+
+    /**
+     * Where the measurement came from: appointment, consultation or device
+     */
+    private String source;
+
+    private LocalDateTime measuredAt;
+    private LocalDateTime createdAt;
+
+    private boolean acknowledged;
+    private String acknowledgedBy;
+    private LocalDateTime acknowledgedAt;
+
+    /**
+     * Constants for the rule and severity values
+     */
+    public static class Rule {
+        public static final String THRESHOLD = "threshold";
+        public static final String TREND = "trend";
+    }
+
+    public static class Severity {
+        public static final String WARNING = "warning";
+        public static final String CRITICAL = "critical";
+    }
+}
@@ -0,0 +1,61 @@
+package com.scorppultd.blackeyevalkyriesystem.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One recording of a patient's vital signs, kept in the vitals time-series collection.
+ * Each time vitals are entered (by a nurse for an appointment or by a doctor in a consultation)
+ * or sent by a bedside device, a new measurement is appended; the snapshots on appointments and consultations only hold
+ * the latest values. The patient ID is the series' meta field, so MongoDB stores the
+ * measurements of a patient together, ordered by time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "vitals")
+@TimeSeries(collection = "vitals", timeField = "measuredAt", metaField = "patientId", granularity = Granularity.HOURS)
+public class VitalMeasurement {
+
+    @Id
+    private String id;
+
+    private String patientId;
+
+    private Instant measuredAt;
+
+    /**
+     * Where the vitals were entered: "appointment", "consultation" or "device"
+     */
+    private String source;
+
+    /**
+     * ID of the appointment or consultation the vitals were entered for, or of the device that sent them
+     */
+    private String sourceId;
+
+    /**
+     * Name of the doctor of the appointment or consultation, if known
+     */
+    private String doctorName;
+
+    private Double temperature;
+    private Integer systolic;
+    private Integer diastolic;
+    private Integer heartRate;
+    private Integer respiratoryRate;
+    private Double oxygenSaturation;
+    private Double weight;
+    private Double height;
+    private Double bmi;
+}
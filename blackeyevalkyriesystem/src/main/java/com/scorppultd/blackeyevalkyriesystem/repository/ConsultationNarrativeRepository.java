@@ -0,0 +1,13 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+
+/**
+ * Repository for the clinical narratives of consultations, stored under the consultation's ID
+ */
+@Repository
+public interface ConsultationNarrativeRepository extends MongoRepository<ConsultationNarrative, String>, ConsultationNarrativeRepositoryCustom {
+}
@@ -0,0 +1,32 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.Optional;
+
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+
+/**
+ * Custom consultation narrative operations that need MongoTemplate features not expressible as derived queries.
+ */
+public interface ConsultationNarrativeRepositoryCustom {
+
+    /**
+     * Stores the set fields of a narrative with a single upsert. Fields that are null are left as
+     * they are, so a consultation saved without its narrative loaded does not erase it. Fields
+     * that are blank, or an empty symptom list, were cleared and are removed, also from a
+     * consultation whose narrative has not been migrated yet.
+     * A narrative carrying a revision is only written if the stored one was not written with the
+     * same or a later revision, so a slow write cannot undo a newer one.
+     *
+     * @param narrative The narrative to store; its ID must be the consultation's ID
+     */
+    void saveFields(ConsultationNarrative narrative);
+
+    /**
+     * Reads the narrative of a consultation. A consultation that has not been migrated yet still
+     * holds its narrative itself, and it is read from there.
+     *
+     * @param consultationId The ID of the consultation
+     * @return The narrative, or empty if the consultation has none
+     */
+    Optional<ConsultationNarrative> findNarrative(String consultationId);
+}
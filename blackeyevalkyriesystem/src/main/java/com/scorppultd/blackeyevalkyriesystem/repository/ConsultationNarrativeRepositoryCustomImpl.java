@@ -0,0 +1,113 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+
+/**
+ * MongoTemplate implementation of {@link ConsultationNarrativeRepositoryCustom}.
+ * Narratives are written with a $set of their non-blank fields and an $unset of their cleared
+ * ones, and read by _id. Until the
+ * migration has moved them, narratives of older consultations are read from the consultation
+ * document with a projection of the narrative fields.
+ */
+public class ConsultationNarrativeRepositoryCustomImpl implements ConsultationNarrativeRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a ConsultationNarrativeRepositoryCustomImpl with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the queries
+     */
+    @Autowired
+    public ConsultationNarrativeRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void saveFields(ConsultationNarrative narrative) {
+        if (narrative.getId() == null) {
+            throw new IllegalArgumentException("A consultation narrative needs the consultation's ID");
+        }
+        if (narrative.isEmpty()) {
+            return;
+        }
+
+        Update update = new Update().set("updatedAt", narrative.getUpdatedAt() != null ? narrative.getUpdatedAt() : LocalDateTime.now());
+        Update cleared = new Update();
+        setOrClear(update, cleared, "historyOfPresentIllness", narrative.getHistoryOfPresentIllness());
+        setOrClear(update, cleared, "symptoms", narrative.getSymptoms());
+        setOrClear(update, cleared, "physicalExamination", narrative.getPhysicalExamination());
+        setOrClear(update, cleared, "treatmentPlan", narrative.getTreatmentPlan());
+        setOrClear(update, cleared, "clinicalNotes", narrative.getClinicalNotes());
+        Query byId = Query.query(Criteria.where("_id").is(toIdValue(narrative.getId())));
+        Query current = byId;
+        if (narrative.getRevision() != null) {
+            current = Query.query(Criteria.where("_id").is(toIdValue(narrative.getId()))
+                    .and("revision").not().gte(narrative.getRevision()));
+            update.set("revision", narrative.getRevision());
+        }
+        try {
+            mongoTemplate.upsert(current, update, ConsultationNarrative.class);
+        } catch (DuplicateKeyException e) {
+            // The narrative exists with a newer revision, so the upsert tried to insert it again
+            return;
+        }
+        if (!cleared.getUpdateObject().isEmpty()) {
+            // Otherwise the migration would copy the old value back; by collection name, so the version stays
+            mongoTemplate.updateFirst(byId, cleared, mongoTemplate.getCollectionName(Consultation.class));
+        }
+    }
+
+    @Override
+    public Optional<ConsultationNarrative> findNarrative(String consultationId) {
+        Object id = toIdValue(consultationId);
+        ConsultationNarrative narrative = mongoTemplate.findById(id, ConsultationNarrative.class);
+        if (narrative != null) {
+            return Optional.of(narrative);
+        }
+
+        // Not migrated yet: the narrative is still part of the consultation document
+        List<Criteria> anyField = new ArrayList<>();
+        for (String field : ConsultationNarrative.FIELDS) {
+            anyField.add(Criteria.where(field).exists(true));
+        }
+        Query legacy = Query.query(Criteria.where("_id").is(id).orOperator(anyField));
+        legacy.fields().include(ConsultationNarrative.FIELDS.toArray(new String[0]));
+        Document document = mongoTemplate.findOne(legacy, Document.class, mongoTemplate.getCollectionName(Consultation.class));
+        return document != null
+                ? Optional.of(mongoTemplate.getConverter().read(ConsultationNarrative.class, document))
+                : Optional.empty();
+    }
+
+    private static void setOrClear(Update update, Update cleared, String field, Object value) {
+        if (value == null) {
+            return;
+        }
+        boolean blank = value instanceof String text ? text.isBlank() : ((List<?>) value).isEmpty();
+        if (blank) {
+            update.unset(field);
+            cleared.unset(field);
+        } else {
+            update.set(field, value);
+        }
+    }
+
+    private Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
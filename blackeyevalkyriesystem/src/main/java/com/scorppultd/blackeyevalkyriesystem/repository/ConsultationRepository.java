@@ -12,7 +12,7 @@ import org.springframework.stereotype.Repository;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
 
 @Repository
-public interface ConsultationRepository extends MongoRepository<Consultation, String> {
+public interface ConsultationRepository extends MongoRepository<Consultation, String>, ConsultationRepositoryCustom {
     
     // Find by doctor and patient
     List<Consultation> findByDoctorId(String doctorId);
@@ -49,4 +49,8 @@ public interface ConsultationRepository extends MongoRepository<Consultation, St
             
     // Find consultation by appointment ID
     Optional<Consultation> findByAppointmentId(String appointmentId);
-} 
\ No newline at end of file
+    
+    // Load only the version, status and the header fields a draft can change
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1, 'status': 1, 'chiefComplaint': 1, 'diagnosis': 1 }")
+    Optional<Consultation> findDraftStateById(String id);
+}
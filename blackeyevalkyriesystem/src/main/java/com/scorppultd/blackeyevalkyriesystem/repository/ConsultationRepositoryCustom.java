@@ -0,0 +1,51 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+
+/**
+ * Custom consultation operations that need MongoTemplate features not expressible as derived queries.
+ */
+public interface ConsultationRepositoryCustom {
+
+    /**
+     * Reads the most recent consultations of a patient in a given status, newest first.
+     * Only the fields shown in consultation history lists are loaded: date, type, status,
+     * diagnosis, clinical notes, vital signs and the doctor's name. The patient and prescription
+     * references and the rest of the clinical narrative are left unset.
+     *
+     * @param patientId The ID of the patient
+     * @param status The status the consultations must have
+     * @param excludeId The ID of a consultation to leave out (e.g. the one being edited), or null
+     * @param limit The maximum number of consultations to return
+     * @return The consultations, newest first
+     */
+    List<Consultation> findRecentByPatientAndStatus(String patientId, String status, String excludeId, int limit);
+
+    /**
+     * Reads a consultation header for an operation that writes it back field by field.
+     * The doctor is loaded with its name only; the patient and prescription are set to
+     * references holding only their IDs, and the clinical narrative is left unset.
+     *
+     * @param id The ID of the consultation
+     * @return The consultation, or empty if no consultation has that ID
+     */
+    Optional<Consultation> findHeaderById(String id);
+
+    /**
+     * Writes the header of an existing consultation if it still has the consultation's version.
+     * Every mapped field is set, or unset when the consultation leaves it null, with one update
+     * that also increments the version. Unlike a save the document is not replaced, so a clinical
+     * narrative not yet migrated out of it is kept.
+     *
+     * @param consultation The consultation to write, carrying the version it was read at
+     * @return The same consultation, with its new version
+     * @throws OptimisticLockingFailureException if the consultation has been modified since it was read
+     * @throws RuntimeException if the consultation is not found
+     */
+    Consultation updateHeader(Consultation consultation);
+}
@@ -0,0 +1,180 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.DBRef;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+import com.scorppultd.blackeyevalkyriesystem.model.Doctor;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+
+/**
+ * MongoTemplate implementation of {@link ConsultationRepositoryCustom}.
+ * Recent consultations are selected, sorted and limited through the
+ * (patient, status, consultationDateTime) index and read as raw documents, so that the doctor
+ * DBRefs are not resolved one by one; the doctors of the page are then loaded with one query,
+ * and their clinical notes with another, leaving the rest of their narratives unread.
+ * Headers are written with a $set and $unset of the mapped fields, so the transient narrative
+ * fields are never part of the write.
+ */
+public class ConsultationRepositoryCustomImpl implements ConsultationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a ConsultationRepositoryCustomImpl with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the queries
+     */
+    @Autowired
+    public ConsultationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Consultation> findRecentByPatientAndStatus(String patientId, String status, String excludeId, int limit) {
+        Criteria criteria = Criteria.where("patient.$id").is(toIdValue(patientId)).and("status").is(status);
+        if (excludeId != null) {
+            criteria.and("_id").ne(toIdValue(excludeId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "consultationDateTime"))
+                .limit(Math.max(1, limit));
+        query.fields().include("consultationDateTime", "consultationType", "status", "diagnosis",
+                "clinicalNotes", "vitalSigns", "doctor", "appointmentId");
+        List<Document> documents = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Consultation.class));
+
+        List<Consultation> consultations = new ArrayList<>(documents.size());
+        List<Object> doctorIds = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            // Read without the reference, which the converter would otherwise resolve with a query of its own
+            Object doctorRef = document.remove("doctor");
+            doctorIds.add(doctorRef instanceof DBRef ref ? ref.getId() : null);
+            Consultation consultation = mongoTemplate.getConverter().read(Consultation.class, document);
+            // Consultations not migrated to the narrative collection yet still hold their notes
+            consultation.setClinicalNotes(document.getString("clinicalNotes"));
+            consultations.add(consultation);
+        }
+
+        if (!documents.isEmpty()) {
+            Query notesQuery = new Query(Criteria.where("_id").in(documents.stream().map(document -> document.get("_id")).toList())
+                    .and("clinicalNotes").ne(null));
+            notesQuery.fields().include("clinicalNotes");
+            Map<String, String> notes = new HashMap<>();
+            for (Document narrative : mongoTemplate.find(notesQuery, Document.class, mongoTemplate.getCollectionName(ConsultationNarrative.class))) {
+                notes.put(narrative.get("_id").toString(), narrative.getString("clinicalNotes"));
+            }
+            for (Consultation consultation : consultations) {
+                String clinicalNotes = notes.get(consultation.getId());
+                if (clinicalNotes != null) {
+                    consultation.setClinicalNotes(clinicalNotes);
+                }
+            }
+        }
+
+        Set<Object> ids = new LinkedHashSet<>(doctorIds);
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            Query doctorQuery = new Query(Criteria.where("_id").in(ids));
+            doctorQuery.fields().include("firstName", "lastName");
+            Map<Object, Doctor> doctors = new HashMap<>();
+            for (Doctor doctor : mongoTemplate.find(doctorQuery, Doctor.class)) {
+                doctors.put(toIdValue(doctor.getId()), doctor);
+            }
+            for (int i = 0; i < consultations.size(); i++) {
+                Object doctorId = doctorIds.get(i);
+                consultations.get(i).setDoctor(doctorId != null ? doctors.get(doctorId) : null);
+            }
+        }
+        return consultations;
+    }
+
+    @Override
+    public Optional<Consultation> findHeaderById(String id) {
+        Document document = mongoTemplate.findOne(new Query(Criteria.where("_id").is(toIdValue(id))), Document.class,
+                mongoTemplate.getCollectionName(Consultation.class));
+        if (document == null) {
+            return Optional.empty();
+        }
+
+        // Read without the references, which the converter would otherwise resolve in full
+        Object doctorRef = document.remove("doctor");
+        Object patientRef = document.remove("patient");
+        Object prescriptionRef = document.remove("prescription");
+        Consultation consultation = mongoTemplate.getConverter().read(Consultation.class, document);
+
+        if (doctorRef instanceof DBRef ref) {
+            Query doctorQuery = new Query(Criteria.where("_id").is(ref.getId()));
+            doctorQuery.fields().include("firstName", "lastName");
+            consultation.setDoctor(mongoTemplate.findOne(doctorQuery, Doctor.class));
+        }
+        if (patientRef instanceof DBRef ref) {
+            Patient patient = new Patient();
+            patient.setId(ref.getId().toString());
+            consultation.setPatient(patient);
+        }
+        if (prescriptionRef instanceof DBRef ref) {
+            Prescription prescription = new Prescription();
+            prescription.setId(ref.getId().toString());
+            consultation.setPrescription(prescription);
+        }
+        return Optional.of(consultation);
+    }
+
+    @Override
+    public Consultation updateHeader(Consultation consultation) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Consultation.class);
+        PersistentPropertyAccessor<Consultation> accessor = entity.getPropertyAccessor(consultation);
+        Update update = new Update();
+        for (MongoPersistentProperty property : entity) {
+            if (property.isIdProperty() || property.isVersionProperty()) {
+                continue;
+            }
+            Object value = accessor.getProperty(property);
+            if (value != null) {
+                update.set(property.getName(), value);
+            } else {
+                update.unset(property.getName());
+            }
+        }
+
+        // MongoTemplate increments the version along with the update
+        Query current = new Query(Criteria.where("_id").is(toIdValue(consultation.getId()))
+                .and("version").is(consultation.getVersion()));
+        if (mongoTemplate.updateFirst(current, update, Consultation.class).getMatchedCount() == 0) {
+            if (!mongoTemplate.exists(new Query(Criteria.where("_id").is(toIdValue(consultation.getId()))), Consultation.class)) {
+                throw new RuntimeException("Consultation not found with id: " + consultation.getId());
+            }
+            throw new OptimisticLockingFailureException("Consultation " + consultation.getId()
+                    + " was modified concurrently (expected version " + consultation.getVersion() + ")");
+        }
+        consultation.setVersion(consultation.getVersion() + 1);
+        return consultation;
+    }
+
+    private Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,15 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.DrugStock;
+
+@Repository
+public interface DrugStockRepository extends MongoRepository<DrugStock, String> {
+    
+    // Find all stock stripes of a drug
+    List<DrugStock> findByDrugIdOrderByStripe(String drugId);
+}
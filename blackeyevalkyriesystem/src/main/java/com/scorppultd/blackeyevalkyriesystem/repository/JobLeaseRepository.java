@@ -0,0 +1,89 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.JobLease;
+
+/**
+ * Atomic operations on {@link JobLease} documents.
+ * A lease is acquired with a single upsert that only matches an expired lease. If the lease is
+ * still held, the upsert tries to insert a second document with the same ID and fails on the
+ * unique _id index, so at most one node can hold a lease at a time.
+ */
+@Repository
+public class JobLeaseRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a JobLeaseRepository with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the lease commands
+     */
+    @Autowired
+    public JobLeaseRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Acquires the lease of a job if nobody holds it or the current lease has expired.
+     *
+     * @param jobName The name of the job
+     * @param holder The identity of the acquiring node
+     * @param now The current time
+     * @param expiresAt The time the new lease expires unless it is extended
+     * @return true if the lease was acquired, false if another node holds it
+     */
+    public boolean tryAcquire(String jobName, String holder, Instant now, Instant expiresAt) {
+        Query query = Query.query(Criteria.where("id").is(jobName).and("expiresAt").lte(now));
+        Update update = new Update()
+                .set("holder", holder)
+                .set("acquiredAt", now)
+                .set("heartbeatAt", now)
+                .set("expiresAt", expiresAt);
+        try {
+            mongoTemplate.upsert(query, update, JobLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Extends a lease that is still held by the given node.
+     *
+     * @param jobName The name of the job
+     * @param holder The identity of the node holding the lease
+     * @param now The current time, recorded as the heartbeat
+     * @param expiresAt The new expiry of the lease
+     * @return true if the lease was extended, false if the node no longer holds it
+     */
+    public boolean extend(String jobName, String holder, Instant now, Instant expiresAt) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(jobName).and("holder").is(holder)),
+                new Update().set("heartbeatAt", now).set("expiresAt", expiresAt),
+                JobLease.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Releases a lease held by the given node by moving its expiry to the given time.
+     *
+     * @param jobName The name of the job
+     * @param holder The identity of the node holding the lease
+     * @param expiresAt The time from which other nodes may acquire the lease
+     */
+    public void release(String jobName, String holder, Instant expiresAt) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(jobName).and("holder").is(holder)),
+                new Update().set("expiresAt", expiresAt),
+                JobLease.class);
+    }
+}
@@ -2,8 +2,10 @@ package com.scorppultd.blackeyevalkyriesystem.repository;
 
 import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,7 +13,7 @@ import java.util.Optional;
  * Repository for managing LicenseKey entities
  */
 @Repository
-public interface LicenseKeyRepository extends MongoRepository<LicenseKey, String> {
+public interface LicenseKeyRepository extends MongoRepository<LicenseKey, String>, LicenseKeyRepositoryCustom {
     
     /**
      * Find a license key by its key string
@@ -29,6 +31,15 @@ public interface LicenseKeyRepository extends MongoRepository<LicenseKey, String
      */
     boolean existsByKey(String key);
     
+    /**
+     * Find which of the given key strings are already taken, reading only the key field
+     * 
+     * @param keys The license key strings to check
+     * @return The license keys among them that exist, with only the key populated
+     */
+    @Query(value = "{ 'key': { $in: ?0 } }", fields = "{ 'key': 1 }")
+    List<LicenseKey> findKeysIn(Collection<String> keys);
+    
     /**
      * Check if a key is valid with a specific status
      * 
@@ -0,0 +1,25 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import org.springframework.data.domain.Page;
+
+import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
+
+/**
+ * Custom license key queries that need MongoTemplate features not expressible as derived queries.
+ */
+public interface LicenseKeyRepositoryCustom {
+
+    /**
+     * Reads one page of license keys, filtered and sorted by expiration date in the database.
+     * Keys without an expiration date sort as if they expired last, i.e. after every dated key
+     * in ascending order and before them in descending order.
+     *
+     * @param status The status to filter by, or null for all statuses
+     * @param role The role to filter by, or null for all roles
+     * @param descending true to sort by expiration date descending, false for ascending
+     * @param page The zero-based page number
+     * @param size The number of keys per page
+     * @return The page of license keys with the total number of matching keys
+     */
+    Page<LicenseKey> findPageSortedByExpiry(String status, String role, boolean descending, int page, int size);
+}
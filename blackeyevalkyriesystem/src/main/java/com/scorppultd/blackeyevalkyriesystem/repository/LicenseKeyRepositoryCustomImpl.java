@@ -0,0 +1,81 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
+
+/**
+ * MongoTemplate implementation of {@link LicenseKeyRepositoryCustom}.
+ * MongoDB sorts missing values before every date, so keys with and without an expiration date
+ * are read as two consecutive segments, each filtered, sorted and paged by the database.
+ */
+public class LicenseKeyRepositoryCustomImpl implements LicenseKeyRepositoryCustom {
+
+    private static final String EXPIRES_ON = "expiresOn";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a LicenseKeyRepositoryCustomImpl with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the queries
+     */
+    @Autowired
+    public LicenseKeyRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Page<LicenseKey> findPageSortedByExpiry(String status, String role, boolean descending, int page, int size) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Query dated = new Query(filter(status, role).and(EXPIRES_ON).ne(null))
+                .with(Sort.by(direction, EXPIRES_ON).and(Sort.by(direction, "id")));
+        Query undated = new Query(filter(status, role).and(EXPIRES_ON).is(null))
+                .with(Sort.by(direction, "id"));
+
+        // Undated keys count as expiring last, so they come first when sorting descending
+        Query first = descending ? undated : dated;
+        Query second = descending ? dated : undated;
+        long firstCount = mongoTemplate.count(first, LicenseKey.class);
+        long secondCount = mongoTemplate.count(second, LicenseKey.class);
+
+        long offset = (long) page * size;
+        List<LicenseKey> content = new ArrayList<>(size);
+        if (offset < firstCount) {
+            content.addAll(mongoTemplate.find(first.skip(offset).limit(size), LicenseKey.class));
+        }
+        int remaining = size - content.size();
+        if (remaining > 0) {
+            long secondOffset = Math.max(0, offset - firstCount);
+            if (secondOffset < secondCount) {
+                content.addAll(mongoTemplate.find(second.skip(secondOffset).limit(remaining), LicenseKey.class));
+            }
+        }
+
+        return new PageImpl<>(content, PageRequest.of(page, size), firstCount + secondCount);
+    }
+
+    /**
+     * Builds the status and role conditions shared by both segments.
+     */
+    private Criteria filter(String status, String role) {
+        Criteria criteria = new Criteria();
+        if (status != null && !status.isEmpty()) {
+            criteria.and("status").is(status);
+        }
+        if (role != null && !role.isEmpty()) {
+            criteria.and("role").is(role.toLowerCase());
+        }
+        return criteria;
+    }
+}
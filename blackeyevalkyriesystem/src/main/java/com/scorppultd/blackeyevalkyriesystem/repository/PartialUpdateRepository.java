@@ -0,0 +1,134 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Field-level write operations backed by MongoTemplate.
+ * Instead of loading a whole document and saving it back, callers describe the fields
+ * they change as an {@link Update} and the change is applied with a single $set/findAndModify.
+ * Writers touching different fields of the same document therefore no longer overwrite each other.
+ * For entities with a {@code @Version} property, MongoTemplate increments the version on every update.
+ */
+@Repository
+public class PartialUpdateRepository {
+
+    private static final String VERSION_FIELD = "version";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a PartialUpdateRepository with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the update commands
+     */
+    @Autowired
+    public PartialUpdateRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Applies the update to the document with the given ID and returns the document as it is after the update.
+     *
+     * @param entityClass The mapped entity type
+     * @param id The ID of the document to update
+     * @param update The fields to set
+     * @param <T> The entity type
+     * @return An Optional containing the updated document, or empty if no document has that ID
+     */
+    public <T> Optional<T> updateAndGet(Class<T> entityClass, String id, Update update) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(id)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                entityClass));
+    }
+
+    /**
+     * Applies the update to the document with the given ID without reading it back.
+     *
+     * @param entityClass The mapped entity type
+     * @param id The ID of the document to update
+     * @param update The fields to set
+     * @return true if a document with that ID exists, false otherwise
+     */
+    public boolean update(Class<?> entityClass, String id, Update update) {
+        return updateFirst(entityClass, Criteria.where("id").is(id), update);
+    }
+
+    /**
+     * Applies the update to the first document matching the criteria without reading it back.
+     * The criteria can carry guards (e.g. a status check) so that the check and the write happen atomically.
+     *
+     * @param entityClass The mapped entity type
+     * @param criteria The criteria selecting the document
+     * @param update The fields to set
+     * @return true if a document matched the criteria, false otherwise
+     */
+    public boolean updateFirst(Class<?> entityClass, Criteria criteria, Update update) {
+        return mongoTemplate.updateFirst(new Query(criteria), update, entityClass).getMatchedCount() > 0;
+    }
+
+    /**
+     * Applies the update to every document matching the criteria in one multi-document write.
+     *
+     * @param entityClass The mapped entity type
+     * @param criteria The criteria selecting the documents
+     * @param update The fields to set
+     * @return The number of documents that were modified
+     */
+    public long updateMulti(Class<?> entityClass, Criteria criteria, Update update) {
+        return mongoTemplate.updateMulti(new Query(criteria), update, entityClass).getModifiedCount();
+    }
+
+    /**
+     * Applies the update only if the document still carries the expected version, and returns
+     * the document as it is after the update.
+     *
+     * @param entityClass The mapped entity type, which must declare a {@code @Version} property
+     * @param id The ID of the document to update
+     * @param expectedVersion The version the caller last read
+     * @param update The fields to set
+     * @param <T> The entity type
+     * @return The updated document
+     * @throws OptimisticLockingFailureException if the document has been modified since it was read
+     * @throws RuntimeException if no document has that ID
+     */
+    public <T> T updateAndGetIfVersion(Class<T> entityClass, String id, Long expectedVersion, Update update) {
+        T updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(id).and(VERSION_FIELD).is(expectedVersion)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                entityClass);
+        if (updated != null) {
+            return updated;
+        }
+        if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), entityClass)) {
+            throw new RuntimeException(entityClass.getSimpleName() + " not found with id: " + id);
+        }
+        throw new OptimisticLockingFailureException(entityClass.getSimpleName() + " " + id
+                + " was modified concurrently (expected version " + expectedVersion + ")");
+    }
+
+    /**
+     * Sets the version to 0 on every document of the collection that does not have one yet.
+     * Documents written before the entity became versioned would otherwise be treated as new on save.
+     *
+     * @param entityClass The mapped entity type, which must declare a {@code @Version} property
+     * @return The number of documents that were initialised
+     */
+    public long initializeMissingVersions(Class<?> entityClass) {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where(VERSION_FIELD).exists(false)),
+                new Update().set(VERSION_FIELD, 0L),
+                entityClass).getModifiedCount();
+    }
+}
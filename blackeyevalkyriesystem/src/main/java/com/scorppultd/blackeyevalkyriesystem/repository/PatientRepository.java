@@ -9,7 +9,7 @@ import org.springframework.stereotype.Repository;
 import com.scorppultd.blackeyevalkyriesystem.model.Patient;
 
 @Repository
-public interface PatientRepository extends MongoRepository<Patient, String> {
+public interface PatientRepository extends MongoRepository<Patient, String>, PatientRepositoryCustom {
     // Custom queries can be added here
     @Override
     List<Patient> findAll();
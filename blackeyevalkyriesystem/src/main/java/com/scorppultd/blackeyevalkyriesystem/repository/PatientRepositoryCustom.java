@@ -0,0 +1,22 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.Optional;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientProfileDTO;
+
+/**
+ * Custom patient read operations that need MongoTemplate features not expressible as derived queries.
+ */
+public interface PatientRepositoryCustom {
+
+    /**
+     * Reads the patient profile with one aggregation: the patient, the names of the drugs the
+     * patient is allergic to, and the most recent completed consultations with their doctor's
+     * name and a summary of their prescription.
+     *
+     * @param patientId The ID of the patient
+     * @param consultationLimit The maximum number of past consultations to include
+     * @return The profile, or empty if no patient has that ID
+     */
+    Optional<PatientProfileDTO> findProfile(String patientId, int consultationLimit);
+}
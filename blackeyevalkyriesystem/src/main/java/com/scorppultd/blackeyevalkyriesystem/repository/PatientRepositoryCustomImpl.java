@@ -0,0 +1,207 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientProfileDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+import com.scorppultd.blackeyevalkyriesystem.model.Drug;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.model.User;
+
+/**
+ * MongoTemplate implementation of {@link PatientRepositoryCustom}.
+ * The profile pipeline starts from the patient document and joins everything else with $lookup:
+ * allergy drugs by the IDs the patient references, and the completed consultations sorted and
+ * limited in the database. Within each consultation the doctor and prescription DBRefs are
+ * unwrapped with $getField and joined by _id, the clinical notes are joined from the consultation's
+ * narrative, and the prescription's drugs are joined in the same sub-pipeline, so the page costs
+ * one round trip however long the patient's history is.
+ */
+public class PatientRepositoryCustomImpl implements PatientRepositoryCustom {
+
+    private static final String COMPLETED = "Completed";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a PatientRepositoryCustomImpl with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to run the aggregation
+     */
+    @Autowired
+    public PatientRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<PatientProfileDTO> findProfile(String patientId, int consultationLimit) {
+        Object patientKey = toIdValue(patientId);
+        String drugs = mongoTemplate.getCollectionName(Drug.class);
+
+        List<Document> prescriptionPipeline = List.of(
+                new Document("$project", new Document("status", 1)
+                        .append("validUntil", 1)
+                        .append("items", new Document("$map", new Document("input", new Document("$ifNull", List.of("$prescriptionItems", List.of())))
+                                .append("in", new Document("drugId", refId("$$this.drug"))
+                                        .append("dosage", "$$this.dosage")
+                                        .append("frequency", "$$this.frequency")
+                                        .append("duration", "$$this.duration"))))),
+                new Document("$lookup", new Document("from", drugs)
+                        .append("localField", "items.drugId")
+                        .append("foreignField", "_id")
+                        .append("pipeline", List.of(new Document("$project", new Document("name", 1))))
+                        .append("as", "drugs")));
+
+        List<Document> consultationPipeline = List.of(
+                new Document("$match", new Document("patient.$id", patientKey).append("status", COMPLETED)),
+                new Document("$sort", new Document("consultationDateTime", -1)),
+                new Document("$limit", Math.max(1, consultationLimit)),
+                new Document("$project", new Document("consultationDateTime", 1)
+                        .append("consultationType", 1)
+                        .append("status", 1)
+                        .append("diagnosis", 1)
+                        .append("clinicalNotes", 1)
+                        .append("vitalSigns", 1)
+                        .append("doctorId", refId("$doctor"))
+                        .append("prescriptionId", refId("$prescription"))),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(ConsultationNarrative.class))
+                        .append("localField", "_id")
+                        .append("foreignField", "_id")
+                        .append("pipeline", List.of(new Document("$project", new Document("clinicalNotes", 1))))
+                        .append("as", "narrative")),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(User.class))
+                        .append("localField", "doctorId")
+                        .append("foreignField", "_id")
+                        .append("pipeline", List.of(new Document("$project", new Document("firstName", 1).append("lastName", 1))))
+                        .append("as", "doctor")),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(Prescription.class))
+                        .append("localField", "prescriptionId")
+                        .append("foreignField", "_id")
+                        .append("pipeline", prescriptionPipeline)
+                        .append("as", "prescription")));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("_id", patientKey)),
+                // Allergies hold drug IDs as strings; converting them lets the lookup use the _id index
+                new Document("$addFields", new Document("allergyDrugIds", new Document("$map", new Document("input", new Document("$ifNull", List.of("$drugAllergies", List.of())))
+                        .append("in", new Document("$convert", new Document("input", "$$this")
+                                .append("to", "objectId")
+                                .append("onError", "$$this")))))),
+                new Document("$lookup", new Document("from", drugs)
+                        .append("localField", "allergyDrugIds")
+                        .append("foreignField", "_id")
+                        .append("pipeline", List.of(new Document("$project", new Document("name", 1))))
+                        .append("as", "allergyDrugs")),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(Consultation.class))
+                        .append("pipeline", consultationPipeline)
+                        .append("as", "pastConsultations")));
+
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Patient.class))
+                .aggregate(pipeline)
+                .first();
+        if (result == null) {
+            return Optional.empty();
+        }
+
+        Patient patient = mongoTemplate.getConverter().read(Patient.class, result);
+        Map<String, String> drugNames = new HashMap<>();
+        for (Document drug : result.getList("allergyDrugs", Document.class, List.of())) {
+            drugNames.put(drug.get("_id").toString(), drug.getString("name"));
+        }
+        List<PatientProfileDTO.ConsultationSummaryDTO> consultations = new ArrayList<>();
+        for (Document consultation : result.getList("pastConsultations", Document.class, List.of())) {
+            consultations.add(toConsultationSummary(consultation));
+        }
+        return Optional.of(new PatientProfileDTO(patient, drugNames, consultations));
+    }
+
+    private PatientProfileDTO.ConsultationSummaryDTO toConsultationSummary(Document document) {
+        PatientProfileDTO.ConsultationSummaryDTO summary = new PatientProfileDTO.ConsultationSummaryDTO();
+        summary.setId(document.get("_id").toString());
+        summary.setConsultationDateTime(toLocalDateTime(document.getDate("consultationDateTime")));
+        summary.setConsultationType(document.getString("consultationType"));
+        summary.setStatus(document.getString("status"));
+        summary.setDiagnosis(document.getString("diagnosis"));
+        // Consultations not migrated to the narrative collection yet still hold their notes
+        List<Document> narratives = document.getList("narrative", Document.class, List.of());
+        summary.setClinicalNotes(narratives.isEmpty()
+                ? document.getString("clinicalNotes")
+                : narratives.get(0).getString("clinicalNotes"));
+
+        Document vitalSigns = document.get("vitalSigns", Document.class);
+        if (vitalSigns != null) {
+            summary.setVitalSigns(mongoTemplate.getConverter().read(Consultation.VitalSigns.class, vitalSigns));
+        }
+
+        List<Document> doctors = document.getList("doctor", Document.class, List.of());
+        if (!doctors.isEmpty()) {
+            Document doctor = doctors.get(0);
+            summary.setDoctorName(doctor.getString("firstName") + " " + doctor.getString("lastName"));
+        }
+
+        List<Document> prescriptions = document.getList("prescription", Document.class, List.of());
+        if (!prescriptions.isEmpty()) {
+            summary.setPrescription(toPrescriptionSummary(prescriptions.get(0)));
+        }
+        return summary;
+    }
+
+    private PatientProfileDTO.PrescriptionSummaryDTO toPrescriptionSummary(Document document) {
+        PatientProfileDTO.PrescriptionSummaryDTO summary = new PatientProfileDTO.PrescriptionSummaryDTO();
+        summary.setId(document.get("_id").toString());
+        summary.setStatus(document.getString("status"));
+        Date validUntil = document.getDate("validUntil");
+        if (validUntil != null) {
+            summary.setValidUntil(LocalDate.ofInstant(validUntil.toInstant(), ZoneId.systemDefault()));
+        }
+
+        Map<Object, String> drugNames = new LinkedHashMap<>();
+        for (Document drug : document.getList("drugs", Document.class, List.of())) {
+            drugNames.put(drug.get("_id"), drug.getString("name"));
+        }
+        List<String> medications = new ArrayList<>();
+        for (Document item : document.getList("items", Document.class, List.of())) {
+            StringBuilder medication = new StringBuilder(drugNames.getOrDefault(item.get("drugId"), "Unknown drug"));
+            for (String detail : new String[] { item.getString("dosage"), item.getString("frequency"), item.getString("duration") }) {
+                if (detail != null && !detail.isBlank()) {
+                    medication.append(", ").append(detail);
+                }
+            }
+            medications.add(medication.toString());
+        }
+        summary.setMedications(medications);
+        return summary;
+    }
+
+    /**
+     * Reads the referenced ID out of a DBRef field. Its "$id" key cannot be addressed as a field path.
+     */
+    private static Document refId(String dbRefField) {
+        return new Document("$getField", new Document("field", new Document("$literal", "$id"))
+                .append("input", dbRefField));
+    }
+
+    private Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
@@ -10,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 
 @Repository
-public interface PrescriptionRepository extends MongoRepository<Prescription, String> {
+public interface PrescriptionRepository extends MongoRepository<Prescription, String>, PrescriptionRepositoryCustom {
     
     // Find by patient
     List<Prescription> findByPatientId(String patientId);
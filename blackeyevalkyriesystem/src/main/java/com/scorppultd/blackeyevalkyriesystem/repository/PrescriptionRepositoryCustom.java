@@ -0,0 +1,67 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.DispensaryWorklistDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+
+/**
+ * Custom prescription operations that need MongoTemplate features not expressible
+ * as derived queries, such as guarded in-place increments on individual prescription items.
+ */
+public interface PrescriptionRepositoryCustom {
+
+    /**
+     * Consumes one refill of each of the given items with a single unordered bulk write. Each item
+     * gets its own $inc, guarded so that it only applies while the item is refillable and has refills
+     * remaining; concurrent dispensers therefore cannot take the same refill twice.
+     *
+     * @param itemIdsByPrescription Item IDs to refill, grouped by prescription ID
+     * @return The refilled items after the decrement, keyed by prescription ID and then item ID;
+     *         items that had no refill available are absent
+     */
+    Map<String, Map<String, Prescription.PrescriptionItem>> dispenseRefills(Map<String, Set<String>> itemIdsByPrescription);
+
+    /**
+     * Sets the remaining refill count of the item at the given position.
+     * If the new count is 0 or less, the item is also marked as not refillable.
+     *
+     * @param prescriptionId The ID of the prescription
+     * @param itemIndex The position of the item in the prescription
+     * @param refillsRemaining The new refill count
+     * @return An Optional containing the updated prescription, or empty if the prescription or item does not exist
+     */
+    Optional<Prescription> setRefillsRemaining(String prescriptionId, int itemIndex, int refillsRemaining);
+
+    /**
+     * Reads one page of the dispensary worklist, newest prescriptions first.
+     * Only the fields shown in the worklist are read, and DBRefs are not resolved: rows carry the
+     * patient name (looked up in one batch) and the raw drug IDs, leaving drug names to the caller.
+     *
+     * @param status The prescription status to list
+     * @param from The earliest prescription date to include, or null for no lower bound
+     * @param to The latest prescription date to include, or null for no upper bound
+     * @param patientName Text whose every word starts a word of the patient's first or last name, or null for all patients
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @param size The maximum number of rows to return
+     * @return The page of rows and the cursor of the next page
+     * @throws IllegalArgumentException if the patient name is too short or matches too many patients to filter on
+     */
+    DispensaryWorklistDTO findWorklistPage(String status, LocalDate from, LocalDate to,
+                                           String patientName, String cursor, int size);
+
+    /**
+     * Marks one batch of active prescriptions whose validity has ended as expired, with a single
+     * multi-document update. The update repeats the status and date conditions, so a prescription
+     * completed or cancelled after being selected keeps its new status.
+     *
+     * @param asOf The first date on which a prescription is no longer valid; prescriptions valid until before this date expire
+     * @param batchSize The maximum number of prescriptions to expire
+     * @return The IDs of the prescriptions that were expired, empty when nothing is left to expire
+     */
+    List<String> expireBatch(LocalDate asOf, int batchSize);
+}
@@ -0,0 +1,318 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.DBRef;
+import com.scorppultd.blackeyevalkyriesystem.config.PatientSearchIndexer;
+import com.scorppultd.blackeyevalkyriesystem.dto.DispensaryWorklistDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientSearchKeys;
+
+/**
+ * MongoTemplate implementation of {@link PrescriptionRepositoryCustom}.
+ * Refills are decremented with $inc on the matching array element (selected through an array filter),
+ * with a refillsRemaining &gt; 0 guard in the query so the check and the decrement are a single atomic write;
+ * a batch of refills goes out as one bulk write of such guarded updates.
+ * The dispensary worklist is read as raw documents so that the patient and drug DBRefs are not
+ * resolved one by one; only their IDs are kept. Its patient name filter matches the indexed patient
+ * search keys and is limited to a bounded set of patients.
+ */
+public class PrescriptionRepositoryCustomImpl implements PrescriptionRepositoryCustom {
+
+    private static final String ITEMS = "prescriptionItems";
+    private static final String ACTIVE = "active";
+    private static final String EXPIRED = "expired";
+    private static final String RECENT_REFILL_IDS = "recentRefillIds";
+    private static final int MAX_RECENT_REFILL_IDS = 10;
+    private static final int MAX_NAME_FILTER_PATIENTS = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a PrescriptionRepositoryCustomImpl with the provided MongoTemplate.
+     *
+     * @param mongoTemplate Template used to issue the update commands
+     */
+    @Autowired
+    public PrescriptionRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<String, Map<String, Prescription.PrescriptionItem>> dispenseRefills(
+            Map<String, Set<String>> itemIdsByPrescription) {
+        Map<String, Map<String, Prescription.PrescriptionItem>> refilled = new HashMap<>();
+        if (itemIdsByPrescription.isEmpty()) {
+            return refilled;
+        }
+
+        String refillId = new ObjectId().toHexString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class);
+        for (Map.Entry<String, Set<String>> entry : itemIdsByPrescription.entrySet()) {
+            for (String itemId : entry.getValue()) {
+                bulk.updateOne(refillableItemQuery(entry.getKey(), itemId), decrementRefill(itemId, refillId));
+            }
+        }
+        if (bulk.execute().getModifiedCount() == 0) {
+            return refilled;
+        }
+
+        // The bulk result only has totals; the refill ID recorded by each decrement tells which items were refilled
+        Query query = Query.query(Criteria.where("id").in(itemIdsByPrescription.keySet())
+                .and(ITEMS + "." + RECENT_REFILL_IDS).is(refillId));
+        query.fields().include(ITEMS);
+        List<String> spent = new ArrayList<>();
+        for (Prescription prescription : mongoTemplate.find(query, Prescription.class)) {
+            Set<String> requested = itemIdsByPrescription.getOrDefault(prescription.getId(), Set.of());
+            for (Prescription.PrescriptionItem item : prescription.getPrescriptionItems()) {
+                if (item == null || !requested.contains(item.getItemId()) || item.getRecentRefillIds() == null
+                        || !item.getRecentRefillIds().contains(refillId)) {
+                    continue;
+                }
+                if (item.getRefillsRemaining() != null && item.getRefillsRemaining() <= 0) {
+                    item.setRefillable(false);
+                    spent.add(prescription.getId());
+                }
+                refilled.computeIfAbsent(prescription.getId(), id -> new HashMap<>()).put(item.getItemId(), item);
+            }
+        }
+        if (!spent.isEmpty()) {
+            markSpentItemsNotRefillable(spent);
+        }
+        return refilled;
+    }
+
+    @Override
+    public Optional<Prescription> setRefillsRemaining(String prescriptionId, int itemIndex, int refillsRemaining) {
+        String itemPath = ITEMS + "." + itemIndex;
+        Query query = Query.query(Criteria.where("id").is(prescriptionId).and(itemPath).exists(true));
+
+        Update update = new Update().set(itemPath + ".refillsRemaining", refillsRemaining);
+        if (refillsRemaining <= 0) {
+            update.set(itemPath + ".refillable", false);
+        }
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Prescription.class));
+    }
+
+    /**
+     * Builds a query matching the prescription only while the item still has a refill available.
+     */
+    private Query refillableItemQuery(String prescriptionId, String itemId) {
+        return Query.query(Criteria.where("id").is(prescriptionId)
+                .and(ITEMS).elemMatch(Criteria.where("itemId").is(itemId)
+                        .and("refillable").is(true)
+                        .and("refillsRemaining").gt(0)));
+    }
+
+    /**
+     * Builds the $inc that consumes one refill of the item selected by the array filter, and records
+     * the refill ID on the item, keeping only the most recent ones.
+     */
+    private Update decrementRefill(String itemId, String refillId) {
+        return new Update()
+                .inc(ITEMS + ".$[item].refillsRemaining", -1)
+                .push(ITEMS + ".$[item]." + RECENT_REFILL_IDS).slice(-MAX_RECENT_REFILL_IDS).each(refillId)
+                .filterArray(Criteria.where("item.itemId").is(itemId));
+    }
+
+    /**
+     * Marks every item that has run out of refills as not refillable, keeping the
+     * refillable index selective. Safe to run concurrently because it only reacts to the stored count.
+     */
+    private void markSpentItemsNotRefillable(List<String> prescriptionIds) {
+        Update update = new Update()
+                .set(ITEMS + ".$[spent].refillable", false)
+                .filterArray(Criteria.where("spent.refillsRemaining").lte(0));
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(prescriptionIds)), update, Prescription.class);
+    }
+
+    @Override
+    public DispensaryWorklistDTO findWorklistPage(String status, LocalDate from, LocalDate to,
+                                                  String patientName, String cursor, int size) {
+        Criteria criteria = Criteria.where("status").is(status);
+        if (from != null || to != null) {
+            Criteria dateRange = criteria.and("prescriptionDate");
+            if (from != null) {
+                dateRange.gte(toDate(from));
+            }
+            if (to != null) {
+                dateRange.lte(toDate(to));
+            }
+        }
+
+        Map<Object, String> patientNames = new HashMap<>();
+        if (patientName != null && !patientName.isBlank()) {
+            patientNames = findPatientNamesMatching(patientName);
+            if (patientNames.isEmpty()) {
+                return new DispensaryWorklistDTO(new ArrayList<>(), null);
+            }
+            criteria.and("patient.$id").in(patientNames.keySet());
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.and("_id").lt(toIdValue(cursor));
+        }
+
+        // One extra row tells whether another page follows
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(size + 1);
+        query.fields().include("patient", "doctorName", "prescriptionDate", "status", ITEMS + ".drug");
+        List<Document> documents = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Prescription.class));
+
+        boolean hasMore = documents.size() > size;
+        List<Document> page = hasMore ? documents.subList(0, size) : documents;
+
+        List<DispensaryWorklistDTO.PrescriptionRowDTO> rows = new ArrayList<>();
+        List<Object> rowPatientIds = new ArrayList<>();
+        for (Document document : page) {
+            DispensaryWorklistDTO.PrescriptionRowDTO row = new DispensaryWorklistDTO.PrescriptionRowDTO();
+            row.setId(document.get("_id").toString());
+            row.setDoctorName(document.getString("doctorName"));
+            row.setStatus(document.getString("status"));
+
+            Date prescriptionDate = document.getDate("prescriptionDate");
+            if (prescriptionDate != null) {
+                row.setPrescriptionDate(LocalDate.ofInstant(prescriptionDate.toInstant(), ZoneId.systemDefault()));
+            }
+
+            Object patientId = document.get("patient") instanceof DBRef patientRef ? patientRef.getId() : null;
+            row.setPatientId(patientId != null ? patientId.toString() : null);
+            rowPatientIds.add(patientId);
+
+            List<String> drugIds = new ArrayList<>();
+            List<Document> items = document.getList(ITEMS, Document.class, List.of());
+            for (Document item : items) {
+                if (item.get("drug") instanceof DBRef drugRef) {
+                    drugIds.add(drugRef.getId().toString());
+                }
+            }
+            row.setItemCount(items.size());
+            row.setDrugIds(drugIds);
+            rows.add(row);
+        }
+
+        // Without a name filter the page's patients still need their names, fetched in one query
+        if (patientNames.isEmpty()) {
+            Set<Object> ids = new LinkedHashSet<>(rowPatientIds);
+            ids.remove(null);
+            if (!ids.isEmpty()) {
+                patientNames = findPatientNames(Query.query(Criteria.where("_id").in(ids)));
+            }
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Object patientId = rowPatientIds.get(i);
+            rows.get(i).setPatientName(patientId != null ? patientNames.get(patientId) : null);
+        }
+
+        String nextCursor = hasMore ? rows.get(rows.size() - 1).getId() : null;
+        return new DispensaryWorklistDTO(rows, nextCursor);
+    }
+
+    @Override
+    public List<String> expireBatch(LocalDate asOf, int batchSize) {
+        Criteria expired = Criteria.where("status").is(ACTIVE).and("validUntil").lt(asOf);
+
+        Query batchQuery = new Query(expired).limit(batchSize);
+        batchQuery.fields().include("id");
+        List<String> ids = new ArrayList<>();
+        for (Prescription prescription : mongoTemplate.find(batchQuery, Prescription.class)) {
+            ids.add(prescription.getId());
+        }
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        Query updateQuery = Query.query(Criteria.where("id").in(ids)
+                .and("status").is(ACTIVE)
+                .and("validUntil").lt(asOf));
+        mongoTemplate.updateMulti(updateQuery, new Update().set("status", EXPIRED), Prescription.class);
+
+        // Prescriptions completed or cancelled since being selected were not expired
+        Query expiredQuery = Query.query(Criteria.where("id").in(ids).and("status").is(EXPIRED));
+        expiredQuery.fields().include("id");
+        List<String> expiredIds = new ArrayList<>();
+        for (Prescription prescription : mongoTemplate.find(expiredQuery, Prescription.class)) {
+            expiredIds.add(prescription.getId());
+        }
+        return expiredIds;
+    }
+
+    /**
+     * Finds the patients having a name word that starts with each word of the search text, through
+     * the indexed search keys rather than a scan of patient names.
+     *
+     * @return Full names keyed by the raw patient ID as stored in the DBRefs
+     * @throws IllegalArgumentException if the text has no word of 2 characters or more, or matches
+     *         more than {@value #MAX_NAME_FILTER_PATIENTS} patients
+     */
+    private Map<Object, String> findPatientNamesMatching(String patientName) {
+        List<String> prefixKeys = PatientSearchKeys.forNamePrefixes(patientName);
+        if (prefixKeys.isEmpty()) {
+            throw new IllegalArgumentException("Type at least 2 letters of the patient name");
+        }
+
+        Query query = Query.query(Criteria.where(PatientSearchIndexer.KEYS_FIELD).all(prefixKeys))
+                .limit(MAX_NAME_FILTER_PATIENTS + 1);
+        Map<Object, String> names = findPatientNames(query);
+        if (names.size() > MAX_NAME_FILTER_PATIENTS) {
+            throw new IllegalArgumentException("Too many patients match \"" + patientName.trim()
+                    + "\"; type more of the name");
+        }
+        return names;
+    }
+
+    /**
+     * Reads the first and last names of the matching patients, skipping every other patient field.
+     */
+    private Map<Object, String> findPatientNames(Query query) {
+        query.fields().include("firstName", "lastName");
+
+        Map<Object, String> names = new HashMap<>();
+        for (Document patient : mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Patient.class))) {
+            String firstName = patient.getString("firstName");
+            String lastName = patient.getString("lastName");
+            names.put(patient.get("_id"), ((firstName != null ? firstName : "") + " "
+                    + (lastName != null ? lastName : "")).trim());
+        }
+        return names;
+    }
+
+    /**
+     * Converts a cursor back to the stored ID type; IDs generated by MongoDB are stored as ObjectIds.
+     */
+    private Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * Converts a date the same way the mapping layer stores LocalDate fields.
+     */
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,19 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.StockMovement;
+
+@Repository
+public interface StockMovementRepository extends MongoRepository<StockMovement, String> {
+    
+    // Find the most recent movements of a drug
+    List<StockMovement> findByDrugIdOrderByTimestampDesc(String drugId, Pageable pageable);
+    
+    // Find all movements caused by a prescription
+    List<StockMovement> findByPrescriptionId(String prescriptionId);
+}
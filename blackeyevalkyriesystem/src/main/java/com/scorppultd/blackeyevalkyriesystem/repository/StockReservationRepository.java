@@ -0,0 +1,15 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.StockReservation;
+
+@Repository
+public interface StockReservationRepository extends MongoRepository<StockReservation, String> {
+    
+    // Find reservations of a prescription in a given status
+    List<StockReservation> findByPrescriptionIdAndStatus(String prescriptionId, String status);
+}
@@ -0,0 +1,30 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.VisitBucket;
+
+/**
+ * Repository for the per-patient, per-year buckets of patient visits
+ */
+@Repository
+public interface VisitBucketRepository extends MongoRepository<VisitBucket, String>, VisitBucketRepositoryCustom {
+
+    /**
+     * Find all visit buckets of a patient, most recent first
+     *
+     * @param patientId The ID of the patient
+     * @return The buckets ordered by their last visit date, newest first
+     */
+    List<VisitBucket> findByPatientIdOrderByLastVisitDateDesc(String patientId);
+
+    /**
+     * Delete all visit buckets of a patient
+     *
+     * @param patientId The ID of the patient
+     */
+    void deleteByPatientId(String patientId);
+}
@@ -0,0 +1,29 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Visit;
+
+/**
+ * Custom visit bucket operations that need MongoTemplate features not expressible as derived queries.
+ */
+public interface VisitBucketRepositoryCustom {
+
+    /**
+     * Appends a visit to the patient's bucket for the year of the visit, creating the bucket
+     * if the year has none or its buckets are full. The bucket is updated with a single upsert.
+     *
+     * @param visit The visit to store; its patient ID and visit date must be set
+     * @return The stored visit, with its ID assigned
+     */
+    Visit addVisit(Visit visit);
+
+    /**
+     * Reads the most recent visits of a patient.
+     *
+     * @param patientId The ID of the patient
+     * @param limit The maximum number of visits to return
+     * @return The visits, newest first
+     */
+    List<Visit> findRecentVisits(String patientId, int limit);
+}
@@ -0,0 +1,73 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Visit;
+import com.scorppultd.blackeyevalkyriesystem.model.VisitBucket;
+
+/**
+ * MongoTemplate implementation of {@link VisitBucketRepositoryCustom}.
+ * A visit is pushed into a non-full bucket of its year with one upsert; when no such bucket
+ * exists the upsert inserts a new one. Both the upsert and the recent-visits read select the
+ * patient's buckets through the (patientId, lastVisitDate) index.
+ */
+public class VisitBucketRepositoryCustomImpl implements VisitBucketRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    private final int bucketCapacity;
+
+    /**
+     * Constructs a VisitBucketRepositoryCustomImpl.
+     *
+     * @param mongoTemplate Template used to issue the queries
+     * @param bucketCapacity Maximum number of visits stored in one bucket
+     */
+    @Autowired
+    public VisitBucketRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                           @Value("${visits.bucket-capacity:100}") int bucketCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucketCapacity = Math.max(1, bucketCapacity);
+    }
+
+    @Override
+    public Visit addVisit(Visit visit) {
+        if (visit.getPatientId() == null || visit.getVisitDate() == null) {
+            throw new IllegalArgumentException("A visit needs a patient ID and a visit date");
+        }
+        if (visit.getId() == null) {
+            visit.setId(new ObjectId().toHexString());
+        }
+
+        Query bucket = Query.query(Criteria.where("patientId").is(visit.getPatientId())
+                .and("period").is(visit.getVisitDate().getYear())
+                .and("count").lt(bucketCapacity));
+        Update update = new Update()
+                .push("visits", visit)
+                .inc("count", 1)
+                .min("firstVisitDate", visit.getVisitDate())
+                .max("lastVisitDate", visit.getVisitDate());
+        mongoTemplate.upsert(bucket, update, VisitBucket.class);
+        return visit;
+    }
+
+    @Override
+    public List<Visit> findRecentVisits(String patientId, int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("patientId").is(patientId)),
+                Aggregation.unwind("visits"),
+                Aggregation.replaceRoot("visits"),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "visitDate")),
+                Aggregation.limit(Math.max(1, limit)));
+        return mongoTemplate.aggregate(aggregation, VisitBucket.class, Visit.class).getMappedResults();
+    }
+}
@@ -0,0 +1,20 @@
+package com.scorppultd.blackeyevalkyriesystem.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
+
+@Repository
+public interface VitalAlertRepository extends MongoRepository<VitalAlert, String> {
+
+    List<VitalAlert> findByAcknowledgedFalseOrderByMeasuredAtDesc(Pageable pageable);
+
+    List<VitalAlert> findByAcknowledgedFalseAndPatientIdInOrderByMeasuredAtDesc(Collection<String> patientIds, Pageable pageable);
+
+    List<VitalAlert> findByPatientIdOrderByMeasuredAtDesc(String patientId, Pageable pageable);
+}
@@ -37,6 +37,9 @@ public interface AppointmentService {
     // Update an appointment
     Appointment updateAppointment(Appointment appointment);
     
+    // Update only the vital signs of an appointment, and its status if one is given
+    Optional<Appointment> updateVitalSigns(String id, Appointment.VitalSigns vitalSigns, String status);
+    
     // Delete an appointment
     void deleteAppointment(String id);
 } 
\ No newline at end of file
@@ -0,0 +1,521 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationEvent.Operation;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationEvent.Source;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers changes to cached reference data (drugs, users, duty status, license keys) to the
+ * in-process caches of every application node, whichever node made the change.
+ * <p>
+ * Caches subscribe with {@link #register(Source, Consumer)}. Changes are read from a MongoDB change
+ * stream on the watched collections. The stream's resume token is saved per node, so after a
+ * reconnect or restart the stream continues where it stopped; if the token has fallen out of the
+ * oplog every cache is cleared instead. Update events look up the changed document so that caches
+ * keyed by a field other than the ID (username, license key) can evict a single entry.
+ * <p>
+ * Change streams need a replica set. On a standalone server the bus falls back to polling a shared
+ * invalidation log: every node then records the saves and deletes of watched entities in the
+ * cache_invalidations collection, which expires entries through a TTL index. Writes made with
+ * template updates raise no entity events and must be recorded with {@link #publish} or
+ * {@link #publishAll}.
+ */
+@Component
+public class CacheInvalidationBus extends AbstractMongoEventListener<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String LOG_COLLECTION = "cache_invalidations";
+    private static final String TOKEN_COLLECTION = "cache_invalidation_tokens";
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+    private static final long TOKEN_SAVE_INTERVAL_MILLIS = 5_000;
+    private static final long POLL_SETTLE_MILLIS = 1_000;
+    private static final int POLL_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Source, List<Consumer<CacheInvalidationEvent>>> listeners = new ConcurrentHashMap<>();
+    private final boolean changeStreamsEnabled;
+    private final long pollIntervalMillis;
+    private final Duration logRetention;
+    private final String nodeId;
+
+    private volatile boolean running;
+    private volatile boolean polling;
+    private volatile BsonDocument resumeToken;
+    private Thread worker;
+
+    /**
+     * Constructs a CacheInvalidationBus.
+     *
+     * @param mongoTemplate Template used to watch the collections and to read and write the invalidation log
+     * @param meterRegistry Registry for dispatched event and error counters
+     * @param changeStreamsEnabled Whether to use change streams; if false the invalidation log is polled
+     * @param pollIntervalMillis How often the invalidation log is polled in polling mode
+     * @param logRetentionMinutes How long invalidation log entries are kept
+     * @param nodeId Name under which this node saves its resume token; the host name if blank
+     */
+    public CacheInvalidationBus(MongoTemplate mongoTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${cache.invalidation.change-streams-enabled:true}") boolean changeStreamsEnabled,
+                                @Value("${cache.invalidation.poll-interval-ms:2000}") long pollIntervalMillis,
+                                @Value("${cache.invalidation.log-retention-minutes:60}") long logRetentionMinutes,
+                                @Value("${cache.invalidation.node-id:}") String nodeId) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.changeStreamsEnabled = changeStreamsEnabled;
+        this.pollIntervalMillis = Math.max(100, pollIntervalMillis);
+        this.logRetention = Duration.ofMinutes(Math.max(1, logRetentionMinutes));
+        if (nodeId == null || nodeId.isBlank()) {
+            // runtime name is pid@host
+            String runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+            nodeId = runtimeName.substring(runtimeName.indexOf('@') + 1);
+        }
+        this.nodeId = nodeId;
+        this.polling = !changeStreamsEnabled;
+    }
+
+    /**
+     * Subscribes a cache to the changes of a collection.
+     * Listeners are called on the bus thread and must not block.
+     *
+     * @param source The collection to follow
+     * @param listener Called with every change of the collection
+     */
+    public void register(Source source, Consumer<CacheInvalidationEvent> listener) {
+        listeners.computeIfAbsent(source, s -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Records a change made with a template update, which does not raise entity events.
+     * Change streams see every write, so this only writes to the invalidation log in polling mode.
+     *
+     * @param source The collection that changed
+     * @param documentId The ID of the changed document, or null if unknown
+     * @param key The value of the source's key field in the changed document, or null if unknown
+     */
+    public void publish(Source source, String documentId, String key) {
+        if (polling) {
+            record(new CacheInvalidationEvent(source, Operation.UPSERT, documentId, key));
+        }
+    }
+
+    /**
+     * Records that any document of a collection may have changed, e.g. after a multi-document update.
+     * Change streams see every write, so this only writes to the invalidation log in polling mode.
+     *
+     * @param source The collection that changed
+     */
+    public void publishAll(Source source) {
+        if (polling) {
+            record(CacheInvalidationEvent.all(source));
+        }
+    }
+
+    /**
+     * Checks whether the bus has fallen back to polling the invalidation log.
+     *
+     * @return true in polling mode, false while change streams are used
+     */
+    public boolean isPolling() {
+        return polling;
+    }
+
+    /**
+     * Starts following changes once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "cache-invalidation-bus");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops following changes when the application shuts down.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (!polling) {
+            return;
+        }
+        Source source = Source.ofCollection(event.getCollectionName());
+        Document document = event.getDocument();
+        if (source == null || document == null) {
+            return;
+        }
+        Object key = source.getKeyField() != null ? document.get(source.getKeyField()) : null;
+        record(new CacheInvalidationEvent(source, Operation.UPSERT, idString(document.get("_id")),
+                key != null ? key.toString() : null));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (!polling) {
+            return;
+        }
+        Source source = Source.ofCollection(event.getCollectionName());
+        if (source == null) {
+            return;
+        }
+        // The event carries the delete filter; _id is only a plain value for single-document deletes
+        Object id = event.getSource().get("_id");
+        record(new CacheInvalidationEvent(source, Operation.DELETE, id instanceof Document ? null : idString(id), null));
+    }
+
+    private void run() {
+        if (changeStreamsEnabled) {
+            watchChangeStreams();
+        }
+        if (running) {
+            pollInvalidationLog();
+        }
+    }
+
+    /**
+     * Follows the change stream until the bus stops or change streams turn out to be unsupported.
+     */
+    private void watchChangeStreams() {
+        resumeToken = loadResumeToken();
+        while (running) {
+            try {
+                watch();
+            } catch (MongoServerException e) {
+                if (e.getCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    logger.warn("Change streams are not available ({}); polling the invalidation log instead", e.getMessage());
+                    polling = true;
+                    dispatchAll();
+                    return;
+                }
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    logger.warn("Change stream resume point is no longer in the oplog; clearing all caches");
+                    resumeToken = null;
+                    dispatchAll();
+                    continue;
+                }
+                retryAfterError(e);
+            } catch (MongoException e) {
+                retryAfterError(e);
+            }
+        }
+    }
+
+    private void watch() {
+        List<String> collections = Arrays.stream(Source.values()).map(Source::getCollection).toList();
+        List<String> projectedFields = new ArrayList<>(List.of("operationType", "ns", "documentKey"));
+        for (Source source : Source.values()) {
+            if (source.getKeyField() != null) {
+                projectedFields.add("fullDocument." + source.getKeyField());
+            }
+        }
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.or(
+                        Filters.in("ns.coll", collections),
+                        Filters.in("operationType", "dropDatabase", "invalidate"))),
+                Aggregates.project(Projections.include(projectedFields)));
+
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb().watch(pipeline)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        long lastSavedAt = System.currentTimeMillis();
+        BsonDocument savedToken = resumeToken;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            logger.info("Following changes to {} through a change stream", collections);
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                    // The stream is closed by the server; reopen it from the current time
+                    resumeToken = null;
+                    dispatchAll();
+                    return;
+                }
+                if (change != null) {
+                    dispatch(toEvents(change));
+                }
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+                long now = System.currentTimeMillis();
+                if (resumeToken != null && !resumeToken.equals(savedToken) && now - lastSavedAt >= TOKEN_SAVE_INTERVAL_MILLIS) {
+                    saveResumeToken(resumeToken);
+                    savedToken = resumeToken;
+                    lastSavedAt = now;
+                }
+            }
+        }
+        if (resumeToken != null) {
+            saveResumeToken(resumeToken);
+        }
+    }
+
+    private List<CacheInvalidationEvent> toEvents(ChangeStreamDocument<Document> change) {
+        Source source = change.getNamespace() != null
+                ? Source.ofCollection(change.getNamespace().getCollectionName())
+                : null;
+        if (source == null) {
+            return allSources();
+        }
+        String documentId = change.getDocumentKey() != null ? idString(change.getDocumentKey().get("_id")) : null;
+        return switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document document = change.getFullDocument();
+                Object key = document != null && source.getKeyField() != null ? document.get(source.getKeyField()) : null;
+                yield List.of(new CacheInvalidationEvent(source, Operation.UPSERT, documentId,
+                        key != null ? key.toString() : null));
+            }
+            case DELETE -> List.of(new CacheInvalidationEvent(source, Operation.DELETE, documentId, null));
+            default -> List.of(CacheInvalidationEvent.all(source));
+        };
+    }
+
+    /**
+     * Dispatches the entries of the invalidation log until the bus stops.
+     */
+    private void pollInvalidationLog() {
+        ensureLogIndex();
+        logger.info("Following changes through the invalidation log every {} ms", pollIntervalMillis);
+        LogPosition position = LogPosition.START;
+        try {
+            position = latestLogPosition();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read the end of the invalidation log: {}", e.getMessage());
+        }
+
+        while (running) {
+            try {
+                position = dispatchLogEntries(position);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("cache.invalidation.errors").increment();
+                logger.warn("Failed to poll the invalidation log: {}", e.getMessage());
+            }
+
+            if (!sleep(pollIntervalMillis)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Dispatches the log entries after a position, a page at a time, ordered by creation time and ID.
+     * Entries are stamped with the server time when they are written, so one written just before
+     * another may become visible just after it; only entries older than a short settle lag on the
+     * server clock are read, so the position never moves past an entry that is yet to appear.
+     *
+     * @param after The position of the last dispatched entry
+     * @return The position of the last entry dispatched now, or {@code after} if there were none
+     */
+    LogPosition dispatchLogEntries(LogPosition after) {
+        Date settled = new Date(serverTime().getTime() - POLL_SETTLE_MILLIS);
+        LogPosition position = after;
+        List<Document> entries;
+        do {
+            Criteria criteria = new Criteria().andOperator(
+                    Criteria.where("createdAt").lte(settled),
+                    new Criteria().orOperator(
+                            Criteria.where("createdAt").gt(position.createdAt()),
+                            Criteria.where("createdAt").is(position.createdAt()).and("_id").gt(position.id())));
+            Query query = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                    .limit(POLL_BATCH_SIZE);
+            entries = mongoTemplate.find(query, Document.class, LOG_COLLECTION);
+            for (Document entry : entries) {
+                position = new LogPosition(entry.getDate("createdAt"), entry.getObjectId("_id"));
+                Source source = Source.ofCollection(entry.getString("source"));
+                if (source != null) {
+                    dispatch(List.of(new CacheInvalidationEvent(source, Operation.valueOf(entry.getString("operation")),
+                            entry.getString("documentId"), entry.getString("key"))));
+                }
+            }
+        } while (entries.size() == POLL_BATCH_SIZE);
+        return position;
+    }
+
+    /**
+     * A point in the invalidation log: the creation time and ID of an entry.
+     *
+     * @param createdAt The server time the entry was written
+     * @param id The ID of the entry, which orders entries written at the same time
+     */
+    record LogPosition(Date createdAt, ObjectId id) {
+        static final LogPosition START = new LogPosition(new Date(0), new ObjectId("000000000000000000000000"));
+    }
+
+    private void record(CacheInvalidationEvent event) {
+        try {
+            Update update = new Update()
+                    .set("source", event.getSource().getCollection())
+                    .set("operation", event.getOperation().name())
+                    .set("documentId", event.getDocumentId())
+                    .set("key", event.getKey())
+                    .currentDate("createdAt");
+            // Upsert on a fresh ID so that createdAt comes from the server clock
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(new ObjectId())), update, LOG_COLLECTION);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("cache.invalidation.errors").increment();
+            logger.warn("Failed to record cache invalidation {}: {}", event, e.getMessage());
+        }
+    }
+
+    private void dispatch(List<CacheInvalidationEvent> events) {
+        for (CacheInvalidationEvent event : events) {
+            meterRegistry.counter("cache.invalidation.events",
+                    "source", event.getSource().getCollection(), "operation", event.getOperation().name()).increment();
+            for (Consumer<CacheInvalidationEvent> listener : listeners.getOrDefault(event.getSource(), List.of())) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    logger.warn("Cache listener failed on {}: {}", event, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void dispatchAll() {
+        dispatch(allSources());
+    }
+
+    private List<CacheInvalidationEvent> allSources() {
+        return Arrays.stream(Source.values()).map(CacheInvalidationEvent::all).toList();
+    }
+
+    private void ensureLogIndex() {
+        try {
+            mongoTemplate.indexOps(LOG_COLLECTION).ensureIndex(
+                    new Index("createdAt", Sort.Direction.ASC).named("created_at_ttl_idx").expire(logRetention));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to create the invalidation log index: {}", e.getMessage());
+        }
+    }
+
+    private LogPosition latestLogPosition() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt", "_id")).limit(1);
+        query.fields().include("createdAt");
+        Document latest = mongoTemplate.findOne(query, Document.class, LOG_COLLECTION);
+        return latest != null && latest.getDate("createdAt") != null
+                ? new LogPosition(latest.getDate("createdAt"), latest.getObjectId("_id"))
+                : LogPosition.START;
+    }
+
+    private Date serverTime() {
+        Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+        Date localTime = hello.getDate("localTime");
+        return localTime != null ? localTime : new Date();
+    }
+
+    private BsonDocument loadResumeToken() {
+        try {
+            Document state = mongoTemplate.findById(nodeId, Document.class, TOKEN_COLLECTION);
+            if (state != null && state.get("token") instanceof Document token) {
+                return BsonDocument.parse(token.toJson());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load the change stream resume token: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void saveResumeToken(BsonDocument token) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                    new Update().set("token", Document.parse(token.toJson())).currentDate("savedAt"),
+                    TOKEN_COLLECTION);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to save the change stream resume token: {}", e.getMessage());
+        }
+    }
+
+    private void retryAfterError(MongoException e) {
+        meterRegistry.counter("cache.invalidation.errors").increment();
+        logger.warn("Change stream failed, retrying in {} ms: {}", RETRY_DELAY_MILLIS, e.getMessage());
+        sleep(RETRY_DELAY_MILLIS);
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return false;
+        }
+    }
+
+    private static String idString(Object id) {
+        if (id instanceof BsonValue value) {
+            if (value.isObjectId()) {
+                return value.asObjectId().getValue().toHexString();
+            }
+            return value.isString() ? value.asString().getValue() : value.toString();
+        }
+        if (id instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return Objects.toString(id, null);
+    }
+}
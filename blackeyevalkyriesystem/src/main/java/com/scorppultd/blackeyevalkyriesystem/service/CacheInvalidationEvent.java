@@ -0,0 +1,131 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+/**
+ * A change to cached reference data, delivered by {@link CacheInvalidationBus} to the caches
+ * registered for its source. The change may have been made on any application node.
+ */
+public class CacheInvalidationEvent {
+
+    /**
+     * Collections whose changes are dispatched. Where caches of a collection are keyed by a field
+     * other than the document ID, that field is carried along with each change.
+     */
+    public enum Source {
+        DRUGS("drugs", null),
+        USERS("users", "username"),
+        DUTY_STATUS("duty_status", null),
+        LICENSE_KEYS("licenseKeys", "key");
+
+        private final String collection;
+        private final String keyField;
+
+        Source(String collection, String keyField) {
+            this.collection = collection;
+            this.keyField = keyField;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        /**
+         * Returns the field caches of this collection are keyed by.
+         *
+         * @return The key field, or null if caches are keyed by document ID
+         */
+        public String getKeyField() {
+            return keyField;
+        }
+
+        /**
+         * Finds the source of a collection.
+         *
+         * @param collection The collection name
+         * @return The source, or null if changes to the collection are not dispatched
+         */
+        public static Source ofCollection(String collection) {
+            for (Source source : values()) {
+                if (source.collection.equals(collection)) {
+                    return source;
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum Operation {
+        /**
+         * A document was inserted, updated or replaced
+         */
+        UPSERT,
+        /**
+         * A document was deleted; the key field is usually unknown
+         */
+        DELETE,
+        /**
+         * Any document may have changed (collection dropped, changes missed); caches must be cleared
+         */
+        ALL
+    }
+
+    private final Source source;
+    private final Operation operation;
+    private final String documentId;
+    private final String key;
+
+    /**
+     * Constructs a CacheInvalidationEvent.
+     *
+     * @param source The collection that changed
+     * @param operation The kind of change
+     * @param documentId The ID of the changed document, or null if unknown
+     * @param key The value of the source's key field in the changed document, or null if unknown
+     */
+    public CacheInvalidationEvent(Source source, Operation operation, String documentId, String key) {
+        this.source = source;
+        this.operation = operation;
+        this.documentId = documentId;
+        this.key = key;
+    }
+
+    /**
+     * Creates an event telling the caches of a source to drop everything.
+     *
+     * @param source The collection that changed
+     * @return The event
+     */
+    public static CacheInvalidationEvent all(Source source) {
+        return new CacheInvalidationEvent(source, Operation.ALL, null, null);
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Checks whether the change can be narrowed down to a single cache key.
+     * When it cannot, caches keyed by the source's key field must drop all their entries.
+     *
+     * @return true if the key field value of the changed document is known
+     */
+    public boolean hasKey() {
+        return operation != Operation.ALL && key != null;
+    }
+
+    @Override
+    public String toString() {
+        return source + " " + operation + (documentId != null ? " " + documentId : "");
+    }
+}
@@ -0,0 +1,24 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationCompletionDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+
+/**
+ * Service that closes a consultation: saves its final notes, diagnosis and vital signs,
+ * creates its prescription and completes its appointment
+ */
+public interface ConsultationCompletionService {
+
+    /**
+     * Complete a consultation. The consultation, its prescription, its clinical notes and the
+     * appointment status are written together; stock for the prescription is reserved and changed
+     * vital signs are added to the patient's history afterwards.
+     *
+     * @param completion The values submitted by the doctor
+     * @param username The user completing the consultation, who becomes its doctor if it has none
+     * @return The completed consultation
+     * @throws ResourceNotFoundException if the consultation is not found
+     */
+    Consultation completeConsultation(ConsultationCompletionDTO completion, String username);
+}
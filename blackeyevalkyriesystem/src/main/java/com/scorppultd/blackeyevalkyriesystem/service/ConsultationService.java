@@ -2,9 +2,11 @@ package com.scorppultd.blackeyevalkyriesystem.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationDraftDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 
@@ -17,12 +19,46 @@ public interface ConsultationService {
     Consultation updateConsultation(Consultation consultation);
     void deleteConsultation(String id);
     
+    /**
+     * Fills in the clinical narrative of a consultation read by a list query, for views that show or edit it
+     * @param consultation The consultation to fill in
+     * @return The same consultation
+     */
+    Consultation loadNarrative(Consultation consultation);
+    
+    // Draft autosave operations
+    
+    /**
+     * Saves changed text fields of a consultation that is being edited, if it still has the revision the draft was edited against
+     * @param consultationId ID of the consultation
+     * @param draft The revision and the changed fields
+     * @return The new revision of the consultation
+     */
+    long saveDraft(String consultationId, ConsultationDraftDTO draft);
+    
+    /**
+     * Reads the current revision and values of draft fields, e.g. after a draft was rejected as outdated
+     * @param consultationId ID of the consultation
+     * @param fieldNames Names of the fields to read
+     * @return The current revision and field values
+     */
+    ConsultationDraftDTO getDraft(String consultationId, Collection<String> fieldNames);
+    
     // Doctor and patient specific operations
     List<Consultation> getConsultationsByDoctor(String doctorId);
     List<Consultation> getConsultationsByPatient(String patientId);
     List<Consultation> getConsultationsByDoctorAndPatient(String doctorId, String patientId);
     List<Consultation> getConsultationsByPatientIdAndStatus(String patientId, String status);
     
+    /**
+     * Gets the most recent completed consultations of a patient with only the fields shown in history lists
+     * @param patientId ID of the patient
+     * @param excludeConsultationId ID of a consultation to leave out, e.g. the one being edited, or null
+     * @param limit Maximum number of consultations to return
+     * @return The consultations, newest first
+     */
+    List<Consultation> getRecentCompletedConsultations(String patientId, String excludeConsultationId, int limit);
+    
     // Date range queries
     List<Consultation> getConsultationsInDateRange(LocalDateTime start, LocalDateTime end);
     List<Consultation> getConsultationsForFollowUp(LocalDate followUpDate);
@@ -0,0 +1,88 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.StockLevelDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.model.StockMovement;
+
+/**
+ * Service for dispensary stock tracking
+ */
+public interface InventoryService {
+
+    /**
+     * Add received units of a drug to the dispensary stock
+     *
+     * @param drugId The ID of the drug
+     * @param quantity The number of units received
+     * @param performedBy The username of the user recording the receipt
+     * @return The stock level after the receipt
+     */
+    StockLevelDTO receiveStock(String drugId, int quantity, String performedBy);
+
+    /**
+     * Get the current stock level of a drug
+     *
+     * @param drugId The ID of the drug
+     * @return The stock level, with all counts 0 if the drug is not stocked
+     */
+    StockLevelDTO getStockLevel(String drugId);
+
+    /**
+     * Get all drugs whose available stock is at or below a threshold
+     *
+     * @param threshold The available-units threshold
+     * @return Stock levels of the matching drugs, lowest first
+     */
+    List<StockLevelDTO> getLowStock(int threshold);
+
+    /**
+     * Get all drugs whose available stock is at or below the configured threshold
+     *
+     * @return Stock levels of the matching drugs, lowest first
+     */
+    List<StockLevelDTO> getLowStock();
+
+    /**
+     * Get the most recent ledger entries of a drug
+     *
+     * @param drugId The ID of the drug
+     * @param limit The maximum number of entries to return
+     * @return The movements, newest first
+     */
+    List<StockMovement> getMovements(String drugId, int limit);
+
+    /**
+     * Reserve stock for every item of a newly created prescription
+     *
+     * @param prescription The saved prescription
+     * @return The number of items whose quantity could not be reserved
+     */
+    int reserveForPrescription(Prescription prescription);
+
+    /**
+     * Turn the open reservations of a prescription into dispensed stock
+     *
+     * @param prescriptionId The ID of the dispensed prescription
+     * @return The number of units dispensed
+     */
+    int commitReservations(String prescriptionId);
+
+    /**
+     * Take the stock for one dispensed refill of a prescription item
+     *
+     * @param prescriptionId The ID of the prescription
+     * @param item The refilled item
+     * @return true if the stock was taken or the drug is not stocked, false on a stock shortfall
+     */
+    boolean dispenseRefill(String prescriptionId, Prescription.PrescriptionItem item);
+
+    /**
+     * Return the open reservations of a prescription to available stock
+     *
+     * @param prescriptionId The ID of the prescription
+     * @return The number of units released
+     */
+    int releaseReservations(String prescriptionId);
+}
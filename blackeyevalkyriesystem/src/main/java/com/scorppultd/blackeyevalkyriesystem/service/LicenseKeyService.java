@@ -1,8 +1,12 @@
 package com.scorppultd.blackeyevalkyriesystem.service;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.LicenseKeyVerificationDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
+import org.springframework.data.domain.Page;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,6 +22,21 @@ public interface LicenseKeyService {
      */
     boolean validateLicenseKey(String licenseKey);
     
+    /**
+     * Verify that a license key can be used to register, answering from the validation cache when possible
+     * 
+     * @param licenseKey The license key string to verify
+     * @return The outcome, with the granted role if the key is valid or the reason if it is not
+     */
+    LicenseKeyVerificationDTO verifyLicenseKey(String licenseKey);
+    
+    /**
+     * Drop the cached validation outcome of a license key after it has been changed
+     * 
+     * @param licenseKey The license key string
+     */
+    void invalidateCachedValidation(String licenseKey);
+    
     /**
      * Validate the license key format (AAAA-BBBB-CCCC-DDDD)
      * 
@@ -65,6 +84,27 @@ public interface LicenseKeyService {
      */
     List<LicenseKey> getAllLicenseKeys();
     
+    /**
+     * Get one page of license keys, filtered and sorted by expiration date in the database.
+     * Keys without an expiration date are treated as expiring last.
+     * 
+     * @param status The status to filter by, or null/empty for all statuses
+     * @param role The role to filter by (case-insensitive), or null/empty for all roles
+     * @param sortOrder "desc" to sort by expiration date descending, anything else for ascending
+     * @param page The one-based page number
+     * @param rowsPerPage The number of license keys per page
+     * @return The page of license keys with the total number of matching keys
+     */
+    Page<LicenseKey> findLicenseKeys(String status, String role, String sortOrder, int page, int rowsPerPage);
+    
+    /**
+     * Get the display names of the users the given license keys were used by, in one lookup
+     * 
+     * @param licenseKeys The license keys
+     * @return Full names keyed by user ID; users that no longer exist are left out
+     */
+    Map<String, String> getUserNames(List<LicenseKey> licenseKeys);
+    
     /**
      * Generate a new license key string in the format AAAA-BBBB-CCCC-DDDD
      * 
@@ -72,6 +112,24 @@ public interface LicenseKeyService {
      */
     String generateLicenseKey();
     
+    /**
+     * Generate and store a batch of new active license keys
+     * 
+     * @param count The number of keys to issue
+     * @param role The role the keys grant: admin, doctor or nurse
+     * @param expiresOn The expiration date of the keys, or null for keys that do not expire
+     * @return The issued license keys
+     */
+    List<LicenseKey> issueLicenseKeys(int count, String role, LocalDate expiresOn);
+    
+    /**
+     * Export license keys as CSV with a header row
+     * 
+     * @param licenseKeys The license keys to export
+     * @return Byte array containing the CSV data
+     */
+    byte[] exportLicenseKeysCsv(List<LicenseKey> licenseKeys);
+    
     /**
      * Assign a license key to a user
      * 
@@ -0,0 +1,40 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientMergeCandidateDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+
+/**
+ * Service that finds patient records registered more than once and merges them
+ */
+public interface PatientDeduplicationService {
+
+    /**
+     * Find pairs of patient records that probably describe the same person.
+     * Records are only compared with the records they share a blocking key with, see
+     * {@link PatientSimilarity}.
+     *
+     * @param minScore The lowest score a pair must reach, from 0 to 1
+     * @param limit The maximum number of pairs to return
+     * @return The pairs, most likely duplicates first
+     */
+    List<PatientMergeCandidateDTO> findMergeCandidates(double minScore, int limit);
+
+    /**
+     * Merge a duplicate patient record into the record that is kept.
+     * The appointments, consultations, prescriptions, vitals and visits of the duplicate are
+     * moved to the kept patient, details the kept patient lacks are copied over, drug allergies
+     * are combined, and the duplicate is deleted. The duplicate is deleted last, so a merge that
+     * fails half way can be run again. Only one merge involving a given patient runs at a time.
+     *
+     * @param survivorId The ID of the patient to keep
+     * @param duplicateId The ID of the patient to merge into it
+     * @return The kept patient
+     * @throws IllegalArgumentException if both IDs are the same
+     * @throws IllegalStateException if either patient is being merged by another request
+     * @throws ResourceNotFoundException if either patient is not found
+     */
+    Patient mergePatients(String survivorId, String duplicateId);
+}
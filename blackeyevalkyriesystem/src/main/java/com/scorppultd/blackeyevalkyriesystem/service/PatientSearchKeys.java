@@ -0,0 +1,240 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.codec.language.Soundex;
+
+/**
+ * Builds the search keys stored with each patient and the keys a search query is matched against.
+ * <p>
+ * A patient's keys are kept in one indexed array and carry a prefix naming their kind:
+ * <ul>
+ * <li>{@code w:} whole name words and {@code p:} their leading n-grams (2 to 15 characters),
+ * for the first and last name;</li>
+ * <li>{@code sx:} Soundex and {@code mp:} Double Metaphone codes of those words, so that
+ * misspelled names still match;</li>
+ * <li>{@code rw:} and {@code rp:} words and n-grams of the relative's name;</li>
+ * <li>{@code ph:} leading digits of the contact number, from 3 digits, also without the country code;</li>
+ * <li>{@code em:} leading characters of the email address, from 3 characters.</li>
+ * </ul>
+ * Each query term is matched against the keys of every kind that fits it, and each kind of
+ * match adds its weight to the patient's score.
+ */
+public final class PatientSearchKeys {
+
+    /**
+     * Version of the key scheme; patients whose keys were built by another version are re-indexed
+     */
+    public static final int VERSION = 1;
+
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_PREFIX = 15;
+    private static final int MIN_DIGITS = 3;
+    private static final int LOCAL_NUMBER_DIGITS = 10;
+    private static final int MAX_EMAIL_PREFIX = 30;
+
+    private static final Soundex SOUNDEX = Soundex.US_ENGLISH;
+    private static final DoubleMetaphone METAPHONE = new DoubleMetaphone();
+
+    /**
+     * Keys of one kind that a query term matches, with the score each matching key adds.
+     *
+     * @param weight The score added per matching key
+     * @param keys The keys
+     */
+    public record WeightedKeys(int weight, List<String> keys) {
+    }
+
+    private PatientSearchKeys() {
+    }
+
+    /**
+     * Builds the search keys of a patient.
+     *
+     * @param firstName The patient's first name
+     * @param lastName The patient's last name
+     * @param relativeName The name of the patient's relative
+     * @param contactNumber The patient's contact number
+     * @param email The patient's email address
+     * @return The keys, without duplicates
+     */
+    public static List<String> forPatient(String firstName, String lastName, String relativeName,
+                                          String contactNumber, String email) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> names = new ArrayList<>(words(firstName));
+        names.addAll(words(lastName));
+        for (String word : names) {
+            keys.add("w:" + word);
+            addPrefixes(keys, "p:", word, MIN_PREFIX, MAX_PREFIX);
+            addPhonetic(keys, word);
+        }
+        for (String word : words(relativeName)) {
+            keys.add("rw:" + word);
+            addPrefixes(keys, "rp:", word, MIN_PREFIX, MAX_PREFIX);
+        }
+        String digits = digits(contactNumber);
+        addPrefixes(keys, "ph:", digits, MIN_DIGITS, digits.length());
+        if (digits.length() > LOCAL_NUMBER_DIGITS) {
+            String local = digits.substring(digits.length() - LOCAL_NUMBER_DIGITS);
+            addPrefixes(keys, "ph:", local, MIN_DIGITS, local.length());
+        }
+        if (email != null && !email.isBlank()) {
+            addPrefixes(keys, "em:", email.trim().toLowerCase(Locale.ROOT), MIN_DIGITS, MAX_EMAIL_PREFIX);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Splits a search query into terms and lists, for each term, the keys it matches.
+     * Adjacent parts of a phone number typed with spaces, e.g. "0123 456", make one term.
+     * Terms too short to match anything are left out.
+     *
+     * @param query The text typed into the search box
+     * @return Per term, the keys it matches grouped by weight
+     */
+    public static List<List<WeightedKeys>> forQuery(String query) {
+        List<List<WeightedKeys>> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String raw : joinNumberParts(query.trim().split("\\s+"))) {
+            String term = raw.toLowerCase(Locale.ROOT);
+            List<WeightedKeys> keys = new ArrayList<>();
+            if (term.contains("@")) {
+                if (term.length() >= MIN_DIGITS) {
+                    keys.add(new WeightedKeys(3, List.of("em:" + truncate(term, MAX_EMAIL_PREFIX))));
+                }
+            } else if (isPhoneNumber(term)) {
+                String digits = digits(term);
+                if (digits.length() >= MIN_DIGITS) {
+                    keys.add(new WeightedKeys(3, List.of("ph:" + digits)));
+                }
+            } else {
+                for (String word : words(term)) {
+                    if (word.length() < MIN_PREFIX) {
+                        continue;
+                    }
+                    keys.add(new WeightedKeys(4, List.of("w:" + word)));
+                    keys.add(new WeightedKeys(2, List.of("p:" + truncate(word, MAX_PREFIX))));
+                    Set<String> phonetic = new LinkedHashSet<>();
+                    addPhonetic(phonetic, word);
+                    keys.add(new WeightedKeys(1, new ArrayList<>(phonetic)));
+                    keys.add(new WeightedKeys(2, List.of("rw:" + word)));
+                    keys.add(new WeightedKeys(1, List.of("rp:" + truncate(word, MAX_PREFIX))));
+                    if (word.length() >= MIN_DIGITS) {
+                        keys.add(new WeightedKeys(1, List.of("em:" + truncate(word, MAX_EMAIL_PREFIX))));
+                    }
+                }
+            }
+            keys.removeIf(weighted -> weighted.keys().isEmpty());
+            if (!keys.isEmpty()) {
+                terms.add(keys);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lists the name prefix keys a patient must all have to match a name filter, one per word,
+     * e.g. "Jo Sm" gives "p:jo" and "p:sm". Words shorter than 2 characters are left out.
+     *
+     * @param text The name filter
+     * @return The prefix keys, without duplicates
+     */
+    public static List<String> forNamePrefixes(String text) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String word : words(text)) {
+            if (word.length() >= MIN_PREFIX) {
+                keys.add("p:" + truncate(word, MAX_PREFIX));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Joins runs of adjacent phone number parts into one part, leaving other parts as they are.
+     */
+    private static List<String> joinNumberParts(String[] parts) {
+        List<String> joined = new ArrayList<>(parts.length);
+        StringBuilder number = new StringBuilder();
+        for (String part : parts) {
+            if (isPhoneNumber(part)) {
+                number.append(part);
+                continue;
+            }
+            if (number.length() > 0) {
+                joined.add(number.toString());
+                number.setLength(0);
+            }
+            joined.add(part);
+        }
+        if (number.length() > 0) {
+            joined.add(number.toString());
+        }
+        return joined;
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits, with accents removed.
+     */
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String word : plain.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static void addPrefixes(Set<String> keys, String kind, String value, int minLength, int maxLength) {
+        int end = Math.min(value.length(), maxLength);
+        for (int length = minLength; length <= end; length++) {
+            keys.add(kind + value.substring(0, length));
+        }
+    }
+
+    private static void addPhonetic(Set<String> keys, String word) {
+        try {
+            String soundex = SOUNDEX.soundex(word);
+            if (soundex != null && !soundex.isEmpty()) {
+                keys.add("sx:" + soundex);
+            }
+        } catch (IllegalArgumentException e) {
+            // Soundex only maps Latin letters; other scripts still get their Metaphone code
+        }
+        String primary = METAPHONE.doubleMetaphone(word);
+        if (primary != null && !primary.isEmpty()) {
+            keys.add("mp:" + primary);
+        }
+        String alternate = METAPHONE.doubleMetaphone(word, true);
+        if (alternate != null && !alternate.isEmpty()) {
+            keys.add("mp:" + alternate);
+        }
+    }
+
+    private static boolean isPhoneNumber(String term) {
+        String compact = term.replaceAll("[+()\\-.]", "");
+        return !compact.isEmpty() && compact.chars().allMatch(Character::isDigit);
+    }
+
+    private static String digits(String text) {
+        return text == null ? "" : text.replaceAll("\\D", "");
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
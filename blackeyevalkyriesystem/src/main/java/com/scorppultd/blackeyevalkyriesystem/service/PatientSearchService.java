@@ -0,0 +1,100 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.scorppultd.blackeyevalkyriesystem.config.PatientSearchIndexer;
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientSearchResultDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+
+/**
+ * Service class for finding patients by name, relative's name, contact number or email.
+ * A query is matched against the search keys kept on each patient (see {@link PatientSearchKeys}):
+ * every term of the query must match at least one key, which the multikey index on the keys
+ * answers without scanning the collection. The matches are ranked in the same aggregation by
+ * the weights of the keys they share with the query, and only one page of them, with only the
+ * fields shown in search results, is returned.
+ */
+@Service
+public class PatientSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_TERMS = 6;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a PatientSearchService.
+     *
+     * @param mongoTemplate Template used to run the search aggregation
+     */
+    @Autowired
+    public PatientSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Searches patients, best matches first. Exact name words rank above name prefixes, which
+     * rank above names that only sound alike; matches on the relative's name rank lowest.
+     *
+     * @param query The text typed into the search box, e.g. "jon smyth" or "0123 456"
+     * @param page The page to return, starting at 0
+     * @param size The number of patients per page, at most {@link #MAX_PAGE_SIZE}
+     * @return The patients on the page, or an empty list if the query has no usable terms
+     */
+    public List<PatientSearchResultDTO> search(String query, int page, int size) {
+        List<List<PatientSearchKeys.WeightedKeys>> terms = PatientSearchKeys.forQuery(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (terms.size() > MAX_TERMS) {
+            terms = terms.subList(0, MAX_TERMS);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String keysField = "$" + PatientSearchIndexer.KEYS_FIELD;
+
+        List<Document> allTermsMatch = new ArrayList<>();
+        List<Object> scores = new ArrayList<>();
+        for (List<PatientSearchKeys.WeightedKeys> term : terms) {
+            List<String> termKeys = new ArrayList<>();
+            for (PatientSearchKeys.WeightedKeys weighted : term) {
+                termKeys.addAll(weighted.keys());
+                scores.add(new Document("$multiply", List.of(weighted.weight(),
+                        new Document("$size", new Document("$setIntersection", List.of(keysField, weighted.keys()))))));
+            }
+            allTermsMatch.add(new Document(PatientSearchIndexer.KEYS_FIELD, new Document("$in", termKeys)));
+        }
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("$and", allTermsMatch)),
+                new Document("$addFields", new Document("score", new Document("$add", scores))),
+                new Document("$sort", new Document("score", -1).append("lastName", 1).append("firstName", 1).append("_id", 1)),
+                new Document("$skip", (long) Math.max(0, page) * pageSize),
+                new Document("$limit", pageSize),
+                new Document("$project", new Document("firstName", 1)
+                        .append("lastName", 1)
+                        .append("dateOfBirth", 1)
+                        .append("age", 1)
+                        .append("sex", 1)
+                        .append("contactNumber", 1)
+                        .append("email", 1)
+                        .append("relativeName", 1)
+                        .append("status", 1)
+                        .append("score", 1)));
+
+        List<PatientSearchResultDTO> results = new ArrayList<>(pageSize);
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Patient.class)).aggregate(pipeline)) {
+            Object score = document.remove("score");
+            PatientSearchResultDTO result = mongoTemplate.getConverter().read(PatientSearchResultDTO.class, document);
+            result.setScore(score instanceof Number number ? number.intValue() : 0);
+            results.add(result);
+        }
+        return results;
+    }
+}
@@ -2,15 +2,18 @@ package com.scorppultd.blackeyevalkyriesystem.service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Comparator;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientProfileDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.Patient;
 import com.scorppultd.blackeyevalkyriesystem.model.Visit;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
 import com.scorppultd.blackeyevalkyriesystem.repository.PatientRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.VisitBucketRepository;
 
 /**
  * Service class for handling Patient-related operations.
@@ -19,24 +22,31 @@ import com.scorppultd.blackeyevalkyriesystem.repository.PatientRepository;
 @Service
 public class PatientService {
     
+    /**
+     * Number of past consultations shown on the patient profile
+     */
+    private static final int PROFILE_CONSULTATION_LIMIT = 10;
+    
     @Autowired
     private PatientRepository patientRepository;
+
+    @Autowired
+    private VisitBucketRepository visitBucketRepository;
+
+    @Autowired
+    private PartialUpdateRepository partialUpdateRepository;
     
     /**
      * Retrieves all patients from the database.
-     * Sorts each patient's visits by date in descending order.
      * 
-     * @return List of all patients with their visits sorted by date
+     * @return List of all patients
      */
     public List<Patient> getAllPatients() {
-        List<Patient> patients = patientRepository.findAll();
-        sortVisitsByDate(patients);
-        return patients;
+        return patientRepository.findAll();
     }
     
     /**
      * Retrieves all patients from the database sorted by the specified field.
-     * Sorts each patient's visits by date in descending order.
      * 
      * @param sortBy The field to sort by (name, patientid, age, gender, contact, status)
      * @param direction The sort direction ("asc" for ascending, "desc" for descending)
@@ -72,7 +82,6 @@ public class PatientService {
                     break;
             }
             
-            sortVisitsByDate(patients);
             return patients;
         } catch (Exception e) {
             // Log the error
@@ -86,19 +95,50 @@ public class PatientService {
     
     /**
      * Retrieves a patient by their ID.
-     * If found, sorts the patient's visits by date in descending order.
      * 
      * @param id The ID of the patient to retrieve
      * @return Optional containing the patient if found, or empty if not found
      */
     public Optional<Patient> getPatientById(String id) {
-        Optional<Patient> patientOpt = patientRepository.findById(id);
-        patientOpt.ifPresent(patient -> {
-            if (patient.getVisits() != null && !patient.getVisits().isEmpty()) {
-                patient.getVisits().sort(Comparator.comparing(Visit::getVisitDate).reversed());
-            }
-        });
-        return patientOpt;
+        return patientRepository.findById(id);
+    }
+
+    /**
+     * Retrieves everything the patient profile page shows with a single aggregation:
+     * the patient, the names of the drugs the patient is allergic to, and the most recent
+     * completed consultations with their doctor and prescription summary.
+     * 
+     * @param id The ID of the patient
+     * @return Optional containing the profile if the patient exists, or empty if not found
+     */
+    public Optional<PatientProfileDTO> getPatientProfile(String id) {
+        return patientRepository.findProfile(id, PROFILE_CONSULTATION_LIMIT);
+    }
+
+    /**
+     * Records a visit of a patient.
+     * The visit is appended to the patient's visit bucket with a single upsert, and the patient's
+     * lastVisitDate is moved forward in place if the visit is newer.
+     * 
+     * @param visit The visit to record; its patient ID and visit date must be set
+     * @return The recorded visit
+     */
+    public Visit recordVisit(Visit visit) {
+        Visit recorded = visitBucketRepository.addVisit(visit);
+        partialUpdateRepository.update(Patient.class, visit.getPatientId(),
+                new Update().max("lastVisitDate", visit.getVisitDate()));
+        return recorded;
+    }
+
+    /**
+     * Retrieves the most recent visits of a patient.
+     * 
+     * @param patientId The ID of the patient
+     * @param limit The maximum number of visits to return
+     * @return The visits, newest first
+     */
+    public List<Visit> getRecentVisits(String patientId, int limit) {
+        return visitBucketRepository.findRecentVisits(patientId, limit);
     }
     
     /**
@@ -118,20 +158,6 @@ public class PatientService {
      */
     public void deletePatient(String id) {
         patientRepository.deleteById(id);
+        visitBucketRepository.deleteByPatientId(id);
     }
-    
-    /**
-     * Sorts visits by date (descending) for all patients in the list.
-     * This is a helper method used by other service methods to ensure
-     * consistent sorting of visits.
-     * 
-     * @param patients List of patients whose visits need to be sorted
-     */
-    private void sortVisitsByDate(List<Patient> patients) {
-        for (Patient patient : patients) {
-            if (patient.getVisits() != null && !patient.getVisits().isEmpty()) {
-                patient.getVisits().sort(Comparator.comparing(Visit::getVisitDate).reversed());
-            }
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,246 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+/**
+ * Blocking keys and similarity scores used to find patient records that describe the same person.
+ * <p>
+ * Two records are only compared when they share a blocking key:
+ * <ul>
+ * <li>{@code n:} the Double Metaphone code of the last name with the birth year, so that
+ * misspelled last names still meet;</li>
+ * <li>{@code c:} the last 10 digits of the contact number;</li>
+ * <li>{@code e:} the email address.</li>
+ * </ul>
+ * A pair is scored from 0 to 1. Names count for 60% and the date of birth for 40%; a shared
+ * contact number or email closes half the remaining gap, and different recorded sexes cut the
+ * score by a fifth. A different contact number does not lower the score, since duplicates are
+ * often registered with a new number.
+ */
+public final class PatientSimilarity {
+
+    private static final int LOCAL_NUMBER_DIGITS = 10;
+    private static final int MIN_CONTACT_DIGITS = 7;
+
+    private static final double NAME_WEIGHT = 0.6;
+    private static final double BIRTH_WEIGHT = 0.4;
+    private static final double SHARED_CONTACT_GAIN = 0.5;
+    private static final double SEX_MISMATCH_FACTOR = 0.8;
+
+    private static final DoubleMetaphone METAPHONE = new DoubleMetaphone();
+
+    private PatientSimilarity() {
+    }
+
+    /**
+     * Builds the blocking keys of a patient.
+     *
+     * @param lastName The patient's last name
+     * @param dateOfBirth The patient's date of birth, or null
+     * @param age The patient's age, used for the birth year when the date of birth is missing
+     * @param contactNumber The patient's contact number
+     * @param email The patient's email address
+     * @param today The date ages are counted from
+     * @return The keys, without duplicates
+     */
+    public static List<String> blockingKeys(String lastName, LocalDate dateOfBirth, Integer age,
+                                            String contactNumber, String email, LocalDate today) {
+        List<String> keys = new ArrayList<>(4);
+        String name = letters(lastName);
+        String code = name.isEmpty() ? null : METAPHONE.doubleMetaphone(name);
+        if (code != null && !code.isEmpty()) {
+            if (dateOfBirth != null) {
+                keys.add("n:" + code + ":" + dateOfBirth.getYear());
+            } else if (age != null) {
+                // An age alone puts the birth in one of two years
+                int year = today.getYear() - age;
+                keys.add("n:" + code + ":" + year);
+                keys.add("n:" + code + ":" + (year - 1));
+            }
+        }
+        String contact = contactDigits(contactNumber);
+        if (contact != null) {
+            keys.add("c:" + contact);
+        }
+        String address = normalizeEmail(email);
+        if (address != null) {
+            keys.add("e:" + address);
+        }
+        return keys;
+    }
+
+    /**
+     * Scores how likely two patient records describe the same person.
+     *
+     * @param first The first record
+     * @param second The second record
+     * @param today The date ages are counted from
+     * @return The score, from 0 (unrelated) to 1 (identical)
+     */
+    public static double score(Profile first, Profile second, LocalDate today) {
+        double straight = (jaroWinkler(first.firstName(), second.firstName())
+                + jaroWinkler(first.lastName(), second.lastName())) / 2;
+        // First and last name entered the wrong way round
+        double swapped = (jaroWinkler(first.firstName(), second.lastName())
+                + jaroWinkler(first.lastName(), second.firstName())) / 2;
+        double score = NAME_WEIGHT * Math.max(straight, swapped)
+                + BIRTH_WEIGHT * birthSimilarity(first, second, today);
+
+        String contact = first.contactNumber();
+        String email = first.email();
+        if ((contact != null && contact.equals(second.contactNumber()))
+                || (email != null && email.equals(second.email()))) {
+            score += (1 - score) * SHARED_CONTACT_GAIN;
+        }
+        if (first.sex() != null && second.sex() != null && !first.sex().equals(second.sex())) {
+            score *= SEX_MISMATCH_FACTOR;
+        }
+        return score;
+    }
+
+    /**
+     * The fields of a patient compared by {@link #score}, normalized with {@link #letters},
+     * {@link #contactDigits} and {@link #normalizeEmail}.
+     *
+     * @param firstName The normalized first name
+     * @param lastName The normalized last name
+     * @param dateOfBirth The date of birth, or null
+     * @param age The age, or null
+     * @param sex The sex, or null
+     * @param contactNumber The normalized contact number, or null
+     * @param email The normalized email address, or null
+     */
+    public record Profile(String firstName, String lastName, LocalDate dateOfBirth, Integer age,
+                          Boolean sex, String contactNumber, String email) {
+    }
+
+    /**
+     * Similarity of two birth dates: 1 when equal, 0.5 when they differ in the year only or in
+     * day and month only (typically swapped), 0.75 when only ages are known and differ by at most
+     * a year, and 0.5 when nothing can be compared.
+     */
+    private static double birthSimilarity(Profile first, Profile second, LocalDate today) {
+        LocalDate a = first.dateOfBirth();
+        LocalDate b = second.dateOfBirth();
+        if (a != null && b != null) {
+            if (a.equals(b)) {
+                return 1;
+            }
+            boolean sameDay = a.getMonthValue() == b.getMonthValue() && a.getDayOfMonth() == b.getDayOfMonth();
+            return a.getYear() == b.getYear() || sameDay ? 0.5 : 0;
+        }
+        Integer ageA = a != null ? Integer.valueOf(a.until(today).getYears()) : first.age();
+        Integer ageB = b != null ? Integer.valueOf(b.until(today).getYears()) : second.age();
+        if (ageA != null && ageB != null) {
+            return Math.abs(ageA - ageB) <= 1 ? 0.75 : 0;
+        }
+        return 0.5;
+    }
+
+    /**
+     * Jaro-Winkler similarity of two strings, from 0 to 1. Missing or empty strings score 0.
+     *
+     * @param a The first string
+     * @param b The second string
+     * @return The similarity
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a == null || b == null || a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (matchedA[i]) {
+                while (!matchedB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /**
+     * Lower-cases a name and keeps only its letters, with accents removed.
+     *
+     * @param text The name
+     * @return The letters of the name, possibly empty
+     */
+    public static String letters(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("[^\\p{L}]", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reduces a contact number to its last 10 digits, dropping any country code.
+     *
+     * @param contactNumber The contact number
+     * @return The digits, or null if the number has too few to identify anyone
+     */
+    public static String contactDigits(String contactNumber) {
+        if (contactNumber == null) {
+            return null;
+        }
+        String digits = contactNumber.replaceAll("\\D", "");
+        if (digits.length() < MIN_CONTACT_DIGITS) {
+            return null;
+        }
+        return digits.length() > LOCAL_NUMBER_DIGITS ? digits.substring(digits.length() - LOCAL_NUMBER_DIGITS) : digits;
+    }
+
+    /**
+     * Trims and lower-cases an email address.
+     *
+     * @param email The email address
+     * @return The address, or null if it is blank
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
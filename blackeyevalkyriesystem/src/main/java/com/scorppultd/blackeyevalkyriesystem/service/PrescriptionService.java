@@ -2,14 +2,32 @@ package com.scorppultd.blackeyevalkyriesystem.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.DispensaryWorklistDTO;
+import com.scorppultd.blackeyevalkyriesystem.dto.RefillOutcomeDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
 
 public interface PrescriptionService {
     
     // Basic CRUD operations
     Prescription createPrescription(Prescription prescription);
+    
+    /**
+     * Fills in the defaults of a prescription about to be inserted: today's date, the "active"
+     * status and an item ID for every item. Used by createPrescription and by callers that insert
+     * the prescription themselves, e.g. inside a transaction.
+     * @param prescription The prescription to fill in
+     */
+    void applyNewPrescriptionDefaults(Prescription prescription);
+    
+    /**
+     * Reserves dispensary stock for a prescription that has just been inserted. A shortfall or a
+     * failure is logged and does not affect the prescription.
+     * @param prescription The inserted prescription
+     */
+    void reserveStock(Prescription prescription);
     Optional<Prescription> getPrescriptionById(String id);
     List<Prescription> getAllPrescriptions();
     Prescription updatePrescription(Prescription prescription);
@@ -29,6 +47,9 @@ public interface PrescriptionService {
     // Status operations
     List<Prescription> getPrescriptionsByStatus(String status);
     Prescription updatePrescriptionStatus(String id, String status);
+    int expirePrescriptions();
+    DispensaryWorklistDTO getDispensaryWorklist(String status, LocalDate from, LocalDate to,
+                                                String patientName, String cursor, int size);
     
     // Diagnosis operations
     List<Prescription> getPrescriptionsByDiagnosis(String diagnosis);
@@ -43,4 +64,5 @@ public interface PrescriptionService {
     // Refill operations
     List<Prescription> getRefillablePrescriptions();
     Prescription updatePrescriptionRefillCount(String prescriptionId, String prescriptionItemIndex, Integer newRefillCount);
+    List<RefillOutcomeDTO> dispenseRefills(Map<String, List<String>> itemIdsByPrescription);
 } 
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.repository.JobLeaseRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs scheduled jobs on exactly one application node.
+ * Every node fires its {@code @Scheduled} methods; a job wrapped in
+ * {@link #runExclusively(String, Runnable)} only runs on the node that acquires the job's lease
+ * in the job_leases collection, and is skipped on the others. While the job runs, the lease is
+ * extended by heartbeats, so a long job keeps it and a job on a node that died loses it once
+ * the lease expires. After the job finishes the lease is kept for a minimum hold time, so that
+ * nodes whose clocks are slightly behind do not run the same occurrence again.
+ * <p>
+ * Jobs that maintain state local to a node (caches, in-memory filters) must not be wrapped.
+ * The same leases also serve one-off operations that must not run twice at once on the same
+ * records, see {@link #runHoldingAll(Collection, Runnable)}.
+ */
+@Component
+public class ScheduledJobLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobLock.class);
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration leaseDuration;
+    private final Duration heartbeatInterval;
+    private final Duration minimumHold;
+    private final String holder;
+    private final ScheduledExecutorService heartbeats;
+
+    /**
+     * Constructs a ScheduledJobLock.
+     *
+     * @param jobLeaseRepository Repository for the job leases
+     * @param meterRegistry Registry for lock contention and job duration metrics
+     * @param leaseSeconds How long a lease lasts without a heartbeat
+     * @param heartbeatSeconds How often a running job extends its lease
+     * @param minimumHoldSeconds How long a lease is kept at least, counted from its acquisition
+     */
+    public ScheduledJobLock(JobLeaseRepository jobLeaseRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${scheduler.lease.duration-seconds:300}") long leaseSeconds,
+                            @Value("${scheduler.lease.heartbeat-seconds:60}") long heartbeatSeconds,
+                            @Value("${scheduler.lease.minimum-hold-seconds:60}") long minimumHoldSeconds) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.meterRegistry = meterRegistry;
+        this.leaseDuration = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.heartbeatInterval = Duration.ofSeconds(Math.max(1, Math.min(heartbeatSeconds, leaseSeconds / 2)));
+        this.minimumHold = Duration.ofSeconds(Math.max(0, minimumHoldSeconds));
+        // runtime name is pid@host; the suffix tells apart restarts of the same process ID
+        this.holder = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the job if this node acquires its lease, and skips it otherwise.
+     *
+     * @param jobName The name of the job, shared by all nodes
+     * @param job The job to run
+     * @return true if the job ran on this node, false if another node holds the lease
+     */
+    public boolean runExclusively(String jobName, Runnable job) {
+        Instant acquiredAt = Instant.now();
+        if (!jobLeaseRepository.tryAcquire(jobName, holder, acquiredAt, acquiredAt.plus(leaseDuration))) {
+            logger.info("Skipping job {}: its lease is held by another node", jobName);
+            meterRegistry.counter("scheduler.lock", "job", jobName, "outcome", "skipped").increment();
+            return false;
+        }
+        meterRegistry.counter("scheduler.lock", "job", jobName, "outcome", "acquired").increment();
+        logger.debug("Acquired lease for job {} as {}", jobName, holder);
+
+        long intervalMillis = heartbeatInterval.toMillis();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> extendLease(jobName),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            job.run();
+            outcome = "success";
+        } finally {
+            heartbeat.cancel(false);
+            sample.stop(meterRegistry.timer("scheduler.job.duration", "job", jobName, "outcome", outcome));
+            Instant heldUntil = acquiredAt.plus(minimumHold);
+            Instant now = Instant.now();
+            jobLeaseRepository.release(jobName, holder, heldUntil.isAfter(now) ? heldUntil : now);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a task while holding the leases of all the given names, or skips it if any of them is
+     * held, by another node or by another task on this node. The leases are taken in name order
+     * and given back if one cannot be taken. Unlike a scheduled job's lease they are released as
+     * soon as the task ends, so the names can be taken again right away.
+     *
+     * @param leaseNames The names of the leases, e.g. one per record the task changes
+     * @param task The task to run
+     * @return true if the task ran, false if one of the leases is held elsewhere
+     */
+    public boolean runHoldingAll(Collection<String> leaseNames, Runnable task) {
+        List<String> acquired = new ArrayList<>();
+        try {
+            for (String leaseName : new TreeSet<>(leaseNames)) {
+                Instant now = Instant.now();
+                if (!jobLeaseRepository.tryAcquire(leaseName, holder, now, now.plus(leaseDuration))) {
+                    logger.info("Skipping task: lease {} is held elsewhere", leaseName);
+                    return false;
+                }
+                acquired.add(leaseName);
+            }
+
+            long intervalMillis = heartbeatInterval.toMillis();
+            ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> acquired.forEach(this::extendLease),
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            try {
+                task.run();
+            } finally {
+                heartbeat.cancel(false);
+            }
+            return true;
+        } finally {
+            Instant now = Instant.now();
+            for (String leaseName : acquired) {
+                jobLeaseRepository.release(leaseName, holder, now);
+            }
+        }
+    }
+
+    /**
+     * Returns the identity this node uses as lease holder.
+     *
+     * @return The holder identity
+     */
+    public String getHolder() {
+        return holder;
+    }
+
+    /**
+     * Stops the heartbeat thread when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    private void extendLease(String jobName) {
+        try {
+            Instant now = Instant.now();
+            if (!jobLeaseRepository.extend(jobName, holder, now, now.plus(leaseDuration))) {
+                logger.warn("Lost the lease for job {}; another node may start it", jobName);
+                meterRegistry.counter("scheduler.lock", "job", jobName, "outcome", "lost").increment();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to extend the lease for job {}: {}", jobName, e.getMessage());
+        }
+    }
+}
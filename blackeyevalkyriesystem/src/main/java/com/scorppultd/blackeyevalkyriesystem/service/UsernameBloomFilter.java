@@ -0,0 +1,226 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.scorppultd.blackeyevalkyriesystem.model.User;
+
+/**
+ * In-memory Bloom filter over all stored usernames.
+ * A negative answer from {@link #mightContain(String)} means the username is definitely not taken
+ * and needs no database read; a positive answer may be a false positive and must be confirmed
+ * against the unique username index.
+ * <p>
+ * Usernames are added as users are saved. A Bloom filter cannot forget entries, so deleting a user
+ * marks the filter stale and it is rebuilt shortly afterwards from a username-only scan of the
+ * users collection; it is also built at startup. Until the first build completes every username
+ * is reported as possibly taken. Users saved and deleted on other nodes reach the filter through
+ * the {@link CacheInvalidationBus}; since an event missed while the bus reconnects would leave a
+ * taken username reported as available, the filter is also rebuilt periodically. An available
+ * answer is only advice to the registration form: the unique username index still rejects a
+ * duplicate when the user is saved.
+ */
+@Component
+public class UsernameBloomFilter extends AbstractMongoEventListener<User> {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameBloomFilter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int bitCount;
+    private final int hashCount;
+
+    private volatile Bits current;
+    private volatile Bits building;
+    private volatile boolean stale;
+
+    /**
+     * Constructs a UsernameBloomFilter sized for the expected number of users.
+     *
+     * @param mongoTemplate Template used to scan usernames
+     * @param expectedUsers Number of users the filter is sized for
+     * @param falsePositiveRate Target false positive rate at the expected number of users
+     * @param invalidationBus Bus delivering user changes made on other nodes
+     */
+    public UsernameBloomFilter(MongoTemplate mongoTemplate,
+                               @Value("${users.username-filter.expected-users:100000}") int expectedUsers,
+                               @Value("${users.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               CacheInvalidationBus invalidationBus) {
+        this.mongoTemplate = mongoTemplate;
+        double n = Math.max(1, expectedUsers);
+        double p = Math.min(0.5, Math.max(1e-6, falsePositiveRate));
+        // Optimal sizing: m = -n ln p / (ln 2)^2, k = (m / n) ln 2
+        this.bitCount = (int) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / n * Math.log(2)));
+        invalidationBus.register(CacheInvalidationEvent.Source.USERS, event -> {
+            if (event.hasKey()) {
+                add(event.getKey());
+            } else {
+                stale = true;
+            }
+        });
+    }
+
+    /**
+     * Checks whether a username may already be taken.
+     *
+     * @param username The username to check
+     * @return false if the username is definitely not taken, true if it may be
+     */
+    public boolean mightContain(String username) {
+        Bits bits = current;
+        return bits == null || bits.containsAll(indexes(username));
+    }
+
+    /**
+     * Rebuilds the filter from a scan of the stored usernames.
+     * Usernames saved while the scan runs are added to the new filter as well.
+     */
+    public synchronized void rebuild() {
+        stale = false;
+        Bits rebuilt = new Bits(bitCount);
+        building = rebuilt;
+
+        Query query = new Query();
+        query.fields().include("username");
+        long count = 0;
+        try (Stream<Document> users = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(User.class))) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                String username = user.getString("username");
+                if (username != null) {
+                    rebuilt.setAll(indexes(username));
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            building = null;
+            stale = true;
+            throw e;
+        }
+
+        current = rebuilt;
+        building = null;
+        logger.info("Rebuilt username filter with {} usernames", count);
+    }
+
+    /**
+     * Builds the filter once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to build username filter, usernames will be checked in the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the filter if users have been deleted since the last build.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void rebuildIfStale() {
+        if (stale) {
+            buildAtStartup();
+        }
+    }
+
+    /**
+     * Rebuilds the filter periodically, picking up users saved on other nodes whose events were missed.
+     */
+    @Scheduled(fixedDelayString = "${users.username-filter.rebuild-interval-ms:600000}",
+               initialDelayString = "${users.username-filter.rebuild-interval-ms:600000}")
+    public void rebuildPeriodically() {
+        buildAtStartup();
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        add(event.getSource().getUsername());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        stale = true;
+    }
+
+    private void add(String username) {
+        if (username == null) {
+            return;
+        }
+        int[] indexes = indexes(username);
+        Bits bits = current;
+        if (bits != null) {
+            bits.setAll(indexes);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.setAll(indexes);
+        }
+    }
+
+    /**
+     * Derives the bit positions of a username by double hashing a 64-bit FNV-1a hash.
+     */
+    private int[] indexes(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        int[] indexes = new int[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            indexes[i] = Math.floorMod(h1 + i * h2, bitCount);
+        }
+        return indexes;
+    }
+
+    /**
+     * Fixed-size bit set that can be updated and read concurrently without locking.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+
+        private Bits(int bitCount) {
+            this.words = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        private void setAll(int[] indexes) {
+            for (int index : indexes) {
+                long mask = 1L << index;
+                int word = index >>> 6;
+                long value;
+                do {
+                    value = words.get(word);
+                } while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        private boolean containsAll(int[] indexes) {
+            for (int index : indexes) {
+                if ((words.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
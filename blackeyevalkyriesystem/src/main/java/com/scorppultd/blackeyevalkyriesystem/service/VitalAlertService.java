@@ -0,0 +1,60 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalMeasurement;
+
+/**
+ * Service that checks vital sign measurements for abnormal values and keeps the resulting alerts
+ */
+public interface VitalAlertService {
+
+    /**
+     * Check a measurement against the configured limits and against the patient's recent trend,
+     * and save an alert for each rule it breaks. Repeated alerts for the same rule are suppressed
+     * for a while unless their severity rises.
+     *
+     * @param measurement The measurement that was just recorded
+     * @param appointmentId The appointment the measurement belongs to, or null if unknown
+     * @return The number of alerts raised
+     */
+    int evaluate(VitalMeasurement measurement, String appointmentId);
+
+    /**
+     * Get the alerts that have not been acknowledged yet, newest first
+     *
+     * @param limit The maximum number of alerts to return
+     * @return The open alerts
+     */
+    List<VitalAlert> getOpenAlerts(int limit);
+
+    /**
+     * Get the alerts of the given patients that have not been acknowledged yet, newest first
+     *
+     * @param patientIds The IDs of the patients
+     * @param limit The maximum number of alerts to return
+     * @return The open alerts of those patients
+     */
+    List<VitalAlert> getOpenAlerts(Collection<String> patientIds, int limit);
+
+    /**
+     * Get the most recent alerts of a patient, acknowledged or not, newest first
+     *
+     * @param patientId The ID of the patient
+     * @param limit The maximum number of alerts to return
+     * @return The patient's alerts
+     */
+    List<VitalAlert> getPatientAlerts(String patientId, int limit);
+
+    /**
+     * Mark an alert as acknowledged
+     *
+     * @param id The ID of the alert
+     * @param username The user acknowledging the alert
+     * @return The updated alert, or empty if not found
+     */
+    Optional<VitalAlert> acknowledge(String id, String username);
+}
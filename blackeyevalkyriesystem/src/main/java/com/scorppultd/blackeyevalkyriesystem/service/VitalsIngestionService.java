@@ -0,0 +1,36 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.DeviceVitalsReadingDTO;
+
+/**
+ * Service for vital signs readings streamed in by bedside monitors and other devices.
+ * Readings are buffered and written to the vitals history in batches, so a reading is
+ * stored shortly after it is accepted rather than before the call returns.
+ */
+public interface VitalsIngestionService {
+
+    /**
+     * Queue a batch of readings for writing. The batch is accepted or rejected as a whole.
+     *
+     * @param readings The readings to queue
+     * @return true if the readings were queued, false if the buffer has no room for them
+     * @throws IllegalArgumentException if the batch is too large or a reading has no patient ID or no values
+     */
+    boolean submit(List<DeviceVitalsReadingDTO> readings);
+
+    /**
+     * Get the largest number of readings accepted in one batch
+     *
+     * @return The batch size limit
+     */
+    int getMaxReadingsPerRequest();
+
+    /**
+     * Get the number of readings waiting to be written
+     *
+     * @return The number of buffered readings
+     */
+    int getQueuedCount();
+}
@@ -0,0 +1,49 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.VitalsHistoryPointDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+
+/**
+ * Service for the history of patient vital signs
+ */
+public interface VitalsService {
+
+    /**
+     * Vital sign types that can be charted, as accepted by {@link #getHistory}
+     */
+    List<String> VITAL_TYPES = List.of("temperature", "systolic", "diastolic", "heartRate",
+            "respiratoryRate", "oxygenSaturation", "weight", "height", "bmi");
+
+    /**
+     * Append the vital signs of an appointment to the patient's vitals history
+     *
+     * @param appointment The appointment whose vital signs were just saved
+     */
+    void recordAppointmentVitals(Appointment appointment);
+
+    /**
+     * Append the vital signs of a consultation to the patient's vitals history
+     *
+     * @param consultation The consultation whose vital signs were just saved
+     */
+    void recordConsultationVitals(Consultation consultation);
+
+    /**
+     * Get the history of one vital sign of a patient, oldest first.
+     * If the range holds more measurements than maxPoints, they are summarised per time bucket
+     * (minimum, maximum and average) so that at most about maxPoints points are returned.
+     *
+     * @param patientId The ID of the patient
+     * @param type The vital sign, one of {@link #VITAL_TYPES}
+     * @param from The first day of the range, or null for no lower bound
+     * @param to The last day of the range, or null for no upper bound
+     * @param maxPoints The maximum number of points to return
+     * @return The history points, oldest first
+     * @throws IllegalArgumentException if the type is not a known vital sign
+     */
+    List<VitalsHistoryPointDTO> getHistory(String patientId, String type, LocalDate from, LocalDate to, int maxPoints);
+}
@@ -2,10 +2,13 @@ package com.scorppultd.blackeyevalkyriesystem.service.impl;
 
 import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
 import com.scorppultd.blackeyevalkyriesystem.repository.AppointmentRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
 import com.scorppultd.blackeyevalkyriesystem.service.AppointmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Comparator;
@@ -23,6 +26,9 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
     
+    @Autowired
+    private PartialUpdateRepository partialUpdateRepository;
+    
     /**
      * Creates a new appointment in the system.
      * 
@@ -216,6 +222,28 @@ public class AppointmentServiceImpl implements AppointmentService {
         return appointmentRepository.save(appointment);
     }
     
+    /**
+     * Sets the vital signs of an appointment, and optionally its status, in a single update.
+     * Other fields of the appointment are not written, so concurrent edits to them are preserved.
+     * The vital signs are stamped as measured now, so device readings taken before are not applied over them.
+     * 
+     * @param id The ID of the appointment to update
+     * @param vitalSigns The vital signs to set
+     * @param status The new status, or null to leave the status unchanged
+     * @return An Optional containing the updated appointment, or empty if not found
+     */
+    @Override
+    public Optional<Appointment> updateVitalSigns(String id, Appointment.VitalSigns vitalSigns, String status) {
+        if (vitalSigns != null) {
+            vitalSigns.setMeasuredAt(Instant.now());
+        }
+        Update update = new Update().set("vitalSigns", vitalSigns);
+        if (status != null) {
+            update.set("status", status);
+        }
+        return partialUpdateRepository.updateAndGet(Appointment.class, id, update);
+    }
+    
     /**
      * Deletes an appointment from the system by its ID.
      * 
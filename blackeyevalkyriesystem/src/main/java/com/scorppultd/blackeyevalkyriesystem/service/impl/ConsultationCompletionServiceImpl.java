@@ -0,0 +1,272 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationCompletionDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
+import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+import com.scorppultd.blackeyevalkyriesystem.model.Doctor;
+import com.scorppultd.blackeyevalkyriesystem.model.Drug;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationNarrativeRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PrescriptionRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.ConsultationCompletionService;
+import com.scorppultd.blackeyevalkyriesystem.service.DoctorService;
+import com.scorppultd.blackeyevalkyriesystem.service.PrescriptionService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsService;
+
+/**
+ * Implementation of the ConsultationCompletionService interface.
+ * Completing a consultation costs a fixed number of round trips however many drugs are prescribed:
+ * the consultation header and its doctor's name are read, all prescribed drugs are read with one
+ * query, and then the prescription is inserted and the consultation, its clinical notes and the
+ * appointment status are each written with a single field-level update. When
+ * consultations.completion.transactional is set, these writes run in one multi-document
+ * transaction, which needs MongoDB to run as a replica set.
+ */
+@Service
+public class ConsultationCompletionServiceImpl implements ConsultationCompletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationCompletionServiceImpl.class);
+
+    private static final String COMPLETED = "Completed";
+    private static final int PRESCRIPTION_VALIDITY_DAYS = 30;
+
+    private final ConsultationRepository consultationRepository;
+    private final ConsultationNarrativeRepository consultationNarrativeRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final DrugRepository drugRepository;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final DoctorService doctorService;
+    private final PrescriptionService prescriptionService;
+    private final VitalsService vitalsService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs a ConsultationCompletionServiceImpl with necessary dependencies.
+     *
+     * @param consultationRepository Repository for consultation data access
+     * @param consultationNarrativeRepository Repository for the clinical narratives of consultations
+     * @param prescriptionRepository Repository for prescription data access
+     * @param drugRepository Repository for drug data access
+     * @param partialUpdateRepository Repository for field-level consultation and appointment updates
+     * @param doctorService Service for doctor operations
+     * @param prescriptionService Service that sets prescription defaults and reserves dispensary stock
+     * @param vitalsService Service that keeps the patients' vitals history
+     * @param mongoDatabaseFactory Factory the transactions are bound to
+     * @param transactional Whether to write the completion in a multi-document transaction
+     */
+    @Autowired
+    public ConsultationCompletionServiceImpl(ConsultationRepository consultationRepository,
+                                             ConsultationNarrativeRepository consultationNarrativeRepository,
+                                             PrescriptionRepository prescriptionRepository,
+                                             DrugRepository drugRepository,
+                                             PartialUpdateRepository partialUpdateRepository,
+                                             DoctorService doctorService,
+                                             PrescriptionService prescriptionService,
+                                             VitalsService vitalsService,
+                                             MongoDatabaseFactory mongoDatabaseFactory,
+                                             @Value("${consultations.completion.transactional:false}") boolean transactional) {
+        this.consultationRepository = consultationRepository;
+        this.consultationNarrativeRepository = consultationNarrativeRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.drugRepository = drugRepository;
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.doctorService = doctorService;
+        this.prescriptionService = prescriptionService;
+        this.vitalsService = vitalsService;
+        this.transactionTemplate = transactional
+                ? new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory))
+                : null;
+    }
+
+    @Override
+    public Consultation completeConsultation(ConsultationCompletionDTO completion, String username) {
+        String consultationId = completion.getConsultationId();
+        Consultation consultation = consultationRepository.findHeaderById(consultationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Consultation", consultationId));
+
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("status", COMPLETED)
+                .set("updatedAt", now);
+        consultation.setStatus(COMPLETED);
+        consultation.setUpdatedAt(now);
+
+        if (completion.getDiagnosis() != null) {
+            consultation.setDiagnosis(completion.getDiagnosis());
+            update.set("diagnosis", completion.getDiagnosis());
+        }
+        boolean vitalsChanged = false;
+        if (completion.getVitalSigns() != null) {
+            vitalsChanged = applyVitalSigns(consultation, completion.getVitalSigns());
+            update.set("vitalSigns", consultation.getVitalSigns());
+        }
+        if (completion.getAppointmentId() != null) {
+            consultation.setAppointmentId(completion.getAppointmentId());
+            update.set("appointmentId", completion.getAppointmentId());
+        }
+
+        Prescription prescription = null;
+        List<ConsultationCompletionDTO.PrescriptionLineDTO> lines = completion.getPrescriptionLines();
+        if (lines != null && !lines.isEmpty()) {
+            if (consultation.getDoctor() == null) {
+                // The consultation gets the doctor who prescribes
+                Optional<Doctor> currentDoctor = doctorService.getDoctorByUsername(username);
+                if (currentDoctor.isPresent()) {
+                    consultation.setDoctor(currentDoctor.get());
+                    update.set("doctor", currentDoctor.get());
+                }
+            }
+            prescription = buildPrescription(consultation, lines);
+        }
+
+        ConsultationNarrative notes = ConsultationNarrative.builder()
+                .id(consultationId)
+                .clinicalNotes(completion.getClinicalNotes())
+                .updatedAt(now)
+                .build();
+        consultation.setClinicalNotes(completion.getClinicalNotes());
+
+        Prescription newPrescription = prescription;
+        Runnable writes = () -> {
+            if (newPrescription != null) {
+                prescriptionRepository.insert(newPrescription);
+                update.set("prescription", newPrescription);
+                consultation.setPrescription(newPrescription);
+            }
+            partialUpdateRepository.update(Consultation.class, consultationId, update);
+            consultationNarrativeRepository.saveFields(notes);
+            if (consultation.getAppointmentId() != null) {
+                partialUpdateRepository.update(Appointment.class, consultation.getAppointmentId(), new Update()
+                        .set("status", "completed")
+                        .set("completionTime", now));
+            }
+        };
+        if (transactionTemplate != null) {
+            transactionTemplate.executeWithoutResult(status -> writes.run());
+        } else {
+            writes.run();
+        }
+
+        // Stock and vitals history follow the completed consultation; their failures do not undo it
+        if (newPrescription != null) {
+            prescriptionService.reserveStock(newPrescription);
+        }
+        if (vitalsChanged) {
+            try {
+                vitalsService.recordConsultationVitals(consultation);
+            } catch (Exception e) {
+                logger.error("Failed to record vitals history for consultation {}: {}", consultationId, e.getMessage());
+            }
+        }
+        return consultation;
+    }
+
+    /**
+     * Copies the submitted vital signs onto the consultation and recalculates the BMI.
+     *
+     * @param consultation The consultation to update
+     * @param submitted The vital signs from the form
+     * @return true if the vital signs differ from the ones the consultation had
+     */
+    private boolean applyVitalSigns(Consultation consultation, Consultation.VitalSigns submitted) {
+        Consultation.VitalSigns previous = consultation.getVitalSigns();
+        Consultation.VitalSigns vitals = Consultation.VitalSigns.builder()
+                .height(submitted.getHeight())
+                .weight(submitted.getWeight())
+                .temperature(submitted.getTemperature())
+                .bloodPressure(submitted.getBloodPressure())
+                .heartRate(submitted.getHeartRate())
+                .respiratoryRate(submitted.getRespiratoryRate())
+                .oxygenSaturation(submitted.getOxygenSaturation())
+                .bmi(previous != null ? previous.getBmi() : null)
+                .build();
+
+        if (vitals.getHeight() != null && vitals.getWeight() != null && vitals.getHeight() > 0) {
+            double heightInMeters = vitals.getHeight() / 100.0;
+            double bmi = vitals.getWeight() / (heightInMeters * heightInMeters);
+            vitals.setBmi(Math.round(bmi * 10.0) / 10.0);
+        }
+        consultation.setVitalSigns(vitals);
+        return !vitals.equals(previous != null ? previous : new Consultation.VitalSigns());
+    }
+
+    /**
+     * Builds the prescription for the submitted lines, reading all their drugs with one query.
+     * Lines whose drug does not exist are skipped.
+     *
+     * @param consultation The consultation the prescription belongs to
+     * @param lines The submitted prescription lines
+     * @return The prescription, not yet saved, or null if no line has an existing drug
+     */
+    private Prescription buildPrescription(Consultation consultation, List<ConsultationCompletionDTO.PrescriptionLineDTO> lines) {
+        Set<String> drugIds = new LinkedHashSet<>();
+        for (ConsultationCompletionDTO.PrescriptionLineDTO line : lines) {
+            if (line.getDrugId() != null) {
+                drugIds.add(line.getDrugId());
+            }
+        }
+        Map<String, Drug> drugs = new HashMap<>();
+        for (Drug drug : drugRepository.findAllById(drugIds)) {
+            drugs.put(drug.getId(), drug);
+        }
+
+        List<Prescription.PrescriptionItem> items = new ArrayList<>();
+        for (ConsultationCompletionDTO.PrescriptionLineDTO line : lines) {
+            Drug drug = drugs.get(line.getDrugId());
+            if (drug == null) {
+                logger.warn("Drug not found with ID: {}", line.getDrugId());
+                continue;
+            }
+            Prescription.PrescriptionItem item = new Prescription.PrescriptionItem();
+            item.setDrug(drug);
+            item.setDosage(line.getDosage());
+            item.setDuration(line.getDuration());
+            item.setQuantity(line.getQuantity() != null ? line.getQuantity() : 1);
+            item.setFrequency("As directed");
+            item.setRefillable(false);
+            item.setRefillsRemaining(0);
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            return null;
+        }
+
+        Prescription prescription = new Prescription();
+        prescription.setPatient(consultation.getPatient());
+        if (consultation.getDoctor() != null) {
+            prescription.setDoctorName(consultation.getDoctor().getFirstName() + " " + consultation.getDoctor().getLastName());
+            prescription.setDoctorId(consultation.getDoctor().getId());
+        } else {
+            prescription.setDoctorName("Unknown Doctor");
+        }
+        prescription.setValidUntil(LocalDate.now().plusDays(PRESCRIPTION_VALIDITY_DAYS));
+        prescription.setPrescriptionItems(items);
+        prescriptionService.applyNewPrescriptionDefaults(prescription);
+        return prescription;
+    }
+}
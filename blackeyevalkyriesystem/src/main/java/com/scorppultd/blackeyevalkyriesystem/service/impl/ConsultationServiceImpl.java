@@ -2,16 +2,28 @@ package com.scorppultd.blackeyevalkyriesystem.service.impl;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationDraftDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
 import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
 import com.scorppultd.blackeyevalkyriesystem.model.Doctor;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationNarrativeRepository;
 import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
 import com.scorppultd.blackeyevalkyriesystem.repository.PrescriptionRepository;
 import com.scorppultd.blackeyevalkyriesystem.service.ConsultationService;
 import com.scorppultd.blackeyevalkyriesystem.service.AppointmentService;
@@ -23,14 +35,23 @@ import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
  * This service manages medical consultations, including creating, retrieving, updating,
  * and deleting consultations. It also handles relationships between consultations,
  * appointments, prescriptions, and doctors.
+ * The clinical narrative of a consultation is stored separately from it: it is written whenever a
+ * consultation carrying it is saved, and only read for single-consultation lookups.
  */
 @Service
 public class ConsultationServiceImpl implements ConsultationService {
 
+    // Fields a draft may change, in the consultation header and in its narrative
+    private static final Set<String> DRAFT_HEADER_FIELDS = Set.of("chiefComplaint", "diagnosis");
+    private static final Set<String> DRAFT_NARRATIVE_FIELDS = Set.of(
+            "historyOfPresentIllness", "physicalExamination", "treatmentPlan", "clinicalNotes");
+
     private final ConsultationRepository consultationRepository;
     private final PrescriptionRepository prescriptionRepository;
     private final AppointmentService appointmentService;
     private final DoctorService doctorService;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final ConsultationNarrativeRepository consultationNarrativeRepository;
 
     /**
      * Constructs a ConsultationServiceImpl with necessary dependencies.
@@ -39,16 +60,22 @@ public class ConsultationServiceImpl implements ConsultationService {
      * @param prescriptionRepository Repository for prescription data access
      * @param appointmentService Service for appointment operations
      * @param doctorService Service for doctor operations
+     * @param partialUpdateRepository Repository for field-level consultation updates
+     * @param consultationNarrativeRepository Repository for the clinical narratives of consultations
      */
     @Autowired
     public ConsultationServiceImpl(ConsultationRepository consultationRepository, 
                                   PrescriptionRepository prescriptionRepository,
                                   AppointmentService appointmentService,
-                                  DoctorService doctorService) {
+                                  DoctorService doctorService,
+                                  PartialUpdateRepository partialUpdateRepository,
+                                  ConsultationNarrativeRepository consultationNarrativeRepository) {
         this.consultationRepository = consultationRepository;
         this.prescriptionRepository = prescriptionRepository;
         this.appointmentService = appointmentService;
         this.doctorService = doctorService;
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.consultationNarrativeRepository = consultationNarrativeRepository;
     }
 
     /**
@@ -70,18 +97,153 @@ public class ConsultationServiceImpl implements ConsultationService {
             consultation.setStatus("Scheduled");
         }
         
-        return consultationRepository.save(consultation);
+        return saveWithNarrative(consultation);
     }
 
     /**
-     * Retrieves a consultation by its ID.
+     * Retrieves a consultation by its ID, including its clinical narrative.
      *
      * @param id The ID of the consultation to retrieve
      * @return An Optional containing the consultation if found, or empty if not
      */
     @Override
     public Optional<Consultation> getConsultationById(String id) {
-        return consultationRepository.findById(id);
+        return consultationRepository.findById(id).map(this::loadNarrative);
+    }
+
+    /**
+     * Fills in the clinical narrative of a consultation.
+     *
+     * @param consultation The consultation to fill in
+     * @return The same consultation
+     */
+    @Override
+    public Consultation loadNarrative(Consultation consultation) {
+        if (consultation.getId() != null) {
+            consultationNarrativeRepository.findNarrative(consultation.getId())
+                    .ifPresent(narrative -> narrative.applyTo(consultation));
+        }
+        return consultation;
+    }
+
+    /**
+     * Saves the consultation header, then the narrative fields it carries.
+     * A new consultation is inserted; an existing one has its header fields written in place, so
+     * a narrative still held in its document is not lost. Narrative fields that are null are left
+     * unchanged, so consultations read by list queries can be saved as they are, and blank ones
+     * are removed.
+     *
+     * @param consultation The consultation to save
+     * @return The saved consultation, still carrying its narrative
+     */
+    private Consultation saveWithNarrative(Consultation consultation) {
+        ConsultationNarrative narrative = ConsultationNarrative.of(consultation);
+        Consultation saved = consultation.getId() != null && consultation.getVersion() != null
+                ? consultationRepository.updateHeader(consultation)
+                : consultationRepository.save(consultation);
+        narrative.setId(saved.getId());
+        narrative.setUpdatedAt(saved.getUpdatedAt());
+        narrative.setRevision(saved.getVersion());
+        consultationNarrativeRepository.saveFields(narrative);
+        narrative.applyTo(saved);
+        return saved;
+    }
+
+    /**
+     * Saves the changed text fields of a consultation being edited.
+     * The header fields are set, and the version incremented, with one update that only matches
+     * while the consultation still has the draft's revision and is not completed; the narrative
+     * fields are then set with one upsert, which is skipped if a later revision has already
+     * written them. Nothing is read back, so the new revision is the draft's revision plus one.
+     *
+     * @param consultationId The ID of the consultation
+     * @param draft The revision and the changed fields
+     * @return The new revision of the consultation
+     * @throws IllegalArgumentException if the draft has no revision, no fields or a field that cannot be drafted
+     * @throws IllegalStateException if the consultation is already completed
+     * @throws OptimisticLockingFailureException if the consultation has been modified since the draft's revision
+     * @throws ResourceNotFoundException if the consultation is not found
+     */
+    @Override
+    public long saveDraft(String consultationId, ConsultationDraftDTO draft) {
+        if (draft.getRevision() == null) {
+            throw new IllegalArgumentException("A draft needs the revision it was edited against");
+        }
+        long revision = draft.getRevision() + 1;
+        Map<String, String> fields = draft.getFields();
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("A draft needs at least one field");
+        }
+        for (String field : fields.keySet()) {
+            if (!DRAFT_HEADER_FIELDS.contains(field) && !DRAFT_NARRATIVE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field cannot be saved as a draft: " + field);
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Update header = new Update().set("updatedAt", now);
+        ConsultationNarrative narrative = ConsultationNarrative.builder().id(consultationId).updatedAt(now).revision(revision).build();
+        boolean hasNarrative = false;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String value = field.getValue() != null ? field.getValue() : "";
+            switch (field.getKey()) {
+                case "historyOfPresentIllness" -> narrative.setHistoryOfPresentIllness(value);
+                case "physicalExamination" -> narrative.setPhysicalExamination(value);
+                case "treatmentPlan" -> narrative.setTreatmentPlan(value);
+                case "clinicalNotes" -> narrative.setClinicalNotes(value);
+                default -> header.set(field.getKey(), value);
+            }
+            hasNarrative |= DRAFT_NARRATIVE_FIELDS.contains(field.getKey());
+        }
+        
+        Criteria current = Criteria.where("id").is(consultationId)
+                .and("version").is(draft.getRevision())
+                .and("status").ne("Completed");
+        if (!partialUpdateRepository.updateFirst(Consultation.class, current, header)) {
+            Consultation state = consultationRepository.findDraftStateById(consultationId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Consultation", consultationId));
+            if ("Completed".equals(state.getStatus())) {
+                throw new IllegalStateException("Consultation " + consultationId + " is already completed");
+            }
+            throw new OptimisticLockingFailureException("Consultation " + consultationId
+                    + " was modified concurrently (expected version " + draft.getRevision() + ")");
+        }
+        if (hasNarrative) {
+            consultationNarrativeRepository.saveFields(narrative);
+        }
+        return revision;
+    }
+
+    /**
+     * Reads the current revision of a consultation and the current values of the given draft fields.
+     * The narrative is only read if a narrative field is asked for.
+     *
+     * @param consultationId The ID of the consultation
+     * @param fieldNames The names of the fields to read; names that cannot be drafted are ignored
+     * @return The current revision and field values
+     * @throws ResourceNotFoundException if the consultation is not found
+     */
+    @Override
+    public ConsultationDraftDTO getDraft(String consultationId, Collection<String> fieldNames) {
+        Consultation consultation = consultationRepository.findDraftStateById(consultationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Consultation", consultationId));
+        if (fieldNames.stream().anyMatch(DRAFT_NARRATIVE_FIELDS::contains)) {
+            loadNarrative(consultation);
+        }
+        
+        Map<String, String> fields = new HashMap<>();
+        for (String field : fieldNames) {
+            switch (field) {
+                case "chiefComplaint" -> fields.put(field, consultation.getChiefComplaint());
+                case "diagnosis" -> fields.put(field, consultation.getDiagnosis());
+                case "historyOfPresentIllness" -> fields.put(field, consultation.getHistoryOfPresentIllness());
+                case "physicalExamination" -> fields.put(field, consultation.getPhysicalExamination());
+                case "treatmentPlan" -> fields.put(field, consultation.getTreatmentPlan());
+                case "clinicalNotes" -> fields.put(field, consultation.getClinicalNotes());
+                default -> { }
+            }
+        }
+        return new ConsultationDraftDTO(consultation.getVersion(), fields);
     }
 
     /**
@@ -98,12 +260,21 @@ public class ConsultationServiceImpl implements ConsultationService {
      * Updates an existing consultation.
      * Updates the updatedAt timestamp and if status is "Completed",
      * also updates the associated appointment status.
+     * The save is version-checked against the version the consultation was read at, so an
+     * existing consultation must carry its version.
      *
      * @param consultation The consultation with updated fields
      * @return The updated consultation
+     * @throws IllegalArgumentException if an existing consultation is submitted without a version
+     * @throws OptimisticLockingFailureException if the consultation was modified concurrently
      */
     @Override
     public Consultation updateConsultation(Consultation consultation) {
+        if (consultation.getId() != null && consultation.getVersion() == null) {
+            throw new IllegalArgumentException("Consultation " + consultation.getId()
+                    + " must be submitted with the version it was read at");
+        }
+        
         // Update the updatedAt timestamp
         consultation.setUpdatedAt(LocalDateTime.now());
         
@@ -112,7 +283,7 @@ public class ConsultationServiceImpl implements ConsultationService {
             updateAppointmentStatus(consultation.getAppointmentId(), "completed");
         }
         
-        return consultationRepository.save(consultation);
+        return saveWithNarrative(consultation);
     }
 
     /**
@@ -144,6 +315,7 @@ public class ConsultationServiceImpl implements ConsultationService {
     @Override
     public void deleteConsultation(String id) {
         consultationRepository.deleteById(id);
+        consultationNarrativeRepository.deleteById(id);
     }
 
     /**
@@ -192,6 +364,21 @@ public class ConsultationServiceImpl implements ConsultationService {
         return consultationRepository.findByPatientIdAndStatus(patientId, status);
     }
 
+    /**
+     * Retrieves the most recent completed consultations of a patient.
+     * The database sorts and limits them through the (patient, status, consultationDateTime) index,
+     * and only the fields shown in history lists are loaded.
+     *
+     * @param patientId The ID of the patient
+     * @param excludeConsultationId The ID of a consultation to leave out, or null
+     * @param limit The maximum number of consultations to return
+     * @return The consultations, most recent first
+     */
+    @Override
+    public List<Consultation> getRecentCompletedConsultations(String patientId, String excludeConsultationId, int limit) {
+        return consultationRepository.findRecentByPatientAndStatus(patientId, "Completed", excludeConsultationId, limit);
+    }
+
     /**
      * Retrieves all consultations within a date range.
      *
@@ -236,14 +423,11 @@ public class ConsultationServiceImpl implements ConsultationService {
      */
     @Override
     public Consultation updateConsultationStatus(String id, String status) {
-        Optional<Consultation> consultationOpt = consultationRepository.findById(id);
-        if (consultationOpt.isPresent()) {
-            Consultation consultation = consultationOpt.get();
-            consultation.setStatus(status);
-            consultation.setUpdatedAt(LocalDateTime.now());
-            return consultationRepository.save(consultation);
-        }
-        throw new RuntimeException("Consultation not found with id: " + id);
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", LocalDateTime.now());
+        return partialUpdateRepository.updateAndGet(Consultation.class, id, update)
+                .orElseThrow(() -> new RuntimeException("Consultation not found with id: " + id));
     }
 
     /**
@@ -259,6 +443,7 @@ public class ConsultationServiceImpl implements ConsultationService {
 
     /**
      * Adds a prescription to a consultation.
+     * Only the prescription reference and timestamp of the consultation are written.
      *
      * @param consultationId The ID of the consultation
      * @param prescription The prescription to add
@@ -267,20 +452,19 @@ public class ConsultationServiceImpl implements ConsultationService {
      */
     @Override
     public Consultation addPrescriptionToConsultation(String consultationId, Prescription prescription) {
-        Optional<Consultation> consultationOpt = consultationRepository.findById(consultationId);
-        if (consultationOpt.isPresent()) {
-            Consultation consultation = consultationOpt.get();
-            
-            // Save the prescription first
-            Prescription savedPrescription = prescriptionRepository.save(prescription);
-            
-            // Update the consultation with the prescription reference
-            consultation.setPrescription(savedPrescription);
-            consultation.setUpdatedAt(LocalDateTime.now());
-            
-            return consultationRepository.save(consultation);
+        if (!consultationRepository.existsById(consultationId)) {
+            throw new RuntimeException("Consultation not found with id: " + consultationId);
         }
-        throw new RuntimeException("Consultation not found with id: " + consultationId);
+        
+        // Save the prescription first
+        Prescription savedPrescription = prescriptionRepository.save(prescription);
+        
+        // Set the prescription reference, leaving the rest of the consultation untouched
+        Update update = new Update()
+                .set("prescription", savedPrescription)
+                .set("updatedAt", LocalDateTime.now());
+        return partialUpdateRepository.updateAndGet(Consultation.class, consultationId, update)
+                .orElseThrow(() -> new RuntimeException("Consultation not found with id: " + consultationId));
     }
 
     /**
@@ -320,14 +504,14 @@ public class ConsultationServiceImpl implements ConsultationService {
     }
 
     /**
-     * Retrieves a consultation by its associated appointment ID.
+     * Retrieves a consultation by its associated appointment ID, including its clinical narrative.
      *
      * @param appointmentId The ID of the appointment
      * @return An Optional containing the consultation if found, or empty if not
      */
     @Override
     public Optional<Consultation> getConsultationByAppointmentId(String appointmentId) {
-        return consultationRepository.findByAppointmentId(appointmentId);
+        return consultationRepository.findByAppointmentId(appointmentId).map(this::loadNarrative);
     }
     
     /**
@@ -505,19 +689,6 @@ public class ConsultationServiceImpl implements ConsultationService {
      */
     @Override
     public Consultation updateConsultationVitalSigns(String consultationId, Consultation.VitalSigns vitalSigns) {
-        Optional<Consultation> consultationOpt = consultationRepository.findById(consultationId);
-        if (consultationOpt.isEmpty()) {
-            throw new RuntimeException("Consultation not found with id: " + consultationId);
-        }
-        
-        Consultation consultation = consultationOpt.get();
-        
-        // Update the vital signs on the consultation only
-        consultation.setVitalSigns(vitalSigns);
-        
-        // Update the timestamp
-        consultation.setUpdatedAt(LocalDateTime.now());
-        
         // Log the update for debugging purposes
         System.out.println("Updating vital signs for consultation ID: " + consultationId);
         System.out.println("Temperature: " + vitalSigns.getTemperature());
@@ -528,8 +699,12 @@ public class ConsultationServiceImpl implements ConsultationService {
         System.out.println("Height: " + vitalSigns.getHeight());
         System.out.println("Oxygen Saturation: " + vitalSigns.getOxygenSaturation());
         
-        // Save and return the updated consultation
-        return consultationRepository.save(consultation);
+        // Set only the vital signs and timestamp, leaving the rest of the consultation untouched
+        Update update = new Update()
+                .set("vitalSigns", vitalSigns)
+                .set("updatedAt", LocalDateTime.now());
+        return partialUpdateRepository.updateAndGet(Consultation.class, consultationId, update)
+                .orElseThrow(() -> new RuntimeException("Consultation not found with id: " + consultationId));
     }
 
     /**
@@ -541,13 +716,10 @@ public class ConsultationServiceImpl implements ConsultationService {
      */
     @Override
     public void updateDiagnosis(String consultationId, String diagnosis) {
-        Optional<Consultation> consultationOpt = consultationRepository.findById(consultationId);
-        if (consultationOpt.isPresent()) {
-            Consultation consultation = consultationOpt.get();
-            consultation.setDiagnosis(diagnosis);
-            consultation.setUpdatedAt(LocalDateTime.now());
-            consultationRepository.save(consultation);
-        } else {
+        Update update = new Update()
+                .set("diagnosis", diagnosis)
+                .set("updatedAt", LocalDateTime.now());
+        if (!partialUpdateRepository.update(Consultation.class, consultationId, update)) {
             throw new RuntimeException("Consultation not found with id: " + consultationId);
         }
     }
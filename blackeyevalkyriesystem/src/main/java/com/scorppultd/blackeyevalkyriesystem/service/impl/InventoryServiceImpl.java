@@ -0,0 +1,452 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.StockLevelDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Drug;
+import com.scorppultd.blackeyevalkyriesystem.model.DrugStock;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.model.StockMovement;
+import com.scorppultd.blackeyevalkyriesystem.model.StockReservation;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugStockRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.StockMovementRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.StockReservationRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.InventoryService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Implementation of the InventoryService interface.
+ * Stock of each drug is spread over a configurable number of stripe documents. A reservation
+ * first tries a random stripe with a single guarded $inc (available &gt;= quantity), so concurrent
+ * dispensing of the same drug mostly lands on different documents and no global lock is needed.
+ * Every stock change is appended to the stock_movements ledger.
+ */
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final DrugStockRepository drugStockRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final DrugRepository drugRepository;
+    private final int stockStripes;
+    private final int lowStockThreshold;
+
+    private final Counter reservationsMade;
+    private final Counter reservationShortfalls;
+    private final Counter unitsReceived;
+    private final Counter unitsDispensed;
+    private final Counter unitsReleased;
+
+    /**
+     * Constructs an InventoryServiceImpl with the required dependencies.
+     *
+     * @param mongoTemplate Template used for guarded stock updates and aggregations
+     * @param drugStockRepository Repository for stock stripes
+     * @param stockReservationRepository Repository for stock reservations
+     * @param stockMovementRepository Repository for the movement ledger
+     * @param drugRepository Repository used to resolve drug names
+     * @param meterRegistry Registry for inventory metrics
+     * @param stockStripes Number of stripe documents the stock of each drug is spread over
+     * @param lowStockThreshold Default available-units threshold for low-stock queries
+     */
+    @Autowired
+    public InventoryServiceImpl(MongoTemplate mongoTemplate,
+                                DrugStockRepository drugStockRepository,
+                                StockReservationRepository stockReservationRepository,
+                                StockMovementRepository stockMovementRepository,
+                                DrugRepository drugRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${inventory.stock-stripes:4}") int stockStripes,
+                                @Value("${inventory.low-stock-threshold:10}") int lowStockThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.drugStockRepository = drugStockRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.drugRepository = drugRepository;
+        this.stockStripes = Math.max(1, stockStripes);
+        this.lowStockThreshold = lowStockThreshold;
+        this.reservationsMade = meterRegistry.counter("inventory.reservations", "outcome", "reserved");
+        this.reservationShortfalls = meterRegistry.counter("inventory.reservations", "outcome", "shortfall");
+        this.unitsReceived = meterRegistry.counter("inventory.units", "movement", "receive");
+        this.unitsDispensed = meterRegistry.counter("inventory.units", "movement", "dispense");
+        this.unitsReleased = meterRegistry.counter("inventory.units", "movement", "release");
+    }
+
+    /**
+     * Adds received units to the stock of a drug, spread evenly over its stripes.
+     *
+     * @param drugId The ID of the drug
+     * @param quantity The number of units received
+     * @param performedBy The username of the user recording the receipt
+     * @return The stock level after the receipt
+     * @throws IllegalArgumentException if the quantity is not positive
+     * @throws RuntimeException if the drug is not found
+     */
+    @Override
+    public StockLevelDTO receiveStock(String drugId, int quantity, String performedBy) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (!drugRepository.existsById(drugId)) {
+            throw new RuntimeException("Drug not found with id: " + drugId);
+        }
+
+        int perStripe = quantity / stockStripes;
+        int remainder = quantity % stockStripes;
+        for (int stripe = 0; stripe < stockStripes; stripe++) {
+            int units = perStripe + (stripe < remainder ? 1 : 0);
+            if (units == 0) {
+                continue;
+            }
+            addToStripe(drugId, stripe, units);
+            appendMovement(drugId, stripe, StockMovement.Type.RECEIVE, units, null, null, performedBy);
+        }
+        unitsReceived.increment(quantity);
+        logger.info("Received {} units of drug {}", quantity, drugId);
+
+        return getStockLevel(drugId);
+    }
+
+    /**
+     * Gets the current stock level of a drug by summing its stripes.
+     *
+     * @param drugId The ID of the drug
+     * @return The stock level, with all counts 0 if the drug is not stocked
+     */
+    @Override
+    public StockLevelDTO getStockLevel(String drugId) {
+        StockLevelDTO level = new StockLevelDTO(drugId, 0, 0, 0);
+        for (DrugStock stripe : drugStockRepository.findByDrugIdOrderByStripe(drugId)) {
+            level.setOnHand(level.getOnHand() + stripe.getOnHand());
+            level.setReserved(level.getReserved() + stripe.getReserved());
+            level.setAvailable(level.getAvailable() + stripe.getAvailable());
+        }
+        drugRepository.findById(drugId).ifPresent(drug -> level.setDrugName(drug.getName()));
+        return level;
+    }
+
+    /**
+     * Gets all stocked drugs whose available units are at or below a threshold.
+     * Stripes are summed per drug in an aggregation and drug names are resolved in one batch.
+     *
+     * @param threshold The available-units threshold
+     * @return Stock levels of the matching drugs, lowest first
+     */
+    @Override
+    public List<StockLevelDTO> getLowStock(int threshold) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("drugId")
+                        .sum("onHand").as("onHand")
+                        .sum("reserved").as("reserved")
+                        .sum("available").as("available"),
+                Aggregation.match(Criteria.where("available").lte(threshold)),
+                Aggregation.sort(Sort.Direction.ASC, "available"),
+                Aggregation.project("onHand", "reserved", "available").and("drugId").previousOperation());
+
+        List<StockLevelDTO> levels = new ArrayList<>(
+                mongoTemplate.aggregate(aggregation, DrugStock.class, StockLevelDTO.class).getMappedResults());
+
+        List<String> drugIds = levels.stream().map(StockLevelDTO::getDrugId).toList();
+        Map<String, String> drugNames = drugRepository.findAllById(drugIds).stream()
+                .collect(Collectors.toMap(Drug::getId, Drug::getName, (a, b) -> a));
+        levels.forEach(level -> level.setDrugName(drugNames.get(level.getDrugId())));
+
+        return levels;
+    }
+
+    /**
+     * Gets all stocked drugs whose available units are at or below the configured threshold.
+     *
+     * @return Stock levels of the matching drugs, lowest first
+     */
+    @Override
+    public List<StockLevelDTO> getLowStock() {
+        return getLowStock(lowStockThreshold);
+    }
+
+    /**
+     * Gets the most recent ledger entries of a drug.
+     *
+     * @param drugId The ID of the drug
+     * @param limit The maximum number of entries to return
+     * @return The movements, newest first
+     */
+    @Override
+    public List<StockMovement> getMovements(String drugId, int limit) {
+        return stockMovementRepository.findByDrugIdOrderByTimestampDesc(drugId, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Reserves stock for every item of a prescription that names a stocked drug and a quantity.
+     * Items for drugs that are not stocked in the dispensary are skipped.
+     *
+     * @param prescription The saved prescription
+     * @return The number of items whose quantity could not be reserved
+     */
+    @Override
+    public int reserveForPrescription(Prescription prescription) {
+        if (prescription.getPrescriptionItems() == null) {
+            return 0;
+        }
+
+        int shortfalls = 0;
+        for (Prescription.PrescriptionItem item : prescription.getPrescriptionItems()) {
+            if (item.getDrug() == null || item.getDrug().getId() == null
+                    || item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            if (!reserve(prescription.getId(), item.getItemId(), item.getDrug().getId(), item.getQuantity(), new ArrayList<>())) {
+                shortfalls++;
+                reservationShortfalls.increment();
+                logger.warn("Insufficient stock to reserve {} units of drug {} for prescription {}",
+                        item.getQuantity(), item.getDrug().getId(), prescription.getId());
+            }
+        }
+        return shortfalls;
+    }
+
+    /**
+     * Commits the open reservations of a prescription: the reserved units leave the stock
+     * and a Dispense movement is recorded for each reservation. Reservations already
+     * committed or released are left untouched, so calling this twice is harmless.
+     *
+     * @param prescriptionId The ID of the dispensed prescription
+     * @return The number of units dispensed
+     */
+    @Override
+    public int commitReservations(String prescriptionId) {
+        int units = 0;
+        for (StockReservation reservation : stockReservationRepository.findByPrescriptionIdAndStatus(
+                prescriptionId, StockReservation.Status.RESERVED)) {
+            units += commit(reservation);
+        }
+        return units;
+    }
+
+    /**
+     * Takes the stock for one refill of a prescription item. The item's quantity is reserved
+     * the same way as for a new prescription and the reservations made are committed at once,
+     * leaving the other open reservations of the prescription untouched.
+     *
+     * @param prescriptionId The ID of the prescription
+     * @param item The refilled item
+     * @return true if the stock was taken or the drug is not stocked, false on a shortfall
+     */
+    @Override
+    public boolean dispenseRefill(String prescriptionId, Prescription.PrescriptionItem item) {
+        if (item.getDrug() == null || item.getDrug().getId() == null
+                || item.getQuantity() == null || item.getQuantity() <= 0) {
+            return true;
+        }
+
+        List<StockReservation> reservations = new ArrayList<>();
+        if (!reserve(prescriptionId, item.getItemId(), item.getDrug().getId(), item.getQuantity(), reservations)) {
+            reservationShortfalls.increment();
+            logger.warn("Insufficient stock to dispense a refill of {} units of drug {} for prescription {}",
+                    item.getQuantity(), item.getDrug().getId(), prescriptionId);
+            return false;
+        }
+        reservations.forEach(this::commit);
+        return true;
+    }
+
+    /**
+     * Releases the open reservations of a prescription back to available stock.
+     *
+     * @param prescriptionId The ID of the prescription
+     * @return The number of units released
+     */
+    @Override
+    public int releaseReservations(String prescriptionId) {
+        int units = 0;
+        for (StockReservation reservation : stockReservationRepository.findByPrescriptionIdAndStatus(
+                prescriptionId, StockReservation.Status.RESERVED)) {
+            units += release(reservation);
+        }
+        return units;
+    }
+
+    /**
+     * Reserves units of a drug for a prescription item. The fast path takes the whole quantity from
+     * one random stripe; if no single stripe has enough, the quantity is split over several stripes
+     * and any partial reservations are released again when the total cannot be met.
+     *
+     * @param reservations Receives the reservations made
+     * @return true if the quantity was reserved or the drug is not stocked, false on a shortfall
+     */
+    private boolean reserve(String prescriptionId, String itemId, String drugId, int quantity,
+                            List<StockReservation> reservations) {
+        int firstStripe = ThreadLocalRandom.current().nextInt(stockStripes);
+        if (takeFromStripe(drugId, firstStripe, quantity)) {
+            reservations.add(recordReservation(prescriptionId, itemId, drugId, firstStripe, quantity));
+            reservationsMade.increment();
+            return true;
+        }
+
+        List<DrugStock> stripes = new ArrayList<>(drugStockRepository.findByDrugIdOrderByStripe(drugId));
+        if (stripes.isEmpty()) {
+            // Drug is not stocked in the dispensary
+            return true;
+        }
+
+        stripes.sort(Comparator.comparingInt(DrugStock::getAvailable).reversed());
+        List<StockReservation> parts = new ArrayList<>();
+        int remaining = quantity;
+        for (DrugStock stripe : stripes) {
+            int units = Math.min(stripe.getAvailable(), remaining);
+            if (units > 0 && takeFromStripe(drugId, stripe.getStripe(), units)) {
+                parts.add(recordReservation(prescriptionId, itemId, drugId, stripe.getStripe(), units));
+                remaining -= units;
+            }
+            if (remaining == 0) {
+                reservations.addAll(parts);
+                reservationsMade.increment();
+                return true;
+            }
+        }
+
+        parts.forEach(this::release);
+        return false;
+    }
+
+    /**
+     * Moves units from available to reserved on one stripe, only if the stripe has enough available.
+     */
+    private boolean takeFromStripe(String drugId, int stripe, int units) {
+        Query query = stripeQuery(drugId, stripe);
+        query.addCriteria(Criteria.where("available").gte(units));
+        Update update = new Update()
+                .inc("available", -units)
+                .inc("reserved", units)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(query, update, DrugStock.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * Adds units to one stripe, creating the stripe on first receipt.
+     */
+    private void addToStripe(String drugId, int stripe, int units) {
+        Update update = new Update()
+                .inc("onHand", units)
+                .inc("available", units)
+                .setOnInsert("reserved", 0)
+                .set("updatedAt", LocalDateTime.now());
+        try {
+            mongoTemplate.upsert(stripeQuery(drugId, stripe), update, DrugStock.class);
+        } catch (DuplicateKeyException e) {
+            // Another receipt created the stripe concurrently; it exists now
+            mongoTemplate.updateFirst(stripeQuery(drugId, stripe), update, DrugStock.class);
+        }
+    }
+
+    /**
+     * Turns an open reservation into dispensed stock and records a Dispense movement.
+     *
+     * @return The number of units dispensed, 0 if the reservation was no longer open
+     */
+    private int commit(StockReservation reservation) {
+        if (!transition(reservation, StockReservation.Status.COMMITTED)) {
+            return 0;
+        }
+        Update update = new Update()
+                .inc("reserved", -reservation.getQuantity())
+                .inc("onHand", -reservation.getQuantity())
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(stripeQuery(reservation.getDrugId(), reservation.getStripe()), update, DrugStock.class);
+        appendMovement(reservation.getDrugId(), reservation.getStripe(), StockMovement.Type.DISPENSE,
+                reservation.getQuantity(), reservation.getPrescriptionId(), reservation.getItemId(), null);
+        unitsDispensed.increment(reservation.getQuantity());
+        return reservation.getQuantity();
+    }
+
+    /**
+     * Returns the units of an open reservation to available stock.
+     *
+     * @return The number of units released, 0 if the reservation was no longer open
+     */
+    private int release(StockReservation reservation) {
+        if (!transition(reservation, StockReservation.Status.RELEASED)) {
+            return 0;
+        }
+        Update update = new Update()
+                .inc("reserved", -reservation.getQuantity())
+                .inc("available", reservation.getQuantity())
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(stripeQuery(reservation.getDrugId(), reservation.getStripe()), update, DrugStock.class);
+        appendMovement(reservation.getDrugId(), reservation.getStripe(), StockMovement.Type.RELEASE,
+                reservation.getQuantity(), reservation.getPrescriptionId(), reservation.getItemId(), null);
+        unitsReleased.increment(reservation.getQuantity());
+        return reservation.getQuantity();
+    }
+
+    /**
+     * Moves an open reservation to a final status. Only one caller can win the transition,
+     * which keeps commit and release idempotent under concurrency.
+     */
+    private boolean transition(StockReservation reservation, String status) {
+        Query query = Query.query(Criteria.where("id").is(reservation.getId())
+                .and("status").is(StockReservation.Status.RESERVED));
+        Update update = new Update().set("status", status).set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(query, update, StockReservation.class).getModifiedCount() > 0;
+    }
+
+    private StockReservation recordReservation(String prescriptionId, String itemId, String drugId, int stripe, int units) {
+        LocalDateTime now = LocalDateTime.now();
+        StockReservation reservation = stockReservationRepository.insert(StockReservation.builder()
+                .prescriptionId(prescriptionId)
+                .itemId(itemId)
+                .drugId(drugId)
+                .stripe(stripe)
+                .quantity(units)
+                .status(StockReservation.Status.RESERVED)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        appendMovement(drugId, stripe, StockMovement.Type.RESERVE, units, prescriptionId, itemId, null);
+        return reservation;
+    }
+
+    private void appendMovement(String drugId, int stripe, String type, int units,
+                                String prescriptionId, String itemId, String performedBy) {
+        stockMovementRepository.insert(StockMovement.builder()
+                .drugId(drugId)
+                .stripe(stripe)
+                .type(type)
+                .quantity(units)
+                .prescriptionId(prescriptionId)
+                .itemId(itemId)
+                .performedBy(performedBy)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private Query stripeQuery(String drugId, int stripe) {
+        return Query.query(Criteria.where("drugId").is(drugId).and("stripe").is(stripe));
+    }
+}
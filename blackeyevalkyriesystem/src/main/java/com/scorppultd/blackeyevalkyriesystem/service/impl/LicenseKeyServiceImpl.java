@@ -1,17 +1,44 @@
 package com.scorppultd.blackeyevalkyriesystem.service.impl;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.LicenseKeyVerificationDTO;
 import com.scorppultd.blackeyevalkyriesystem.model.LicenseKey;
+import com.scorppultd.blackeyevalkyriesystem.model.User;
 import com.scorppultd.blackeyevalkyriesystem.repository.LicenseKeyRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.UserRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationBus;
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationEvent;
 import com.scorppultd.blackeyevalkyriesystem.service.LicenseKeyService;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -24,20 +51,63 @@ import java.util.regex.Pattern;
 public class LicenseKeyServiceImpl implements LicenseKeyService {
 
     private final LicenseKeyRepository licenseKeyRepository;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final UserRepository userRepository;
+    private final LicenseKeyValidationCache validationCache;
+    private final long validTtlMillis;
+    private final long invalidTtlMillis;
+    private final Counter validationCacheHits;
+    private final Counter validationCacheMisses;
+    private final ScheduledJobLock scheduledJobLock;
+    private final CacheInvalidationBus invalidationBus;
     private static final Pattern LICENSE_KEY_PATTERN = Pattern.compile("^[A-Z0-9]{4}-[A-Z0-9]{4}-[A-Z0-9]{4}-[A-Z0-9]{4}$");
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private final Random random = new Random();
+    private static final int MAX_BULK_ISSUE = 1000;
+    private static final int MAX_COLLISION_ROUNDS = 5;
+    private final SecureRandom random = new SecureRandom();
     
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LicenseKeyServiceImpl.class);
 
     /**
-     * Constructs a new LicenseKeyServiceImpl with the required repository.
+     * Constructs a new LicenseKeyServiceImpl with the required repositories.
      *
      * @param licenseKeyRepository The repository for license key operations
+     * @param partialUpdateRepository The repository for field-level license key updates
+     * @param userRepository The repository used to resolve the names of key users
+     * @param meterRegistry Registry for validation cache metrics
+     * @param scheduledJobLock Lock that runs the expiry sweep on a single node
+     * @param invalidationBus Bus delivering license key changes made on other nodes to the validation cache
+     * @param validTtlSeconds How long an outcome for an existing key is cached; a valid key is never cached past its expiry
+     * @param invalidTtlSeconds How long the outcome for an unknown key is cached
+     * @param cacheMaxEntries Maximum number of cached validation outcomes
      */
     @Autowired
-    public LicenseKeyServiceImpl(LicenseKeyRepository licenseKeyRepository) {
+    public LicenseKeyServiceImpl(LicenseKeyRepository licenseKeyRepository,
+                                 PartialUpdateRepository partialUpdateRepository,
+                                 UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 ScheduledJobLock scheduledJobLock,
+                                 CacheInvalidationBus invalidationBus,
+                                 @Value("${license.validation-cache.valid-ttl-seconds:300}") long validTtlSeconds,
+                                 @Value("${license.validation-cache.invalid-ttl-seconds:60}") long invalidTtlSeconds,
+                                 @Value("${license.validation-cache.max-entries:10000}") int cacheMaxEntries) {
         this.licenseKeyRepository = licenseKeyRepository;
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.userRepository = userRepository;
+        this.validationCache = new LicenseKeyValidationCache(cacheMaxEntries);
+        this.validTtlMillis = validTtlSeconds * 1000;
+        this.invalidTtlMillis = invalidTtlSeconds * 1000;
+        this.validationCacheHits = meterRegistry.counter("license.validation.cache", "result", "hit");
+        this.validationCacheMisses = meterRegistry.counter("license.validation.cache", "result", "miss");
+        this.scheduledJobLock = scheduledJobLock;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CacheInvalidationEvent.Source.LICENSE_KEYS, event -> {
+            if (event.hasKey()) {
+                validationCache.invalidate(event.getKey());
+            } else {
+                validationCache.invalidateAll();
+            }
+        });
     }
 
     /**
@@ -49,29 +119,70 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
      */
     @Override
     public boolean validateLicenseKey(String licenseKey) {
-        // First validate the format
+        return verifyLicenseKey(licenseKey).isValid();
+    }
+    
+    /**
+     * Verifies that a license key exists, is active, unused and not expired.
+     * Outcomes are cached: an unknown key for a short fixed time, an existing key for longer but
+     * never past its expiry date, so an expired key is not reported as valid. The check itself only
+     * reads; expired keys are marked by the scheduled expiry check.
+     *
+     * @param licenseKey The license key string to verify
+     * @return The outcome, with the granted role if the key is valid or the reason if it is not
+     */
+    @Override
+    public LicenseKeyVerificationDTO verifyLicenseKey(String licenseKey) {
+        // Malformed keys never reach the cache or the database
         if (!validateLicenseKeyFormat(licenseKey)) {
-            return false;
+            return LicenseKeyVerificationDTO.invalid("License key not found");
         }
         
-        // Then check if the key exists
+        long now = System.currentTimeMillis();
+        LicenseKeyVerificationDTO cached = validationCache.get(licenseKey, now);
+        if (cached != null) {
+            validationCacheHits.increment();
+            return cached;
+        }
+        validationCacheMisses.increment();
+        
         Optional<LicenseKey> licenseKeyOpt = licenseKeyRepository.findByKey(licenseKey);
         if (licenseKeyOpt.isEmpty()) {
-            return false;
+            LicenseKeyVerificationDTO outcome = LicenseKeyVerificationDTO.invalid("License key not found");
+            validationCache.put(licenseKey, outcome, now + invalidTtlMillis, now);
+            return outcome;
         }
         
         LicenseKey license = licenseKeyOpt.get();
-        
-        // Check if the license is expired and update its status if necessary
+        LicenseKeyVerificationDTO outcome;
+        long cacheUntil = now + validTtlMillis;
         if (isLicenseExpired(license)) {
-            // If the license is expired, update status to Expired
-            license.setStatus(LicenseKey.Status.EXPIRED);
-            licenseKeyRepository.save(license);
-            return false;
+            outcome = LicenseKeyVerificationDTO.invalid("License key has expired");
+        } else if (LicenseKey.Status.ACTIVE.equals(license.getStatus()) && license.getUser() == null) {
+            outcome = LicenseKeyVerificationDTO.valid(license.getRole());
+            // A key expires at the start of its expiration date
+            if (license.getExpiresOn() != null) {
+                long expiresAt = license.getExpiresOn().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                cacheUntil = Math.min(cacheUntil, expiresAt);
+            }
+        } else if (license.getUser() != null) {
+            outcome = LicenseKeyVerificationDTO.invalid("License key has already been used");
+        } else {
+            outcome = LicenseKeyVerificationDTO.invalid("License key is not active");
         }
         
-        // Finally check if the license is active
-        return LicenseKey.Status.ACTIVE.equals(license.getStatus());
+        validationCache.put(licenseKey, outcome, cacheUntil, now);
+        return outcome;
+    }
+    
+    /**
+     * Drops the cached validation outcome of a license key after it has been changed.
+     *
+     * @param licenseKey The license key string
+     */
+    @Override
+    public void invalidateCachedValidation(String licenseKey) {
+        validationCache.invalidate(licenseKey);
     }
     
     /**
@@ -135,8 +246,10 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
             licenseKey.setStatus(LicenseKey.Status.ACTIVE);
         }
         
-        // Save and return the license key
-        return licenseKeyRepository.save(licenseKey);
+        // Save and return the license key; the key may have been probed, and cached as unknown, before
+        LicenseKey savedLicenseKey = licenseKeyRepository.save(licenseKey);
+        validationCache.invalidate(savedLicenseKey.getKey());
+        return savedLicenseKey;
     }
 
     /**
@@ -183,6 +296,46 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
         return licenseKeyRepository.findAll();
     }
 
+    /**
+     * Get one page of license keys, filtered and sorted by expiration date in the database
+     * 
+     * @param status The status to filter by, or null/empty for all statuses
+     * @param role The role to filter by (case-insensitive), or null/empty for all roles
+     * @param sortOrder "desc" to sort by expiration date descending, anything else for ascending
+     * @param page The one-based page number
+     * @param rowsPerPage The number of license keys per page
+     * @return The page of license keys with the total number of matching keys
+     */
+    @Override
+    public Page<LicenseKey> findLicenseKeys(String status, String role, String sortOrder, int page, int rowsPerPage) {
+        return licenseKeyRepository.findPageSortedByExpiry(status, role, "desc".equalsIgnoreCase(sortOrder),
+                Math.max(0, page - 1), Math.max(1, rowsPerPage));
+    }
+
+    /**
+     * Get the display names of the users the given license keys were used by, in one lookup
+     * 
+     * @param licenseKeys The license keys
+     * @return Full names keyed by user ID
+     */
+    @Override
+    public Map<String, String> getUserNames(List<LicenseKey> licenseKeys) {
+        Set<String> userIds = new HashSet<>();
+        for (LicenseKey licenseKey : licenseKeys) {
+            if (licenseKey.getUser() != null) {
+                userIds.add(licenseKey.getUser());
+            }
+        }
+        
+        Map<String, String> userNames = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (User user : userRepository.findAllById(userIds)) {
+                userNames.put(user.getId(), user.getFullName());
+            }
+        }
+        return userNames;
+    }
+
     /**
      * Generates a new random license key in the format AAAA-BBBB-CCCC-DDDD
      * using alphanumeric characters. Ensures the generated key doesn't already
@@ -192,7 +345,123 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
      */
     @Override
     public String generateLicenseKey() {
-        StringBuilder licenseKeyBuilder = new StringBuilder();
+        String licenseKey = randomLicenseKey();
+        
+        // Ensure the generated key doesn't already exist
+        if (licenseKeyRepository.existsByKey(licenseKey)) {
+            // Recursive call to generate a new key
+            return generateLicenseKey();
+        }
+        
+        return licenseKey;
+    }
+
+    /**
+     * Generates and stores a batch of new active license keys.
+     * Candidate keys are checked against the database with a single $in query per round, and
+     * only the colliding ones are regenerated. The batch is then written with one insertMany;
+     * the unique index on the key field rejects any key taken concurrently.
+     *
+     * @param count The number of keys to issue (1 to 1000)
+     * @param role The role the keys grant: admin, doctor or nurse
+     * @param expiresOn The expiration date of the keys, or null for keys that do not expire
+     * @return The issued license keys
+     * @throws IllegalArgumentException if the count, role or expiration date is invalid
+     */
+    @Override
+    public List<LicenseKey> issueLicenseKeys(int count, String role, LocalDate expiresOn) {
+        if (count < 1 || count > MAX_BULK_ISSUE) {
+            throw new IllegalArgumentException("Count must be between 1 and " + MAX_BULK_ISSUE);
+        }
+        String normalizedRole = role != null ? role.toLowerCase() : null;
+        if (!LicenseKey.Role.ADMIN.equals(normalizedRole) && !LicenseKey.Role.DOCTOR.equals(normalizedRole)
+                && !LicenseKey.Role.NURSE.equals(normalizedRole)) {
+            throw new IllegalArgumentException("Invalid role. Must be admin, doctor, or nurse.");
+        }
+        if (expiresOn != null && expiresOn.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Expiry date cannot be in the past.");
+        }
+        
+        Set<String> keys = new LinkedHashSet<>();
+        for (int round = 0; keys.size() < count; round++) {
+            if (round == MAX_COLLISION_ROUNDS) {
+                throw new RuntimeException("Could not generate " + count + " unique license keys");
+            }
+            
+            Set<String> candidates = new HashSet<>();
+            while (candidates.size() < count - keys.size()) {
+                String candidate = randomLicenseKey();
+                if (!keys.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            for (LicenseKey existing : licenseKeyRepository.findKeysIn(candidates)) {
+                candidates.remove(existing.getKey());
+            }
+            keys.addAll(candidates);
+        }
+        
+        LocalDate today = LocalDate.now();
+        List<LicenseKey> licenseKeys = new ArrayList<>(count);
+        for (String key : keys) {
+            licenseKeys.add(LicenseKey.builder()
+                    .key(key)
+                    .issuedOn(today)
+                    .expiresOn(expiresOn)
+                    .status(LicenseKey.Status.ACTIVE)
+                    .role(normalizedRole)
+                    .build());
+        }
+        
+        List<LicenseKey> issued;
+        try {
+            issued = licenseKeyRepository.insert(licenseKeys);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("A generated license key was issued concurrently, please retry", e);
+        }
+        
+        // Any of the new keys may have been probed, and cached as unknown, before
+        for (String key : keys) {
+            validationCache.invalidate(key);
+        }
+        logger.info("Issued {} {} license keys", issued.size(), normalizedRole);
+        return issued;
+    }
+
+    /**
+     * Exports license keys as CSV with a header row.
+     *
+     * @param licenseKeys The license keys to export
+     * @return Byte array containing the CSV data
+     * @throws RuntimeException If CSV generation fails
+     */
+    @Override
+    public byte[] exportLicenseKeysCsv(List<LicenseKey> licenseKeys) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CSVPrinter csvPrinter = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSVFormat.DEFAULT
+                .builder()
+                .setHeader("key", "role", "status", "issuedOn", "expiresOn")
+                .build())) {
+            for (LicenseKey licenseKey : licenseKeys) {
+                csvPrinter.printRecord(
+                    licenseKey.getKey(),
+                    licenseKey.getRole(),
+                    licenseKey.getStatus(),
+                    licenseKey.getIssuedOn(),
+                    licenseKey.getExpiresOn() != null ? licenseKey.getExpiresOn() : ""
+                );
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate CSV: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a random key string in the format AAAA-BBBB-CCCC-DDDD.
+     */
+    private String randomLicenseKey() {
+        StringBuilder licenseKeyBuilder = new StringBuilder(19);
         
         // Generate 4 groups of 4 characters
         for (int group = 0; group < 4; group++) {
@@ -206,15 +475,7 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
             }
         }
         
-        String licenseKey = licenseKeyBuilder.toString();
-        
-        // Ensure the generated key doesn't already exist
-        if (licenseKeyRepository.existsByKey(licenseKey)) {
-            // Recursive call to generate a new key
-            return generateLicenseKey();
-        }
-        
-        return licenseKey;
+        return licenseKeyBuilder.toString();
     }
 
     /**
@@ -243,28 +504,26 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
         license.setUser(userId);
         license.setStatus(LicenseKey.Status.USED);
         licenseKeyRepository.save(license);
+        validationCache.invalidate(licenseKey);
         
         return true;
     }
 
     /**
      * Deactivates a license key by setting its status to DEACTIVATED.
+     * The status is set in place with a single update matched on the key.
      *
      * @param licenseKey The license key string to deactivate
      * @return true if deactivation was successful, false if the key doesn't exist
      */
     @Override
     public boolean deactivateLicenseKey(String licenseKey) {
-        Optional<LicenseKey> licenseKeyOpt = licenseKeyRepository.findByKey(licenseKey);
-        if (licenseKeyOpt.isEmpty()) {
-            return false;
-        }
-        
-        LicenseKey license = licenseKeyOpt.get();
-        license.setStatus(LicenseKey.Status.DEACTIVATED);
-        licenseKeyRepository.save(license);
-        
-        return true;
+        boolean deactivated = partialUpdateRepository.updateFirst(LicenseKey.class,
+                Criteria.where("key").is(licenseKey),
+                new Update().set("status", LicenseKey.Status.DEACTIVATED));
+        validationCache.invalidate(licenseKey);
+        invalidationBus.publish(CacheInvalidationEvent.Source.LICENSE_KEYS, null, licenseKey);
+        return deactivated;
     }
     
     /**
@@ -275,31 +534,38 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
     @Override
     public void deleteLicenseKey(LicenseKey licenseKey) {
         licenseKeyRepository.delete(licenseKey);
+        validationCache.invalidate(licenseKey.getKey());
     }
     
     /**
      * Scheduled task to check for and deactivate expired license keys
-     * Runs daily at 00:00 HKT (16:00 UTC)
+     * Runs daily at 00:00 HKT (16:00 UTC), on the one node that acquires the job lease
      */
     @Scheduled(cron = "0 0 16 * * ?", zone = "UTC")
     public void checkAndDeactivateExpiredLicenses() {
-        // Get current date in UTC
-        LocalDate todayUtc = LocalDate.now();
-        
-        logger.info("Starting scheduled task to check for expired license keys");
-        
-        // Only fetch active license keys from the database
-        List<LicenseKey> activeLicenses = licenseKeyRepository.findByStatus(LicenseKey.Status.ACTIVE);
-        logger.info("Found {} active license keys to check", activeLicenses.size());
-        
-        int expiredCount = 0;
-        for (LicenseKey license : activeLicenses) {
-            if (checkAndUpdateExpiredLicense(license, todayUtc)) {
-                expiredCount++;
-            }
+        scheduledJobLock.runExclusively("license-key-expiry", () -> {
+            logger.info("Starting scheduled task to check for expired license keys");
+            int expiredCount = expireActiveLicenses(LocalDate.now());
+            logger.info("Completed expired license key check. Found and updated {} expired licenses", expiredCount);
+        });
+    }
+
+    /**
+     * Marks every active license key that expires today or earlier as expired with a single
+     * multi-document update, served by the (status, expiresOn) index.
+     * 
+     * @param todayUtc The current date in UTC
+     * @return The number of license keys that were updated
+     */
+    private int expireActiveLicenses(LocalDate todayUtc) {
+        int expiredCount = (int) partialUpdateRepository.updateMulti(LicenseKey.class,
+                Criteria.where("status").is(LicenseKey.Status.ACTIVE).and("expiresOn").lte(todayUtc),
+                new Update().set("status", LicenseKey.Status.EXPIRED));
+        if (expiredCount > 0) {
+            validationCache.invalidateAll();
+            invalidationBus.publishAll(CacheInvalidationEvent.Source.LICENSE_KEYS);
         }
-        
-        logger.info("Completed expired license key check. Found and updated {} expired licenses", expiredCount);
+        return expiredCount;
     }
 
     /**
@@ -315,6 +581,7 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
             (license.getExpiresOn().equals(todayUtc) || license.getExpiresOn().isBefore(todayUtc))) {
             license.setStatus(LicenseKey.Status.EXPIRED);
             licenseKeyRepository.save(license);
+            validationCache.invalidate(license.getKey());
             logger.info("Marked license key as expired: {} (Key: {})", license.getId(), license.getKey());
             return true;
         }
@@ -327,24 +594,8 @@ public class LicenseKeyServiceImpl implements LicenseKeyService {
      */
     @Override
     public int checkAllLicenseKeysForExpiration() {
-        // Get current date in UTC
-        LocalDate todayUtc = LocalDate.now();
         logger.info("Starting manual check for all expired license keys");
-        
-        // Get all ACTIVE license keys only - exclude USED, EXPIRED, and DEACTIVATED
-        List<LicenseKey> licenses = licenseKeyRepository.findAll().stream()
-            .filter(license -> LicenseKey.Status.ACTIVE.equals(license.getStatus()))
-            .toList();
-        
-        logger.info("Found {} active license keys to check", licenses.size());
-        
-        int expiredCount = 0;
-        for (LicenseKey license : licenses) {
-            if (checkAndUpdateExpiredLicense(license, todayUtc)) {
-                expiredCount++;
-            }
-        }
-        
+        int expiredCount = expireActiveLicenses(LocalDate.now());
         logger.info("Completed checking all license keys. Found and updated {} expired licenses", expiredCount);
         return expiredCount;
     }
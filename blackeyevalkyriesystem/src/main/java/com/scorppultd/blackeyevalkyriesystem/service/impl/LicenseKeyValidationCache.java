@@ -0,0 +1,75 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.LicenseKeyVerificationDTO;
+
+/**
+ * In-memory cache of license key verification outcomes, keyed by license key string.
+ * Every entry carries its own expiry time, so a valid key can be cached only until the key itself
+ * expires while unknown keys are cached for a shorter, fixed time. The cache is bounded: when it is
+ * full, expired entries are purged and new entries are skipped until space is available.
+ */
+class LicenseKeyValidationCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * @param maxEntries Maximum number of cached outcomes
+     */
+    LicenseKeyValidationCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Returns the cached outcome for the key, or null if there is none or it has expired.
+     */
+    LicenseKeyVerificationDTO get(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= nowMillis) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.outcome;
+    }
+
+    /**
+     * Caches the outcome for the key until the given time.
+     */
+    void put(String key, LicenseKeyVerificationDTO outcome, long expiresAtMillis, long nowMillis) {
+        if (expiresAtMillis <= nowMillis) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAtMillis <= nowMillis);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, new Entry(outcome, expiresAtMillis));
+    }
+
+    /**
+     * Removes the cached outcome for the key.
+     */
+    void invalidate(String key) {
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes every cached outcome.
+     */
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    private record Entry(LicenseKeyVerificationDTO outcome, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,507 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.DBRef;
+import com.scorppultd.blackeyevalkyriesystem.dto.PatientMergeCandidateDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
+import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.model.Visit;
+import com.scorppultd.blackeyevalkyriesystem.model.VisitBucket;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalMeasurement;
+import com.scorppultd.blackeyevalkyriesystem.repository.PatientRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.VisitBucketRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientDeduplicationService;
+import com.scorppultd.blackeyevalkyriesystem.service.PatientSimilarity;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of the PatientDeduplicationService interface.
+ * The fields compared are read for all patients in _id-ordered batches and grouped into blocks
+ * by their blocking keys, so the number of comparisons grows with the size of the blocks rather
+ * than with the square of the number of patients. Blocks larger than
+ * patients.dedup.max-block-size, such as a number shared by a whole family or a clinic, are
+ * skipped. The blocks are compared on a fork-join pool of their own, split into tasks of similar
+ * numbers of comparisons, and a pair sharing several blocks is scored only in the first of them.
+ * <p>
+ * A merge holds a lease on each of the two patients, so two merges involving the same patient
+ * never run at once. Records of the duplicate are moved to the kept patient once more just
+ * before the duplicate is deleted, to catch those written to it while the merge ran.
+ */
+@Service
+public class PatientDeduplicationServiceImpl implements PatientDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientDeduplicationServiceImpl.class);
+
+    private static final String[] COMPARED_FIELDS = { "firstName", "lastName", "dateOfBirth", "age", "sex",
+            "contactNumber", "email", "createDate" };
+
+    /**
+     * Number of comparisons below which a task compares its blocks itself instead of splitting them
+     */
+    private static final long SPLIT_THRESHOLD = 20_000;
+
+    private static final String MERGE_LEASE_PREFIX = "patient-merge:";
+
+    private final MongoTemplate mongoTemplate;
+    private final PatientRepository patientRepository;
+    private final VisitBucketRepository visitBucketRepository;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int loadBatchSize;
+    private final int maxBlockSize;
+    private final ForkJoinPool comparisonPool;
+
+    /**
+     * Constructs a PatientDeduplicationServiceImpl with necessary dependencies.
+     *
+     * @param mongoTemplate Template used to read the patients and move their records
+     * @param patientRepository Repository for patient data access
+     * @param visitBucketRepository Repository for the visit buckets of patients
+     * @param scheduledJobLock Lock holding the leases of the patients being merged
+     * @param loadBatchSize Number of patients read per query
+     * @param maxBlockSize Largest block whose patients are compared with each other
+     * @param parallelism Number of threads comparing blocks, or 0 for one per processor
+     */
+    @Autowired
+    public PatientDeduplicationServiceImpl(MongoTemplate mongoTemplate,
+                                           PatientRepository patientRepository,
+                                           VisitBucketRepository visitBucketRepository,
+                                           ScheduledJobLock scheduledJobLock,
+                                           @Value("${patients.dedup.load-batch-size:2000}") int loadBatchSize,
+                                           @Value("${patients.dedup.max-block-size:500}") int maxBlockSize,
+                                           @Value("${patients.dedup.parallelism:0}") int parallelism) {
+        this.mongoTemplate = mongoTemplate;
+        this.patientRepository = patientRepository;
+        this.visitBucketRepository = visitBucketRepository;
+        this.scheduledJobLock = scheduledJobLock;
+        this.loadBatchSize = Math.max(1, loadBatchSize);
+        this.maxBlockSize = Math.max(2, maxBlockSize);
+        this.comparisonPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("patient-dedup-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    /**
+     * Stops the comparison threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        comparisonPool.shutdownNow();
+    }
+
+    @Override
+    public List<PatientMergeCandidateDTO> findMergeCandidates(double minScore, int limit) {
+        LocalDate today = LocalDate.now();
+        List<Patient> patients = loadPatients();
+
+        PatientSimilarity.Profile[] profiles = new PatientSimilarity.Profile[patients.size()];
+        Map<String, List<Integer>> members = new HashMap<>();
+        for (int i = 0; i < patients.size(); i++) {
+            Patient patient = patients.get(i);
+            profiles[i] = new PatientSimilarity.Profile(
+                    PatientSimilarity.letters(patient.getFirstName()),
+                    PatientSimilarity.letters(patient.getLastName()),
+                    patient.getDateOfBirth(),
+                    patient.getAge(),
+                    patient.getSex(),
+                    PatientSimilarity.contactDigits(patient.getContactNumber()),
+                    PatientSimilarity.normalizeEmail(patient.getEmail()));
+            for (String key : PatientSimilarity.blockingKeys(patient.getLastName(), patient.getDateOfBirth(), patient.getAge(),
+                    patient.getContactNumber(), patient.getEmail(), today)) {
+                members.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<String> blockKeys = new ArrayList<>();
+        List<int[]> blocks = new ArrayList<>();
+        int skipped = 0;
+        for (Map.Entry<String, List<Integer>> entry : members.entrySet()) {
+            int size = entry.getValue().size();
+            if (size < 2) {
+                continue;
+            }
+            if (size > maxBlockSize) {
+                skipped++;
+                continue;
+            }
+            blockKeys.add(entry.getKey());
+            blocks.add(entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        // The blocks of each patient, in ascending order, to find the first block a pair shares
+        int[] blockCounts = new int[patients.size()];
+        for (int[] block : blocks) {
+            for (int member : block) {
+                blockCounts[member]++;
+            }
+        }
+        int[][] blocksOf = new int[patients.size()][];
+        for (int i = 0; i < blocksOf.length; i++) {
+            blocksOf[i] = new int[blockCounts[i]];
+            blockCounts[i] = 0;
+        }
+        long[] comparisonsBefore = new long[blocks.size() + 1];
+        for (int b = 0; b < blocks.size(); b++) {
+            int[] block = blocks.get(b);
+            for (int member : block) {
+                blocksOf[member][blockCounts[member]++] = b;
+            }
+            comparisonsBefore[b + 1] = comparisonsBefore[b] + (long) block.length * (block.length - 1) / 2;
+        }
+
+        BlockComparison comparison = new BlockComparison(profiles, blocks, blocksOf, comparisonsBefore, minScore, today);
+        List<Match> matches = comparisonPool.invoke(new BlockComparisonTask(comparison, 0, blocks.size()));
+        logger.info("Compared {} patients in {} blocks ({} comparisons, {} oversized blocks skipped): {} candidate pairs",
+                patients.size(), blocks.size(), comparisonsBefore[blocks.size()], skipped, matches.size());
+
+        matches.sort(Comparator.comparingDouble(Match::score).reversed());
+        List<PatientMergeCandidateDTO> candidates = new ArrayList<>();
+        for (Match match : matches.subList(0, Math.min(Math.max(0, limit), matches.size()))) {
+            Set<String> matchedOn = new LinkedHashSet<>();
+            for (int block : sharedBlocks(blocksOf[match.first()], blocksOf[match.second()])) {
+                matchedOn.add(describeBlock(blockKeys.get(block)));
+            }
+            candidates.add(new PatientMergeCandidateDTO(toSummary(patients.get(match.first())),
+                    toSummary(patients.get(match.second())), match.score(), new ArrayList<>(matchedOn)));
+        }
+        return candidates;
+    }
+
+    @Override
+    public Patient mergePatients(String survivorId, String duplicateId) {
+        if (survivorId.equals(duplicateId)) {
+            throw new IllegalArgumentException("A patient cannot be merged into itself");
+        }
+        AtomicReference<Patient> merged = new AtomicReference<>();
+        boolean ran = scheduledJobLock.runHoldingAll(List.of(MERGE_LEASE_PREFIX + survivorId, MERGE_LEASE_PREFIX + duplicateId),
+                () -> merged.set(merge(survivorId, duplicateId)));
+        if (!ran) {
+            throw new IllegalStateException("Patient " + survivorId + " or " + duplicateId + " is already being merged");
+        }
+        return merged.get();
+    }
+
+    /**
+     * Merges the duplicate into the kept patient, while the leases of both are held.
+     */
+    private Patient merge(String survivorId, String duplicateId) {
+        Patient survivor = patientRepository.findById(survivorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient", survivorId));
+        Patient duplicate = patientRepository.findById(duplicateId)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient", duplicateId));
+        String survivorName = survivor.getFirstName() + " " + survivor.getLastName();
+
+        long moved = moveRecords(survivorId, survivorName, duplicateId);
+        moveVisits(survivorId, duplicateId);
+        mergeDetails(survivor, duplicate);
+        Patient merged = patientRepository.save(survivor);
+
+        // Records written to the duplicate since the first move
+        moved += moveRecords(survivorId, survivorName, duplicateId);
+        moveVisits(survivorId, duplicateId);
+        patientRepository.deleteById(duplicateId);
+
+        logger.info("Merged patient {} into {}: moved {} appointments, consultations and prescriptions",
+                duplicateId, survivorId, moved);
+        return merged;
+    }
+
+    /**
+     * Points the appointments, consultations, prescriptions, vitals and alerts of the duplicate at
+     * the kept patient.
+     *
+     * @return The number of appointments, consultations and prescriptions moved
+     */
+    private long moveRecords(String survivorId, String survivorName, String duplicateId) {
+        DBRef survivorRef = new DBRef(mongoTemplate.getCollectionName(Patient.class), toIdValue(survivorId));
+        Query referencingDuplicate = Query.query(Criteria.where("patient.$id").is(toIdValue(duplicateId)));
+        Update repoint = new Update().set("patient", survivorRef);
+        long moved = mongoTemplate.updateMulti(referencingDuplicate, repoint, Appointment.class).getModifiedCount()
+                + mongoTemplate.updateMulti(referencingDuplicate, repoint, Consultation.class).getModifiedCount()
+                + mongoTemplate.updateMulti(referencingDuplicate, repoint, Prescription.class).getModifiedCount();
+
+        Query ofDuplicate = Query.query(Criteria.where("patientId").is(duplicateId));
+        mongoTemplate.updateMulti(ofDuplicate, new Update().set("patientId", survivorId), VitalMeasurement.class);
+        mongoTemplate.updateMulti(ofDuplicate, new Update()
+                .set("patientId", survivorId)
+                .set("patientName", survivorName), VitalAlert.class);
+        return moved;
+    }
+
+    /**
+     * Reads the compared fields of all patients, in _id order.
+     */
+    private List<Patient> loadPatients() {
+        List<Patient> patients = new ArrayList<>();
+        String lastId = null;
+        while (true) {
+            Criteria criteria = lastId != null ? Criteria.where("_id").gt(toIdValue(lastId)) : new Criteria();
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(loadBatchSize);
+            query.fields().include(COMPARED_FIELDS);
+            List<Patient> batch = mongoTemplate.find(query, Patient.class);
+            if (batch.isEmpty()) {
+                return patients;
+            }
+            patients.addAll(batch);
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Re-adds the visits of the duplicate to the buckets of the kept patient. Visits already moved
+     * by an earlier, interrupted merge are not added twice.
+     */
+    private void moveVisits(String survivorId, String duplicateId) {
+        for (VisitBucket bucket : visitBucketRepository.findByPatientIdOrderByLastVisitDateDesc(duplicateId)) {
+            if (bucket.getVisits() == null) {
+                continue;
+            }
+            for (Visit visit : bucket.getVisits()) {
+                if (visit.getId() != null && mongoTemplate.exists(Query.query(Criteria.where("patientId").is(survivorId)
+                        .and("visits.id").is(visit.getId())), VisitBucket.class)) {
+                    continue;
+                }
+                visit.setPatientId(survivorId);
+                visitBucketRepository.addVisit(visit);
+            }
+        }
+        visitBucketRepository.deleteByPatientId(duplicateId);
+    }
+
+    /**
+     * Copies the details the kept patient lacks from the duplicate, combines their drug allergies,
+     * and carries over visits the duplicate still holds embedded for the visit migration to move.
+     */
+    private void mergeDetails(Patient survivor, Patient duplicate) {
+        survivor.setSex(firstNonNull(survivor.getSex(), duplicate.getSex()));
+        survivor.setDateOfBirth(firstNonNull(survivor.getDateOfBirth(), duplicate.getDateOfBirth()));
+        survivor.setAge(firstNonNull(survivor.getAge(), duplicate.getAge()));
+        survivor.setRelativeName(firstNonBlank(survivor.getRelativeName(), duplicate.getRelativeName()));
+        survivor.setMaritalStatus(firstNonBlank(survivor.getMaritalStatus(), duplicate.getMaritalStatus()));
+        survivor.setBloodType(firstNonBlank(survivor.getBloodType(), duplicate.getBloodType()));
+        survivor.setContactNumber(firstNonBlank(survivor.getContactNumber(), duplicate.getContactNumber()));
+        survivor.setEmail(firstNonBlank(survivor.getEmail(), duplicate.getEmail()));
+        survivor.setAddress(firstNonNull(survivor.getAddress(), duplicate.getAddress()));
+
+        Set<String> allergies = new LinkedHashSet<>();
+        if (survivor.getDrugAllergies() != null) {
+            allergies.addAll(survivor.getDrugAllergies());
+        }
+        if (duplicate.getDrugAllergies() != null) {
+            allergies.addAll(duplicate.getDrugAllergies());
+        }
+        survivor.setDrugAllergies(new ArrayList<>(allergies));
+
+        if (duplicate.getVisits() != null && !duplicate.getVisits().isEmpty()) {
+            List<Visit> visits = survivor.getVisits() != null ? new ArrayList<>(survivor.getVisits()) : new ArrayList<>();
+            for (Visit visit : duplicate.getVisits()) {
+                visit.setPatientId(survivor.getId());
+                // Already carried over by an earlier, interrupted merge
+                if (!visits.contains(visit)) {
+                    visits.add(visit);
+                }
+            }
+            survivor.setVisits(visits);
+        }
+
+        survivor.setCreateDate(earlier(survivor.getCreateDate(), duplicate.getCreateDate()));
+        survivor.setLastVisitDate(later(survivor.getLastVisitDate(), duplicate.getLastVisitDate()));
+        survivor.setUpdateDate(LocalDate.now());
+    }
+
+    /**
+     * Lists the blocks two patients share. Both arrays are in ascending order.
+     */
+    private static List<Integer> sharedBlocks(int[] first, int[] second) {
+        List<Integer> shared = new ArrayList<>();
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] == second[j]) {
+                shared.add(first[i]);
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    private static int firstSharedBlock(int[] first, int[] second) {
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] == second[j]) {
+                return first[i];
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    private static String describeBlock(String key) {
+        if (key.startsWith("n:")) {
+            return "name and birth year";
+        }
+        return key.startsWith("c:") ? "contact number" : "email";
+    }
+
+    private static PatientMergeCandidateDTO.PatientSummaryDTO toSummary(Patient patient) {
+        PatientMergeCandidateDTO.PatientSummaryDTO summary = new PatientMergeCandidateDTO.PatientSummaryDTO();
+        summary.setId(patient.getId());
+        summary.setFirstName(patient.getFirstName());
+        summary.setLastName(patient.getLastName());
+        summary.setDateOfBirth(patient.getDateOfBirth());
+        summary.setAge(patient.getAge());
+        summary.setSex(patient.getSex());
+        summary.setContactNumber(patient.getContactNumber());
+        summary.setEmail(patient.getEmail());
+        summary.setCreateDate(patient.getCreateDate());
+        return summary;
+    }
+
+    private static <T> T firstNonNull(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static String firstNonBlank(String value, String fallback) {
+        return value != null && !value.isBlank() ? value : fallback;
+    }
+
+    private static LocalDate earlier(LocalDate first, LocalDate second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static LocalDate later(LocalDate first, LocalDate second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isAfter(second) ? first : second;
+    }
+
+    private Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * A pair of patients, by their index in the loaded list, that scored at least the minimum.
+     */
+    private record Match(int first, int second, double score) {
+    }
+
+    /**
+     * Everything the comparison tasks share, read-only.
+     */
+    private record BlockComparison(PatientSimilarity.Profile[] profiles, List<int[]> blocks, int[][] blocksOf,
+                                   long[] comparisonsBefore, double minScore, LocalDate today) {
+    }
+
+    /**
+     * Compares the patients within a range of blocks, splitting the range in two halves of
+     * about the same number of comparisons while it is large enough.
+     */
+    private static class BlockComparisonTask extends RecursiveTask<List<Match>> {
+
+        private final BlockComparison comparison;
+        private final int from;
+        private final int to;
+
+        BlockComparisonTask(BlockComparison comparison, int from, int to) {
+            this.comparison = comparison;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Match> compute() {
+            long[] before = comparison.comparisonsBefore();
+            if (to - from > 1 && before[to] - before[from] > SPLIT_THRESHOLD) {
+                int middle = splitPoint(before);
+                BlockComparisonTask left = new BlockComparisonTask(comparison, from, middle);
+                left.fork();
+                List<Match> right = new BlockComparisonTask(comparison, middle, to).compute();
+                List<Match> matches = left.join();
+                matches.addAll(right);
+                return matches;
+            }
+
+            List<Match> matches = new ArrayList<>();
+            for (int b = from; b < to; b++) {
+                int[] block = comparison.blocks().get(b);
+                for (int x = 0; x < block.length; x++) {
+                    for (int y = x + 1; y < block.length; y++) {
+                        int first = block[x];
+                        int second = block[y];
+                        // Pairs sharing several blocks are scored in the first one only
+                        if (firstSharedBlock(comparison.blocksOf()[first], comparison.blocksOf()[second]) != b) {
+                            continue;
+                        }
+                        double score = PatientSimilarity.score(comparison.profiles()[first], comparison.profiles()[second],
+                                comparison.today());
+                        if (score >= comparison.minScore()) {
+                            matches.add(new Match(first, second, score));
+                        }
+                    }
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Finds the block that splits the range into two halves of about the same number of comparisons.
+         */
+        private int splitPoint(long[] before) {
+            long half = (before[from] + before[to]) / 2;
+            int low = from + 1;
+            int high = to - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (before[middle] < half) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
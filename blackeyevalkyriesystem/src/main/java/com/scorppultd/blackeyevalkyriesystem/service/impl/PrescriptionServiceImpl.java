@@ -1,15 +1,39 @@
 package com.scorppultd.blackeyevalkyriesystem.service.impl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.scorppultd.blackeyevalkyriesystem.dto.DispensaryWorklistDTO;
+import com.scorppultd.blackeyevalkyriesystem.dto.RefillOutcomeDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Drug;
 import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
 import com.scorppultd.blackeyevalkyriesystem.repository.PrescriptionRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.InventoryService;
 import com.scorppultd.blackeyevalkyriesystem.service.PrescriptionService;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * Implementation of the PrescriptionService interface.
@@ -19,28 +43,76 @@ import com.scorppultd.blackeyevalkyriesystem.service.PrescriptionService;
 @Service
 public class PrescriptionServiceImpl implements PrescriptionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PrescriptionServiceImpl.class);
+
     private final PrescriptionRepository prescriptionRepository;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final InventoryService inventoryService;
+    private final DrugRepository drugRepository;
+    private final ScheduledJobLock scheduledJobLock;
+    private final int expiryBatchSize;
+    private final long expiryBatchPauseMillis;
+    private final Counter prescriptionsExpired;
+    private final Timer expirySweepTimer;
 
     /**
-     * Constructs a new PrescriptionServiceImpl with the required repository.
+     * Constructs a new PrescriptionServiceImpl with the required dependencies.
      * 
      * @param prescriptionRepository The repository for prescription data access
+     * @param partialUpdateRepository The repository for field-level prescription updates
+     * @param inventoryService The service reserving and dispensing dispensary stock
+     * @param drugRepository The repository used to resolve drug names for the dispensary worklist
+     * @param meterRegistry Registry for expiry sweep metrics
+     * @param scheduledJobLock Lock that runs the expiry sweep on a single node
+     * @param expiryBatchSize Maximum number of prescriptions expired by one update
+     * @param expiryBatchPauseMillis Pause between two expiry batches, limiting the write rate of the sweep
      */
     @Autowired
-    public PrescriptionServiceImpl(PrescriptionRepository prescriptionRepository) {
+    public PrescriptionServiceImpl(PrescriptionRepository prescriptionRepository,
+                                   PartialUpdateRepository partialUpdateRepository,
+                                   InventoryService inventoryService,
+                                   DrugRepository drugRepository,
+                                   MeterRegistry meterRegistry,
+                                   ScheduledJobLock scheduledJobLock,
+                                   @Value("${prescription.expiry.batch-size:500}") int expiryBatchSize,
+                                   @Value("${prescription.expiry.batch-pause-ms:200}") long expiryBatchPauseMillis) {
         this.prescriptionRepository = prescriptionRepository;
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.inventoryService = inventoryService;
+        this.drugRepository = drugRepository;
+        this.scheduledJobLock = scheduledJobLock;
+        this.expiryBatchSize = Math.max(1, expiryBatchSize);
+        this.expiryBatchPauseMillis = Math.max(0, expiryBatchPauseMillis);
+        this.prescriptionsExpired = meterRegistry.counter("prescriptions.expired");
+        this.expirySweepTimer = meterRegistry.timer("prescriptions.expiry.sweep");
     }
 
     /**
      * Creates a new prescription record. If prescriptionDate or status are not provided,
      * default values are set (current date for prescriptionDate and "active" for status).
+     * Each prescription item is given an item ID so it can be targeted by refill operations.
+     * Dispensary stock is reserved for the prescribed quantities; a stock shortfall is logged
+     * but does not prevent the prescription from being created.
      * 
      * @param prescription The prescription object to be created
      * @return The created prescription with generated ID
      */
     @Override
     public Prescription createPrescription(Prescription prescription) {
-        // Set default values if not provided
+        applyNewPrescriptionDefaults(prescription);
+        Prescription savedPrescription = prescriptionRepository.save(prescription);
+        reserveStock(savedPrescription);
+        return savedPrescription;
+    }
+
+    /**
+     * Sets the prescription date to today and the status to "active" if they are not provided,
+     * and gives each item without one an item ID.
+     * 
+     * @param prescription The prescription about to be inserted
+     */
+    @Override
+    public void applyNewPrescriptionDefaults(Prescription prescription) {
         if (prescription.getPrescriptionDate() == null) {
             prescription.setPrescriptionDate(LocalDate.now());
         }
@@ -49,7 +121,31 @@ public class PrescriptionServiceImpl implements PrescriptionService {
             prescription.setStatus("active");
         }
         
-        return prescriptionRepository.save(prescription);
+        if (prescription.getPrescriptionItems() != null) {
+            for (Prescription.PrescriptionItem item : prescription.getPrescriptionItems()) {
+                if (item.getItemId() == null) {
+                    item.setItemId(UUID.randomUUID().toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves dispensary stock for the prescribed quantities, logging a shortfall or a failure.
+     * 
+     * @param prescription The prescription that has just been inserted
+     */
+    @Override
+    public void reserveStock(Prescription prescription) {
+        try {
+            int shortfalls = inventoryService.reserveForPrescription(prescription);
+            if (shortfalls > 0) {
+                logger.warn("Prescription {} created with {} item(s) short of dispensary stock",
+                        prescription.getId(), shortfalls);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to reserve stock for prescription {}: {}", prescription.getId(), e.getMessage());
+        }
     }
 
     /**
@@ -183,8 +279,61 @@ public class PrescriptionServiceImpl implements PrescriptionService {
         return prescriptionRepository.findByStatus(status);
     }
 
+    /**
+     * Retrieves one page of the dispensary worklist, newest prescriptions first.
+     * Rows contain only the fields shown in the worklist; the drug names of the whole page
+     * are resolved with a single lookup.
+     * 
+     * @param status The status to list (e.g., "active")
+     * @param from The earliest prescription date to include, or null
+     * @param to The latest prescription date to include, or null
+     * @param patientName Text matched against patient names, or null
+     * @param cursor The cursor of the page to read, or null for the first page
+     * @param size The maximum number of rows per page
+     * @return The page of worklist rows with the cursor of the next page
+     * @throws IllegalArgumentException if the page size is not positive, or the patient name is
+     *         too short or matches too many patients to filter on
+     */
+    @Override
+    public DispensaryWorklistDTO getDispensaryWorklist(String status, LocalDate from, LocalDate to,
+                                                       String patientName, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        
+        DispensaryWorklistDTO worklist = prescriptionRepository.findWorklistPage(
+                status, from, to, patientName, cursor, size);
+        
+        Set<String> drugIds = new HashSet<>();
+        for (DispensaryWorklistDTO.PrescriptionRowDTO row : worklist.getPrescriptions()) {
+            drugIds.addAll(row.getDrugIds());
+        }
+        
+        Map<String, String> drugNames = new HashMap<>();
+        if (!drugIds.isEmpty()) {
+            for (Drug drug : drugRepository.findAllById(drugIds)) {
+                drugNames.put(drug.getId(), drug.getName());
+            }
+        }
+        
+        for (DispensaryWorklistDTO.PrescriptionRowDTO row : worklist.getPrescriptions()) {
+            List<String> names = new ArrayList<>();
+            for (String drugId : row.getDrugIds()) {
+                String name = drugNames.get(drugId);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            row.setDrugNames(names);
+        }
+        return worklist;
+    }
+
     /**
      * Updates the status of a prescription.
+     * Only the status field is written; the rest of the document is left untouched.
+     * Completing a prescription dispenses its reserved stock; cancelling or expiring it
+     * returns the reserved stock to the dispensary.
      * 
      * @param id The ID of the prescription to update
      * @param status The new status value
@@ -193,13 +342,67 @@ public class PrescriptionServiceImpl implements PrescriptionService {
      */
     @Override
     public Prescription updatePrescriptionStatus(String id, String status) {
-        Optional<Prescription> prescriptionOpt = prescriptionRepository.findById(id);
-        if (prescriptionOpt.isPresent()) {
-            Prescription prescription = prescriptionOpt.get();
-            prescription.setStatus(status);
-            return prescriptionRepository.save(prescription);
+        Prescription updated = partialUpdateRepository.updateAndGet(Prescription.class, id, new Update().set("status", status))
+                .orElseThrow(() -> new RuntimeException("Prescription not found with id: " + id));
+        
+        if ("completed".equals(status)) {
+            inventoryService.commitReservations(id);
+        } else if ("cancelled".equals(status) || "expired".equals(status)) {
+            inventoryService.releaseReservations(id);
         }
-        throw new RuntimeException("Prescription not found with id: " + id);
+        
+        return updated;
+    }
+
+    /**
+     * Scheduled trigger for {@link #expirePrescriptions()}.
+     * Runs daily at 00:30 HKT (16:30 UTC), after the license key sweep, on the one node
+     * that acquires the job lease.
+     */
+    @Scheduled(cron = "0 30 16 * * ?", zone = "UTC")
+    public void runScheduledExpiry() {
+        scheduledJobLock.runExclusively("prescription-expiry", this::expirePrescriptions);
+    }
+
+    /**
+     * Marks active prescriptions whose validity has ended as expired.
+     * Prescriptions are expired in batches, one multi-document update per batch, with a pause
+     * between batches; the stock reserved for each expired prescription is released.
+     * 
+     * @return The number of prescriptions that were expired
+     */
+    @Override
+    public int expirePrescriptions() {
+        LocalDate today = LocalDate.now();
+        logger.info("Starting scheduled task to expire prescriptions valid until before {}", today);
+        
+        Timer.Sample sample = Timer.start();
+        int expiredCount = 0;
+        try {
+            List<String> batch = prescriptionRepository.expireBatch(today, expiryBatchSize);
+            while (!batch.isEmpty()) {
+                for (String prescriptionId : batch) {
+                    inventoryService.releaseReservations(prescriptionId);
+                }
+                expiredCount += batch.size();
+                prescriptionsExpired.increment(batch.size());
+                
+                // A batch can come back short when some of its prescriptions were completed or
+                // cancelled concurrently, so only an empty batch ends the sweep
+                if (expiryBatchPauseMillis > 0) {
+                    Thread.sleep(expiryBatchPauseMillis);
+                }
+                batch = prescriptionRepository.expireBatch(today, expiryBatchSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Prescription expiry sweep interrupted after {} prescriptions", expiredCount);
+        } finally {
+            sample.stop(expirySweepTimer);
+        }
+        
+        logger.info("Completed prescription expiry sweep. Expired {} prescriptions", expiredCount);
+        return expiredCount;
     }
 
     /**
@@ -260,6 +463,7 @@ public class PrescriptionServiceImpl implements PrescriptionService {
     /**
      * Updates the refill count for a specific item in a prescription.
      * If the new refill count is 0 or less, the item is marked as not refillable.
+     * The count is set in place on the item, without rewriting the rest of the prescription.
      * 
      * @param prescriptionId The ID of the prescription
      * @param prescriptionItemIndex The index of the prescription item to update
@@ -270,24 +474,65 @@ public class PrescriptionServiceImpl implements PrescriptionService {
      */
     @Override
     public Prescription updatePrescriptionRefillCount(String prescriptionId, String prescriptionItemIndex, Integer newRefillCount) {
-        Optional<Prescription> prescriptionOpt = prescriptionRepository.findById(prescriptionId);
-        if (prescriptionOpt.isPresent()) {
-            Prescription prescription = prescriptionOpt.get();
-            int index = Integer.parseInt(prescriptionItemIndex);
-            
-            if (index >= 0 && index < prescription.getPrescriptionItems().size()) {
-                Prescription.PrescriptionItem item = prescription.getPrescriptionItems().get(index);
-                item.setRefillsRemaining(newRefillCount);
-                
-                // If no more refills, update item status
-                if (newRefillCount <= 0) {
-                    item.setRefillable(false);
-                }
-                
-                return prescriptionRepository.save(prescription);
+        int index = Integer.parseInt(prescriptionItemIndex);
+        
+        if (index >= 0) {
+            Optional<Prescription> updated = prescriptionRepository.setRefillsRemaining(prescriptionId, index, newRefillCount);
+            if (updated.isPresent()) {
+                return updated.get();
             }
-            throw new IllegalArgumentException("Invalid prescription item index: " + prescriptionItemIndex);
         }
-        throw new RuntimeException("Prescription not found with id: " + prescriptionId);
+        
+        if (!prescriptionRepository.existsById(prescriptionId)) {
+            throw new RuntimeException("Prescription not found with id: " + prescriptionId);
+        }
+        throw new IllegalArgumentException("Invalid prescription item index: " + prescriptionItemIndex);
+    }
+    
+    /**
+     * Dispenses one refill for each of the given items, e.g. for all items handed out during
+     * one dispensing session. All refill counts are decremented with a single bulk write, each
+     * only while the item still has refills, so two concurrent dispensers cannot use the same refill.
+     * Stock is then taken for the refills that were dispensed; a stock shortfall is logged
+     * but does not undo the refill.
+     * 
+     * @param itemIdsByPrescription Item IDs to refill, grouped by prescription ID; an item listed twice is refilled once
+     * @return The outcome of every requested item, in request order
+     */
+    @Override
+    public List<RefillOutcomeDTO> dispenseRefills(Map<String, List<String>> itemIdsByPrescription) {
+        List<RefillOutcomeDTO> outcomes = new ArrayList<>();
+        if (itemIdsByPrescription == null) {
+            return outcomes;
+        }
+        Map<String, Set<String>> requested = new LinkedHashMap<>();
+        itemIdsByPrescription.forEach((prescriptionId, itemIds) -> {
+            if (prescriptionId != null && itemIds != null) {
+                Set<String> ids = new LinkedHashSet<>(itemIds);
+                ids.remove(null);
+                if (!ids.isEmpty()) {
+                    requested.put(prescriptionId, ids);
+                }
+            }
+        });
+
+        Map<String, Map<String, Prescription.PrescriptionItem>> refilled = prescriptionRepository.dispenseRefills(requested);
+        requested.forEach((prescriptionId, itemIds) -> {
+            Map<String, Prescription.PrescriptionItem> refilledItems = refilled.getOrDefault(prescriptionId, Map.of());
+            for (String itemId : itemIds) {
+                Prescription.PrescriptionItem item = refilledItems.get(itemId);
+                if (item == null) {
+                    outcomes.add(new RefillOutcomeDTO(prescriptionId, itemId, false, null));
+                    continue;
+                }
+                try {
+                    inventoryService.dispenseRefill(prescriptionId, item);
+                } catch (Exception e) {
+                    logger.error("Failed to take stock for a refill of prescription {}: {}", prescriptionId, e.getMessage());
+                }
+                outcomes.add(new RefillOutcomeDTO(prescriptionId, itemId, true, item.getRefillsRemaining()));
+            }
+        });
+        return outcomes;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,472 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.scorppultd.blackeyevalkyriesystem.model.Patient;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalAlert;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalMeasurement;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.VitalAlertRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalAlertService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Implementation of the VitalAlertService interface.
+ * <p>
+ * Limits are read per vital sign from {@code vitals.alerts.thresholds.<type>} as four values:
+ * critical low, warning low, warning high and critical high ("-" for none). Trend rules are read
+ * from {@code vitals.alerts.trend.<type>} as the percentage change against the lowest (for a rise)
+ * or highest (for a drop) value within the trend window.
+ * <p>
+ * This runs for every recorded measurement, including each device reading, so the per-patient
+ * state is kept in primitive arrays: for every vital sign with a trend rule a ring of time slots
+ * holding the minimum and maximum of the slot, sized so that the ring covers the whole window
+ * whatever the reading rate. A measurement that raises no alert allocates nothing here.
+ * The trend windows live in the memory of the node that records the measurement and start
+ * empty after a restart.
+ */
+@Service
+public class VitalAlertServiceImpl implements VitalAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VitalAlertServiceImpl.class);
+
+    private static final List<String> TYPES = VitalsService.VITAL_TYPES;
+    private static final int TEMPERATURE = TYPES.indexOf("temperature");
+    private static final int SYSTOLIC = TYPES.indexOf("systolic");
+    private static final int DIASTOLIC = TYPES.indexOf("diastolic");
+    private static final int HEART_RATE = TYPES.indexOf("heartRate");
+    private static final int RESPIRATORY_RATE = TYPES.indexOf("respiratoryRate");
+    private static final int OXYGEN_SATURATION = TYPES.indexOf("oxygenSaturation");
+    private static final int WEIGHT = TYPES.indexOf("weight");
+    private static final int HEIGHT = TYPES.indexOf("height");
+    private static final int BMI = TYPES.indexOf("bmi");
+
+    private static final Map<String, String> LABELS = Map.of(
+            "temperature", "Temperature",
+            "systolic", "Systolic blood pressure",
+            "diastolic", "Diastolic blood pressure",
+            "heartRate", "Heart rate",
+            "respiratoryRate", "Respiratory rate",
+            "oxygenSaturation", "Oxygen saturation",
+            "weight", "Weight",
+            "height", "Height",
+            "bmi", "BMI");
+
+    private static final byte NORMAL = 0;
+    private static final byte WARNING = 1;
+    private static final byte CRITICAL = 2;
+
+    private final VitalAlertRepository vitalAlertRepository;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final double[] criticalLow = new double[TYPES.size()];
+    private final double[] warningLow = new double[TYPES.size()];
+    private final double[] warningHigh = new double[TYPES.size()];
+    private final double[] criticalHigh = new double[TYPES.size()];
+    private final double[] trendPercent = new double[TYPES.size()];
+
+    private final long windowMillis;
+    private final long slotMillis;
+    private final int slotCount;
+    private final int minTrendSamples;
+    private final long suppressionMillis;
+    private final Map<String, PatientWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new VitalAlertServiceImpl.
+     *
+     * @param vitalAlertRepository Repository for the alerts
+     * @param partialUpdateRepository Repository used to acknowledge alerts
+     * @param mongoTemplate Template used to look up patient names for new alerts
+     * @param meterRegistry Registry for the alert counter
+     * @param environment Environment holding the per vital sign limits and trend rules
+     * @param windowMinutes The length of the trend window
+     * @param slotCount The number of time slots each trend window is divided into
+     * @param minTrendSamples The number of earlier slots with readings a trend needs before it is checked
+     * @param suppressionMinutes How long a repeat of the same alert at the same severity is suppressed
+     */
+    @Autowired
+    public VitalAlertServiceImpl(VitalAlertRepository vitalAlertRepository,
+                                 PartialUpdateRepository partialUpdateRepository,
+                                 MongoTemplate mongoTemplate,
+                                 MeterRegistry meterRegistry,
+                                 Environment environment,
+                                 @Value("${vitals.alerts.trend.window-minutes:60}") long windowMinutes,
+                                 @Value("${vitals.alerts.trend.window-slots:120}") int slotCount,
+                                 @Value("${vitals.alerts.trend.min-samples:3}") int minTrendSamples,
+                                 @Value("${vitals.alerts.repeat-suppression-minutes:15}") long suppressionMinutes) {
+        this.vitalAlertRepository = vitalAlertRepository;
+        this.partialUpdateRepository = partialUpdateRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.windowMillis = Math.max(1, windowMinutes) * 60_000L;
+        this.slotCount = Math.max(2, slotCount);
+        this.slotMillis = Math.max(1, windowMillis / this.slotCount);
+        this.minTrendSamples = Math.max(1, minTrendSamples);
+        this.suppressionMillis = Math.max(0, suppressionMinutes) * 60_000L;
+
+        for (int type = 0; type < TYPES.size(); type++) {
+            String name = TYPES.get(type);
+            String[] limits = environment.getProperty("vitals.alerts.thresholds." + name, "").split(",");
+            criticalLow[type] = parseLimit(limits, 0);
+            warningLow[type] = parseLimit(limits, 1);
+            warningHigh[type] = parseLimit(limits, 2);
+            criticalHigh[type] = parseLimit(limits, 3);
+            trendPercent[type] = parseLimit(new String[] { environment.getProperty("vitals.alerts.trend." + name, "") }, 0);
+        }
+    }
+
+    @Override
+    public int evaluate(VitalMeasurement measurement, String appointmentId) {
+        if (measurement.getPatientId() == null || measurement.getMeasuredAt() == null) {
+            return 0;
+        }
+        long time = measurement.getMeasuredAt().toEpochMilli();
+        PatientWindow window = windows.get(measurement.getPatientId());
+        if (window == null) {
+            PatientWindow created = new PatientWindow(trendPercent, slotCount);
+            window = windows.putIfAbsent(measurement.getPatientId(), created);
+            if (window == null) {
+                window = created;
+            }
+        }
+
+        List<VitalAlert> alerts = null;
+        synchronized (window) {
+            window.lastSeenMillis = System.currentTimeMillis();
+            for (int type = 0; type < TYPES.size(); type++) {
+                double value = valueOf(measurement, type);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                VitalAlert alert = checkThreshold(window, type, value, time);
+                if (alert != null) {
+                    alerts = add(alerts, alert);
+                }
+                TrendRing ring = window.rings[type];
+                if (ring != null) {
+                    alert = checkTrend(window, ring, type, value, time);
+                    if (alert != null) {
+                        alerts = add(alerts, alert);
+                    }
+                    ring.add(time, (float) value, slotMillis);
+                }
+            }
+        }
+
+        if (alerts == null) {
+            return 0;
+        }
+        saveAlerts(alerts, measurement, appointmentId);
+        return alerts.size();
+    }
+
+    @Override
+    public List<VitalAlert> getOpenAlerts(int limit) {
+        return vitalAlertRepository.findByAcknowledgedFalseOrderByMeasuredAtDesc(PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    @Override
+    public List<VitalAlert> getOpenAlerts(Collection<String> patientIds, int limit) {
+        if (patientIds.isEmpty()) {
+            return List.of();
+        }
+        return vitalAlertRepository.findByAcknowledgedFalseAndPatientIdInOrderByMeasuredAtDesc(
+                patientIds, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    @Override
+    public List<VitalAlert> getPatientAlerts(String patientId, int limit) {
+        return vitalAlertRepository.findByPatientIdOrderByMeasuredAtDesc(patientId, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    @Override
+    public Optional<VitalAlert> acknowledge(String id, String username) {
+        return partialUpdateRepository.updateAndGet(VitalAlert.class, id, new Update()
+                .set("acknowledged", true)
+                .set("acknowledgedBy", username)
+                .set("acknowledgedAt", LocalDateTime.now()));
+    }
+
+    /**
+     * Drops the trend windows of patients without a measurement for longer than the window.
+     * The windows are local to this node, so every node sweeps its own.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    public void evictIdleWindows() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        windows.values().removeIf(window -> window.lastSeenMillis < cutoff);
+    }
+
+    private VitalAlert checkThreshold(PatientWindow window, int type, double value, long time) {
+        byte level = NORMAL;
+        double limit = Double.NaN;
+        if (value < criticalLow[type]) {
+            level = CRITICAL;
+            limit = criticalLow[type];
+        } else if (value > criticalHigh[type]) {
+            level = CRITICAL;
+            limit = criticalHigh[type];
+        } else if (value < warningLow[type]) {
+            level = WARNING;
+            limit = warningLow[type];
+        } else if (value > warningHigh[type]) {
+            level = WARNING;
+            limit = warningHigh[type];
+        }
+        if (level == NORMAL || !window.shouldAlert(type * 2, level, time, suppressionMillis)) {
+            return null;
+        }
+        String direction = value < limit ? "below" : "above";
+        String severity = level == CRITICAL ? VitalAlert.Severity.CRITICAL : VitalAlert.Severity.WARNING;
+        return newAlert(type, VitalAlert.Rule.THRESHOLD, severity, value, limit,
+                LABELS.get(TYPES.get(type)) + " " + format(value) + " is " + direction + " the "
+                        + severity + " limit of " + format(limit));
+    }
+
+    private VitalAlert checkTrend(PatientWindow window, TrendRing ring, int type, double value, long time) {
+        long from = time - windowMillis;
+        if (ring.countSince(from) < minTrendSamples) {
+            return null;
+        }
+        double percent = trendPercent[type];
+        double baseline = percent > 0 ? ring.lowestSince(from) : ring.highestSince(from);
+        if (!(baseline > 0)) {
+            return null;
+        }
+        double change = (value - baseline) / baseline * 100.0;
+        boolean triggered = percent > 0 ? change >= percent : change <= percent;
+        if (!triggered || !window.shouldAlert(type * 2 + 1, WARNING, time, suppressionMillis)) {
+            return null;
+        }
+        return newAlert(type, VitalAlert.Rule.TREND, VitalAlert.Severity.WARNING, value, baseline,
+                LABELS.get(TYPES.get(type)) + (change > 0 ? " up " : " down ") + Math.round(Math.abs(change))
+                        + "% within " + windowMillis / 60_000 + " min (from " + format(baseline) + " to " + format(value) + ")");
+    }
+
+    private VitalAlert newAlert(int type, String rule, String severity, double value, double limit, String message) {
+        return VitalAlert.builder()
+                .vitalType(TYPES.get(type))
+                .rule(rule)
+                .severity(severity)
+                .value(value)
+                .limit(limit)
+                .message(message)
+                .build();
+    }
+
+    private void saveAlerts(List<VitalAlert> alerts, VitalMeasurement measurement, String appointmentId) {
+        String patientName = findPatientName(measurement.getPatientId());
+        LocalDateTime measuredAt = LocalDateTime.ofInstant(measurement.getMeasuredAt(), ZoneId.systemDefault());
+        LocalDateTime now = LocalDateTime.now();
+        for (VitalAlert alert : alerts) {
+            alert.setPatientId(measurement.getPatientId());
+            alert.setPatientName(patientName);
+            alert.setAppointmentId(appointmentId);
+            alert.setSource(measurement.getSource());
+            alert.setMeasuredAt(measuredAt);
+            alert.setCreatedAt(now);
+            meterRegistry.counter("vitals.alerts", "type", alert.getVitalType(), "rule", alert.getRule(),
+                    "severity", alert.getSeverity()).increment();
+        }
+        try {
+            vitalAlertRepository.saveAll(alerts);
+        } catch (RuntimeException e) {
+            logger.error("Failed to save {} vital alerts for patient {}: {}", alerts.size(), measurement.getPatientId(), e.getMessage());
+        }
+        logger.info("Raised {} vital alerts for patient {}", alerts.size(), measurement.getPatientId());
+    }
+
+    private String findPatientName(String patientId) {
+        try {
+            Query query = new Query(Criteria.where("id").is(patientId));
+            query.fields().include("firstName").include("lastName");
+            Patient patient = mongoTemplate.findOne(query, Patient.class);
+            return patient != null ? patient.getFirstName() + " " + patient.getLastName() : null;
+        } catch (RuntimeException e) {
+            logger.warn("Could not look up patient {} for a vital alert: {}", patientId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<VitalAlert> add(List<VitalAlert> alerts, VitalAlert alert) {
+        List<VitalAlert> list = alerts != null ? alerts : new ArrayList<>(2);
+        list.add(alert);
+        return list;
+    }
+
+    private static double valueOf(VitalMeasurement measurement, int type) {
+        Number value;
+        if (type == TEMPERATURE) {
+            value = measurement.getTemperature();
+        } else if (type == SYSTOLIC) {
+            value = measurement.getSystolic();
+        } else if (type == DIASTOLIC) {
+            value = measurement.getDiastolic();
+        } else if (type == HEART_RATE) {
+            value = measurement.getHeartRate();
+        } else if (type == RESPIRATORY_RATE) {
+            value = measurement.getRespiratoryRate();
+        } else if (type == OXYGEN_SATURATION) {
+            value = measurement.getOxygenSaturation();
+        } else if (type == WEIGHT) {
+            value = measurement.getWeight();
+        } else if (type == HEIGHT) {
+            value = measurement.getHeight();
+        } else if (type == BMI) {
+            value = measurement.getBmi();
+        } else {
+            value = null;
+        }
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Parses one configured limit; a missing, blank or "-" entry disables it.
+     */
+    private static double parseLimit(String[] limits, int index) {
+        if (index >= limits.length) {
+            return Double.NaN;
+        }
+        String limit = limits[index].trim();
+        if (limit.isEmpty() || limit.equals("-")) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(limit);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid vital alert limit: {}", limit);
+            return Double.NaN;
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(Math.round(value * 10.0) / 10.0);
+    }
+
+    /**
+     * Alert state of one patient: the trend rings and, for the threshold and trend rule of each
+     * vital sign, when it last raised an alert and at which severity.
+     */
+    private static final class PatientWindow {
+        private final TrendRing[] rings;
+        private final long[] lastAlertAt;
+        private final byte[] lastAlertLevel;
+        private volatile long lastSeenMillis;
+
+        private PatientWindow(double[] trendPercent, int slotCount) {
+            rings = new TrendRing[trendPercent.length];
+            for (int type = 0; type < trendPercent.length; type++) {
+                if (!Double.isNaN(trendPercent[type]) && trendPercent[type] != 0) {
+                    rings[type] = new TrendRing(slotCount);
+                }
+            }
+            lastAlertAt = new long[trendPercent.length * 2];
+            lastAlertLevel = new byte[trendPercent.length * 2];
+            Arrays.fill(lastAlertAt, Long.MIN_VALUE);
+        }
+
+        /**
+         * Decides whether a rule breach is reported, and records it if so. A breach is reported
+         * if the rule has not alerted within the suppression time, or if its severity rose.
+         */
+        private boolean shouldAlert(int rule, byte level, long time, long suppressionMillis) {
+            boolean suppressed = lastAlertAt[rule] != Long.MIN_VALUE
+                    && time - lastAlertAt[rule] < suppressionMillis
+                    && level <= lastAlertLevel[rule];
+            if (suppressed) {
+                return false;
+            }
+            lastAlertAt[rule] = time;
+            lastAlertLevel[rule] = level;
+            return true;
+        }
+    }
+
+    /**
+     * Fixed-size ring of time slots holding the lowest and highest value measured in each slot.
+     * Readings closer together than the slot length share a slot, so the ring covers the same
+     * span of time whether a patient is measured once an hour or every few seconds.
+     */
+    private static final class TrendRing {
+        private final long[] slotStart;
+        private final float[] min;
+        private final float[] max;
+        private int head = -1;
+        private int size;
+
+        private TrendRing(int slots) {
+            slotStart = new long[slots];
+            min = new float[slots];
+            max = new float[slots];
+        }
+
+        private void add(long time, float value, long slotMillis) {
+            if (size > 0 && time - slotStart[head] < slotMillis) {
+                min[head] = Math.min(min[head], value);
+                max[head] = Math.max(max[head], value);
+                return;
+            }
+            head = (head + 1) % slotStart.length;
+            slotStart[head] = time;
+            min[head] = value;
+            max[head] = value;
+            if (size < slotStart.length) {
+                size++;
+            }
+        }
+
+        private int countSince(long from) {
+            int count = 0;
+            for (int i = 0, slot = head; i < size && slotStart[slot] >= from; i++, slot = previous(slot)) {
+                count++;
+            }
+            return count;
+        }
+
+        private double lowestSince(long from) {
+            float lowest = Float.POSITIVE_INFINITY;
+            for (int i = 0, slot = head; i < size && slotStart[slot] >= from; i++, slot = previous(slot)) {
+                lowest = Math.min(lowest, min[slot]);
+            }
+            return lowest;
+        }
+
+        private double highestSince(long from) {
+            float highest = Float.NEGATIVE_INFINITY;
+            for (int i = 0, slot = head; i < size && slotStart[slot] >= from; i++, slot = previous(slot)) {
+                highest = Math.max(highest, max[slot]);
+            }
+            return highest;
+        }
+
+        private int previous(int slot) {
+            return slot == 0 ? slotStart.length - 1 : slot - 1;
+        }
+    }
+}
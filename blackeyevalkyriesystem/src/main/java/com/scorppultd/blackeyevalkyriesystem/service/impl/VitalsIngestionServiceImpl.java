@@ -0,0 +1,427 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.DeviceVitalsReadingDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalMeasurement;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalAlertService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsIngestionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of the VitalsIngestionService interface.
+ * Accepted readings go into a bounded in-memory queue that a single writer thread empties.
+ * The writer collects readings until it has a full batch or the flush interval has passed since
+ * the first one, then inserts the whole batch into the vitals collection with one insertMany.
+ * The latest-vitals snapshot of each appointment in the batch is then set once, from its newest
+ * reading, with one unordered bulk write for all appointments. A snapshot is only set on the
+ * appointment of the reading's patient, and only if the appointment's vitals were not measured
+ * later. The written readings are then handed to a single alert thread that checks them for
+ * abnormal values in the order they were written, so neither request threads nor the writer wait
+ * for the checks. When the alert thread falls a full backlog of batches behind, the writer waits
+ * for room rather than dropping the checks.
+ * <p>
+ * A batch that fails to insert is retried with a growing pause, starting after the readings
+ * already written. Readings still not written after the last attempt are kept in the
+ * vitals_dead_letter collection so they can be replayed, since the devices were told they were accepted.
+ * Readings still queued when a node stops are written before shutdown completes; readings of a
+ * node that crashes are lost, as devices resend at their next interval anyway.
+ */
+@Service
+public class VitalsIngestionServiceImpl implements VitalsIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VitalsIngestionServiceImpl.class);
+
+    private static final String DEAD_LETTER_COLLECTION = "vitals_dead_letter";
+    private static final long RETRY_BASE_DELAY_MILLIS = 200;
+    private static final long RETRY_MAX_DELAY_MILLIS = 5_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final VitalAlertService vitalAlertService;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<DeviceVitalsReadingDTO> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxReadingsPerRequest;
+    private final int maxWriteAttempts;
+    private final Object submitLock = new Object();
+
+    private volatile boolean running;
+    private Thread writer;
+    private final ThreadPoolExecutor alertEvaluator;
+
+    /**
+     * Constructs a new VitalsIngestionServiceImpl.
+     *
+     * @param mongoTemplate Template used to write the readings and appointment snapshots
+     * @param vitalAlertService Service checking the written readings for abnormal values
+     * @param meterRegistry Registry for the ingestion metrics
+     * @param queueCapacity The number of readings that can wait to be written
+     * @param batchSize The largest number of readings written with one insert
+     * @param flushIntervalMillis The longest time a reading waits for its batch to fill
+     * @param maxReadingsPerRequest The largest number of readings accepted in one request
+     * @param maxWriteAttempts How often a batch is tried before its readings go to the dead letter collection
+     */
+    @Autowired
+    public VitalsIngestionServiceImpl(MongoTemplate mongoTemplate,
+                                      VitalAlertService vitalAlertService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${vitals.ingest.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${vitals.ingest.batch-size:500}") int batchSize,
+                                      @Value("${vitals.ingest.flush-interval-ms:1000}") long flushIntervalMillis,
+                                      @Value("${vitals.ingest.max-readings-per-request:1000}") int maxReadingsPerRequest,
+                                      @Value("${vitals.ingest.max-write-attempts:5}") int maxWriteAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        this.vitalAlertService = vitalAlertService;
+        this.meterRegistry = meterRegistry;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.maxReadingsPerRequest = Math.max(1, Math.min(maxReadingsPerRequest, queueCapacity));
+        this.maxWriteAttempts = Math.max(1, maxWriteAttempts);
+        this.alertEvaluator = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity / this.batchSize)),
+                task -> {
+                    Thread thread = new Thread(task, "vitals-alert-evaluator");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                VitalsIngestionServiceImpl::awaitAlertRoom);
+    }
+
+    /**
+     * Starts the writer thread and registers the queue size gauges.
+     */
+    @PostConstruct
+    public void start() {
+        meterRegistry.gauge("vitals.ingest.queue", queue, BlockingQueue::size);
+        meterRegistry.gauge("vitals.ingest.alert_queue", alertEvaluator.getQueue(), BlockingQueue::size);
+        running = true;
+        writer = new Thread(this::runWriter, "vitals-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting readings and waits for the writer to write the ones still queued, then for
+     * the alert thread to check them.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            // The writer polls with the flush interval as timeout, so it notices the stop soon
+            writer.join(flushIntervalMillis * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("Discarding {} vitals readings that could not be written before shutdown", queue.size());
+        }
+        alertEvaluator.shutdown();
+        try {
+            if (!alertEvaluator.awaitTermination(flushIntervalMillis * 10, TimeUnit.MILLISECONDS)) {
+                logger.warn("Stopped before {} batches of vitals readings were checked for alerts",
+                        alertEvaluator.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            alertEvaluator.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean submit(List<DeviceVitalsReadingDTO> readings) {
+        if (readings == null || readings.isEmpty()) {
+            return true;
+        }
+        if (readings.size() > maxReadingsPerRequest) {
+            throw new IllegalArgumentException("At most " + maxReadingsPerRequest + " readings can be sent at once");
+        }
+        Instant receivedAt = Instant.now();
+        for (int i = 0; i < readings.size(); i++) {
+            DeviceVitalsReadingDTO reading = readings.get(i);
+            if (reading == null || reading.getPatientId() == null || reading.getPatientId().isBlank()) {
+                throw new IllegalArgumentException("Reading " + i + " has no patient ID");
+            }
+            if (!reading.hasAnyValue()) {
+                throw new IllegalArgumentException("Reading " + i + " has no vital sign values");
+            }
+            if (reading.getMeasuredAt() == null) {
+                reading.setMeasuredAt(receivedAt);
+            }
+        }
+
+        if (!running) {
+            return false;
+        }
+        // Only the writer removes readings, so room checked under the lock cannot shrink before the offers
+        synchronized (submitLock) {
+            if (queue.remainingCapacity() < readings.size()) {
+                meterRegistry.counter("vitals.ingest.readings", "outcome", "rejected").increment(readings.size());
+                return false;
+            }
+            for (DeviceVitalsReadingDTO reading : readings) {
+                queue.offer(reading);
+            }
+        }
+        meterRegistry.counter("vitals.ingest.readings", "outcome", "accepted").increment(readings.size());
+        return true;
+    }
+
+    @Override
+    public int getMaxReadingsPerRequest() {
+        return maxReadingsPerRequest;
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<DeviceVitalsReadingDTO> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DeviceVitalsReadingDTO first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    DeviceVitalsReadingDTO next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                flush(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Vitals ingestion writer failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of readings and updates the latest-vitals snapshot of their appointments.
+     */
+    private void flush(List<DeviceVitalsReadingDTO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<VitalMeasurement> measurements = new ArrayList<>(batch.size());
+        for (DeviceVitalsReadingDTO reading : batch) {
+            measurements.add(toMeasurement(reading));
+        }
+
+        int written = insert(measurements);
+        if (written < measurements.size()) {
+            deadLetter(measurements.subList(written, measurements.size()));
+        }
+        if (written == 0) {
+            sample.stop(meterRegistry.timer("vitals.ingest.flush", "outcome", "failure"));
+            return;
+        }
+
+        Map<SnapshotKey, DeviceVitalsReadingDTO> latestByAppointment = new HashMap<>();
+        for (DeviceVitalsReadingDTO reading : batch.subList(0, written)) {
+            if (reading.getAppointmentId() != null) {
+                latestByAppointment.merge(new SnapshotKey(reading.getAppointmentId(), reading.getPatientId()), reading,
+                        (current, candidate) -> candidate.getMeasuredAt().isBefore(current.getMeasuredAt()) ? current : candidate);
+            }
+        }
+        if (!latestByAppointment.isEmpty()) {
+            try {
+                updateSnapshots(latestByAppointment);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update the vitals of {} appointments: {}", latestByAppointment.size(), e.getMessage());
+            }
+        }
+        List<VitalMeasurement> writtenMeasurements = new ArrayList<>(measurements.subList(0, written));
+        List<String> appointmentIds = new ArrayList<>(written);
+        for (DeviceVitalsReadingDTO reading : batch.subList(0, written)) {
+            appointmentIds.add(reading.getAppointmentId());
+        }
+        alertEvaluator.execute(() -> evaluateAlerts(writtenMeasurements, appointmentIds));
+        sample.stop(meterRegistry.timer("vitals.ingest.flush", "outcome", written == batch.size() ? "success" : "partial"));
+        logger.debug("Wrote {} vitals readings for {} appointments", written, latestByAppointment.size());
+    }
+
+    /**
+     * Checks written readings for abnormal values, on the alert thread.
+     */
+    private void evaluateAlerts(List<VitalMeasurement> measurements, List<String> appointmentIds) {
+        for (int i = 0; i < measurements.size(); i++) {
+            try {
+                vitalAlertService.evaluate(measurements.get(i), appointmentIds.get(i));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to check vitals reading for alerts: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Makes the writer wait for room in the alert backlog, so checks are neither dropped nor run
+     * out of order on the writer thread.
+     */
+    private static void awaitAlertRoom(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            logger.warn("Skipped alert checks for a batch of vitals readings written during shutdown");
+            return;
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Inserts the measurements in order, retrying after a failure from the first one not yet written.
+     *
+     * @return The number of measurements written, counted from the start of the list
+     */
+    private int insert(List<VitalMeasurement> measurements) {
+        int written = 0;
+        for (int attempt = 1; ; attempt++) {
+            List<VitalMeasurement> remaining = measurements.subList(written, measurements.size());
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, VitalMeasurement.class)
+                        .insert(remaining)
+                        .execute();
+                return measurements.size();
+            } catch (BulkOperationException e) {
+                // An ordered insert stops at the first failing reading; the ones before it are written
+                written += e.getResult().getInsertedCount();
+                logger.warn("Failed to write {} of {} vitals readings (attempt {} of {}): {}",
+                        remaining.size() - e.getResult().getInsertedCount(), measurements.size(),
+                        attempt, maxWriteAttempts, e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write {} vitals readings (attempt {} of {}): {}",
+                        remaining.size(), attempt, maxWriteAttempts, e.getMessage());
+            }
+            if (attempt >= maxWriteAttempts || written == measurements.size()) {
+                return written;
+            }
+            meterRegistry.counter("vitals.ingest.write_retries").increment();
+            try {
+                Thread.sleep(Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << (attempt - 1)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return written;
+            }
+        }
+    }
+
+    /**
+     * Keeps readings that could not be written in the dead letter collection, or logs them as lost
+     * if that fails too.
+     */
+    private void deadLetter(List<VitalMeasurement> measurements) {
+        try {
+            mongoTemplate.insert(measurements, DEAD_LETTER_COLLECTION);
+            meterRegistry.counter("vitals.ingest.readings", "outcome", "dead_letter").increment(measurements.size());
+            logger.error("Moved {} vitals readings that could not be written to {}", measurements.size(), DEAD_LETTER_COLLECTION);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("vitals.ingest.readings", "outcome", "failed").increment(measurements.size());
+            logger.error("Lost {} vitals readings that could not be written: {}", measurements.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the values of each appointment's newest reading on its vital signs, one update per appointment.
+     * Values the reading does not hold keep what was entered before. The update only matches the
+     * appointment if it belongs to the reading's patient and its vitals were not measured later.
+     */
+    private void updateSnapshots(Map<SnapshotKey, DeviceVitalsReadingDTO> latestByAppointment) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Appointment.class);
+        for (Map.Entry<SnapshotKey, DeviceVitalsReadingDTO> entry : latestByAppointment.entrySet()) {
+            DeviceVitalsReadingDTO reading = entry.getValue();
+            Update update = new Update().set("vitalSigns.measuredAt", reading.getMeasuredAt());
+            setIfPresent(update, "vitalSigns.temperature", reading.getTemperature());
+            setIfPresent(update, "vitalSigns.highBloodPressure", reading.getSystolic());
+            setIfPresent(update, "vitalSigns.lowBloodPressure", reading.getDiastolic());
+            setIfPresent(update, "vitalSigns.heartRate", reading.getHeartRate());
+            setIfPresent(update, "vitalSigns.respiratoryRate", reading.getRespiratoryRate());
+            setIfPresent(update, "vitalSigns.oxygenSaturation", reading.getOxygenSaturation());
+            Query query = new Query(Criteria.where("_id").is(entry.getKey().appointmentId())
+                    .and("patient.$id").is(toIdValue(entry.getKey().patientId()))
+                    .and("vitalSigns.measuredAt").not().gte(reading.getMeasuredAt()));
+            bulk.updateOne(query, update);
+        }
+        bulk.execute();
+    }
+
+    private static Object toIdValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * The appointment a reading's snapshot is set on, with the patient the reading was taken from.
+     */
+    private record SnapshotKey(String appointmentId, String patientId) {
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+
+    private static VitalMeasurement toMeasurement(DeviceVitalsReadingDTO reading) {
+        return VitalMeasurement.builder()
+                .patientId(reading.getPatientId())
+                .measuredAt(reading.getMeasuredAt())
+                .source("device")
+                .sourceId(reading.getDeviceId())
+                .temperature(reading.getTemperature())
+                .systolic(reading.getSystolic())
+                .diastolic(reading.getDiastolic())
+                .heartRate(reading.getHeartRate())
+                .respiratoryRate(reading.getRespiratoryRate())
+                .oxygenSaturation(reading.getOxygenSaturation())
+                .build();
+    }
+}
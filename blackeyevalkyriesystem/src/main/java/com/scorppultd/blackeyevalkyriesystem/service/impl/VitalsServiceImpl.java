@@ -0,0 +1,272 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.VitalsHistoryPointDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Appointment;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.VitalMeasurement;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalAlertService;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsService;
+
+/**
+ * Implementation of the VitalsService interface.
+ * Measurements are appended to the vitals time-series collection with one insert each. A history
+ * request first reads up to maxPoints + 1 measurements of the requested type; only if there are
+ * more is the range summarised with a single aggregation that groups the measurements into
+ * equal time buckets in the database. Every recorded measurement is checked for abnormal values.
+ */
+@Service
+public class VitalsServiceImpl implements VitalsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VitalsServiceImpl.class);
+
+    private static final String MEASURED_AT = "measuredAt";
+    private static final String PATIENT_ID = "patientId";
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final MongoTemplate mongoTemplate;
+    private final VitalAlertService vitalAlertService;
+
+    /**
+     * Constructs a new VitalsServiceImpl.
+     *
+     * @param mongoTemplate Template used to write and aggregate the measurements
+     * @param vitalAlertService Service checking recorded measurements for abnormal values
+     */
+    @Autowired
+    public VitalsServiceImpl(MongoTemplate mongoTemplate, VitalAlertService vitalAlertService) {
+        this.mongoTemplate = mongoTemplate;
+        this.vitalAlertService = vitalAlertService;
+    }
+
+    /**
+     * Creates the vitals collection as a time-series collection once the application has started,
+     * before measurements are written. An insert into a missing collection would create a regular
+     * collection instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCollection() {
+        try {
+            if (!mongoTemplate.collectionExists(VitalMeasurement.class)) {
+                mongoTemplate.createCollection(VitalMeasurement.class);
+                logger.info("Created vitals time-series collection");
+            }
+            mongoTemplate.indexOps(VitalMeasurement.class).ensureIndex(new Index()
+                    .on(PATIENT_ID, Sort.Direction.ASC)
+                    .on(MEASURED_AT, Sort.Direction.DESC)
+                    .named("patient_measured_at_idx"));
+        } catch (RuntimeException e) {
+            // Another node may have created the collection at the same time, or MongoDB is not reachable yet
+            logger.warn("Could not prepare the vitals collection: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordAppointmentVitals(Appointment appointment) {
+        Appointment.VitalSigns vitals = appointment.getVitalSigns();
+        if (vitals == null || appointment.getPatient() == null) {
+            return;
+        }
+        VitalMeasurement measurement = VitalMeasurement.builder()
+                .patientId(appointment.getPatient().getId())
+                .measuredAt(Instant.now())
+                .source("appointment")
+                .sourceId(appointment.getId())
+                .doctorName(appointment.getDoctorName())
+                .temperature(vitals.getTemperature())
+                .systolic(vitals.getHighBloodPressure())
+                .diastolic(vitals.getLowBloodPressure())
+                .heartRate(vitals.getHeartRate())
+                .respiratoryRate(vitals.getRespiratoryRate())
+                .oxygenSaturation(vitals.getOxygenSaturation())
+                .weight(vitals.getWeight())
+                .height(vitals.getHeight())
+                .bmi(vitals.getBmi())
+                .build();
+        insertIfAnyValue(measurement, appointment.getId());
+    }
+
+    @Override
+    public void recordConsultationVitals(Consultation consultation) {
+        Consultation.VitalSigns vitals = consultation.getVitalSigns();
+        if (vitals == null || consultation.getPatient() == null) {
+            return;
+        }
+        Integer[] bloodPressure = parseBloodPressure(vitals.getBloodPressure());
+        String doctorName = consultation.getDoctor() != null
+                ? consultation.getDoctor().getFirstName() + " " + consultation.getDoctor().getLastName()
+                : null;
+        VitalMeasurement measurement = VitalMeasurement.builder()
+                .patientId(consultation.getPatient().getId())
+                .measuredAt(Instant.now())
+                .source("consultation")
+                .sourceId(consultation.getId())
+                .doctorName(doctorName)
+                .temperature(vitals.getTemperature())
+                .systolic(bloodPressure[0])
+                .diastolic(bloodPressure[1])
+                .heartRate(vitals.getHeartRate())
+                .respiratoryRate(vitals.getRespiratoryRate())
+                .oxygenSaturation(vitals.getOxygenSaturation())
+                .weight(vitals.getWeight())
+                .height(vitals.getHeight())
+                .bmi(vitals.getBmi())
+                .build();
+        insertIfAnyValue(measurement, consultation.getAppointmentId());
+    }
+
+    @Override
+    public List<VitalsHistoryPointDTO> getHistory(String patientId, String type, LocalDate from, LocalDate to, int maxPoints) {
+        if (!VITAL_TYPES.contains(type)) {
+            throw new IllegalArgumentException("Unknown vital sign type: " + type);
+        }
+        int limit = Math.max(2, maxPoints);
+        Criteria criteria = rangeCriteria(patientId, type, from, to);
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, MEASURED_AT))
+                .limit(limit + 1);
+        query.fields().include(MEASURED_AT).include(type).include("doctorName");
+        List<Document> measurements = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(VitalMeasurement.class));
+
+        if (measurements.size() <= limit) {
+            List<VitalsHistoryPointDTO> points = new ArrayList<>(measurements.size());
+            for (Document measurement : measurements) {
+                double value = ((Number) measurement.get(type)).doubleValue();
+                LocalDateTime measuredAt = toLocal(measurement.getDate(MEASURED_AT).getTime());
+                points.add(new VitalsHistoryPointDTO(measuredAt.truncatedTo(ChronoUnit.MINUTES).toString(),
+                        value, value, value, 1, measurement.getString("doctorName")));
+            }
+            return points;
+        }
+
+        long start = from != null ? toMillis(from) : measurements.get(0).getDate(MEASURED_AT).getTime();
+        long end = to != null ? toMillis(to.plusDays(1)) : lastMeasurementMillis(patientId, type) + 1;
+        return downsample(criteria, type, start, end, limit);
+    }
+
+    /**
+     * Summarises the measurements of the range into at most maxPoints equal time buckets of whole hours.
+     */
+    private List<VitalsHistoryPointDTO> downsample(Criteria criteria, String type, long start, long end, int maxPoints) {
+        long span = Math.max(1, end - start);
+        long bucketMillis = Math.max(HOUR_MILLIS, ((span + maxPoints - 1) / maxPoints + HOUR_MILLIS - 1) / HOUR_MILLIS * HOUR_MILLIS);
+
+        Document measuredAtMillis = new Document("$toLong", "$" + MEASURED_AT);
+        Document bucketStart = new Document("$subtract", List.of(measuredAtMillis,
+                new Document("$mod", List.of(new Document("$subtract", List.of(measuredAtMillis, start)), bucketMillis))));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Query(criteria).getQueryObject()),
+                new Document("$group", new Document("_id", bucketStart)
+                        .append("min", new Document("$min", "$" + type))
+                        .append("max", new Document("$max", "$" + type))
+                        .append("avg", new Document("$avg", "$" + type))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$sort", new Document("_id", 1)));
+
+        // The range criteria hold java.util.Date values, so the match stage can be sent as is
+        List<VitalsHistoryPointDTO> points = new ArrayList<>();
+        for (Document bucket : mongoTemplate.getCollection(mongoTemplate.getCollectionName(VitalMeasurement.class))
+                .aggregate(pipeline)) {
+            LocalDateTime bucketTime = toLocal(((Number) bucket.get("_id")).longValue());
+            String date = bucketMillis >= DAY_MILLIS
+                    ? bucketTime.toLocalDate().toString()
+                    : bucketTime.truncatedTo(ChronoUnit.MINUTES).toString();
+            points.add(new VitalsHistoryPointDTO(date,
+                    Math.round(((Number) bucket.get("avg")).doubleValue() * 10.0) / 10.0,
+                    ((Number) bucket.get("min")).doubleValue(),
+                    ((Number) bucket.get("max")).doubleValue(),
+                    ((Number) bucket.get("count")).longValue(),
+                    null));
+        }
+        return points;
+    }
+
+    private Criteria rangeCriteria(String patientId, String type, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where(PATIENT_ID).is(patientId).and(type).ne(null);
+        if (from != null && to != null) {
+            criteria = criteria.and(MEASURED_AT).gte(new Date(toMillis(from))).lt(new Date(toMillis(to.plusDays(1))));
+        } else if (from != null) {
+            criteria = criteria.and(MEASURED_AT).gte(new Date(toMillis(from)));
+        } else if (to != null) {
+            criteria = criteria.and(MEASURED_AT).lt(new Date(toMillis(to.plusDays(1))));
+        }
+        return criteria;
+    }
+
+    private long lastMeasurementMillis(String patientId, String type) {
+        Query query = new Query(Criteria.where(PATIENT_ID).is(patientId).and(type).ne(null))
+                .with(Sort.by(Sort.Direction.DESC, MEASURED_AT))
+                .limit(1);
+        query.fields().include(MEASURED_AT);
+        Document last = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(VitalMeasurement.class));
+        return last != null ? last.getDate(MEASURED_AT).getTime() : System.currentTimeMillis();
+    }
+
+    private void insertIfAnyValue(VitalMeasurement measurement, String appointmentId) {
+        if (measurement.getPatientId() == null) {
+            return;
+        }
+        if (measurement.getTemperature() == null && measurement.getSystolic() == null
+                && measurement.getDiastolic() == null && measurement.getHeartRate() == null
+                && measurement.getRespiratoryRate() == null && measurement.getOxygenSaturation() == null
+                && measurement.getWeight() == null && measurement.getHeight() == null) {
+            return;
+        }
+        mongoTemplate.insert(measurement);
+        vitalAlertService.evaluate(measurement, appointmentId);
+    }
+
+    /**
+     * Parses a blood pressure entered as "systolic/diastolic".
+     *
+     * @return The systolic and diastolic values; either may be null
+     */
+    private Integer[] parseBloodPressure(String bloodPressure) {
+        Integer[] values = new Integer[2];
+        if (bloodPressure == null) {
+            return values;
+        }
+        String[] parts = bloodPressure.trim().split("\\s*/\\s*");
+        for (int i = 0; i < Math.min(2, parts.length); i++) {
+            try {
+                values[i] = Integer.valueOf(parts[i]);
+            } catch (NumberFormatException e) {
+                values[i] = null;
+            }
+        }
+        return values;
+    }
+
+    private static long toMillis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -55,7 +55,7 @@ document.addEventListener('DOMContentLoaded', function() {
 
     // Initialize patient search
     initializeSearch('#patientSearch', '/api/patients/search', function(item) {
-        return `${item.firstName} ${item.lastName} (${item.idNumber})`;
+        return `${item.firstName} ${item.lastName} (${item.dateOfBirth || item.contactNumber || 'N/A'})`;
     }, function(item) {
         document.getElementById('patientId').value = item.id;
         document.getElementById('patientName').value = `${item.firstName} ${item.lastName}`;
@@ -173,17 +173,17 @@ function initializeSearch(inputSelector, searchUrl, formatResult, onSelect) {
  * Shows patient details like ID number, birth date, gender, and contact information.
  * 
  * @param {Object} patient - The patient object containing personal details
- * @param {string} patient.idNumber - Patient's identification number
+ * @param {string} patient.id - Patient's identifier
  * @param {string} patient.dateOfBirth - Patient's date of birth
- * @param {string} patient.gender - Patient's gender
- * @param {string} patient.phoneNumber - Patient's contact number
+ * @param {boolean} patient.sex - Patient's sex (true for male)
+ * @param {string} patient.contactNumber - Patient's contact number
  */
 function displayPatientInfo(patient) {
     const infoContainer = document.getElementById('patientInfo');
     infoContainer.innerHTML = `
         <div class="info-row">
             <div class="info-label">ID Number:</div>
-            <div>${patient.idNumber || 'N/A'}</div>
+            <div>${patient.id || 'N/A'}</div>
         </div>
         <div class="info-row">
             <div class="info-label">Birth Date:</div>
@@ -191,11 +191,11 @@ function displayPatientInfo(patient) {
         </div>
         <div class="info-row">
             <div class="info-label">Gender:</div>
-            <div>${patient.gender || 'N/A'}</div>
+            <div>${patient.sex == null ? 'N/A' : (patient.sex ? 'Male' : 'Female')}</div>
         </div>
         <div class="info-row">
             <div class="info-label">Contact:</div>
-            <div>${patient.phoneNumber || 'N/A'}</div>
+            <div>${patient.contactNumber || 'N/A'}</div>
         </div>
     `;
     infoContainer.classList.add('visible');
@@ -1486,6 +1486,22 @@ function fetchPatientVitalsHistory(patientId, vitalType) {
         });
 }
 
+/**
+ * Reads the value of a vital sign from a history item.
+ * Items from the vitals history endpoint carry the value (the bucket average for long ranges),
+ * items collected from the page carry height and weight.
+ * 
+ * @param {Object} item - The history item
+ * @param {string} vitalType - The type of vital sign ('height' or 'weight')
+ * @returns {*} The value of the vital sign
+ */
+function vitalValue(item, vitalType) {
+    if (item.value !== undefined && item.value !== null) {
+        return item.value;
+    }
+    return vitalType === 'height' ? item.height : item.weight;
+}
+
 /**
  * Collects vital sign data from the past consultations table on the page.
  * Extracts height and weight data from the data attributes of consultation rows.
@@ -1554,7 +1570,7 @@ function displayVitalsHistory(data, vitalType) {
     
     // Filter to only include items with the requested vital type data
     const filteredData = data.filter(item => {
-        const value = vitalType === 'height' ? item.height : item.weight;
+        const value = vitalValue(item, vitalType);
         return value !== undefined && value !== null && value !== '';
     });
     
@@ -1576,7 +1592,7 @@ function displayVitalsHistory(data, vitalType) {
     
     // Collect data for the chart (chronological order)
     filteredData.forEach(item => {
-        const value = vitalType === 'height' ? item.height : item.weight;
+        const value = vitalValue(item, vitalType);
         chartData.labels.push(item.date);
         chartData.values.push(parseFloat(value));
     });
@@ -1593,7 +1609,7 @@ function displayVitalsHistory(data, vitalType) {
     
     // Populate table with oldest records first
     tableData.forEach(item => {
-        const value = vitalType === 'height' ? item.height : item.weight;
+        const value = vitalValue(item, vitalType);
         
         // Add to table
         const row = document.createElement('tr');
@@ -2004,4 +2020,165 @@ function showToast(message, type = 'info') {
             toast.parentNode.removeChild(toast);
         }
     }, 3000);
-}
\ No newline at end of file
+}
+// Draft autosave: the changed text fields are sent as a patch once the doctor stops typing
+const AUTOSAVE_DELAY_MS = 3000;
+const AUTOSAVE_FIELDS = ['clinicalNotes', 'diagnosis'];
+let autosaveConsultationId = null;
+let autosaveRevision = null;
+let autosaveSavedValues = {}; // Field values the server is known to hold
+let autosaveTimer = null;
+let autosaveInFlight = false;
+let autosaveStopped = false;
+
+/**
+ * Starts watching the draft fields of the consultation form.
+ * Reads the consultation ID and the revision the page was rendered with, and records
+ * the current field values as saved.
+ */
+function initializeAutosave() {
+    const form = document.querySelector('form[action*="/consultation/save"]');
+    const idInput = form ? form.querySelector('input[name="id"]') : null;
+    if (!idInput || !idInput.value) {
+        return;
+    }
+    autosaveConsultationId = idInput.value;
+    const revisionInput = document.getElementById('consultationRevision');
+    autosaveRevision = revisionInput && revisionInput.value !== '' ? Number(revisionInput.value) : null;
+
+    AUTOSAVE_FIELDS.forEach(field => {
+        const element = form.querySelector(`[name="${field}"]`);
+        if (element) {
+            autosaveSavedValues[field] = element.value;
+            element.addEventListener('input', scheduleAutosave);
+        }
+    });
+
+    // The full form submit saves everything; no drafts after it
+    form.addEventListener('submit', stopAutosave);
+    // Save pending changes right away when the doctor leaves the tab
+    document.addEventListener('visibilitychange', function() {
+        if (document.visibilityState === 'hidden' && autosaveTimer) {
+            clearTimeout(autosaveTimer);
+            saveDraft();
+        }
+    });
+}
+
+/**
+ * (Re)starts the autosave delay; the draft is sent once no input arrived for AUTOSAVE_DELAY_MS.
+ */
+function scheduleAutosave() {
+    if (autosaveStopped) {
+        return;
+    }
+    clearTimeout(autosaveTimer);
+    autosaveTimer = setTimeout(saveDraft, AUTOSAVE_DELAY_MS);
+}
+
+/**
+ * Stops autosaving, e.g. when the form is submitted.
+ */
+function stopAutosave() {
+    autosaveStopped = true;
+    clearTimeout(autosaveTimer);
+    autosaveTimer = null;
+}
+
+/**
+ * Collects the draft fields whose value differs from the last saved value.
+ *
+ * @returns {Object} The changed field values by field name
+ */
+function collectDraftChanges() {
+    const form = document.querySelector('form[action*="/consultation/save"]');
+    const changes = {};
+    AUTOSAVE_FIELDS.forEach(field => {
+        const element = form.querySelector(`[name="${field}"]`);
+        if (element && element.value !== autosaveSavedValues[field]) {
+            changes[field] = element.value;
+        }
+    });
+    return changes;
+}
+
+/**
+ * Sends the changed draft fields with the revision they were edited against.
+ * Only one draft is in flight at a time. If the consultation was changed elsewhere but none of
+ * the changed fields were touched there, the draft is sent again against the new revision;
+ * otherwise autosaving stops and the doctor's text stays in the form for the final submit.
+ */
+async function saveDraft() {
+    autosaveTimer = null;
+    if (autosaveStopped || !autosaveConsultationId) {
+        return;
+    }
+    if (autosaveInFlight) {
+        scheduleAutosave();
+        return;
+    }
+    const changes = collectDraftChanges();
+    if (Object.keys(changes).length === 0) {
+        return;
+    }
+
+    autosaveInFlight = true;
+    setAutosaveStatus('Saving draft...');
+    try {
+        const response = await fetch(`/api/consultations/${autosaveConsultationId}/draft`, {
+            method: 'PATCH',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ revision: autosaveRevision, fields: changes })
+        });
+        const result = await response.json();
+
+        if (response.ok) {
+            autosaveRevision = result.revision;
+            Object.assign(autosaveSavedValues, changes);
+            setAutosaveStatus('Draft saved at ' + new Date().toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' }));
+        } else if (response.status === 409) {
+            const stored = result.fields || {};
+            const untouched = Object.keys(changes)
+                .every(field => (stored[field] || '') === (autosaveSavedValues[field] || ''));
+            if (untouched) {
+                autosaveRevision = result.revision;
+                setAutosaveStatus('Saving draft...');
+                scheduleAutosave();
+            } else {
+                stopAutosave();
+                setAutosaveStatus('Changed elsewhere - draft not saved', true);
+                showToast('This consultation was changed elsewhere. Your notes are kept in the form; submit it to save them.', 'warning');
+            }
+        } else {
+            stopAutosave();
+            setAutosaveStatus(result.message || 'Draft not saved', true);
+        }
+    } catch (error) {
+        console.error('Error saving consultation draft:', error);
+        setAutosaveStatus('Draft not saved - retrying', true);
+        scheduleAutosave();
+    } finally {
+        autosaveInFlight = false;
+    }
+
+    // Typing that happened while the draft was in flight
+    if (!autosaveStopped && !autosaveTimer && Object.keys(collectDraftChanges()).length > 0) {
+        scheduleAutosave();
+    }
+}
+
+/**
+ * Shows the autosave state next to the transcript label.
+ *
+ * @param {string} text - The state to show
+ * @param {boolean} isError - Whether to show it as an error
+ */
+function setAutosaveStatus(text, isError = false) {
+    const status = document.getElementById('autosaveStatus');
+    if (status) {
+        status.textContent = text;
+        status.classList.toggle('error', isError);
+    }
+}
+
+document.addEventListener('DOMContentLoaded', initializeAutosave);
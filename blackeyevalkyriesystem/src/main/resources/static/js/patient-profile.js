@@ -33,11 +33,7 @@ document.addEventListener('DOMContentLoaded', async function() {
         showLoadingState();
 
         // Fetch all required data
-        await Promise.all([
-            fetchPatientData(patientId),
-            fetchDrugsData(),
-            fetchPastConsultations(patientId)
-        ]);
+        await fetchPatientProfile(patientId);
 
         // Populate the UI with the data
         populatePatientInfo();
@@ -131,79 +127,29 @@ function showErrorMessage(message) {
 }
 
 /**
- * Fetches patient data from the API and updates the global patient object.
+ * Fetches the patient profile from the API: the patient, the names of the drugs
+ * the patient is allergic to, and the 10 most recent completed consultations.
+ * Updates the global patient, drugNamesMap and pastConsultations objects.
  * 
- * @param {string} patientId - The ID of the patient to fetch data for
+ * @param {string} patientId - The ID of the patient to fetch the profile for
  * @throws {Error} If the API request fails
  */
-async function fetchPatientData(patientId) {
+async function fetchPatientProfile(patientId) {
     try {
-        const response = await fetch(`/api/patients/${patientId}`);
+        const response = await fetch(`/api/patients/${patientId}/profile`);
         if (!response.ok) {
-            throw new Error(`Failed to fetch patient data: ${response.status} ${response.statusText}`);
+            throw new Error(`Failed to fetch patient profile: ${response.status} ${response.statusText}`);
         }
         
-        patient = await response.json();
-        console.log("Patient data fetched successfully:", patient);
-    } catch (error) {
-        console.error("Error fetching patient data:", error);
-        throw error;
-    }
-}
-
-/**
- * Fetches drug data from the API and builds a map of drug IDs to names.
- * Updates the global drugNamesMap object for use in displaying allergies.
- * 
- * @throws {Error} If the API request fails
- */
-async function fetchDrugsData() {
-    try {
-        const response = await fetch('/api/drugs');
-        if (!response.ok) {
-            throw new Error(`Failed to fetch drugs data: ${response.status} ${response.statusText}`);
-        }
-        
-        const drugs = await response.json();
-        
-        // Convert the array to a map of id -> name
-        drugNamesMap = drugs.reduce((map, drug) => {
-            map[drug.id] = drug.name;
-            return map;
-        }, {});
-        
-        console.log("Drugs data fetched successfully:", drugs.length, "drugs loaded");
-    } catch (error) {
-        console.error("Error fetching drugs data:", error);
-        throw error;
-    }
-}
-
-/**
- * Fetches past consultations for a specific patient from the API.
- * Updates the global pastConsultations array with the 10 most recent completed consultations.
- * 
- * @param {string} patientId - The ID of the patient to fetch consultations for
- * @throws {Error} If the API request fails
- */
-async function fetchPastConsultations(patientId) {
-    try {
-        const response = await fetch(`/api/consultations/patient/${patientId}`);
-        if (!response.ok) {
-            throw new Error(`Failed to fetch consultations: ${response.status} ${response.statusText}`);
-        }
-        
-        const allConsultations = await response.json();
-        
-        // Filter to only include completed consultations
-        pastConsultations = allConsultations
-            .filter(c => c.status === 'Completed')
-            .sort((a, b) => new Date(b.consultationDateTime) - new Date(a.consultationDateTime))
-            .slice(0, 10); // Limit to 10 most recent
+        const profile = await response.json();
+        patient = profile.patient || {};
+        drugNamesMap = profile.drugNames || {};
+        // Already limited to completed consultations, newest first
+        pastConsultations = profile.pastConsultations || [];
         
-        console.log("Past consultations fetched successfully:", pastConsultations.length, "consultations found");
+        console.log("Patient profile fetched successfully:", pastConsultations.length, "consultations found");
     } catch (error) {
-        console.error("Error fetching consultations:", error);
+        console.error("Error fetching patient profile:", error);
         throw error;
     }
 }
@@ -280,9 +226,7 @@ function populatePastConsultations() {
             const dateObj = new Date(consult.consultationDateTime);
             const formattedDate = dateObj.toISOString().split('T')[0];
             
-            // Calculate doctor name
-            const doctorName = consult.doctor ? 
-                `${consult.doctor.firstName} ${consult.doctor.lastName}` : 'Unknown';
+            const doctorName = consult.doctorName || 'Unknown';
             
             // Format height, weight and blood pressure with units
             const height = consult.vitalSigns && consult.vitalSigns.height ? 
@@ -330,6 +274,7 @@ function populatePastConsultations() {
                         data-weight="${consult.vitalSigns ? consult.vitalSigns.weight : ''}"
                         data-o2="${consult.vitalSigns ? consult.vitalSigns.oxygenSaturation : ''}"
                         data-bmi="${consult.vitalSigns ? consult.vitalSigns.bmi : ''}"
+                        data-medications="${consult.prescription && consult.prescription.medications ? consult.prescription.medications.join('\n') : ''}"
                         onclick="showConsultationDetails(this)">
                         View
                     </button>
@@ -421,6 +366,7 @@ function showConsultationDetails(element) {
     document.getElementById('modalWeight').textContent = data.weight ? data.weight + ' kg' : 'Not recorded';
     document.getElementById('modalHeight').textContent = data.height ? data.height + ' cm' : 'Not recorded';
     document.getElementById('modalBMI').textContent = data.bmi ? data.bmi : 'Not recorded';
+    document.getElementById('modalPrescription').textContent = data.medications || 'No prescription';
     
     // Show the modal
     document.getElementById('consultationDetailsModal').style.display = 'block';
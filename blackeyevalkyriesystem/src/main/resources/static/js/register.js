@@ -178,6 +178,8 @@ document.addEventListener('DOMContentLoaded', function() {
                 setTimeout(() => {
                     modal.classList.add('active');
                 }, 10);
+            } else if (data.message && data.message.startsWith('Too many')) {
+                alert(data.message);
             } else {
                 alert('Invalid or expired license key. Please try again with a valid key.');
             }
@@ -0,0 +1,93 @@
+package com.scorppultd.blackeyevalkyriesystem.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scorppultd.blackeyevalkyriesystem.dto.DeviceVitalsReadingDTO;
+import com.scorppultd.blackeyevalkyriesystem.service.VitalsIngestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceVitalsApiControllerTest {
+
+    private static final String READING = "{\"patientId\":\"p1\",\"heartRate\":70}";
+
+    @Mock
+    private VitalsIngestionService vitalsIngestionService;
+
+    private DeviceVitalsApiController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new DeviceVitalsApiController(vitalsIngestionService, new ObjectMapper().findAndRegisterModules());
+        when(vitalsIngestionService.getMaxReadingsPerRequest()).thenReturn(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void jsonArrayWithinLimitIsSubmitted() {
+        // Given
+        when(vitalsIngestionService.submit(any())).thenReturn(true);
+
+        // When
+        ResponseEntity<?> response = controller.ingestVitals(body("[" + READING + "," + READING + "]"));
+
+        // Then
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        ArgumentCaptor<List<DeviceVitalsReadingDTO>> readings = ArgumentCaptor.forClass(List.class);
+        verify(vitalsIngestionService).submit(readings.capture());
+        assertEquals(2, readings.getValue().size());
+        assertEquals("p1", readings.getValue().get(0).getPatientId());
+    }
+
+    @Test
+    void jsonArrayOverLimitIsRefusedWithoutSubmitting() {
+        // When
+        ResponseEntity<?> response = controller.ingestVitals(
+                body("[" + READING + "," + READING + "," + READING + ",{\"unterminated\""));
+
+        // Then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        verify(vitalsIngestionService, never()).submit(any());
+    }
+
+    @Test
+    void jsonBodyThatIsNotAnArrayIsRejected() {
+        // When
+        ResponseEntity<?> response = controller.ingestVitals(body(READING));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(vitalsIngestionService, never()).submit(any());
+    }
+
+    @Test
+    void ndjsonOverLimitIsRefusedWithoutSubmitting() {
+        // When
+        ResponseEntity<?> response = controller.ingestVitalsStream(
+                body(READING + "\n" + READING + "\n" + READING + "\n{\"unterminated\""));
+
+        // Then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        verify(vitalsIngestionService, never()).submit(any());
+    }
+
+    private static MockHttpServletRequest body(String content) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(content.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
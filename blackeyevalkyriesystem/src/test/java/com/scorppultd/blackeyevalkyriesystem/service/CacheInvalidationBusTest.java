@@ -0,0 +1,92 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import com.scorppultd.blackeyevalkyriesystem.service.CacheInvalidationEvent.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    private static final String LOG_COLLECTION = "cache_invalidations";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private CacheInvalidationBus bus;
+    private List<CacheInvalidationEvent> received;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(mongoTemplate, new SimpleMeterRegistry(), false, 2000, 60, "test-node");
+        received = new ArrayList<>();
+        bus.register(Source.USERS, received::add);
+        when(mongoTemplate.executeCommand(any(Document.class)))
+                .thenReturn(new Document("localTime", new Date(System.currentTimeMillis())));
+    }
+
+    @Test
+    void pagesPastEntriesWrittenAtTheSameTime() {
+        // Given more entries with one timestamp than fit in a page
+        Date createdAt = new Date(System.currentTimeMillis() - 5_000);
+        List<Document> firstPage = entries(createdAt, 1000);
+        List<Document> secondPage = entries(createdAt, 3);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(LOG_COLLECTION)))
+                .thenReturn(firstPage, secondPage);
+
+        // When
+        CacheInvalidationBus.LogPosition position = bus.dispatchLogEntries(CacheInvalidationBus.LogPosition.START);
+
+        // Then every entry is dispatched once and the second page starts after the last ID of the first
+        assertEquals(1003, received.size());
+        assertEquals(secondPage.get(2).getObjectId("_id"), position.id());
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(Document.class), eq(LOG_COLLECTION));
+        String secondQuery = queries.getAllValues().get(1).getQueryObject().toJson();
+        assertTrue(secondQuery.contains(firstPage.get(999).getObjectId("_id").toHexString()));
+    }
+
+    @Test
+    void keepsPositionWhenNothingIsNew() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(LOG_COLLECTION))).thenReturn(List.of());
+        CacheInvalidationBus.LogPosition after = new CacheInvalidationBus.LogPosition(new Date(), new ObjectId());
+
+        // When
+        CacheInvalidationBus.LogPosition position = bus.dispatchLogEntries(after);
+
+        // Then
+        assertEquals(after, position);
+        assertTrue(received.isEmpty());
+    }
+
+    private static List<Document> entries(Date createdAt, int count) {
+        List<Document> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new Document("_id", new ObjectId())
+                    .append("createdAt", createdAt)
+                    .append("source", "users")
+                    .append("operation", "UPSERT")
+                    .append("documentId", "user-" + i)
+                    .append("key", "username" + i));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,80 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientSearchKeysTest {
+
+    @Test
+    void patientKeysHoldNamePrefixesAndNumberWithoutCountryCode() {
+        // When
+        List<String> keys = PatientSearchKeys.forPatient("José", "Smith", null, "+44 0123 456 789", null);
+
+        // Then
+        assertTrue(keys.contains("w:jose"));
+        assertTrue(keys.contains("p:sm"));
+        assertTrue(keys.contains("p:smit"));
+        assertTrue(keys.contains("ph:440123456789"));
+        assertTrue(keys.contains("ph:0123456"));
+        assertFalse(keys.contains("ph:44"));
+    }
+
+    @Test
+    void queryJoinsNumberTypedWithSpacesIntoOneTerm() {
+        // When
+        List<List<PatientSearchKeys.WeightedKeys>> terms = PatientSearchKeys.forQuery("0123 456");
+
+        // Then
+        assertEquals(1, terms.size());
+        assertEquals(List.of("ph:0123456"), terms.get(0).get(0).keys());
+    }
+
+    @Test
+    void queryKeepsNameAndNumberAsSeparateTerms() {
+        // When
+        List<List<PatientSearchKeys.WeightedKeys>> terms = PatientSearchKeys.forQuery("smith 0123 456 jo");
+
+        // Then
+        assertEquals(3, terms.size());
+        assertTrue(allKeys(terms.get(0)).contains("w:smith"));
+        assertEquals(List.of("ph:0123456"), terms.get(1).get(0).keys());
+        assertTrue(allKeys(terms.get(2)).contains("p:jo"));
+    }
+
+    @Test
+    void queryMatchesMisspelledNamesPhonetically() {
+        // When
+        List<String> smith = allKeys(PatientSearchKeys.forQuery("Smith").get(0));
+        List<String> smyth = allKeys(PatientSearchKeys.forQuery("Smyth").get(0));
+
+        // Then
+        assertTrue(smith.stream().anyMatch(key -> key.startsWith("sx:") && smyth.contains(key)));
+    }
+
+    @Test
+    void queryMatchesEmailAndDropsTooShortTerms() {
+        // When
+        List<List<PatientSearchKeys.WeightedKeys>> terms = PatientSearchKeys.forQuery("a 12 Jo@Example.com");
+
+        // Then
+        assertEquals(1, terms.size());
+        assertEquals(List.of("em:jo@example.com"), terms.get(0).get(0).keys());
+    }
+
+    @Test
+    void namePrefixesCoverEveryWordLongEnoughToMatch() {
+        // When
+        List<String> keys = PatientSearchKeys.forNamePrefixes(" José  s Smithsonian-Whitfield jo");
+
+        // Then
+        assertEquals(List.of("p:jose", "p:smithsonian", "p:whitfield", "p:jo"), keys);
+        assertTrue(PatientSearchKeys.forPatient("José", "Smithsonian-Whitfield", null, null, null).containsAll(keys));
+    }
+
+    private static List<String> allKeys(List<PatientSearchKeys.WeightedKeys> term) {
+        return term.stream().flatMap(weighted -> weighted.keys().stream()).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientSimilarityTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Test
+    void jaroWinklerMatchesKnownValues() {
+        assertEquals(1.0, PatientSimilarity.jaroWinkler("martha", "martha"));
+        assertEquals(0.961, PatientSimilarity.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, PatientSimilarity.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(0.813, PatientSimilarity.jaroWinkler("dixon", "dicksonx"), 0.001);
+    }
+
+    @Test
+    void jaroWinklerScoresMissingOrUnrelatedStringsZero() {
+        assertEquals(0.0, PatientSimilarity.jaroWinkler(null, "smith"));
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("", "smith"));
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("abc", "xyz"));
+    }
+
+    @Test
+    void blockingKeysCombineNameCodeWithBirthYearContactAndEmail() {
+        // When
+        List<String> keys = PatientSimilarity.blockingKeys("Smith", LocalDate.of(1980, 3, 4), null,
+                "+44 (0)1234 567 890", " Jane@Example.com ", TODAY);
+
+        // Then
+        assertEquals(List.of("n:SM0:1980", "c:1234567890", "e:jane@example.com"), keys);
+    }
+
+    @Test
+    void blockingKeysCoverBothPossibleBirthYearsOfAnAge() {
+        // When
+        List<String> keys = PatientSimilarity.blockingKeys("Smith", null, 40, null, null, TODAY);
+
+        // Then
+        assertEquals(List.of("n:SM0:1984", "n:SM0:1983"), keys);
+    }
+
+    @Test
+    void misspelledLastNamesShareTheirNameKey() {
+        // When
+        List<String> smith = PatientSimilarity.blockingKeys("Smith", LocalDate.of(1980, 3, 4), null, null, null, TODAY);
+        List<String> smyth = PatientSimilarity.blockingKeys("Smyth", LocalDate.of(1980, 7, 1), null, null, null, TODAY);
+
+        // Then
+        assertEquals(smith, smyth);
+    }
+
+    @Test
+    void blockingKeysLeaveOutShortNumbersAndBlankEmails() {
+        // When
+        List<String> keys = PatientSimilarity.blockingKeys("", null, null, "12-34", "  ", TODAY);
+
+        // Then
+        assertTrue(keys.isEmpty());
+    }
+}
@@ -0,0 +1,151 @@
+package com.scorppultd.blackeyevalkyriesystem.service;
+
+import com.scorppultd.blackeyevalkyriesystem.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledJobLockTest {
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private ScheduledJobLock scheduledJobLock;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduledJobLock != null) {
+            scheduledJobLock.shutdown();
+        }
+    }
+
+    @Test
+    void skipsJobWhenAnotherNodeHoldsTheLease() {
+        // Given
+        scheduledJobLock = lock(300, 60, 60);
+        when(jobLeaseRepository.tryAcquire(eq("job"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(false);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // When
+        boolean result = scheduledJobLock.runExclusively("job", () -> ran.set(true));
+
+        // Then
+        assertFalse(result);
+        assertFalse(ran.get());
+        verify(jobLeaseRepository, never()).release(anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    void runsJobAndKeepsLeaseForMinimumHold() {
+        // Given
+        scheduledJobLock = lock(300, 60, 60);
+        when(jobLeaseRepository.tryAcquire(eq("job"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+        AtomicBoolean ran = new AtomicBoolean();
+        Instant before = Instant.now();
+
+        // When
+        boolean result = scheduledJobLock.runExclusively("job", () -> ran.set(true));
+
+        // Then
+        assertTrue(result);
+        assertTrue(ran.get());
+        ArgumentCaptor<Instant> heldUntil = ArgumentCaptor.forClass(Instant.class);
+        verify(jobLeaseRepository).release(eq("job"), eq(scheduledJobLock.getHolder()), heldUntil.capture());
+        assertFalse(heldUntil.getValue().isBefore(before.plus(Duration.ofSeconds(60))));
+    }
+
+    @Test
+    void releasesLeaseWhenJobFails() {
+        // Given
+        scheduledJobLock = lock(300, 60, 0);
+        when(jobLeaseRepository.tryAcquire(eq("job"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> scheduledJobLock.runExclusively("job", () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        // Then
+        verify(jobLeaseRepository).release(eq("job"), eq(scheduledJobLock.getHolder()), any(Instant.class));
+    }
+
+    @Test
+    void extendsLeaseWhileJobRuns() {
+        // Given a 2 second lease, extended every second
+        scheduledJobLock = lock(2, 1, 0);
+        when(jobLeaseRepository.tryAcquire(eq("job"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+        when(jobLeaseRepository.extend(eq("job"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+
+        // When
+        scheduledJobLock.runExclusively("job", () -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Then
+        verify(jobLeaseRepository, atLeastOnce()).extend(eq("job"), eq(scheduledJobLock.getHolder()),
+                any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    void runsTaskHoldingAllLeasesAndReleasesThemAtOnce() {
+        // Given
+        scheduledJobLock = lock(300, 60, 60);
+        when(jobLeaseRepository.tryAcquire(anyString(), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+        AtomicBoolean ran = new AtomicBoolean();
+        Instant before = Instant.now();
+
+        // When
+        boolean result = scheduledJobLock.runHoldingAll(List.of("b", "a"), () -> ran.set(true));
+
+        // Then
+        assertTrue(result);
+        assertTrue(ran.get());
+        ArgumentCaptor<Instant> releasedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(jobLeaseRepository).release(eq("a"), eq(scheduledJobLock.getHolder()), releasedAt.capture());
+        verify(jobLeaseRepository).release(eq("b"), eq(scheduledJobLock.getHolder()), any(Instant.class));
+        assertTrue(releasedAt.getValue().isBefore(before.plus(Duration.ofSeconds(60))));
+    }
+
+    @Test
+    void givesBackTakenLeasesWhenAnotherIsHeld() {
+        // Given
+        scheduledJobLock = lock(300, 60, 60);
+        when(jobLeaseRepository.tryAcquire(eq("a"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(true);
+        when(jobLeaseRepository.tryAcquire(eq("b"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(false);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // When
+        boolean result = scheduledJobLock.runHoldingAll(List.of("b", "a"), () -> ran.set(true));
+
+        // Then
+        assertFalse(result);
+        assertFalse(ran.get());
+        verify(jobLeaseRepository).release(eq("a"), eq(scheduledJobLock.getHolder()), any(Instant.class));
+        verify(jobLeaseRepository, never()).release(eq("b"), anyString(), any(Instant.class));
+    }
+
+    private ScheduledJobLock lock(long leaseSeconds, long heartbeatSeconds, long minimumHoldSeconds) {
+        return new ScheduledJobLock(jobLeaseRepository, new SimpleMeterRegistry(),
+                leaseSeconds, heartbeatSeconds, minimumHoldSeconds);
+    }
+}
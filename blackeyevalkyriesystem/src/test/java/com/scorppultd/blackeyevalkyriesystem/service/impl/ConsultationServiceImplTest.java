@@ -0,0 +1,129 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.ConsultationDraftDTO;
+import com.scorppultd.blackeyevalkyriesystem.exception.ResourceNotFoundException;
+import com.scorppultd.blackeyevalkyriesystem.model.Consultation;
+import com.scorppultd.blackeyevalkyriesystem.model.ConsultationNarrative;
+import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationNarrativeRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.ConsultationRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PrescriptionRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.AppointmentService;
+import com.scorppultd.blackeyevalkyriesystem.service.DoctorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsultationServiceImplTest {
+
+    private static final String CONSULTATION_ID = "consultation-1";
+
+    @Mock
+    private ConsultationRepository consultationRepository;
+
+    @Mock
+    private PrescriptionRepository prescriptionRepository;
+
+    @Mock
+    private AppointmentService appointmentService;
+
+    @Mock
+    private DoctorService doctorService;
+
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private ConsultationNarrativeRepository consultationNarrativeRepository;
+
+    private ConsultationServiceImpl consultationService;
+
+    @BeforeEach
+    void setUp() {
+        consultationService = new ConsultationServiceImpl(consultationRepository, prescriptionRepository,
+                appointmentService, doctorService, partialUpdateRepository, consultationNarrativeRepository);
+    }
+
+    @Test
+    void saveDraftWritesHeaderAndNarrativeWithTheNextRevision() {
+        // Given
+        when(partialUpdateRepository.updateFirst(eq(Consultation.class), any(Criteria.class), any(Update.class))).thenReturn(true);
+
+        // When
+        long revision = consultationService.saveDraft(CONSULTATION_ID,
+                new ConsultationDraftDTO(4L, Map.of("diagnosis", "Flu", "clinicalNotes", "Rest")));
+
+        // Then
+        assertEquals(5, revision);
+        ArgumentCaptor<Criteria> criteria = ArgumentCaptor.forClass(Criteria.class);
+        verify(partialUpdateRepository).updateFirst(eq(Consultation.class), criteria.capture(), any(Update.class));
+        assertEquals(4L, criteria.getValue().getCriteriaObject().get("version"));
+        ArgumentCaptor<ConsultationNarrative> narrative = ArgumentCaptor.forClass(ConsultationNarrative.class);
+        verify(consultationNarrativeRepository).saveFields(narrative.capture());
+        assertEquals("Rest", narrative.getValue().getClinicalNotes());
+        assertEquals(5L, narrative.getValue().getRevision());
+    }
+
+    @Test
+    void saveDraftRejectsOutdatedRevisionWithoutWritingTheNarrative() {
+        // Given
+        when(partialUpdateRepository.updateFirst(eq(Consultation.class), any(Criteria.class), any(Update.class))).thenReturn(false);
+        Consultation current = new Consultation();
+        current.setStatus("In-Progress");
+        current.setVersion(6L);
+        when(consultationRepository.findDraftStateById(CONSULTATION_ID)).thenReturn(Optional.of(current));
+
+        // When / Then
+        assertThrows(OptimisticLockingFailureException.class, () -> consultationService.saveDraft(CONSULTATION_ID,
+                new ConsultationDraftDTO(4L, Map.of("clinicalNotes", "Rest"))));
+        verify(consultationNarrativeRepository, never()).saveFields(any());
+    }
+
+    @Test
+    void saveDraftRejectsCompletedConsultation() {
+        // Given
+        when(partialUpdateRepository.updateFirst(eq(Consultation.class), any(Criteria.class), any(Update.class))).thenReturn(false);
+        Consultation current = new Consultation();
+        current.setStatus("Completed");
+        when(consultationRepository.findDraftStateById(CONSULTATION_ID)).thenReturn(Optional.of(current));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> consultationService.saveDraft(CONSULTATION_ID,
+                new ConsultationDraftDTO(4L, Map.of("diagnosis", "Flu"))));
+        verify(consultationNarrativeRepository, never()).saveFields(any());
+    }
+
+    @Test
+    void saveDraftReportsMissingConsultationAsNotFound() {
+        // Given
+        when(partialUpdateRepository.updateFirst(eq(Consultation.class), any(Criteria.class), any(Update.class))).thenReturn(false);
+        when(consultationRepository.findDraftStateById(CONSULTATION_ID)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(ResourceNotFoundException.class, () -> consultationService.saveDraft(CONSULTATION_ID,
+                new ConsultationDraftDTO(4L, Map.of("diagnosis", "Flu"))));
+    }
+
+    @Test
+    void saveDraftRejectsDraftWithoutRevision() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> consultationService.saveDraft(CONSULTATION_ID,
+                new ConsultationDraftDTO(null, Map.of("diagnosis", "Flu"))));
+        verifyNoInteractions(partialUpdateRepository, consultationNarrativeRepository);
+    }
+}
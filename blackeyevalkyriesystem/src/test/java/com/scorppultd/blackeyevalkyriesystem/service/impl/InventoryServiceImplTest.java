@@ -0,0 +1,185 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import com.scorppultd.blackeyevalkyriesystem.model.Drug;
+import com.scorppultd.blackeyevalkyriesystem.model.DrugStock;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.model.StockMovement;
+import com.scorppultd.blackeyevalkyriesystem.model.StockReservation;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugStockRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.StockMovementRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.StockReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceImplTest {
+
+    private static final UpdateResult MODIFIED = UpdateResult.acknowledged(1, 1L, null);
+    private static final UpdateResult NOT_MODIFIED = UpdateResult.acknowledged(0, 0L, null);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DrugStockRepository drugStockRepository;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private DrugRepository drugRepository;
+
+    private InventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = new InventoryServiceImpl(mongoTemplate, drugStockRepository, stockReservationRepository,
+                stockMovementRepository, drugRepository, new SimpleMeterRegistry(), 2, 10);
+    }
+
+    @Test
+    void reserveTakesWholeQuantityFromOneStripeWhenItHasEnough() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DrugStock.class))).thenReturn(MODIFIED);
+        when(stockReservationRepository.insert(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        int shortfalls = inventoryService.reserveForPrescription(prescription(6));
+
+        // Then
+        assertEquals(0, shortfalls);
+        List<StockReservation> reservations = insertedReservations();
+        assertEquals(1, reservations.size());
+        assertEquals(6, reservations.get(0).getQuantity());
+        assertEquals(StockReservation.Status.RESERVED, reservations.get(0).getStatus());
+        verify(drugStockRepository, never()).findByDrugIdOrderByStripe(anyString());
+    }
+
+    @Test
+    void reserveSplitsQuantityOverStripesWhenNoStripeHasEnough() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DrugStock.class)))
+                .thenReturn(NOT_MODIFIED, MODIFIED, MODIFIED);
+        when(drugStockRepository.findByDrugIdOrderByStripe("drug-1"))
+                .thenReturn(List.of(stripe(0, 3), stripe(1, 4)));
+        when(stockReservationRepository.insert(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        int shortfalls = inventoryService.reserveForPrescription(prescription(6));
+
+        // Then
+        assertEquals(0, shortfalls);
+        List<StockReservation> reservations = insertedReservations();
+        assertEquals(2, reservations.size());
+        // The fullest stripe is drawn from first
+        assertEquals(1, reservations.get(0).getStripe());
+        assertEquals(4, reservations.get(0).getQuantity());
+        assertEquals(0, reservations.get(1).getStripe());
+        assertEquals(2, reservations.get(1).getQuantity());
+    }
+
+    @Test
+    void reserveReleasesPartialReservationsOnShortfall() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DrugStock.class)))
+                .thenReturn(NOT_MODIFIED, MODIFIED);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockReservation.class))).thenReturn(MODIFIED);
+        when(drugStockRepository.findByDrugIdOrderByStripe("drug-1"))
+                .thenReturn(List.of(stripe(0, 3), stripe(1, 4)));
+        when(stockReservationRepository.insert(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        int shortfalls = inventoryService.reserveForPrescription(prescription(10));
+
+        // Then
+        assertEquals(1, shortfalls);
+        assertEquals(2, insertedReservations().size());
+        assertEquals(2, movementsOfType(StockMovement.Type.RELEASE).size());
+        assertEquals(7, movementsOfType(StockMovement.Type.RELEASE).stream().mapToInt(StockMovement::getQuantity).sum());
+    }
+
+    @Test
+    void reserveSkipsDrugsThatAreNotStocked() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DrugStock.class))).thenReturn(NOT_MODIFIED);
+        when(drugStockRepository.findByDrugIdOrderByStripe("drug-1")).thenReturn(new ArrayList<>());
+
+        // When
+        int shortfalls = inventoryService.reserveForPrescription(prescription(6));
+
+        // Then
+        assertEquals(0, shortfalls);
+        verify(stockReservationRepository, never()).insert(any(StockReservation.class));
+    }
+
+    @Test
+    void dispenseRefillCommitsOnlyTheRefillReservation() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DrugStock.class))).thenReturn(MODIFIED);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockReservation.class))).thenReturn(MODIFIED);
+        when(stockReservationRepository.insert(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        boolean taken = inventoryService.dispenseRefill("rx-1", prescription(6).getPrescriptionItems().get(0));
+
+        // Then
+        assertTrue(taken);
+        List<StockMovement> dispensed = movementsOfType(StockMovement.Type.DISPENSE);
+        assertEquals(1, dispensed.size());
+        assertEquals(6, dispensed.get(0).getQuantity());
+        assertEquals("item-1", dispensed.get(0).getItemId());
+        // Other open reservations of the prescription are left alone
+        verify(stockReservationRepository, never()).findByPrescriptionIdAndStatus(anyString(), anyString());
+    }
+
+    private List<StockReservation> insertedReservations() {
+        ArgumentCaptor<StockReservation> captor = ArgumentCaptor.forClass(StockReservation.class);
+        verify(stockReservationRepository, atLeast(0)).insert(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private List<StockMovement> movementsOfType(String type) {
+        ArgumentCaptor<StockMovement> captor = ArgumentCaptor.forClass(StockMovement.class);
+        verify(stockMovementRepository, atLeast(0)).insert(captor.capture());
+        return captor.getAllValues().stream().filter(movement -> type.equals(movement.getType())).toList();
+    }
+
+    private static Prescription prescription(int quantity) {
+        Drug drug = new Drug();
+        drug.setId("drug-1");
+        Prescription.PrescriptionItem item = new Prescription.PrescriptionItem();
+        item.setItemId("item-1");
+        item.setDrug(drug);
+        item.setQuantity(quantity);
+        Prescription prescription = new Prescription();
+        prescription.setId("rx-1");
+        prescription.setPrescriptionItems(List.of(item));
+        return prescription;
+    }
+
+    private static DrugStock stripe(int stripe, int available) {
+        return DrugStock.builder().drugId("drug-1").stripe(stripe).onHand(available).available(available).build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.scorppultd.blackeyevalkyriesystem.service.impl;
+
+import com.scorppultd.blackeyevalkyriesystem.dto.RefillOutcomeDTO;
+import com.scorppultd.blackeyevalkyriesystem.model.Prescription;
+import com.scorppultd.blackeyevalkyriesystem.repository.DrugRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PartialUpdateRepository;
+import com.scorppultd.blackeyevalkyriesystem.repository.PrescriptionRepository;
+import com.scorppultd.blackeyevalkyriesystem.service.InventoryService;
+import com.scorppultd.blackeyevalkyriesystem.service.ScheduledJobLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrescriptionServiceImplTest {
+
+    @Mock
+    private PrescriptionRepository prescriptionRepository;
+
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private DrugRepository drugRepository;
+
+    @Mock
+    private ScheduledJobLock scheduledJobLock;
+
+    private PrescriptionServiceImpl prescriptionService;
+
+    @BeforeEach
+    void setUp() {
+        prescriptionService = new PrescriptionServiceImpl(prescriptionRepository, partialUpdateRepository,
+                inventoryService, drugRepository, new SimpleMeterRegistry(), scheduledJobLock, 500, 0);
+    }
+
+    @Test
+    void dispenseRefillsReportsEveryItemAndTakesStockOnlyForDispensedOnes() {
+        // Given
+        Prescription.PrescriptionItem refilled = new Prescription.PrescriptionItem();
+        refilled.setItemId("item-1");
+        refilled.setRefillsRemaining(2);
+        when(prescriptionRepository.dispenseRefills(Map.of("rx-1", Set.of("item-1", "item-2"))))
+                .thenReturn(Map.of("rx-1", Map.of("item-1", refilled)));
+
+        // When
+        List<RefillOutcomeDTO> outcomes = prescriptionService.dispenseRefills(
+                Map.of("rx-1", List.of("item-1", "item-2", "item-1")));
+
+        // Then
+        assertEquals(2, outcomes.size());
+        assertTrue(outcomes.get(0).isDispensed());
+        assertEquals(2, outcomes.get(0).getRefillsRemaining());
+        assertFalse(outcomes.get(1).isDispensed());
+        assertEquals("item-2", outcomes.get(1).getItemId());
+        verify(inventoryService).dispenseRefill(eq("rx-1"), eq(refilled));
+        verifyNoMoreInteractions(inventoryService);
+    }
+
+    @Test
+    void dispenseRefillsKeepsRefillWhenTakingStockFails() {
+        // Given
+        Prescription.PrescriptionItem refilled = new Prescription.PrescriptionItem();
+        refilled.setItemId("item-1");
+        refilled.setRefillsRemaining(0);
+        when(prescriptionRepository.dispenseRefills(anyMap())).thenReturn(Map.of("rx-1", Map.of("item-1", refilled)));
+        when(inventoryService.dispenseRefill(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        // When
+        List<RefillOutcomeDTO> outcomes = prescriptionService.dispenseRefills(Map.of("rx-1", List.of("item-1")));
+
+        // Then
+        assertTrue(outcomes.get(0).isDispensed());
+        assertEquals(0, outcomes.get(0).getRefillsRemaining());
+    }
+
+    @Test
+    void dispenseRefillsSkipsMissingItemIds() {
+        // Given
+        when(prescriptionRepository.dispenseRefills(anyMap())).thenReturn(Map.of());
+
+        // When
+        List<RefillOutcomeDTO> outcomes = prescriptionService.dispenseRefills(
+                Map.of("rx-1", Arrays.asList("item-1", null)));
+
+        // Then
+        assertEquals(1, outcomes.size());
+        assertFalse(outcomes.get(0).isDispensed());
+        verify(prescriptionRepository).dispenseRefills(Map.of("rx-1", Set.of("item-1")));
+        verifyNoInteractions(inventoryService);
+    }
+}